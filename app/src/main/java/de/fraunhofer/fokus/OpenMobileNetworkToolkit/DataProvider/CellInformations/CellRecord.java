@@ -0,0 +1,97 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations;
+
+import java.util.Objects;
+
+/**
+ * Mutable, recycled record of a single cell or signal strength measurement.
+ * Holds the identity of the cell and its measured values as primitives, so the radio callbacks
+ * can read a measurement and compare it to the last one without allocating. Records are taken
+ * from a {@link CellRecordPool} and must not be kept after they were released.
+ */
+public final class CellRecord {
+    public static final int MAX_VALUES = 16;
+
+    private CellType type;
+    private long cellId;
+    private boolean registered;
+    // references to the strings of the system object, compared by value
+    private String mcc;
+    private String mnc;
+    private final int[] values = new int[MAX_VALUES];
+    private int size;
+
+    CellRecord() {
+    }
+
+    /**
+     * Start a new measurement, drops the values of the previous one.
+     *
+     * @return the record for chaining
+     */
+    public CellRecord reset(CellType type, long cellId, boolean registered, String mcc, String mnc) {
+        this.type = type;
+        this.cellId = cellId;
+        this.registered = registered;
+        this.mcc = mcc;
+        this.mnc = mnc;
+        this.size = 0;
+        return this;
+    }
+
+    /**
+     * Add a measured value, values beyond {@link #MAX_VALUES} are ignored.
+     *
+     * @return the record for chaining
+     */
+    public CellRecord add(int value) {
+        if (size < MAX_VALUES) values[size++] = value;
+        return this;
+    }
+
+    public CellType getType() {
+        return type;
+    }
+
+    public long getCellId() {
+        return cellId;
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index + " >= " + size);
+        return values[index];
+    }
+
+    /**
+     * @return true if both records hold the same measurement of the same cell
+     */
+    public boolean sameAs(CellRecord other) {
+        if (type != other.type || cellId != other.cellId || registered != other.registered
+                || size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] != other.values[i]) return false;
+        }
+        return Objects.equals(mcc, other.mcc) && Objects.equals(mnc, other.mnc);
+    }
+
+    void clear() {
+        reset(null, 0, false, null, null);
+    }
+}
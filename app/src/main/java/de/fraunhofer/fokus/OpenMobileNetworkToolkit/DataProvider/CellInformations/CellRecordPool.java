@@ -0,0 +1,60 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations;
+
+import java.util.Arrays;
+
+/**
+ * Pool of {@link CellRecord}s. Records are only created while the pool is empty, so after the
+ * first callbacks with the max number of visible cells no records are allocated anymore.
+ * Not thread safe, the owner must synchronize.
+ */
+public final class CellRecordPool {
+    private CellRecord[] free = new CellRecord[32];
+    private int freeCount;
+    private long created;
+
+    /**
+     * @return a recycled record, or a new one if the pool is empty
+     */
+    public CellRecord acquire() {
+        if (freeCount == 0) {
+            created++;
+            return new CellRecord();
+        }
+        CellRecord record = free[--freeCount];
+        free[freeCount] = null;
+        return record;
+    }
+
+    /**
+     * Give a record back to the pool, it must not be used by the caller afterwards
+     */
+    public void release(CellRecord record) {
+        record.clear();
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = record;
+    }
+
+    /**
+     * @return number of records created by the pool
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return number of records waiting in the pool
+     */
+    public int getFree() {
+        return freeCount;
+    }
+}
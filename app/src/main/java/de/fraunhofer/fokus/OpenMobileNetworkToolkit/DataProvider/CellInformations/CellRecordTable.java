@@ -0,0 +1,163 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Last published measurements of a radio callback, kept as pooled {@link CellRecord}s next to
+ * the immutable objects published for them.
+ * A callback starts with {@link #begin()}, reads its measurements into records with
+ * {@link #next()} and calls {@link #commit()}, which matches them against the last published
+ * ones. If nothing changed the records go back to the pool and nothing is allocated. Otherwise
+ * the callback creates
+ * published objects only for the changed measurements, unchanged ones keep their object, and
+ * {@link #publish()} copies them into a new immutable list for the readers.
+ * Not thread safe, the owner must synchronize.
+ *
+ * @param <P> type of the published objects
+ */
+public final class CellRecordTable<P> {
+    private final CellRecordPool pool;
+    private CellRecord[] records = new CellRecord[16];
+    private Object[] published = new Object[16];
+    private int size;
+    private CellRecord[] nextRecords = new CellRecord[16];
+    private Object[] nextPublished = new Object[16];
+    private int nextSize;
+    private boolean[] matched = new boolean[16];
+
+    public CellRecordTable(CellRecordPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Start the measurements of a callback, drops those of an earlier callback which were not
+     * published
+     */
+    public void begin() {
+        releaseNext();
+    }
+
+    /**
+     * @return an empty record for the next measurement of the current callback
+     */
+    public CellRecord next() {
+        if (nextSize == nextRecords.length) {
+            nextRecords = Arrays.copyOf(nextRecords, nextSize * 2);
+            nextPublished = Arrays.copyOf(nextPublished, nextSize * 2);
+        }
+        CellRecord record = pool.acquire();
+        nextRecords[nextSize++] = record;
+        return record;
+    }
+
+    /**
+     * Match the measurements of the current callback against the last published ones.
+     *
+     * @return false if nothing changed, the measurements are dropped. true if they have to be
+     * published, unchanged measurements already carry their published object
+     */
+    public boolean commit() {
+        if (matched.length < size) matched = new boolean[records.length];
+        Arrays.fill(matched, 0, size, false);
+        boolean changed = nextSize != size;
+        for (int i = 0; i < nextSize; i++) {
+            nextPublished[i] = null;
+            CellRecord record = nextRecords[i];
+            // the order rarely changes, try the same position first
+            int j = i < size && !matched[i] && record.sameAs(records[i]) ? i : -1;
+            for (int k = 0; j < 0 && k < size; k++) {
+                if (!matched[k] && record.sameAs(records[k])) j = k;
+            }
+            if (j < 0) {
+                changed = true;
+            } else {
+                matched[j] = true;
+                nextPublished[i] = published[j];
+                changed |= j != i;
+            }
+        }
+        if (!changed) {
+            releaseNext();
+        }
+        return changed;
+    }
+
+    /**
+     * @return number of measurements of the current callback
+     */
+    public int size() {
+        return nextSize;
+    }
+
+    /**
+     * @return the published object of an unchanged measurement, null if it changed
+     */
+    @SuppressWarnings("unchecked")
+    public P getPublished(int index) {
+        return (P) nextPublished[index];
+    }
+
+    public void setPublished(int index, P object) {
+        nextPublished[index] = object;
+    }
+
+    /**
+     * Make the current measurements the last published ones.
+     *
+     * @return immutable copy of the published objects for the readers
+     */
+    @SuppressWarnings("unchecked")
+    public List<P> publish() {
+        List<P> list = new ArrayList<>(nextSize);
+        for (int i = 0; i < nextSize; i++) {
+            list.add((P) nextPublished[i]);
+        }
+        releaseCurrent();
+        CellRecord[] r = records;
+        Object[] p = published;
+        records = nextRecords;
+        published = nextPublished;
+        size = nextSize;
+        nextRecords = r;
+        nextPublished = p;
+        nextSize = 0;
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Forget the last published measurements, e.g. after the readers' data was cleared
+     */
+    public void clear() {
+        releaseCurrent();
+        releaseNext();
+    }
+
+    private void releaseCurrent() {
+        for (int i = 0; i < size; i++) {
+            pool.release(records[i]);
+            records[i] = null;
+            published[i] = null;
+        }
+        size = 0;
+    }
+
+    private void releaseNext() {
+        for (int i = 0; i < nextSize; i++) {
+            pool.release(nextRecords[i]);
+            nextRecords[i] = null;
+            nextPublished[i] = null;
+        }
+        nextSize = 0;
+    }
+}
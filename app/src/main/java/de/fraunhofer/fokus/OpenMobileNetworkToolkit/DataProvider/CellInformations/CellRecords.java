@@ -0,0 +1,109 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations;
+
+import android.os.Build;
+import android.telephony.CellIdentityGsm;
+import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityNr;
+import android.telephony.CellIdentityWcdma;
+import android.telephony.CellInfo;
+import android.telephony.CellInfoGsm;
+import android.telephony.CellInfoLte;
+import android.telephony.CellInfoNr;
+import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrength;
+import android.telephony.CellSignalStrengthGsm;
+import android.telephony.CellSignalStrengthLte;
+import android.telephony.CellSignalStrengthNr;
+import android.telephony.CellSignalStrengthWcdma;
+
+/**
+ * Reads the values the cell information classes log from the system objects into
+ * {@link CellRecord}s. Only primitives and string references the system objects already hold
+ * are read, derived values like the band list are left out as they only change with the cell.
+ */
+public final class CellRecords {
+    private CellRecords() {
+    }
+
+    /**
+     * @return the record holding the identity and measurement of the cell
+     */
+    public static CellRecord fill(CellRecord record, CellInfo cellInfo) {
+        if (cellInfo instanceof CellInfoNr) {
+            CellIdentityNr id = (CellIdentityNr) cellInfo.getCellIdentity();
+            CellSignalStrengthNr ss = (CellSignalStrengthNr) cellInfo.getCellSignalStrength();
+            record.reset(CellType.NR, id.getNci(), cellInfo.isRegistered(), id.getMccString(), id.getMncString())
+                    .add(id.getPci()).add(id.getTac()).add(id.getNrarfcn());
+            addNr(record, ss);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+                record.add(ss.getTimingAdvanceMicros());
+            }
+        } else if (cellInfo instanceof CellInfoLte) {
+            CellIdentityLte id = ((CellInfoLte) cellInfo).getCellIdentity();
+            record.reset(CellType.LTE, id.getCi(), cellInfo.isRegistered(), id.getMccString(), id.getMncString())
+                    .add(id.getPci()).add(id.getTac()).add(id.getEarfcn()).add(id.getBandwidth());
+            addLte(record, ((CellInfoLte) cellInfo).getCellSignalStrength());
+        } else if (cellInfo instanceof CellInfoWcdma) {
+            CellIdentityWcdma id = ((CellInfoWcdma) cellInfo).getCellIdentity();
+            record.reset(CellType.WCDMA, id.getCid(), cellInfo.isRegistered(), id.getMccString(), id.getMncString())
+                    .add(id.getPsc()).add(id.getUarfcn());
+            addWcdma(record, ((CellInfoWcdma) cellInfo).getCellSignalStrength());
+        } else if (cellInfo instanceof CellInfoGsm) {
+            CellIdentityGsm id = ((CellInfoGsm) cellInfo).getCellIdentity();
+            record.reset(CellType.GSM, id.getCid(), cellInfo.isRegistered(), id.getMccString(), id.getMncString())
+                    .add(id.getLac()).add(id.getBsic()).add(id.getArfcn());
+            addGsm(record, ((CellInfoGsm) cellInfo).getCellSignalStrength());
+        } else {
+            record.reset(CellType.UNKNOWN, 0, cellInfo.isRegistered(), null, null);
+        }
+        record.add(cellInfo.getCellConnectionStatus());
+        return record;
+    }
+
+    /**
+     * @return the record holding the signal strength measurement
+     */
+    public static CellRecord fill(CellRecord record, CellSignalStrength signalStrength) {
+        if (signalStrength instanceof CellSignalStrengthNr) {
+            addNr(record.reset(CellType.NR, 0, false, null, null), (CellSignalStrengthNr) signalStrength);
+        } else if (signalStrength instanceof CellSignalStrengthLte) {
+            addLte(record.reset(CellType.LTE, 0, false, null, null), (CellSignalStrengthLte) signalStrength);
+        } else if (signalStrength instanceof CellSignalStrengthWcdma) {
+            addWcdma(record.reset(CellType.WCDMA, 0, false, null, null), (CellSignalStrengthWcdma) signalStrength);
+        } else if (signalStrength instanceof CellSignalStrengthGsm) {
+            addGsm(record.reset(CellType.GSM, 0, false, null, null), (CellSignalStrengthGsm) signalStrength);
+        } else {
+            record.reset(CellType.UNKNOWN, 0, false, null, null).add(signalStrength.getLevel());
+        }
+        return record;
+    }
+
+    private static void addNr(CellRecord record, CellSignalStrengthNr ss) {
+        record.add(ss.getLevel()).add(ss.getAsuLevel()).add(ss.getDbm())
+                .add(ss.getCsiRsrp()).add(ss.getCsiRsrq()).add(ss.getCsiSinr())
+                .add(ss.getSsRsrp()).add(ss.getSsRsrq()).add(ss.getSsSinr());
+    }
+
+    private static void addLte(CellRecord record, CellSignalStrengthLte ss) {
+        record.add(ss.getLevel()).add(ss.getAsuLevel()).add(ss.getDbm()).add(ss.getCqi())
+                .add(ss.getRsrp()).add(ss.getRsrq()).add(ss.getRssi()).add(ss.getRssnr())
+                .add(ss.getTimingAdvance());
+    }
+
+    private static void addWcdma(CellRecord record, CellSignalStrengthWcdma ss) {
+        record.add(ss.getLevel()).add(ss.getAsuLevel()).add(ss.getDbm()).add(ss.getEcNo());
+    }
+
+    private static void addGsm(CellRecord record, CellSignalStrengthGsm ss) {
+        record.add(ss.getLevel()).add(ss.getAsuLevel()).add(ss.getDbm()).add(ss.getRssi())
+                .add(ss.getBitErrorRate()).add(ss.getTimingAdvance());
+    }
+}
@@ -10,9 +10,11 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
 
 import android.Manifest;
 import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.location.LocationListener;
@@ -40,6 +42,7 @@ import android.telephony.CellSignalStrengthLte;
 import android.telephony.CellSignalStrengthNr;
 import android.telephony.CellSignalStrengthWcdma;
 import android.telephony.PhysicalChannelConfig;
+import android.telephony.ServiceState;
 import android.telephony.SignalStrength;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
@@ -58,6 +61,7 @@ import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
 import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 
@@ -70,8 +74,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellRecordPool;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellRecordTable;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellRecords;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellType;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.GSMInformation;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.LTEInformation;
@@ -89,23 +101,38 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
     private final Context ct;
     private final boolean permission_phone_state;
     private final DeviceInformation di = new DeviceInformation();
-    private final BatteryInformation bi = new BatteryInformation();
     private final LocationCallback locationCallback;
     private final SharedPreferencesGrouper spg;
     private ConnectivityManager cm;
     private TelephonyManager tm;
     private SubscriptionManager sm;
-    // internal data caches
-    private List<CellInformation> ci = new ArrayList<>();
-    private LocationInformation li = new LocationInformation();
-    private NetworkInformation ni = new NetworkInformation();
-    private List<NetworkInterfaceInformation> nii = new ArrayList<>();
-    private ArrayList<CellInformation> ssi = new ArrayList<>();
-    private WifiInformation wi = null;
+    // internal data cache, replaced as a whole by the callbacks and read lock free
+    private final AtomicReference<DataSnapshot> snapshot = new AtomicReference<>(new DataSnapshot());
+    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("DataProviderCallback-%d").setDaemon(true).build());
+    private final SnapshotTelephonyCallback telephonyCallback = new SnapshotTelephonyCallback();
+    // last published cells and signal strengths as pooled records, to detect changes without
+    // allocating. Each table has its own pool as they are locked independently
+    private final CellRecordTable<CellInformation> cellRecords = new CellRecordTable<>(new CellRecordPool());
+    private final CellRecordTable<CellInformation> signalRecords = new CellRecordTable<>(new CellRecordPool());
+    // the same for the telephony callback, it decides on the radio events and must not see the
+    // updates of refreshAll() as already published
+    private final CellRecordTable<CellInformation> eventCellRecords = new CellRecordTable<>(new CellRecordPool());
+    private final CellRecordTable<CellInformation> eventSignalRecords = new CellRecordTable<>(new CellRecordPool());
+    // rings receiving the radio events of the telephony callback, one per consumer
+    private final List<EventRing<RadioEvent>> radioEventRings = new CopyOnWriteArrayList<>();
+    // preferences the tags are built from
+    private static final Set<String> TAG_PREFERENCES = Set.of("tags", "measurement_name", "device_name");
+    private volatile TagSet tagSet;
+    // SharedPreferences only keeps a weak reference to its listeners
+    private final SharedPreferences.OnSharedPreferenceChangeListener tagPreferenceListener = (prefs, key) -> {
+        // key is null if the preferences were cleared
+        if (key == null || TAG_PREFERENCES.contains(key)) {
+            refreshTags();
+        }
+    };
     private LocationManager lm;
     private final BuildInformation buildInformation = new BuildInformation();
-    // Time stamp, should be updated on each update of internal data caches
-    private long ts = System.currentTimeMillis();
 
     @SuppressLint("ObsoleteSdkInt")
     public DataProvider(Context context) {
@@ -125,7 +152,6 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
             lm = (LocationManager) ct.getSystemService(Context.LOCATION_SERVICE);
             if (lm.isLocationEnabled()) {
                 Log.d(TAG, "Location Provider " + lm.getProviders(true));
-                li = new LocationInformation(); // empty LocationInformation to be filled by callback
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
                     lm.requestLocationUpdates(LocationManager.FUSED_PROVIDER, 0, 0, this);
                     Location loc = lm.getLastKnownLocation(LocationManager.FUSED_PROVIDER);
@@ -154,9 +180,15 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
 
         startLocationUpdates();
         registerWiFiCallback();
+        registerDefaultNetworkCallback();
+        registerBatteryReceiver();
+        registerTelephonyCallback();
 
         // initialize internal state
         refreshAll();
+        refreshTags();
+        spg.setListener(tagPreferenceListener, SPType.LOGGING);
+        spg.setListener(tagPreferenceListener, SPType.MAIN);
     }
 
     /**
@@ -164,7 +196,23 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * @param tm new Telephony Manager reference
      */
     public void setTm(TelephonyManager tm) {
+        if (this.tm != null) {
+            this.tm.unregisterTelephonyCallback(telephonyCallback);
+        }
         this.tm = tm;
+        registerTelephonyCallback();
+        // carrier privileges and IMSI depend on the subscription
+        refreshTags();
+    }
+
+    /**
+     * Get the latest state of all information collected by the callbacks.
+     * Reading it does not call into any system service.
+     *
+     * @return current snapshot
+     */
+    public DataSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     /**
@@ -173,8 +221,8 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
     @SuppressLint("MissingPermission")
     public void refreshNetworkInformation() {
         if (permission_phone_state) {
-            updateTimestamp();
-            ni = new NetworkInformation(
+            long now = System.currentTimeMillis();
+            NetworkInformation ni = new NetworkInformation(
                     tm.getNetworkOperatorName(),
                     tm.getSimOperatorName(),
                     tm.getNetworkSpecifier(),
@@ -183,20 +231,20 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                     tm.getPhoneType(),
                     tm.getPreferredOpportunisticDataSubscription()
             );
-            ni.setTimeStamp(ts);
+            ni.setTimeStamp(now);
+            snapshot.updateAndGet(s -> s.withNetworkInformation(ni, now));
         } else {
             Log.d(TAG, "refreshNetworkInformation called but permission phone state is missing");
         }
     }
 
     /**
-     * Refresh and get network information
+     * Get network information, updated on service state and data connection changes
      *
      * @return network information
      */
     public NetworkInformation getNetworkInformation() {
-        refreshNetworkInformation();
-        return ni;
+        return snapshot.get().getNetworkInformation();
     }
 
     /**
@@ -222,8 +270,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     @SuppressLint({"MissingPermission", "HardwareIds", "ObsoleteSdkInt"})
     public void refreshDeviceInformation() {
-        updateTimestamp();
-        di.setTimeStamp(ts);
+        di.setTimeStamp(System.currentTimeMillis());
         di.setModel(Build.MODEL);
         di.setManufacturer(Build.MANUFACTURER);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
@@ -270,26 +317,30 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * Refresh Network Interface Information
      */
     public void refreshNetworkInterfaceInformation() {
+        long now = System.currentTimeMillis();
         List<NetworkInterfaceInformation> niil = new ArrayList<>();
         try {
             List<NetworkInterface> networkInterfaces = Collections.list(NetworkInterface.getNetworkInterfaces());
             for (NetworkInterface networkInterface : networkInterfaces) {
                 List<InetAddress> iNets = Collections.list(networkInterface.getInetAddresses());
                 for (InetAddress iNet : iNets) {
-                    NetworkInterfaceInformation nii = new NetworkInterfaceInformation();
-                    nii.setInterfaceName(networkInterface.getDisplayName());
-                    nii.setAddress(iNet.getHostAddress().split("%")[0]);
-                    niil.add(nii);
+                    // the address keeps the scope of link local addresses e.g. %wlan0
+                    niil.add(new NetworkInterfaceInformation(networkInterface.getDisplayName(), iNet.getHostAddress(), now));
                 }
             }
         } catch (SocketException e) {
             Log.d(TAG,e.toString());
         }
-        nii = niil;
+        snapshot.updateAndGet(s -> s.withNetworkInterfaces(niil));
     }
 
+    /**
+     * Get the addresses of all network interfaces, updated on changes of the default network
+     *
+     * @return one entry per interface address
+     */
     public List<NetworkInterfaceInformation> getNetworkInterfaceInformation() {
-        return nii;
+        return snapshot.get().getNetworkInterfaces();
     }
 
     /**
@@ -299,27 +350,18 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     public List<Point> getNetworkInterfaceInformationPoints() {
         List<Point> points = new ArrayList<>();
-        try {
-            List<NetworkInterface> networkInterfaces = Collections.list(NetworkInterface.getNetworkInterfaces());
-            for (NetworkInterface networkInterface : networkInterfaces) {
-                List<InetAddress> iNets = Collections.list(networkInterface.getInetAddresses());
-                int i = 0;
-                for (InetAddress iNet : iNets) {
-                    String ifname = networkInterface.getDisplayName();
-                    if (!Objects.equals(ifname, "lo") && !Objects.equals(ifname, "dummy0")) {
-                        Point point = new Point("IPAddressInformation");
-                        point.time(System.currentTimeMillis(), WritePrecision.MS);
-                        point.addTag("interface_name", ifname);
-                        point.addTag("address_index", String.valueOf(i));
-                        i++;
-                        point.addField("address", iNet.getHostAddress());
-                        points.add(point);
-                    }
-                }
+        Map<String, Integer> addressIndex = new HashMap<>();
+        for (NetworkInterfaceInformation nii : getNetworkInterfaceInformation()) {
+            String ifname = nii.getInterfaceName();
+            if (!Objects.equals(ifname, "lo") && !Objects.equals(ifname, "dummy0")) {
+                int i = addressIndex.merge(ifname, 1, Integer::sum) - 1;
+                Point point = new Point("IPAddressInformation");
+                point.time(System.currentTimeMillis(), WritePrecision.MS);
+                point.addTag("interface_name", ifname);
+                point.addTag("address_index", String.valueOf(i));
+                point.addField("address", nii.getAddress());
+                points.add(point);
             }
-        } catch (SocketException e) {
-            Log.d(TAG,e.toString());
-
         }
         return points;
     }
@@ -332,26 +374,46 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
     @SuppressLint("ObsoleteSdkInt")
     @Override
     public void onCellInfoChanged(@NonNull List<CellInfo> list) {
-        updateTimestamp();
-        long ts_ = ts;
-        List<CellInformation> ciml = new ArrayList<>();
-        for (CellInfo ci : list) {
-            CellInformation cim = new CellInformation();
-            if (ci instanceof CellInfoNr) {
-                cim = new NRInformation((CellInfoNr) ci, ts_);
-            }
-            if (ci instanceof CellInfoLte) {
-                cim = new LTEInformation((CellInfoLte) ci, ts_);
-            }
-            if (ci instanceof CellInfoWcdma) {
-                cim = new WCDMAInformation((CellInfoWcdma) ci, ts_);
+        updateCellInformation(cellRecords, list, System.currentTimeMillis());
+    }
+
+    /**
+     * Publish the visible cells if they changed since the last update. The cells are read into
+     * pooled records first, cell information objects are only created for changed cells.
+     *
+     * @param records table holding the cells last published by the caller
+     * @return the published cells, null if nothing changed
+     */
+    private List<CellInformation> updateCellInformation(CellRecordTable<CellInformation> records,
+                                                        List<CellInfo> list, long ts_) {
+        List<CellInformation> ciml;
+        synchronized (records) {
+            records.begin();
+            for (int i = 0; i < list.size(); i++) {
+                CellRecords.fill(records.next(), list.get(i));
             }
-            if (ci instanceof CellInfoGsm) {
-                cim = new GSMInformation((CellInfoGsm) ci, ts_);
+            if (!records.commit()) return null;
+            for (int i = 0; i < records.size(); i++) {
+                if (records.getPublished(i) == null) {
+                    records.setPublished(i, toCellInformation(list.get(i), ts_));
+                }
             }
-            ciml.add(cim);
+            ciml = records.publish();
         }
-        ci = ciml;
+        return snapshot.updateAndGet(s -> s.withCellInformation(ciml, ts_)).getCellInformation();
+    }
+
+    private static CellInformation toCellInformation(CellInfo ci, long ts_) {
+        if (ci instanceof CellInfoNr) {
+            return new NRInformation((CellInfoNr) ci, ts_);
+        } else if (ci instanceof CellInfoLte) {
+            return new LTEInformation((CellInfoLte) ci, ts_);
+        } else if (ci instanceof CellInfoWcdma) {
+            return new WCDMAInformation((CellInfoWcdma) ci, ts_);
+        } else if (ci instanceof CellInfoGsm) {
+            return new GSMInformation((CellInfoGsm) ci, ts_);
+        }
+        return new CellInformation();
     }
 
     /**
@@ -365,7 +427,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
 
     public Point getBuildInformationPoint() {
         Point point = new Point("BuildInformation");
-        point.time(ts, WritePrecision.MS);
+        point.time(snapshot.get().getTimeStamp(), WritePrecision.MS);
         point = buildInformation.getPoint(point);
         return point;
     }
@@ -377,7 +439,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * @return CellInformation
      */
     public List<CellInformation> getCellInformation() {
-        return ci;
+        return snapshot.get().getCellInformation();
     }
 
     /**
@@ -387,7 +449,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     public List<CellInformation> getNeighbourCellInformation() {
         List<CellInformation> rcil = new ArrayList<>();
-        for (CellInformation ci_ : ci) {
+        for (CellInformation ci_ : getCellInformation()) {
             if (!ci_.isRegistered()) { //we only care for the serving cell
                 rcil.add(ci_);
             }
@@ -402,9 +464,21 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     @SuppressLint("ObsoleteSdkInt")
     public List<Point> getCellInformationPoint() {
+        DataSnapshot s = snapshot.get();
+        return getCellInformationPoints(s.getCellInformation(), s.getTimeStamp());
+    }
+
+    /**
+     * Get cell information e.g. of a {@link RadioEvent} as influx points
+     *
+     * @param cellInformation visible cells
+     * @param time timestamp of the points
+     * @return List of InfluxPoints
+     */
+    public List<Point> getCellInformationPoints(List<CellInformation> cellInformation, long time) {
         List<Point> points = new ArrayList<>();
         boolean nc = spg.getSharedPreference(SPType.LOGGING).getBoolean("log_neighbour_cells", false);
-        for (CellInformation ci_ : ci) {
+        for (CellInformation ci_ : cellInformation) {
             // check if want to log neighbour cells and skip non registered cells
             if (!nc) {
                 if (!ci_.isRegistered()) {
@@ -412,7 +486,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                 }
             }
             Point point = new Point("CellInformation");
-            point.time(ts, WritePrecision.MS);
+            point.time(time, WritePrecision.MS);
             if (ci_.getCellType().equals(CellType.NR)) {
                 NRInformation nr = (NRInformation) ci_;
                 point = nr.getPoint(point);
@@ -463,7 +537,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     public List<CellInformation> getRegisteredCells() {
         List<CellInformation> rcil = new ArrayList<>();
-        for (CellInformation ci_ : ci) {
+        for (CellInformation ci_ : getCellInformation()) {
             if (ci_.isRegistered()) { //we only care for the serving cell
                 rcil.add(ci_);
             }
@@ -477,7 +551,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * @return influx point
      */
     public Point getNetworkCapabilitiesPoint() {
-        NetworkCapabilities nc = cm.getNetworkCapabilities(cm.getActiveNetwork());
+        NetworkCapabilities nc = snapshot.get().getNetworkCapabilities();
         Point point = new Point("InterfaceThroughput");
         if (nc != null) {
             int downSpeed = nc.getLinkDownstreamBandwidthKbps();
@@ -503,36 +577,62 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
     @SuppressLint("ObsoleteSdkInt")
     @Override
     public void onSignalStrengthsChanged(@NonNull SignalStrength signalStrength) {
-        updateTimestamp();
-        long ts_ = ts;
+        updateSignalStrength(signalRecords, signalStrength, System.currentTimeMillis());
+    }
+
+    /**
+     * Publish the signal strength if it changed since the last update, see
+     * {@link #updateCellInformation(CellRecordTable, List, long)}
+     *
+     * @param records table holding the signal strengths last published by the caller
+     * @return true if it was published
+     */
+    private boolean updateSignalStrength(CellRecordTable<CellInformation> records,
+                                         SignalStrength signalStrength, long ts_) {
         List<CellSignalStrength> css = signalStrength.getCellSignalStrengths();
-        ArrayList<CellInformation> signalStrengthInformationList = new ArrayList<>();
-        for (CellSignalStrength ss : css) {
-            CellInformation signalStrengthInformation = null;
-            if (ss instanceof CellSignalStrengthNr) {
-                CellSignalStrengthNr ssnr = (CellSignalStrengthNr) ss;
-                signalStrengthInformation = new NRInformation(ts_, ssnr);
-            }
-            if (ss instanceof CellSignalStrengthLte) {
-                CellSignalStrengthLte ssLTE = (CellSignalStrengthLte) ss;
-                signalStrengthInformation = new LTEInformation(ts_, ssLTE);
-            }
-            if (ss instanceof CellSignalStrengthWcdma) {
-                CellSignalStrengthWcdma ssWcdma = (CellSignalStrengthWcdma) ss;
-                signalStrengthInformation = new WCDMAInformation(ts_, ssWcdma);
+        List<CellInformation> signalStrengthInformationList;
+        synchronized (records) {
+            records.begin();
+            for (int i = 0; i < css.size(); i++) {
+                // other technologies are not logged
+                if (isLoggedSignalStrength(css.get(i))) {
+                    CellRecords.fill(records.next(), css.get(i));
+                }
             }
-            if (ss instanceof CellSignalStrengthGsm) {
-                CellSignalStrengthGsm ssGSM = (CellSignalStrengthGsm) ss;
-                signalStrengthInformation = new GSMInformation(ts_, ssGSM);
+            if (!records.commit()) return false;
+            int j = 0;
+            for (int i = 0; i < css.size(); i++) {
+                CellSignalStrength ss = css.get(i);
+                if (!isLoggedSignalStrength(ss)) continue;
+                if (records.getPublished(j) == null) {
+                    records.setPublished(j, toSignalStrengthInformation(ss, ts_));
+                }
+                j++;
             }
-            if(signalStrengthInformation != null) signalStrengthInformationList.add(signalStrengthInformation);
+            signalStrengthInformationList = records.publish();
+        }
+        snapshot.updateAndGet(s -> s.withSignalStrength(signalStrength, signalStrengthInformationList, ts_));
+        return true;
+    }
+
+    private static boolean isLoggedSignalStrength(CellSignalStrength ss) {
+        return ss instanceof CellSignalStrengthNr || ss instanceof CellSignalStrengthLte
+                || ss instanceof CellSignalStrengthWcdma || ss instanceof CellSignalStrengthGsm;
+    }
 
+    private static CellInformation toSignalStrengthInformation(CellSignalStrength ss, long ts_) {
+        if (ss instanceof CellSignalStrengthNr) {
+            return new NRInformation(ts_, (CellSignalStrengthNr) ss);
+        } else if (ss instanceof CellSignalStrengthLte) {
+            return new LTEInformation(ts_, (CellSignalStrengthLte) ss);
+        } else if (ss instanceof CellSignalStrengthWcdma) {
+            return new WCDMAInformation(ts_, (CellSignalStrengthWcdma) ss);
         }
-        ssi = signalStrengthInformationList;
+        return new GSMInformation(ts_, (CellSignalStrengthGsm) ss);
     }
 
-    public ArrayList<CellInformation> getSignalStrengthInformation() {
-        return ssi;
+    public List<CellInformation> getSignalStrengthInformation() {
+        return snapshot.get().getSignalStrengthInformation();
     }
 
     /**
@@ -540,18 +640,27 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      *
      * @return signal strength point
      */
-    @SuppressLint("ObsoleteSdkInt")
     public Point getSignalStrengthPoint() {
+        return getSignalStrengthPoint(snapshot.get().getSignalStrength(), System.currentTimeMillis());
+    }
+
+    /**
+     * Get signal strength information e.g. of a {@link RadioEvent} as influx point
+     *
+     * @param signalStrength signal strength, null gives a point without fields
+     * @param time timestamp of the point
+     * @return signal strength point
+     */
+    @SuppressLint("ObsoleteSdkInt")
+    public Point getSignalStrengthPoint(SignalStrength signalStrength, long time) {
         Point point = new Point("SignalStrength");
-        point.time(System.currentTimeMillis(), WritePrecision.MS);
+        point.time(time, WritePrecision.MS);
 
-        List<CellSignalStrength> css;
-        // On some devices we get here a null object if no SIM card is inserted in the phone.
-        try {
-            css = Objects.requireNonNull(tm.getSignalStrength()).getCellSignalStrengths();
-        } catch (Exception e) {
+        // On some devices we never get a signal strength if no SIM card is inserted in the phone.
+        if (signalStrength == null) {
             return point;
         }
+        List<CellSignalStrength> css = signalStrength.getCellSignalStrengths();
         for (CellSignalStrength ss : css) {
             if (ss instanceof CellSignalStrengthNr) {
                 CellSignalStrengthNr ssnr = (CellSignalStrengthNr) ss;
@@ -599,7 +708,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * @return LocationInformation object
      */
     public LocationInformation getLocation() {
-        return li;
+        return snapshot.get().getLocation();
     }
 
     /**
@@ -610,6 +719,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
     public Point getLocationPoint() {
         Point point = new Point("Location");
         point.time(System.currentTimeMillis(), WritePrecision.MS);
+        LocationInformation li = getLocation();
         // falling back to fake if no location is available is not the best solution.
         // We should ask the user / add configuration what to do
         if (spg.getSharedPreference(SPType.LOGGING).getBoolean("fake_location", false) || li == null) {
@@ -638,15 +748,13 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     @Override
     public void onLocationChanged(@NonNull Location location) {
-        li.setLatitude(location.getLatitude());
-        li.setLongitude(location.getLongitude());
-        li.setAltitude(location.getAltitude());
-        li.setProvider(location.getProvider());
-        li.setAccuracy(location.getAccuracy());
-        li.setSpeed(location.getSpeed());
+        LocationInformation li = new LocationInformation(location.getLongitude(),
+                location.getLatitude(), location.getAltitude(), location.getProvider(),
+                location.getAccuracy(), location.getSpeed(), location.getTime());
         if (lm != null) {
             li.setProviderList(lm.getProviders(true));
         }
+        snapshot.updateAndGet(s -> s.withLocation(li));
     }
 
     /**
@@ -689,10 +797,28 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      */
     public void refreshBatteryInfo() {
         IntentFilter iFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-        Intent batteryStatus = ct.registerReceiver(null, iFilter);
-        bi.setLevel(batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1) : -1);
-        bi.setScale(batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1) : -1);
-        bi.setCharge_type(batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1) : -1);
+        onBatteryChanged(ct.registerReceiver(null, iFilter));
+    }
+
+    private void onBatteryChanged(Intent batteryStatus) {
+        BatteryInformation bi = new BatteryInformation(System.currentTimeMillis(),
+                batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1) : -1,
+                batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1) : -1,
+                batteryStatus != null ? batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1) : -1);
+        snapshot.updateAndGet(s -> s.withBattery(bi));
+    }
+
+    /**
+     * Register for battery changes, the broadcast is sent on every level or charging change
+     */
+    private void registerBatteryReceiver() {
+        BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                onBatteryChanged(intent);
+            }
+        };
+        ct.getApplicationContext().registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
     }
 
     /**
@@ -701,7 +827,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * @return Influx Point with current battery information
      */
     public Point getBatteryInformationPoint() {
-        refreshBatteryInfo();
+        BatteryInformation bi = snapshot.get().getBattery();
         Point point = new Point("BatteryInformation");
         point.time(System.currentTimeMillis(), WritePrecision.MS);
         point.addField("Level", bi.getLevel());
@@ -715,10 +841,32 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
      * return a Map of key values pairs to be used as tags in the influx points
      * List consist of device information and user defined tags
      *
-     * @return Map of k,v strings
+     * @return unmodifiable Map of k,v strings
      */
-    @SuppressLint("ObsoleteSdkInt")
     public Map<String, String> getTagsMap() {
+        return tagSet.getMap();
+    }
+
+    /**
+     * Get the tags of {@link #getTagsMap()} including the pre encoded line protocol tag set,
+     * see {@link TagSet#encode}. Only rebuilt on changes of the tag preferences or the
+     * subscription.
+     *
+     * @return current tags
+     */
+    public TagSet getTagSet() {
+        return tagSet;
+    }
+
+    /**
+     * Rebuild the cached tags from the preferences and the device information
+     */
+    public void refreshTags() {
+        tagSet = new TagSet(buildTagsMap());
+    }
+
+    @SuppressLint("ObsoleteSdkInt")
+    private Map<String, String> buildTagsMap() {
         String tags = spg.getSharedPreference(SPType.LOGGING).getString("tags", "").strip().replace(" ", "");
         Map<String, String> tags_map = Collections.emptyMap();
         if (!tags.isEmpty()) {
@@ -743,7 +891,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             tags_map_modifiable.put("soc_model", di.getSOCModel());
         }
-        if (tm.hasCarrierPrivileges()) {
+        if (tm != null && tm.hasCarrierPrivileges()) {
             tags_map_modifiable.put("imei", di.getIMEI());
             tags_map_modifiable.put("imsi", getIMSI());
         }
@@ -821,24 +969,35 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
         if (ss != null) {
             onSignalStrengthsChanged(ss);
         } else {
-            ssi = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            synchronized (signalRecords) {
+                signalRecords.clear();
+            }
+            // the next callback update has to fill the cleared snapshot again
+            synchronized (eventSignalRecords) {
+                eventSignalRecords.clear();
+            }
+            snapshot.updateAndGet(s -> s.withSignalStrength(null, new ArrayList<>(), now));
         }
     }
 
     /**
-     * Update the DataProvider cached timestamp
+     * Return wifi info if available
+     *
+     * @return Wifi info or null
      */
-    private void updateTimestamp() {
-        ts = System.currentTimeMillis();
+    @SuppressLint("MissingPermission")
+    public WifiInformation getWifiInformation() {
+        return snapshot.get().getWifi();
     }
 
     /**
-     * Return wifi info if available
+     * Publish new wifi information, the channel width is taken from the last scan results
      *
-     * @return Wifi info or null
+     * @param wi wifi information or null if not connected
      */
     @SuppressLint("MissingPermission")
-    public WifiInformation getWifiInformation() {
+    private void onWifiChanged(WifiInformation wi) {
         if (wi != null) {
             WifiManager wifiManager = (WifiManager) ct.getSystemService(Context.WIFI_SERVICE);
             for (ScanResult r : wifiManager.getScanResults()) {
@@ -846,10 +1005,8 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                     wi.setChannel_width(r.channelWidth);
                 }
             }
-            return wi;
-        } else {
-            return null;
         }
+        snapshot.updateAndGet(s -> s.withWifi(wi));
     }
 
     /**
@@ -869,7 +1026,7 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                     @Override
                     public void onLost(@NonNull Network network) {
                         super.onLost(network);
-                        wi = null;
+                        onWifiChanged(null);
                     }
 
                     @Override
@@ -883,9 +1040,9 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                         super.onCapabilitiesChanged(network, networkCapabilities);
                         WifiInfo wifiInfo = (WifiInfo) networkCapabilities.getTransportInfo();
                         if (wifiInfo != null) {
-                            wi = new WifiInformation(wifiInfo, System.currentTimeMillis());
+                            onWifiChanged(new WifiInformation(wifiInfo, System.currentTimeMillis()));
                         } else {
-                            wi = null;
+                            onWifiChanged(null);
                         }
                     }
 
@@ -897,13 +1054,13 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
                     @Override
                     public void onLosing(@NonNull Network network, int maxMsToLive) {
                         super.onLosing(network, maxMsToLive);
-                        wi = null;
+                        onWifiChanged(null);
                     }
 
                     @Override
                     public void onUnavailable() {
                         super.onUnavailable();
-                        wi = null;
+                        onWifiChanged(null);
                     }
                 };
                 cm.registerNetworkCallback(request, networkCallback); //todo this call back is already registered
@@ -915,6 +1072,117 @@ public class DataProvider extends TelephonyCallback implements LocationListener,
         }
     }
 
+    /**
+     * Register a callback on the default network to keep network capabilities and interface
+     * addresses up to date
+     */
+    private void registerDefaultNetworkCallback() {
+        if (cm == null) return;
+        try {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    refreshNetworkInterfaceInformation();
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    snapshot.updateAndGet(s -> s.withNetworkCapabilities(null));
+                    refreshNetworkInterfaceInformation();
+                }
+
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+                    snapshot.updateAndGet(s -> s.withNetworkCapabilities(networkCapabilities));
+                }
+
+                @Override
+                public void onLinkPropertiesChanged(@NonNull Network network, @NonNull LinkProperties linkProperties) {
+                    refreshNetworkInterfaceInformation();
+                }
+            });
+        } catch (Exception e) {
+            Log.d(TAG, "registerDefaultNetworkCallback: " + e);
+        }
+    }
+
+    /**
+     * Open a ring receiving every cell info and signal strength update of the telephony callback,
+     * so a consumer polling slower than the modem reports still sees all of them.
+     * The callback is the only producer, the caller must drain the ring from a single thread.
+     *
+     * @param capacity max number of events waiting in the ring, further events are dropped
+     * @return the new ring, close it with {@link #closeRadioEventRing(EventRing)}
+     */
+    public EventRing<RadioEvent> openRadioEventRing(int capacity) {
+        EventRing<RadioEvent> ring = new EventRing<>(capacity);
+        radioEventRings.add(ring);
+        return ring;
+    }
+
+    /**
+     * Stop publishing radio events to a ring
+     *
+     * @param ring ring opened by {@link #openRadioEventRing(int)}
+     */
+    public void closeRadioEventRing(EventRing<RadioEvent> ring) {
+        radioEventRings.remove(ring);
+    }
+
+    private void publishRadioEvent(RadioEvent event) {
+        for (EventRing<RadioEvent> ring : radioEventRings) {
+            ring.offer(event);
+        }
+    }
+
+    /**
+     * Register the telephony callback which keeps cell, signal strength and network information
+     * up to date. Without the needed permissions the data is only updated by {@link #refreshAll()}.
+     */
+    private void registerTelephonyCallback() {
+        if (tm == null) return;
+        try {
+            tm.registerTelephonyCallback(callbackExecutor, telephonyCallback);
+        } catch (SecurityException e) {
+            Log.d(TAG, "registerTelephonyCallback: missing permission " + e);
+        }
+    }
+
+    /**
+     * Telephony callback publishing to the snapshot and the radio event rings. It runs on the
+     * single callback executor thread, which makes it the only producer of the rings. Separate
+     * from the DataProvider itself as the DataProvider also implements listeners which need
+     * privileged permissions.
+     */
+    private class SnapshotTelephonyCallback extends TelephonyCallback implements
+            TelephonyCallback.CellInfoListener, TelephonyCallback.SignalStrengthsListener,
+            TelephonyCallback.ServiceStateListener, TelephonyCallback.DataConnectionStateListener {
+        @Override
+        public void onCellInfoChanged(@NonNull List<CellInfo> list) {
+            long now = System.currentTimeMillis();
+            List<CellInformation> cells = updateCellInformation(eventCellRecords, list, now);
+            // unchanged cells are not an event, the logger falls back to the current state
+            if (cells != null) publishRadioEvent(RadioEvent.cellInfo(now, cells));
+        }
+
+        @Override
+        public void onSignalStrengthsChanged(@NonNull SignalStrength signalStrength) {
+            long now = System.currentTimeMillis();
+            if (updateSignalStrength(eventSignalRecords, signalStrength, now)) {
+                publishRadioEvent(RadioEvent.signalStrength(now, signalStrength));
+            }
+        }
+
+        @Override
+        public void onServiceStateChanged(@NonNull ServiceState serviceState) {
+            refreshNetworkInformation();
+        }
+
+        @Override
+        public void onDataConnectionStateChanged(int state, int networkType) {
+            refreshNetworkInformation();
+        }
+    }
 
     /**
      * Filter values before adding them as we don't need to log not available information
@@ -0,0 +1,163 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import android.net.NetworkCapabilities;
+import android.telephony.SignalStrength;
+
+import java.util.Collections;
+import java.util.List;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellInformation;
+
+/**
+ * Immutable state of the {@link DataProvider} at one point in time.
+ * The system callbacks publish a new snapshot for every change, the logger and the UI read the
+ * latest one without locking and without calling into the system services.
+ * The contained information objects must not be modified once they are part of a snapshot.
+ */
+public final class DataSnapshot {
+    private final long timeStamp;
+    private final NetworkInformation networkInformation;
+    private final List<CellInformation> cellInformation;
+    private final List<CellInformation> signalStrengthInformation;
+    private final SignalStrength signalStrength;
+    private final LocationInformation location;
+    private final BatteryInformation battery;
+    private final List<NetworkInterfaceInformation> networkInterfaces;
+    private final NetworkCapabilities networkCapabilities;
+    private final WifiInformation wifi;
+
+    DataSnapshot() {
+        this(System.currentTimeMillis(), new NetworkInformation(), Collections.emptyList(),
+                Collections.emptyList(), null, new LocationInformation(), new BatteryInformation(),
+                Collections.emptyList(), null, null);
+    }
+
+    private DataSnapshot(long timeStamp, NetworkInformation networkInformation,
+                         List<CellInformation> cellInformation,
+                         List<CellInformation> signalStrengthInformation,
+                         SignalStrength signalStrength, LocationInformation location,
+                         BatteryInformation battery,
+                         List<NetworkInterfaceInformation> networkInterfaces,
+                         NetworkCapabilities networkCapabilities, WifiInformation wifi) {
+        this.timeStamp = timeStamp;
+        this.networkInformation = networkInformation;
+        this.cellInformation = cellInformation;
+        this.signalStrengthInformation = signalStrengthInformation;
+        this.signalStrength = signalStrength;
+        this.location = location;
+        this.battery = battery;
+        this.networkInterfaces = networkInterfaces;
+        this.networkCapabilities = networkCapabilities;
+        this.wifi = wifi;
+    }
+
+    DataSnapshot withNetworkInformation(NetworkInformation networkInformation, long timeStamp) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery, networkInterfaces,
+                networkCapabilities, wifi);
+    }
+
+    DataSnapshot withCellInformation(List<CellInformation> cellInformation, long timeStamp) {
+        return new DataSnapshot(timeStamp, networkInformation,
+                Collections.unmodifiableList(cellInformation), signalStrengthInformation,
+                signalStrength, location, battery, networkInterfaces, networkCapabilities, wifi);
+    }
+
+    DataSnapshot withSignalStrength(SignalStrength signalStrength,
+                                    List<CellInformation> signalStrengthInformation,
+                                    long timeStamp) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                Collections.unmodifiableList(signalStrengthInformation), signalStrength, location,
+                battery, networkInterfaces, networkCapabilities, wifi);
+    }
+
+    DataSnapshot withLocation(LocationInformation location) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery, networkInterfaces,
+                networkCapabilities, wifi);
+    }
+
+    DataSnapshot withBattery(BatteryInformation battery) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery, networkInterfaces,
+                networkCapabilities, wifi);
+    }
+
+    DataSnapshot withNetworkInterfaces(List<NetworkInterfaceInformation> networkInterfaces) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery,
+                Collections.unmodifiableList(networkInterfaces), networkCapabilities, wifi);
+    }
+
+    DataSnapshot withNetworkCapabilities(NetworkCapabilities networkCapabilities) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery, networkInterfaces,
+                networkCapabilities, wifi);
+    }
+
+    DataSnapshot withWifi(WifiInformation wifi) {
+        return new DataSnapshot(timeStamp, networkInformation, cellInformation,
+                signalStrengthInformation, signalStrength, location, battery, networkInterfaces,
+                networkCapabilities, wifi);
+    }
+
+    /**
+     * @return time of the last network, cell or signal strength update
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    public NetworkInformation getNetworkInformation() {
+        return networkInformation;
+    }
+
+    public List<CellInformation> getCellInformation() {
+        return cellInformation;
+    }
+
+    public List<CellInformation> getSignalStrengthInformation() {
+        return signalStrengthInformation;
+    }
+
+    /**
+     * @return last signal strength reported by the modem, null if there was none yet
+     */
+    public SignalStrength getSignalStrength() {
+        return signalStrength;
+    }
+
+    public LocationInformation getLocation() {
+        return location;
+    }
+
+    public BatteryInformation getBattery() {
+        return battery;
+    }
+
+    public List<NetworkInterfaceInformation> getNetworkInterfaces() {
+        return networkInterfaces;
+    }
+
+    /**
+     * @return capabilities of the default network, null if there is none
+     */
+    public NetworkCapabilities getNetworkCapabilities() {
+        return networkCapabilities;
+    }
+
+    /**
+     * @return wifi information, null if not connected to a wifi
+     */
+    public WifiInformation getWifi() {
+        return wifi;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock free ring buffer for a single producer and a single consumer thread.
+ * The producer never waits, if the ring is full the new event is dropped and counted, the events
+ * already waiting are kept. The consumer takes all waiting events at once.
+ *
+ * @param <E> type of the events
+ */
+public final class EventRing<E> {
+    private final Object[] buffer;
+    private final int mask;
+    // next position to read, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // next position to write, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // last head seen by the producer, saves reading the consumer's counter on every offer
+    private long headCache;
+
+    /**
+     * @param capacity max number of waiting events, rounded up to the next power of two
+     */
+    public EventRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Add an event, only called by the producer thread.
+     *
+     * @param event event to add
+     * @return false if the ring was full and the event was dropped
+     */
+    public boolean offer(E event) {
+        long t = tail.get();
+        if (t - headCache >= buffer.length) {
+            headCache = head.get();
+            if (t - headCache >= buffer.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        buffer[(int) (t & mask)] = event;
+        // publishes the slot to the consumer
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Take all waiting events oldest first, only called by the consumer thread.
+     *
+     * @param consumer receives the events
+     * @return number of events taken
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> consumer) {
+        long h = head.get();
+        long t = tail.get();
+        int count = 0;
+        for (; h < t; h++) {
+            int index = (int) (h & mask);
+            E event = (E) buffer[index];
+            buffer[index] = null;
+            // hands the slot back to the producer
+            head.lazySet(h + 1);
+            count++;
+            consumer.accept(event);
+        }
+        return count;
+    }
+
+    /**
+     * @return max number of waiting events
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * @return number of waiting events, safe to call from any thread
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * @return number of events dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import android.telephony.SignalStrength;
+
+import java.util.List;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations.CellInformation;
+
+/**
+ * Immutable cell info or signal strength update reported by the modem, timestamped when the
+ * callback fired. Published to the {@link EventRing}s opened through
+ * {@link DataProvider#openRadioEventRing(int)}.
+ */
+public final class RadioEvent {
+    public enum Type {
+        CELL_INFO,
+        SIGNAL_STRENGTH
+    }
+
+    private final Type type;
+    private final long timeStamp;
+    private final List<CellInformation> cellInformation;
+    private final SignalStrength signalStrength;
+
+    private RadioEvent(Type type, long timeStamp, List<CellInformation> cellInformation,
+                       SignalStrength signalStrength) {
+        this.type = type;
+        this.timeStamp = timeStamp;
+        this.cellInformation = cellInformation;
+        this.signalStrength = signalStrength;
+    }
+
+    static RadioEvent cellInfo(long timeStamp, List<CellInformation> cellInformation) {
+        return new RadioEvent(Type.CELL_INFO, timeStamp, cellInformation, null);
+    }
+
+    static RadioEvent signalStrength(long timeStamp, SignalStrength signalStrength) {
+        return new RadioEvent(Type.SIGNAL_STRENGTH, timeStamp, null, signalStrength);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * @return visible cells, null for signal strength events
+     */
+    public List<CellInformation> getCellInformation() {
+        return cellInformation;
+    }
+
+    /**
+     * @return signal strength, null for cell info events
+     */
+    public SignalStrength getSignalStrength() {
+        return signalStrength;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import com.influxdb.client.write.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of the tags added to every logged point.
+ * Besides the map it holds the tags already encoded as line protocol tag set, sorted by key and
+ * escaped like the influx client does, ready to be spliced into an encoded record.
+ */
+public final class TagSet {
+    public static final TagSet EMPTY = new TagSet(Collections.emptyMap());
+
+    private final Map<String, String> map;
+    private final String lineProtocol;
+    // escaped keys of the encoded tags, to find them among the tags of a point
+    private final String[] keys;
+
+    public TagSet(Map<String, String> tags) {
+        TreeMap<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (tag.getKey() != null && tag.getValue() != null) {
+                sorted.put(tag.getKey(), tag.getValue());
+            }
+        }
+        this.map = Collections.unmodifiableMap(sorted);
+        StringBuilder sb = new StringBuilder();
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, String> tag : sorted.entrySet()) {
+            // the influx client skips empty tags as well
+            if (tag.getKey().isEmpty() || tag.getValue().isEmpty()) continue;
+            sb.append(',');
+            int keyStart = sb.length();
+            escape(sb, tag.getKey());
+            keys.add(sb.substring(keyStart));
+            sb.append('=');
+            escape(sb, tag.getValue());
+        }
+        this.lineProtocol = sb.toString();
+        this.keys = keys.toArray(new String[0]);
+    }
+
+    /**
+     * @return unmodifiable map of the tags
+     */
+    public Map<String, String> getMap() {
+        return map;
+    }
+
+    /**
+     * @return tags as line protocol tag set including the leading comma, empty if there are no tags
+     */
+    public String getLineProtocol() {
+        return lineProtocol;
+    }
+
+    /**
+     * @param tags tags added to these, they replace tags with the same key
+     * @return new tag set of both
+     */
+    public TagSet with(Map<String, String> tags) {
+        Map<String, String> merged = new HashMap<>(map);
+        merged.putAll(tags);
+        return new TagSet(merged);
+    }
+
+    /**
+     * Encode a point and splice these tags in after its own tags, so they are not escaped again
+     * for every point. Tags of the point with a key of this set are replaced by the tag of this
+     * set, as adding the tags to the point would do.
+     *
+     * @param point influx point with fields
+     * @return line protocol record without trailing line break
+     */
+    public String encode(Point point) {
+        String record = point.toLineProtocol();
+        if (lineProtocol.isEmpty()) return record;
+        int end = tagsEnd(record);
+        StringBuilder sb = new StringBuilder(record.length() + lineProtocol.length());
+        // copy the measurement and the tags of the point, without the ones of this set
+        int copied = 0;
+        int tag = indexOfUnescaped(record, ',', 0, end);
+        while (tag < end) {
+            int next = indexOfUnescaped(record, ',', tag + 1, end);
+            if (isKey(record, tag + 1, indexOfUnescaped(record, '=', tag + 1, next))) {
+                sb.append(record, copied, tag);
+                copied = next;
+            }
+            tag = next;
+        }
+        return sb.append(record, copied, end)
+                .append(lineProtocol)
+                .append(record, end, record.length())
+                .toString();
+    }
+
+    private boolean isKey(String record, int start, int end) {
+        for (String key : keys) {
+            if (key.length() == end - start && record.startsWith(key, start)) return true;
+        }
+        return false;
+    }
+
+    // end of measurement and tags, the first space which is not escaped
+    static int tagsEnd(String record) {
+        return indexOfUnescaped(record, ' ', 0, record.length());
+    }
+
+    // first position of c in [from, to) which is not escaped, to if there is none
+    private static int indexOfUnescaped(String record, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char ch = record.charAt(i);
+            if (ch == '\\') {
+                i++;
+            } else if (ch == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static void escape(StringBuilder sb, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\n':
+                    sb.append("\\n");
+                    continue;
+                case '\r':
+                    sb.append("\\r");
+                    continue;
+                case '\t':
+                    sb.append("\\t");
+                    continue;
+                case ' ':
+                case ',':
+                case '=':
+                    sb.append('\\');
+                    break;
+                default:
+            }
+            sb.append(c);
+        }
+    }
+}
@@ -43,7 +43,6 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.google.android.material.divider.MaterialDivider;
 import com.google.android.material.textview.MaterialTextView;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -341,7 +340,7 @@ public class DetailFragment extends Fragment {
      */
     @SuppressLint({"MissingPermission", "HardwareIds", "ObsoleteSdkInt"})
     private CardView get_signal_strength_card_view() {
-        ArrayList<CellInformation> signalStrengthInformationList = dp.getSignalStrengthInformation();
+        List<CellInformation> signalStrengthInformationList = dp.getSignalStrengthInformation();
         TableLayout tl = new TableLayout(context);
         if (signalStrengthInformationList.isEmpty()) {
             tl.addView(rowBuilder("No Signal Strength available", ""));
@@ -425,7 +424,7 @@ public class DetailFragment extends Fragment {
         TableLayout tl = new TableLayout(context);
         List<NetworkInterfaceInformation> niil = dp.getNetworkInterfaceInformation();
         for (NetworkInterfaceInformation nii : niil) {
-            tl.addView(rowBuilder(nii.getInterfaceName(), nii.getAddress()));
+            tl.addView(rowBuilder(nii.getInterfaceName(), nii.getAddress().split("%")[0]));
         }
         return cardView_from_table_builder("Network Interfaces", tl);
     }
@@ -0,0 +1,110 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Columnar binary log format, written by {@link ColumnarLogWriter} and read by
+ * {@link ColumnarLogReader}.
+ * <pre>
+ * file   = magic "OMNTCOL" version(1 byte) block*
+ * block  = codec(1 byte) rawLength(varint) storedLength(varint) crc32(4 bytes) stored bytes
+ * raw    = measurement(string) rows(varint) dictionary timestamps tagColumns fieldColumns
+ * dictionary   = count(varint) string*
+ * timestamps   = rows x zigzag varint delta to the previous timestamp, the first to 0
+ * tagColumns   = count(varint) (key(dict index) rows x varint(value dict index + 1, 0 = absent))*
+ * fieldColumns = count(varint) (key(dict index) type(1 byte) presence bitmap values of present rows)*
+ * string = length(varint) UTF-8 bytes
+ * </pre>
+ * A block holds the rows of one measurement and is self-contained, a block torn by a crash
+ * ends the file. Keys, tag values and string field values are kept escaped as in line
+ * protocol, so converting back gives the same record. Integer columns are delta encoded,
+ * float columns are stored as IEEE 754 bits.
+ */
+final class ColumnarLog {
+    static final byte[] MAGIC = {'O', 'M', 'N', 'T', 'C', 'O', 'L'};
+    static final byte VERSION = 1;
+
+    static final byte CODEC_NONE = 0;
+    static final byte CODEC_DEFLATE = 1;
+
+    static final byte TYPE_FLOAT = 0;
+    static final byte TYPE_INTEGER = 1;
+    static final byte TYPE_UNSIGNED = 2;
+    static final byte TYPE_BOOLEAN = 3;
+    static final byte TYPE_STRING = 4;
+
+    // marks a record without timestamp, the server sets its own time for it
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private ColumnarLog() {
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeZigzag(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        try {
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated block");
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /**
+     * Read a count of entries which take at least one byte each
+     */
+    static int readCount(ByteBuffer in) throws IOException {
+        long count = readVarint(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("invalid count " + count);
+        }
+        return (int) count;
+    }
+
+    static long readZigzag(ByteBuffer in) throws IOException {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static String readString(ByteBuffer in) throws IOException {
+        long length = readVarint(in);
+        if (length < 0 || length > in.remaining()) throw new IOException("truncated block");
+        String s = new String(in.array(), in.arrayOffset() + in.position(), (int) length,
+                StandardCharsets.UTF_8);
+        in.position(in.position() + (int) length);
+        return s;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming reader for the columnar binary log format described in {@link ColumnarLog}.
+ * Converts one block at a time back to line protocol records, so files of any size can be
+ * read with the memory of a single block.
+ */
+public class ColumnarLogReader implements Closeable {
+    // sanity limit for a single block, the writer stays far below
+    private static final int MAX_BLOCK_BYTES = 64 * 1024 * 1024;
+
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private final StringBuilder record = new StringBuilder();
+    private boolean truncated;
+
+    /**
+     * Receives the records of a block.
+     */
+    public interface RecordSink {
+        void accept(CharSequence record) throws IOException;
+    }
+
+    /**
+     * @param in stream positioned at the start of a columnar log
+     * @throws IOException if the stream is not a columnar log of a known version
+     */
+    public ColumnarLogReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        byte[] magic = new byte[ColumnarLog.MAGIC.length];
+        try {
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, ColumnarLog.MAGIC)) throw new IOException("not a columnar log");
+            int version = this.in.readUnsignedByte();
+            if (version != ColumnarLog.VERSION) throw new IOException("unknown version " + version);
+        } catch (EOFException e) {
+            throw new IOException("not a columnar log");
+        }
+    }
+
+    /**
+     * @return true if the file starts with the columnar log magic
+     */
+    public static boolean isColumnarLog(File file) {
+        byte[] magic = new byte[ColumnarLog.MAGIC.length];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(magic);
+            return Arrays.equals(magic, ColumnarLog.MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Convert a columnar log to a line protocol file.
+     *
+     * @param in  columnar log
+     * @param out line protocol file, records are appended
+     * @return number of records written
+     * @throws IOException if the log is corrupt or a file can't be accessed
+     */
+    public static long toLineProtocol(File in, File out) throws IOException {
+        long records = 0;
+        try (ColumnarLogReader reader = new ColumnarLogReader(new FileInputStream(in));
+             LineProtocolWriter writer = new LineProtocolWriter(out, LineProtocolWriter.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE)) {
+            int count;
+            while ((count = reader.readBlock(writer::write)) >= 0) {
+                records += count;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Read the next block and pass its records to the sink.
+     *
+     * @param sink receives the line protocol records, valid only during the call
+     * @return number of records, -1 at the end of the log
+     * @throws IOException if the block is corrupt or the sink failed
+     */
+    public int readBlock(RecordSink sink) throws IOException {
+        ByteBuffer block = nextBlock();
+        if (block == null) return -1;
+        String measurement = ColumnarLog.readString(block);
+        int rows = ColumnarLog.readCount(block);
+        String[] dictionary = new String[ColumnarLog.readCount(block)];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = ColumnarLog.readString(block);
+
+        long[] timestamps = new long[rows];
+        long previous = 0;
+        for (int r = 0; r < rows; r++) {
+            previous += ColumnarLog.readZigzag(block);
+            timestamps[r] = previous;
+        }
+
+        int tagCount = ColumnarLog.readCount(block);
+        String[] tagKeys = new String[tagCount];
+        int[][] tagValues = new int[tagCount][];
+        for (int t = 0; t < tagCount; t++) {
+            tagKeys[t] = entry(dictionary, ColumnarLog.readVarint(block));
+            tagValues[t] = new int[rows];
+            for (int r = 0; r < rows; r++) tagValues[t][r] = (int) ColumnarLog.readVarint(block);
+        }
+
+        int fieldCount = ColumnarLog.readCount(block);
+        String[] fieldKeys = new String[fieldCount];
+        byte[] fieldTypes = new byte[fieldCount];
+        boolean[][] present = new boolean[fieldCount][];
+        long[][] fieldValues = new long[fieldCount][];
+        try {
+            for (int f = 0; f < fieldCount; f++) {
+                fieldKeys[f] = entry(dictionary, ColumnarLog.readVarint(block));
+                fieldTypes[f] = block.get();
+                byte[] bitmap = new byte[(rows + 7) / 8];
+                block.get(bitmap);
+                present[f] = new boolean[rows];
+                fieldValues[f] = new long[rows];
+                long value = 0;
+                for (int r = 0; r < rows; r++) {
+                    if ((bitmap[r >> 3] & (1 << (r & 7))) == 0) continue;
+                    present[f][r] = true;
+                    switch (fieldTypes[f]) {
+                        case ColumnarLog.TYPE_FLOAT:
+                            value = block.getLong();
+                            break;
+                        case ColumnarLog.TYPE_BOOLEAN:
+                            value = block.get();
+                            break;
+                        case ColumnarLog.TYPE_STRING:
+                            value = ColumnarLog.readVarint(block);
+                            entry(dictionary, value);
+                            break;
+                        case ColumnarLog.TYPE_INTEGER:
+                        case ColumnarLog.TYPE_UNSIGNED:
+                            value += ColumnarLog.readZigzag(block);
+                            break;
+                        default:
+                            throw new IOException("unknown field type " + fieldTypes[f]);
+                    }
+                    fieldValues[f][r] = value;
+                }
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("truncated block");
+        }
+
+        for (int r = 0; r < rows; r++) {
+            record.setLength(0);
+            record.append(measurement);
+            for (int t = 0; t < tagCount; t++) {
+                int value = tagValues[t][r];
+                if (value == 0) continue;
+                record.append(',').append(tagKeys[t]).append('=').append(entry(dictionary, value - 1));
+            }
+            char separator = ' ';
+            for (int f = 0; f < fieldCount; f++) {
+                if (!present[f][r]) continue;
+                record.append(separator).append(fieldKeys[f]).append('=');
+                separator = ',';
+                long value = fieldValues[f][r];
+                switch (fieldTypes[f]) {
+                    case ColumnarLog.TYPE_FLOAT:
+                        appendFloat(record, Double.longBitsToDouble(value));
+                        break;
+                    case ColumnarLog.TYPE_BOOLEAN:
+                        record.append(value != 0);
+                        break;
+                    case ColumnarLog.TYPE_STRING:
+                        record.append('"').append(dictionary[(int) value]).append('"');
+                        break;
+                    case ColumnarLog.TYPE_INTEGER:
+                        record.append(value).append('i');
+                        break;
+                    default:
+                        record.append(Long.toUnsignedString(value)).append('u');
+                }
+            }
+            if (timestamps[r] != ColumnarLog.NO_TIMESTAMP) {
+                record.append(' ').append(timestamps[r]);
+            }
+            sink.accept(record);
+        }
+        return rows;
+    }
+
+    /**
+     * @return true if the log ended with a block torn by a crash, the records of complete blocks
+     * were read nevertheless
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    private ByteBuffer nextBlock() throws IOException {
+        int codec = in.read();
+        if (codec < 0) return null;
+        try {
+            long rawLength = readVarint();
+            long storedLength = readVarint();
+            if (rawLength > MAX_BLOCK_BYTES || storedLength > MAX_BLOCK_BYTES) {
+                throw new IOException("invalid block size");
+            }
+            int checksum = in.readInt();
+            byte[] stored = new byte[(int) storedLength];
+            in.readFully(stored);
+            crc.reset();
+            crc.update(stored, 0, stored.length);
+            if ((int) crc.getValue() != checksum) throw new IOException("corrupt block");
+            if (codec == ColumnarLog.CODEC_NONE) {
+                if (rawLength != storedLength) throw new IOException("corrupt block");
+                return ByteBuffer.wrap(stored);
+            }
+            if (codec != ColumnarLog.CODEC_DEFLATE) throw new IOException("unknown codec " + codec);
+            byte[] raw = new byte[(int) rawLength];
+            inflater.reset();
+            inflater.setInput(stored);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += n;
+            }
+            if (length != raw.length) throw new IOException("corrupt block");
+            return ByteBuffer.wrap(raw);
+        } catch (EOFException e) {
+            // the last block was torn by a crash
+            truncated = true;
+            return null;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt block", e);
+        }
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static String entry(String[] dictionary, long index) throws IOException {
+        if (index < 0 || index >= dictionary.length) throw new IOException("invalid dictionary index");
+        return dictionary[(int) index];
+    }
+
+    private static void appendFloat(StringBuilder sb, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writer for the columnar binary log format described in {@link ColumnarLog}.
+ * Records are buffered per measurement and written as one block per measurement once a block
+ * is full or when the oldest buffered record waited for the flush interval. Records still
+ * buffered are lost on a crash, like the buffer of the {@link LineProtocolWriter}. Records of a
+ * block which can't be written are dropped and counted, the buffer never exceeds a block per
+ * measurement.
+ * Not thread safe, use it from a single thread e.g. the local file logging handler thread.
+ */
+public class ColumnarLogWriter implements RecordWriter {
+    public static final int DEFAULT_BLOCK_ROWS = 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 60000;
+    public static final String FILE_EXTENSION = ".omnt";
+
+    private final FileOutputStream out;
+    private final int blockRows;
+    private final long flushIntervalMs;
+    private final Deflater deflater;
+    private final boolean sync;
+    private final Map<String, List<Row>> blocks = new LinkedHashMap<>();
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    private byte[] compressed = new byte[8192];
+    private long firstBufferedMs;
+    private long rawBytes;
+    private long writtenBytes;
+    private long headerBytes;
+    private long bufferedRecords;
+    private long writtenRecords;
+    private long droppedRecords;
+
+    private static class Row {
+        long timestamp;
+        final List<String> tags = new ArrayList<>();
+        final List<String> fieldKeys = new ArrayList<>();
+        final List<Object> fieldValues = new ArrayList<>();
+        byte[] fieldTypes = new byte[8];
+    }
+
+    public ColumnarLogWriter(File file) throws IOException {
+        this(file, DEFAULT_BLOCK_ROWS, DEFAULT_FLUSH_INTERVAL_MS, true);
+    }
+
+    /**
+     * @param file            file to append the blocks to, created if it does not exist
+     * @param blockRows       max number of records per block
+     * @param flushIntervalMs max time in ms records stay in the buffer
+     * @param compress        deflate the blocks
+     * @throws IOException if the file can't be opened or holds something else
+     */
+    public ColumnarLogWriter(File file, int blockRows, long flushIntervalMs, boolean compress)
+            throws IOException {
+        this(file, blockRows, flushIntervalMs, compress, false);
+    }
+
+    /**
+     * @param file            file to append the blocks to, created if it does not exist
+     * @param blockRows       max number of records per block
+     * @param flushIntervalMs max time in ms records stay in the buffer
+     * @param compress        deflate the blocks
+     * @param sync            force every flush to the storage device
+     * @throws IOException if the file can't be opened or holds something else
+     */
+    public ColumnarLogWriter(File file, int blockRows, long flushIntervalMs, boolean compress,
+                             boolean sync) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows must be positive");
+        }
+        boolean empty = !file.exists() || file.length() == 0;
+        if (!empty && !ColumnarLogReader.isColumnarLog(file)) {
+            throw new IOException(file + " is not a columnar log");
+        }
+        this.out = new FileOutputStream(file, true);
+        this.blockRows = blockRows;
+        this.flushIntervalMs = flushIntervalMs;
+        this.deflater = compress ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+        this.sync = sync;
+        if (empty) {
+            out.write(ColumnarLog.MAGIC);
+            out.write(ColumnarLog.VERSION);
+            headerBytes = ColumnarLog.MAGIC.length + 1;
+        }
+    }
+
+    /**
+     * Buffer a line protocol record.
+     *
+     * @param record line protocol record without trailing line break
+     * @throws IOException if the record is not valid line protocol or a block can't be written
+     */
+    @Override
+    public void write(CharSequence record) throws IOException {
+        String s = record.toString();
+        Row row = new Row();
+        int i = scan(s, 0, ", ");
+        String measurement = s.substring(0, i);
+        while (i < s.length() && s.charAt(i) == ',') {
+            int eq = scan(s, i + 1, "=");
+            if (eq >= s.length()) throw invalid(s);
+            int end = scan(s, eq + 1, ", ");
+            row.tags.add(s.substring(i + 1, eq));
+            row.tags.add(s.substring(eq + 1, end));
+            i = end;
+        }
+        if (measurement.isEmpty() || i >= s.length()) throw invalid(s);
+        do {
+            int eq = scan(s, i + 1, "=");
+            if (eq >= s.length() - 1) throw invalid(s);
+            int end = s.charAt(eq + 1) == '"' ? scanString(s, eq + 2) : scan(s, eq + 1, ", ");
+            addField(row, s.substring(i + 1, eq), s.substring(eq + 1, end), s);
+            i = end;
+        } while (i < s.length() && s.charAt(i) == ',');
+        row.timestamp = ColumnarLog.NO_TIMESTAMP;
+        if (i < s.length()) {
+            try {
+                row.timestamp = Long.parseLong(s.substring(i + 1).trim());
+            } catch (NumberFormatException e) {
+                throw invalid(s);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (bufferedRecords == 0) {
+            firstBufferedMs = now;
+        }
+        List<Row> rows = blocks.get(measurement);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            blocks.put(measurement, rows);
+        }
+        rows.add(row);
+        bufferedRecords++;
+        if (rows.size() >= blockRows) {
+            drain(measurement, rows);
+        }
+        if (bufferedRecords > 0 && now - firstBufferedMs >= flushIntervalMs) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all buffered records as blocks to the file.
+     *
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void flush() throws IOException {
+        IOException failed = null;
+        for (Map.Entry<String, List<Row>> block : blocks.entrySet()) {
+            if (block.getValue().isEmpty()) continue;
+            try {
+                drain(block.getKey(), block.getValue());
+            } catch (IOException e) {
+                failed = e;
+            }
+        }
+        if (failed != null) throw failed;
+        out.flush();
+        if (sync) out.getFD().sync();
+    }
+
+    @Override
+    public void flushIfDue() throws IOException {
+        if (bufferedRecords > 0 && System.currentTimeMillis() - firstBufferedMs >= flushIntervalMs) {
+            flush();
+        }
+    }
+
+    @Override
+    public long getBufferedRecords() {
+        return bufferedRecords;
+    }
+
+    @Override
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * @return size of the written blocks before compression
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return size of the written blocks in the file
+     */
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * @return size of the file header and the written blocks, buffered records are counted once
+     * their block is written
+     */
+    @Override
+    public long getBytes() {
+        return headerBytes + writtenBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    private void addField(Row row, String key, String value, String record) throws IOException {
+        if (value.isEmpty()) throw invalid(record);
+        int index = row.fieldKeys.size();
+        if (index == row.fieldTypes.length) {
+            row.fieldTypes = Arrays.copyOf(row.fieldTypes, index * 2);
+        }
+        char last = value.charAt(value.length() - 1);
+        try {
+            if (value.charAt(0) == '"') {
+                if (value.length() < 2 || last != '"') throw invalid(record);
+                row.fieldTypes[index] = ColumnarLog.TYPE_STRING;
+                row.fieldValues.add(value.substring(1, value.length() - 1));
+            } else if (last == 'i') {
+                row.fieldTypes[index] = ColumnarLog.TYPE_INTEGER;
+                row.fieldValues.add(Long.parseLong(value.substring(0, value.length() - 1)));
+            } else if (last == 'u') {
+                row.fieldTypes[index] = ColumnarLog.TYPE_UNSIGNED;
+                row.fieldValues.add(Long.parseUnsignedLong(value.substring(0, value.length() - 1)));
+            } else if (isBoolean(value)) {
+                row.fieldTypes[index] = ColumnarLog.TYPE_BOOLEAN;
+                char first = value.charAt(0);
+                row.fieldValues.add(first == 't' || first == 'T' ? 1L : 0L);
+            } else {
+                row.fieldTypes[index] = ColumnarLog.TYPE_FLOAT;
+                row.fieldValues.add(Double.doubleToRawLongBits(Double.parseDouble(value)));
+            }
+        } catch (NumberFormatException e) {
+            throw invalid(record);
+        }
+        row.fieldKeys.add(key);
+    }
+
+    private static boolean isBoolean(String value) {
+        switch (value) {
+            case "t": case "T": case "true": case "True": case "TRUE":
+            case "f": case "F": case "false": case "False": case "FALSE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // write the rows as block, they are gone afterwards even if the block could not be written
+    private void drain(String measurement, List<Row> rows) throws IOException {
+        try {
+            writeBlock(measurement, rows);
+            writtenRecords += rows.size();
+        } catch (IOException e) {
+            droppedRecords += rows.size();
+            throw e;
+        } finally {
+            bufferedRecords -= rows.size();
+            rows.clear();
+        }
+    }
+
+    private void writeBlock(String measurement, List<Row> rows) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int n = rows.size();
+        columns.reset();
+
+        // tag columns in the order the keys first appear
+        Map<String, int[]> tagColumns = new LinkedHashMap<>();
+        for (int r = 0; r < n; r++) {
+            List<String> tags = rows.get(r).tags;
+            for (int t = 0; t < tags.size(); t += 2) {
+                int[] values = tagColumns.get(tags.get(t));
+                if (values == null) {
+                    values = new int[n];
+                    tagColumns.put(tags.get(t), values);
+                }
+                values[r] = index(dictionary, tags.get(t + 1)) + 1;
+            }
+        }
+        ColumnarLog.writeVarint(columns, tagColumns.size());
+        for (Map.Entry<String, int[]> column : tagColumns.entrySet()) {
+            ColumnarLog.writeVarint(columns, index(dictionary, column.getKey()));
+            for (int value : column.getValue()) ColumnarLog.writeVarint(columns, value);
+        }
+
+        // field columns per key and type, a key logged with different types gets two columns
+        Map<String, Integer> fieldColumns = new HashMap<>();
+        List<String> columnKeys = new ArrayList<>();
+        List<Byte> columnTypes = new ArrayList<>();
+        List<int[]> columnRows = new ArrayList<>();
+        for (int r = 0; r < n; r++) {
+            Row row = rows.get(r);
+            for (int f = 0; f < row.fieldKeys.size(); f++) {
+                String id = row.fieldTypes[f] + row.fieldKeys.get(f);
+                Integer c = fieldColumns.get(id);
+                if (c == null) {
+                    c = columnKeys.size();
+                    fieldColumns.put(id, c);
+                    columnKeys.add(row.fieldKeys.get(f));
+                    columnTypes.add(row.fieldTypes[f]);
+                    int[] present = new int[n];
+                    Arrays.fill(present, -1);
+                    columnRows.add(present);
+                }
+                columnRows.get(c)[r] = f;
+            }
+        }
+        ColumnarLog.writeVarint(columns, columnKeys.size());
+        byte[] bitmap = new byte[(n + 7) / 8];
+        for (int c = 0; c < columnKeys.size(); c++) {
+            byte type = columnTypes.get(c);
+            int[] present = columnRows.get(c);
+            ColumnarLog.writeVarint(columns, index(dictionary, columnKeys.get(c)));
+            columns.write(type);
+            Arrays.fill(bitmap, (byte) 0);
+            for (int r = 0; r < n; r++) {
+                if (present[r] >= 0) bitmap[r >> 3] |= (byte) (1 << (r & 7));
+            }
+            columns.write(bitmap, 0, bitmap.length);
+            long previous = 0;
+            for (int r = 0; r < n; r++) {
+                if (present[r] < 0) continue;
+                Object value = rows.get(r).fieldValues.get(present[r]);
+                switch (type) {
+                    case ColumnarLog.TYPE_STRING:
+                        ColumnarLog.writeVarint(columns, index(dictionary, (String) value));
+                        break;
+                    case ColumnarLog.TYPE_FLOAT:
+                        long bits = (Long) value;
+                        for (int b = 56; b >= 0; b -= 8) columns.write((int) (bits >>> b));
+                        break;
+                    case ColumnarLog.TYPE_BOOLEAN:
+                        columns.write((int) (long) (Long) value);
+                        break;
+                    default:
+                        long v = (Long) value;
+                        ColumnarLog.writeZigzag(columns, v - previous);
+                        previous = v;
+                }
+            }
+        }
+
+        raw.reset();
+        ColumnarLog.writeString(raw, measurement);
+        ColumnarLog.writeVarint(raw, n);
+        ColumnarLog.writeVarint(raw, dictionary.size());
+        for (String entry : dictionary.keySet()) ColumnarLog.writeString(raw, entry);
+        long previous = 0;
+        for (Row row : rows) {
+            ColumnarLog.writeZigzag(raw, row.timestamp - previous);
+            previous = row.timestamp;
+        }
+        columns.writeTo(raw);
+        writeFrame(raw.toByteArray());
+    }
+
+    private void writeFrame(byte[] block) throws IOException {
+        byte codec = ColumnarLog.CODEC_NONE;
+        byte[] stored = block;
+        int storedLength = block.length;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(block);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) compressed = Arrays.copyOf(compressed, length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            if (length < block.length) {
+                codec = ColumnarLog.CODEC_DEFLATE;
+                stored = compressed;
+                storedLength = length;
+            }
+        }
+        crc.reset();
+        crc.update(stored, 0, storedLength);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+        header.write(codec);
+        ColumnarLog.writeVarint(header, block.length);
+        ColumnarLog.writeVarint(header, storedLength);
+        int checksum = (int) crc.getValue();
+        for (int b = 24; b >= 0; b -= 8) header.write(checksum >>> b);
+        // one write per block, a crash tears at most the last block
+        header.write(stored, 0, storedLength);
+        header.writeTo(out);
+        rawBytes += block.length;
+        writtenBytes += header.size();
+    }
+
+    private static int index(Map<String, Integer> dictionary, String s) {
+        Integer index = dictionary.get(s);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(s, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return index of the first unescaped char of stops at or after from, or the length
+     */
+    private static int scan(String s, int from, String stops) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (stops.indexOf(c) >= 0) {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    /**
+     * @return index after the closing quote of a string field value starting at from
+     */
+    private static int scanString(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i + 1;
+            }
+        }
+        return s.length();
+    }
+
+    private static IOException invalid(String record) {
+        return new IOException("invalid line protocol record: " + record);
+    }
+}
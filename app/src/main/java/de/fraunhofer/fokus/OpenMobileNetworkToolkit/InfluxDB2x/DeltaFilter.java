@@ -0,0 +1,200 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change only filter for line protocol records.
+ * Keeps the fields of the last emitted record per series and only lets a record pass if a field
+ * changed. A series is the measurement and tag set plus the series fields, e.g. PCI and ARFCN,
+ * so neighbour cells without a CI tag don't suppress each other. Measurement fields like RSRP
+ * count as changed if they differ by more than the tolerance from the last emitted value, all
+ * other fields, e.g. identifiers like TAC or MNC, if they differ at all. Every series is emitted
+ * at least once per keyframe interval, so dashboards and gap detection keep working.
+ * Not thread safe, use one filter per logging target.
+ */
+public class DeltaFilter {
+    public static final double DEFAULT_TOLERANCE = 1.0;
+    public static final long DEFAULT_KEYFRAME_INTERVAL_MS = 60000;
+    // signal measurements of SignalStrength, CellInformation and WifiInformation points
+    public static final Set<String> DEFAULT_MEASUREMENT_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "RSRP", "RSRQ", "RSSI", "RSSNR", "SINR", "CQI", "DBM", "Dbm", "EcNo", "ASULevel", "AsuLevel",
+            "SSRSRP", "SSRSRQ", "SSSINR", "CsiRSRP", "CsiRSRQ", "CsiSINR", "TimingAdvance")));
+    // identify a cell if there is no CI tag, e.g. for neighbour cells
+    public static final String[] DEFAULT_SERIES_FIELDS = {"PCI", "ARFCN", "NRARFCN"};
+    // series not emitted for a keyframe interval are evicted once this many are tracked
+    private static final int MAX_SERIES = 256;
+
+    private final double tolerance;
+    private final long keyframeIntervalMs;
+    private final Set<String> measurementFields;
+    private final String[] seriesFields;
+    private final Map<String, Series> series = new HashMap<>();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private static class Series {
+        Map<String, String> fields;
+        long lastEmitted;
+    }
+
+    public DeltaFilter() {
+        this(DEFAULT_TOLERANCE, DEFAULT_KEYFRAME_INTERVAL_MS);
+    }
+
+    /**
+     * @param tolerance          max difference of a measurement field which is not a change
+     * @param keyframeIntervalMs max time in ms between two records of the same series
+     */
+    public DeltaFilter(double tolerance, long keyframeIntervalMs) {
+        this(tolerance, keyframeIntervalMs, DEFAULT_MEASUREMENT_FIELDS, DEFAULT_SERIES_FIELDS);
+    }
+
+    /**
+     * @param tolerance          max difference of a measurement field which is not a change
+     * @param keyframeIntervalMs max time in ms between two records of the same series
+     * @param measurementFields  numeric fields the tolerance applies to
+     * @param seriesFields       fields which are part of the series key if a record has them
+     */
+    public DeltaFilter(double tolerance, long keyframeIntervalMs, Set<String> measurementFields,
+                       String[] seriesFields) {
+        this.tolerance = tolerance;
+        this.keyframeIntervalMs = keyframeIntervalMs;
+        this.measurementFields = new HashSet<>(measurementFields);
+        this.seriesFields = seriesFields.clone();
+    }
+
+    /**
+     * @param record line protocol record, the timestamp is ignored
+     * @param now    current time in ms
+     * @return true if the record should be written, false if it is suppressed
+     */
+    public boolean accept(String record, long now) {
+        int seriesEnd = indexOfUnescaped(record, ' ', 0);
+        if (seriesEnd < 0) return true;
+        Map<String, String> fields = parseFields(record, seriesEnd + 1);
+        String key = seriesKey(record.substring(0, seriesEnd), fields);
+        Series last = series.get(key);
+        if (last == null) {
+            if (series.size() >= MAX_SERIES) evict(now);
+            last = new Series();
+            series.put(key, last);
+        } else if (now - last.lastEmitted < keyframeIntervalMs && !changed(last.fields, fields)) {
+            suppressed.incrementAndGet();
+            return false;
+        }
+        last.fields = fields;
+        last.lastEmitted = now;
+        return true;
+    }
+
+    /**
+     * @return number of records suppressed since the filter was created, safe to call from any thread
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    private String seriesKey(String seriesSet, Map<String, String> fields) {
+        StringBuilder key = null;
+        for (String name : seriesFields) {
+            String value = fields.get(name);
+            if (value == null) continue;
+            if (key == null) key = new StringBuilder(seriesSet);
+            // an unescaped space can't be part of the measurement and tag set
+            key.append(' ').append(name).append('=').append(value);
+        }
+        return key == null ? seriesSet : key.toString();
+    }
+
+    private boolean changed(Map<String, String> last, Map<String, String> current) {
+        if (last.size() != current.size()) return true;
+        for (Map.Entry<String, String> field : current.entrySet()) {
+            String lastValue = last.get(field.getKey());
+            if (lastValue == null) return true;
+            String value = field.getValue();
+            if (lastValue.equals(value)) continue;
+            if (!measurementFields.contains(field.getKey())) return true;
+            double a = parseNumber(lastValue);
+            double b = parseNumber(value);
+            if (Double.isNaN(a) || Double.isNaN(b) || Math.abs(a - b) > tolerance) return true;
+        }
+        return false;
+    }
+
+    private void evict(long now) {
+        Iterator<Series> it = series.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastEmitted >= keyframeIntervalMs) it.remove();
+        }
+    }
+
+    /**
+     * @return numeric value of a float, integer or unsigned field, NaN for strings and booleans
+     */
+    private static double parseNumber(String value) {
+        if (value.isEmpty() || value.charAt(0) == '"') return Double.NaN;
+        char last = value.charAt(value.length() - 1);
+        String number = last == 'i' || last == 'u' ? value.substring(0, value.length() - 1) : value;
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parse the field set starting at start up to the timestamp or the end of the record.
+     * Values are kept as they are encoded, strings including their quotes.
+     */
+    private static Map<String, String> parseFields(String record, int start) {
+        Map<String, String> fields = new HashMap<>();
+        int i = start;
+        int length = record.length();
+        while (i < length) {
+            int eq = indexOfUnescaped(record, '=', i);
+            if (eq < 0) break;
+            String key = record.substring(i, eq);
+            int end = eq + 1;
+            if (end < length && record.charAt(end) == '"') {
+                end++;
+                while (end < length && record.charAt(end) != '"') {
+                    if (record.charAt(end) == '\\') end++;
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+            } else {
+                while (end < length && record.charAt(end) != ',' && record.charAt(end) != ' ') end++;
+            }
+            fields.put(key, record.substring(eq + 1, end));
+            if (end >= length || record.charAt(end) == ' ') break;
+            i = end + 1;
+        }
+        return fields;
+    }
+
+    private static int indexOfUnescaped(String s, char c, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\') {
+                i++;
+            } else if (ch == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -13,6 +13,7 @@ import android.graphics.Color;
 import android.util.Log;
 
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.WriteApi;
@@ -27,6 +28,14 @@ import com.influxdb.client.write.events.WriteSuccessEvent;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.GlobalVars;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SPType;
@@ -36,11 +45,20 @@ import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
 
 public class InfluxdbConnection {
     private final static String TAG = "InfluxDBConnection";
+    // max number of write / flush calls waiting for the write thread, oldest are dropped when full
+    private static final int WRITE_QUEUE_CAPACITY = 256;
+    private static final long HEALTH_CHECK_INTERVAL_MS = 5000;
     private final SharedPreferencesGrouper spg;
     private final String url;
     private InfluxDBClient influxDBClient;
     private WriteApi writeApi;
     private final GlobalVars gv;
+    private volatile ThreadPoolExecutor writeExecutor;
+    private ScheduledExecutorService healthExecutor;
+    // cached result of the last health check, writes don't ping the server themselves
+    private volatile boolean reachable = true;
+    private final AtomicLong submittedWrites = new AtomicLong();
+    private final AtomicLong droppedWrites = new AtomicLong();
 
     public InfluxdbConnection(String URL, String token, String org, String bucket,
                               Context context) {
@@ -56,6 +74,7 @@ public class InfluxdbConnection {
      * Open the write API on the InfluxConnection
      */
     public void open_write_api() {
+        startExecutors();
         if (writeApi != null) return;
         try {
             //influxDBClient = InfluxDBClientFactory.create(url, this.token, org, bucket);
@@ -101,6 +120,7 @@ public class InfluxdbConnection {
         if (influxDBClient != null) {
             Log.d(TAG, "disconnect: Flushing Influx write API if possible");
             flush();
+            stopExecutors();
             try {
                 Log.d(TAG, "disconnect: Closing Influx write API");
                 writeApi.close();
@@ -119,7 +139,7 @@ public class InfluxdbConnection {
      * Add a point to the message queue
      */
     public boolean writePoint(Point point) {
-        if (influxDBClient != null && ping()) {
+        if (influxDBClient != null && writeApi != null && reachable) {
             try {
                 writeApi.writePoint(point);
             } catch (com.influxdb.exceptions.InfluxException e) {
@@ -141,23 +161,44 @@ public class InfluxdbConnection {
      * @throws IOException if record cant be written
      */
     public void writeRecords(List<String> points) throws IOException {
-        new Thread(() -> {
-            try {
-                if (influxDBClient != null && ping()) {
-                    try {
-                        writeApi.writeRecords(WritePrecision.MS, points);
-                    } catch (com.influxdb.exceptions.InfluxException e) {
-                        Log.d(TAG, "writeRecords: Error while writing points to influx DB");
-                        Log.d(TAG,e.toString());
-                    }
-                } else {
-                    Log.d(TAG, "writeRecords: InfluxDB not reachable: " + url);
-                }
-            }
-            catch (Exception e) {
-                Log.d(TAG,e.toString());
+        writeRecords(points, null);
+    }
+
+    /**
+     * Write string records to the queue
+     *
+     * @param points      String list of records
+     * @param undelivered receives the records if they can't be handed to the write API, the
+     *                    server is not reachable or the write was dropped from the full queue.
+     *                    May be called on the write thread or the calling thread. null to drop them
+     * @throws IOException if record cant be written
+     */
+    public void writeRecords(List<String> points, Consumer<List<String>> undelivered) throws IOException {
+        submit(new RecordsWrite(points, undelivered));
+    }
+
+    /**
+     * Write a batch of string records synchronously, bypassing the write queue.
+     * The request body is gzip compressed as gzip is enabled on the client.
+     *
+     * @param records line protocol records separated by line breaks
+     * @throws LineProtocolUploader.RejectedBatchException if the server rejected the records
+     * @throws IOException if the records could not be written
+     */
+    public void writeRecordsBlocking(String records) throws IOException {
+        if (influxDBClient == null) {
+            throw new IOException("writeRecordsBlocking: no influx client");
+        }
+        try {
+            influxDBClient.getWriteApiBlocking().writeRecord(WritePrecision.MS, records);
+        } catch (com.influxdb.exceptions.InfluxException e) {
+            int status = e.status();
+            // 4xx besides rate limiting won't succeed on retry
+            if (status >= 400 && status < 500 && status != 429) {
+                throw new LineProtocolUploader.RejectedBatchException("writeRecordsBlocking: " + e.getMessage(), e);
             }
-        }).start();
+            throw new IOException("writeRecordsBlocking: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -165,9 +206,9 @@ public class InfluxdbConnection {
      * @throws IOException if points cant be written
      */
     public void writePoints(List<Point> points) throws IOException {
-        new Thread(() -> {
+        submit(() -> {
             try {
-                if (influxDBClient != null && ping()) {
+                if (influxDBClient != null && writeApi != null && reachable) {
                     try {
                         writeApi.writePoints(points);
                     } catch (com.influxdb.exceptions.InfluxException e) {
@@ -182,7 +223,7 @@ public class InfluxdbConnection {
                 Log.e(TAG, "writePoints: Error while writing points to influx DB");
                 Log.d(TAG,e.toString());
             }
-        }).start();
+        });
     }
 
     /**
@@ -214,16 +255,16 @@ public class InfluxdbConnection {
      * If we can reach the influxDB call flush on the write API
      */
     public void flush() {
-        new Thread(() -> {
+        submit(() -> {
             try {
-                if (ping()) {
+                if (writeApi != null && reachable) {
                     writeApi.flush();
                 }
             } catch (Exception e) {
                 Log.e(TAG, "flush: Error while flushing write API");
                 Log.d(TAG, "flush: \n"+ e);
             }
-        }).start();
+        });
     }
 
     public WriteApi getWriteApi() {
@@ -236,5 +277,159 @@ public class InfluxdbConnection {
     public boolean ping() {
         return influxDBClient.ping();
     }
+
+    /**
+     * @return result of the last background health check, does not block
+     */
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    /**
+     * @return number of write and flush calls waiting for the write thread
+     */
+    public int getQueueDepth() {
+        ThreadPoolExecutor executor = writeExecutor;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * @return number of write and flush calls accepted since the connection was created
+     */
+    public long getSubmittedWrites() {
+        return submittedWrites.get();
+    }
+
+    /**
+     * @return number of write and flush calls dropped because the queue was full or the write
+     * API was not open
+     */
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    /**
+     * Hand a write to the single write thread of this connection.
+     * If the queue is full the oldest queued call is dropped to make room. Without an open write
+     * API the call is dropped as well.
+     */
+    private void submit(Runnable runnable) {
+        ThreadPoolExecutor executor = writeExecutor;
+        if (executor == null) {
+            long dropped = droppedWrites.incrementAndGet();
+            Log.w(TAG, "submit: write API not open, dropped write. Dropped so far: " + dropped);
+            if (runnable instanceof RecordsWrite) ((RecordsWrite) runnable).handBack();
+            return;
+        }
+        submittedWrites.incrementAndGet();
+        executor.execute(runnable);
+    }
+
+    private synchronized void startExecutors() {
+        if (writeExecutor == null || writeExecutor.isShutdown()) {
+            RejectedExecutionHandler dropOldest = (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    // submitted while the connection is disconnecting
+                    long dropped = droppedWrites.incrementAndGet();
+                    Log.w(TAG, "write thread stopped, dropped write. Dropped so far: " + dropped);
+                    if (runnable instanceof RecordsWrite) ((RecordsWrite) runnable).handBack();
+                    return;
+                }
+                Runnable oldest = executor.getQueue().poll();
+                long dropped = droppedWrites.incrementAndGet();
+                Log.w(TAG, "write queue full, dropped oldest write. Dropped so far: " + dropped);
+                if (oldest instanceof RecordsWrite) ((RecordsWrite) oldest).handBack();
+                executor.execute(runnable);
+            };
+            writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY),
+                    new ThreadFactoryBuilder().setNameFormat("InfluxWrite-%d").setDaemon(true).build(),
+                    dropOldest);
+        }
+        if (healthExecutor == null || healthExecutor.isShutdown()) {
+            healthExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("InfluxHealth-%d").setDaemon(true).build());
+            healthExecutor.scheduleWithFixedDelay(this::refreshHealth, 0,
+                    HEALTH_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void stopExecutors() {
+        if (healthExecutor != null) {
+            healthExecutor.shutdownNow();
+            healthExecutor = null;
+        }
+        if (writeExecutor != null) {
+            // let queued writes finish before the write API is closed
+            writeExecutor.shutdown();
+            try {
+                if (!writeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    Log.w(TAG, "stopExecutors: write queue not drained in time, " + getQueueDepth() + " writes left");
+                    writeExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                writeExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            writeExecutor = null;
+        }
+    }
+
+    /**
+     * Queued write of string records, hands the records back if they can't be delivered
+     */
+    private class RecordsWrite implements Runnable {
+        private final List<String> records;
+        private final Consumer<List<String>> undelivered;
+
+        RecordsWrite(List<String> records, Consumer<List<String>> undelivered) {
+            this.records = records;
+            this.undelivered = undelivered;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (influxDBClient != null && writeApi != null && reachable) {
+                    try {
+                        writeApi.writeRecords(WritePrecision.MS, records);
+                    } catch (com.influxdb.exceptions.InfluxException e) {
+                        Log.d(TAG, "writeRecords: Error while writing points to influx DB");
+                        Log.d(TAG,e.toString());
+                        handBack();
+                    }
+                } else {
+                    Log.d(TAG, "writeRecords: InfluxDB not reachable: " + url);
+                    handBack();
+                }
+            }
+            catch (Exception e) {
+                Log.d(TAG,e.toString());
+            }
+        }
+
+        void handBack() {
+            if (undelivered == null) return;
+            try {
+                undelivered.accept(records);
+            } catch (Exception e) {
+                Log.d(TAG, "writeRecords: can't hand back undelivered records " + e);
+            }
+        }
+    }
+
+    private void refreshHealth() {
+        boolean newReachable;
+        try {
+            newReachable = ping();
+        } catch (Exception e) {
+            Log.d(TAG, "refreshHealth: " + e);
+            newReachable = false;
+        }
+        if (newReachable != reachable) {
+            Log.d(TAG, "refreshHealth: " + url + (newReachable ? " reachable" : " not reachable"));
+        }
+        reachable = newReachable;
+    }
 }
 
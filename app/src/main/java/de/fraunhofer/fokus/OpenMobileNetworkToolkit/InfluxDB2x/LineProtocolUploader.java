@@ -0,0 +1,193 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Uploads a line protocol file in batches of whole lines.
+ * Only one batch is held in memory. Every batch is sent synchronously and retried with an
+ * exponential backoff. After each successful batch the byte offset is stored next to the file
+ * in a .offset file, so an interrupted upload resumes where it stopped. The offset file is
+ * removed once the whole file is uploaded.
+ */
+public class LineProtocolUploader {
+    public static final int DEFAULT_BATCH_BYTES = 512 * 1024;
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final long DEFAULT_RETRY_DELAY_MS = 1000;
+
+    // keys of the WorkManager progress data reported by the upload workers
+    public static final String PROGRESS_UPLOADED_BYTES = "uploaded_bytes";
+    public static final String PROGRESS_TOTAL_BYTES = "total_bytes";
+    public static final String PROGRESS_BYTES_PER_SECOND = "bytes_per_second";
+
+    public interface BatchSender {
+        /**
+         * @param records line protocol records separated by line breaks
+         * @throws RejectedBatchException if the server rejected the batch, it is not retried
+         * @throws IOException            on any other error, the batch is retried
+         */
+        void send(String records) throws IOException;
+    }
+
+    public interface ProgressListener {
+        void onProgress(long uploadedBytes, long totalBytes, long bytesPerSecond);
+    }
+
+    /**
+     * The batch was rejected by the server, e.g. malformed line protocol or missing permissions.
+     * Sending it again won't help.
+     */
+    public static class RejectedBatchException extends IOException {
+        public RejectedBatchException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final BatchSender sender;
+    private final int batchBytes;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+
+    public LineProtocolUploader(BatchSender sender) {
+        this(sender, DEFAULT_BATCH_BYTES, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MS);
+    }
+
+    /**
+     * @param sender       sends a batch to the server
+     * @param batchBytes   max size of a batch, a single longer line is sent on its own
+     * @param maxAttempts  attempts per batch before the upload fails
+     * @param retryDelayMs delay before the first retry, doubled for every further retry
+     */
+    public LineProtocolUploader(BatchSender sender, int batchBytes, int maxAttempts, long retryDelayMs) {
+        this.sender = sender;
+        this.batchBytes = batchBytes;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * @param file line protocol file
+     * @return file holding the offset of an interrupted upload
+     */
+    public static File getOffsetFile(File file) {
+        return new File(file.getPath() + ".offset");
+    }
+
+    /**
+     * Upload the file, starting at the stored offset of an earlier attempt.
+     *
+     * @param file     line protocol file
+     * @param listener called after every batch, may be null
+     * @param stopped  checked before every batch, the upload stops early if it returns true
+     * @return true if the whole file was uploaded, false if it was stopped
+     * @throws IOException if the file can't be read or a batch failed after all attempts
+     */
+    public boolean upload(File file, ProgressListener listener, BooleanSupplier stopped) throws IOException {
+        File offsetFile = getOffsetFile(file);
+        long offset = readOffset(offsetFile);
+        long startOffset = offset;
+        long startTime = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocate(batchBytes);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long total = channel.size();
+            if (offset > total) offset = 0;
+            while (offset < total) {
+                if (stopped.getAsBoolean()) return false;
+                buffer.clear();
+                int read = readFully(channel, buffer, offset);
+                if (read == 0) break; // file was truncated while uploading
+                int length = batchLength(buffer, read, offset + read >= total);
+                while (length < 0) {
+                    // single line longer than the buffer
+                    buffer = grow(buffer);
+                    read = readFully(channel, buffer, offset);
+                    length = batchLength(buffer, read, offset + read >= total);
+                }
+                send(new String(buffer.array(), 0, length, StandardCharsets.UTF_8));
+                offset += length;
+                writeOffset(offsetFile, offset);
+                if (listener != null) {
+                    long elapsedNs = Math.max(1, System.nanoTime() - startTime);
+                    listener.onProgress(offset, total, (offset - startOffset) * 1_000_000_000L / elapsedNs);
+                }
+            }
+        }
+        Files.deleteIfExists(offsetFile.toPath());
+        return true;
+    }
+
+    private void send(String records) throws IOException {
+        long delay = retryDelayMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sender.send(records);
+                return;
+            } catch (RejectedBatchException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) throw e;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("upload interrupted", e);
+            }
+            delay *= 2;
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset + read);
+            if (n < 0) break;
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * @return length of the batch up to and including the last line break,
+     * everything at the end of the file, or -1 if the buffer holds no complete line
+     */
+    private static int batchLength(ByteBuffer buffer, int read, boolean endOfFile) {
+        if (endOfFile) return read;
+        byte[] bytes = buffer.array();
+        for (int i = read - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') return i + 1;
+        }
+        return -1;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        return ByteBuffer.allocate(buffer.capacity() * 2);
+    }
+
+    private static long readOffset(File offsetFile) {
+        if (!offsetFile.exists()) return 0;
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(offsetFile.toPath()), StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void writeOffset(File offsetFile, long offset) throws IOException {
+        Files.write(offsetFile.toPath(), Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import com.influxdb.client.write.Point;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered writer for InfluxDB line protocol files.
+ * Records are UTF-8 encoded directly into a reusable direct {@link ByteBuffer} which is drained
+ * into a {@link FileChannel} when it is full, when it holds the max number of records or when
+ * the oldest buffered record waited for the flush interval. Memory use is bounded by the buffer,
+ * if the file can't be written the buffered records are dropped and counted.
+ * Not thread safe, use it from a single thread e.g. the local file logging handler thread.
+ */
+public class LineProtocolWriter implements RecordWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 5000;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long flushIntervalMs;
+    private final int maxRecords;
+    private final boolean sync;
+    private long firstBufferedMs;
+    private long bufferedRecords;
+    private long writtenRecords;
+    private long droppedRecords;
+    private long syncs;
+    private long flushedBytes;
+
+    public LineProtocolWriter(File file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * @param file            file to append the records to, created if it does not exist
+     * @param bufferSize      size of the direct buffer in bytes, also the size flush threshold
+     * @param flushIntervalMs max time in ms records stay in the buffer, 0 flushes on every write
+     * @throws IOException if the file can't be opened
+     */
+    public LineProtocolWriter(File file, int bufferSize, long flushIntervalMs) throws IOException {
+        this(file, bufferSize, flushIntervalMs, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * @param file            file to append the records to, created if it does not exist
+     * @param bufferSize      size of the direct buffer in bytes, also the size flush threshold
+     * @param flushIntervalMs max time in ms records stay in the buffer, 0 flushes on every write
+     * @param maxRecords      max number of records in the buffer
+     * @param sync            force every flush to the storage device, survives a power loss
+     *                        at the cost of flash wear and latency
+     * @throws IOException if the file can't be opened
+     */
+    public LineProtocolWriter(File file, int bufferSize, long flushIntervalMs, int maxRecords,
+                              boolean sync) throws IOException {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("bufferSize must be at least 4 bytes");
+        }
+        if (maxRecords <= 0) {
+            throw new IllegalArgumentException("maxRecords must be positive");
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxRecords = maxRecords;
+        this.sync = sync;
+    }
+
+    /**
+     * Encode a point as line protocol record and append it to the buffer.
+     * Points without fields are skipped as they are not valid line protocol.
+     *
+     * @param point influx point
+     * @throws IOException if the buffer can't be drained to the file
+     */
+    @Override
+    public void write(Point point) throws IOException {
+        if (!point.hasFields()) return;
+        write(point.toLineProtocol());
+    }
+
+    /**
+     * Append a single line protocol record, a line break is added.
+     *
+     * @param record line protocol record without trailing line break
+     * @throws IOException if the buffer can't be drained to the file
+     */
+    @Override
+    public void write(CharSequence record) throws IOException {
+        long now = System.currentTimeMillis();
+        if (bufferedRecords == 0) {
+            firstBufferedMs = now;
+        }
+        try {
+            encode(record);
+            put((byte) '\n');
+        } catch (IOException e) {
+            // a full buffer could not be drained, the part of this record in it is gone as well
+            droppedRecords++;
+            throw e;
+        }
+        bufferedRecords++;
+        if (bufferedRecords >= maxRecords || now - firstBufferedMs >= flushIntervalMs) {
+            flush();
+        }
+    }
+
+    /**
+     * Drain all buffered bytes to the file. If this fails the buffered records are dropped,
+     * so a failing file can't make the buffer grow or block later records.
+     *
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer.position() == 0) return;
+        buffer.flip();
+        int bytes = buffer.remaining();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            flushedBytes += bytes;
+            if (sync) {
+                channel.force(false);
+                syncs++;
+            }
+            writtenRecords += bufferedRecords;
+        } catch (IOException e) {
+            droppedRecords += bufferedRecords;
+            throw e;
+        } finally {
+            buffer.clear();
+            bufferedRecords = 0;
+        }
+    }
+
+    @Override
+    public void flushIfDue() throws IOException {
+        if (bufferedRecords > 0 && System.currentTimeMillis() - firstBufferedMs >= flushIntervalMs) {
+            flush();
+        }
+    }
+
+    @Override
+    public long getBufferedRecords() {
+        return bufferedRecords;
+    }
+
+    @Override
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * @return number of flushes forced to the storage device
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * @return bytes written to the file and waiting in the buffer
+     */
+    @Override
+    public long getBytes() {
+        return flushedBytes + buffer.position();
+    }
+
+    /**
+     * @return number of bytes waiting in the buffer
+     */
+    public int getBufferedBytes() {
+        return buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // hand rolled UTF-8 encoding, avoids the byte[] of String.getBytes() and a CharsetEncoder
+    private void encode(CharSequence s) throws IOException {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, same replacement String.getBytes() would use
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Index of the log segments written by {@link RotatingLogWriter}, kept as a small text file
+ * next to the segments with one line per segment: name, first and last record time in ms,
+ * size in bytes and whether the segment is closed. Lets uploads and exports pick the segments
+ * of a time window without reading them. Segments are kept oldest first.
+ * Thread safe, the index is rewritten atomically on every change.
+ */
+public class LogSegmentIndex {
+    public static final String FILE_NAME = "segments.idx";
+    public static final String COMPRESSED_EXTENSION = ".gz";
+
+    private final File dir;
+    private final File file;
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Immutable entry of the index, a change replaces the entry.
+     */
+    public static class Segment {
+        private final File file;
+        private final long startMs;
+        private final long endMs;
+        private final long bytes;
+        private final boolean closed;
+
+        Segment(File file, long startMs, long endMs, long bytes, boolean closed) {
+            this.file = file;
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.bytes = bytes;
+            this.closed = closed;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return time of the first record in ms
+         */
+        public long getStartMs() {
+            return startMs;
+        }
+
+        /**
+         * @return time of the last record in ms, for the open segment the time it was last indexed
+         */
+        public long getEndMs() {
+            return endMs;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return false for the segment still being written
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public boolean isCompressed() {
+            return file.getName().endsWith(COMPRESSED_EXTENSION);
+        }
+
+        /**
+         * @return stream of the segment content, decompressed if the segment is compressed
+         * @throws IOException if the segment can't be opened
+         */
+        public InputStream open() throws IOException {
+            InputStream in = new FileInputStream(file);
+            return isCompressed() ? new GZIPInputStream(in) : in;
+        }
+
+        @Override
+        public String toString() {
+            return file.getName() + " [" + startMs + ", " + endMs + "] " + bytes + " bytes"
+                    + (closed ? "" : " open");
+        }
+    }
+
+    /**
+     * Load the index of a log directory, entries of segments which no longer exist are dropped.
+     *
+     * @param dir log directory, created if it does not exist
+     * @throws IOException if the directory can't be created
+     */
+    public LogSegmentIndex(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can't create log directory " + dir);
+        }
+        this.dir = dir;
+        this.file = new File(dir, FILE_NAME);
+        load();
+    }
+
+    /**
+     * @return all segments, oldest first
+     */
+    public synchronized List<Segment> getSegments() {
+        return Collections.unmodifiableList(new ArrayList<>(segments));
+    }
+
+    /**
+     * @param fromMs start of the time window in ms, inclusive
+     * @param toMs   end of the time window in ms, inclusive
+     * @return segments holding records of the time window, oldest first
+     */
+    public synchronized List<Segment> find(long fromMs, long toMs) {
+        List<Segment> found = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.startMs <= toMs && segment.endMs >= fromMs) found.add(segment);
+        }
+        return found;
+    }
+
+    /**
+     * @return size of all indexed segments in bytes
+     */
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (Segment segment : segments) total += segment.bytes;
+        return total;
+    }
+
+    synchronized void add(Segment segment) throws IOException {
+        segments.add(segment);
+        save();
+    }
+
+    /**
+     * @return false if the old entry is no longer in the index
+     */
+    synchronized boolean replace(Segment old, Segment segment) throws IOException {
+        int i = segments.indexOf(old);
+        if (i < 0) return false;
+        segments.set(i, segment);
+        save();
+        return true;
+    }
+
+    synchronized void remove(Segment segment) throws IOException {
+        if (segments.remove(segment)) save();
+    }
+
+    /**
+     * @return the oldest closed segment, null if there is none
+     */
+    synchronized Segment oldestClosed() {
+        for (Segment segment : segments) {
+            if (segment.closed) return segment;
+        }
+        return null;
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 5) continue;
+                File segmentFile = new File(dir, parts[0]);
+                if (!segmentFile.exists()) continue;
+                try {
+                    segments.add(new Segment(segmentFile, Long.parseLong(parts[1]),
+                            Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts[4].equals("closed")));
+                } catch (NumberFormatException e) {
+                    // skip the broken line, the segment is no longer managed
+                }
+            }
+        }
+    }
+
+    // write to a temporary file and rename it, a crash leaves either the old or the new index
+    private void save() throws IOException {
+        File tmp = new File(dir, FILE_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (Segment segment : segments) {
+                writer.write(segment.file.getName() + '\t' + segment.startMs + '\t' + segment.endMs
+                        + '\t' + segment.bytes + '\t' + (segment.closed ? "closed" : "open") + '\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) throw new IOException("can't rename " + tmp);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Durable spool for line protocol records which could not be sent to the server.
+ * Records are appended to memory mapped segment files of a fixed size. A segment starts with a
+ * header holding a magic number and the read position, followed by the records, each as
+ * [int length][long enqueue time ms][UTF-8 bytes]. The length is written last, so a record
+ * torn by a crash reads as the end of the segment. When the total size exceeds the cap the
+ * oldest segment is dropped. Records are drained oldest first in batches and only removed
+ * once the batch was confirmed.
+ * Thread safe, appending and draining can happen on different threads.
+ */
+public class PointSpool implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final int MAGIC = 0x4F4D4E54; // OMNT
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final String SUFFIX = ".seg";
+
+    private final File dir;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private long depth;
+    private long droppedRecords;
+
+    private static class Segment {
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int readPosition;
+        int writePosition;
+        int records;
+        // records of this segment the drain is sending right now
+        int sending;
+        boolean evicted;
+
+        Segment(File file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    public PointSpool(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Open the spool and recover the segments left over from an earlier run.
+     *
+     * @param dir         directory holding the segment files, created if it does not exist
+     * @param segmentSize size of a single segment file in bytes
+     * @param maxBytes    cap for all segments, the oldest segment is dropped when it is exceeded
+     * @throws IOException if the directory or a segment can't be opened
+     */
+    public PointSpool(File dir, int segmentSize, long maxBytes) throws IOException {
+        if (segmentSize <= HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can't create spool directory " + dir);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxBytes = Math.max(maxBytes, segmentSize);
+        recover();
+    }
+
+    /**
+     * Append records to the spool. Records which don't fit into an empty segment are dropped.
+     *
+     * @param records line protocol records without line breaks
+     * @param now     enqueue time in ms, used for {@link #getOldestAgeMs(long)}
+     * @throws IOException if a new segment can't be created
+     */
+    public synchronized void append(List<String> records, long now) throws IOException {
+        for (String record : records) {
+            byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            int needed = RECORD_HEADER_SIZE + bytes.length;
+            if (HEADER_SIZE + needed > segmentSize) {
+                droppedRecords++;
+                continue;
+            }
+            Segment segment = segments.peekLast();
+            if (segment == null || segmentSize - segment.writePosition < needed) {
+                segment = createSegment();
+            }
+            MappedByteBuffer buffer = segment.buffer;
+            int position = segment.writePosition;
+            buffer.putLong(position + 4, now);
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.put(bytes);
+            // length last, it marks the record as complete
+            buffer.putInt(position, bytes.length);
+            segment.writePosition = position + needed;
+            segment.records++;
+            depth++;
+        }
+    }
+
+    /**
+     * Send the oldest records and remove them from the spool once the sender returned.
+     * A batch never spans two segments.
+     *
+     * @param maxRecords max number of records in the batch
+     * @param sender     receives the records separated by line breaks
+     * @return number of records sent
+     * @throws IOException if the sender failed, the records stay in the spool
+     */
+    public int drain(int maxRecords, LineProtocolUploader.BatchSender sender) throws IOException {
+        Segment segment;
+        int end;
+        int count = 0;
+        StringBuilder batch = new StringBuilder();
+        synchronized (this) {
+            segment = segments.peekFirst();
+            if (segment == null) return 0;
+            end = segment.readPosition;
+            while (count < maxRecords && end < segment.writePosition) {
+                int length = segment.buffer.getInt(end);
+                byte[] bytes = new byte[length];
+                segment.buffer.position(end + RECORD_HEADER_SIZE);
+                segment.buffer.get(bytes);
+                if (count > 0) batch.append('\n');
+                batch.append(new String(bytes, StandardCharsets.UTF_8));
+                end += RECORD_HEADER_SIZE + length;
+                count++;
+            }
+            segment.sending = count;
+        }
+        if (count == 0) {
+            synchronized (this) {
+                removeIfConsumed(segment);
+            }
+            return 0;
+        }
+        // send outside of the lock, appending must not wait for the network
+        try {
+            sender.send(batch.toString());
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                segment.sending = 0;
+                // the size cap dropped the segment while sending, the batch is lost as well
+                if (segment.evicted) droppedRecords += count;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            segment.sending = 0;
+            // the segment may have been dropped by the size cap while sending
+            if (segment.evicted) return count;
+            segment.readPosition = end;
+            segment.buffer.putInt(4, end);
+            segment.records -= count;
+            depth -= count;
+            removeIfConsumed(segment);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of records waiting in the spool
+     */
+    public synchronized long getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param now current time in ms
+     * @return age of the oldest record in ms, 0 if the spool is empty
+     */
+    public synchronized long getOldestAgeMs(long now) {
+        for (Segment segment : segments) {
+            if (segment.records > 0) {
+                return Math.max(0, now - segment.buffer.getLong(segment.readPosition + 4));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return number of records dropped because of the size cap or their size
+     */
+    public synchronized long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * @return bytes currently used by the segment files
+     */
+    public synchronized long getSizeBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException error = null;
+        for (Segment segment : segments) {
+            try {
+                segment.buffer.force();
+                segment.channel.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        segments.clear();
+        if (error != null) throw error;
+    }
+
+    private void recover() throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        Arrays.sort(files);
+        for (File file : files) {
+            long sequence;
+            try {
+                sequence = Long.parseLong(file.getName().substring(0, file.getName().length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (file.length() != segmentSize) {
+                // segment size changed or the file is broken
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                continue;
+            }
+            Segment segment = openSegment(file);
+            MappedByteBuffer buffer = segment.buffer;
+            int readPosition = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || readPosition < HEADER_SIZE || readPosition > segmentSize) {
+                deleteSegment(segment);
+                continue;
+            }
+            segment.readPosition = readPosition;
+            int position = readPosition;
+            while (segmentSize - position >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || length > segmentSize - position - RECORD_HEADER_SIZE) break;
+                position += RECORD_HEADER_SIZE + length;
+                segment.records++;
+            }
+            segment.writePosition = position;
+            if (segment.records == 0) {
+                deleteSegment(segment);
+                continue;
+            }
+            segments.addLast(segment);
+            depth += segment.records;
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        long sequence = nextSequence++;
+        File file = new File(dir, String.format("%019d%s", sequence, SUFFIX));
+        Segment segment = openSegment(file);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, HEADER_SIZE);
+        segment.readPosition = HEADER_SIZE;
+        segment.writePosition = HEADER_SIZE;
+        segments.addLast(segment);
+        while (getSizeBytes() > maxBytes && segments.size() > 1) {
+            Segment oldest = segments.pollFirst();
+            oldest.evicted = true;
+            // records in flight are counted once the drain knows whether they were sent
+            droppedRecords += oldest.records - oldest.sending;
+            depth -= oldest.records;
+            deleteSegment(oldest);
+        }
+        return segment;
+    }
+
+    private Segment openSegment(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(file, channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void removeIfConsumed(Segment segment) {
+        if (segment.records > 0) return;
+        // the segment still receiving records is kept unless it is full
+        if (segment == segments.peekLast()
+                && segmentSize - segment.writePosition >= RECORD_HEADER_SIZE + 1) return;
+        segments.remove(segment);
+        deleteSegment(segment);
+    }
+
+    private static void deleteSegment(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException ignored) {
+        }
+        //noinspection ResultOfMethodCallIgnored
+        segment.file.delete();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import com.influxdb.client.write.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writer for the local log files, takes line protocol records and stores them in its file format.
+ */
+public interface RecordWriter extends Closeable {
+    /**
+     * Write a point, points without fields are skipped as they are not valid line protocol.
+     *
+     * @param point influx point
+     * @throws IOException if the file can't be written
+     */
+    default void write(Point point) throws IOException {
+        if (!point.hasFields()) return;
+        write(point.toLineProtocol());
+    }
+
+    /**
+     * Write a single line protocol record.
+     *
+     * @param record line protocol record without trailing line break
+     * @throws IOException if the file can't be written
+     */
+    void write(CharSequence record) throws IOException;
+
+    /**
+     * Write everything buffered to the file.
+     *
+     * @throws IOException if the file can't be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flush if the oldest buffered record waited for the flush interval. The interval is
+     * otherwise only checked on write, call this regularly to bound the latency when few
+     * records are written.
+     *
+     * @throws IOException if the file can't be written
+     */
+    void flushIfDue() throws IOException;
+
+    /**
+     * @return number of records waiting in memory, lost if the process is killed
+     */
+    long getBufferedRecords();
+
+    /**
+     * @return number of records written to the file
+     */
+    long getWrittenRecords();
+
+    /**
+     * @return number of records dropped because the file could not be written
+     */
+    long getDroppedRecords();
+
+    /**
+     * @return bytes this writer added to the file, counted in memory without asking the file
+     * system, -1 if the writer does not count them
+     */
+    default long getBytes() {
+        return -1;
+    }
+}
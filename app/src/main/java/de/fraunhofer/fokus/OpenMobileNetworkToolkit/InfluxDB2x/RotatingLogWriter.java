@@ -0,0 +1,348 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local log split into segment files. A new segment is started when the current one reaches
+ * the max size or age. Closed segments are gzipped in the background and the oldest closed
+ * segments are deleted when all segments together exceed the disk quota. The time range of
+ * every segment is kept in a {@link LogSegmentIndex}.
+ * Only segments in the index are managed, other files in the directory are left alone.
+ * Writing is not thread safe, use it from a single thread e.g. the local file logging handler
+ * thread. Compression and eviction run on a single background thread.
+ */
+public class RotatingLogWriter implements RecordWriter {
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 16L * 1024 * 1024;
+    public static final long DEFAULT_MAX_SEGMENT_AGE_MS = 60L * 60 * 1000;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 1024L * 1024 * 1024;
+
+    private static final String TMP_EXTENSION = ".tmp";
+
+    private final File dir;
+    private final String extension;
+    private final SegmentFactory factory;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeMs;
+    private final long maxTotalBytes;
+    private final boolean compress;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final LogSegmentIndex index;
+    private final SimpleDateFormat formatter = new SimpleDateFormat("yyyy_MM_dd_HH_mm_ss", Locale.US);
+
+    private RecordWriter writer;
+    private LogSegmentIndex.Segment segment;
+    private long openedMs;
+    private long firstMs;
+    private long lastMs;
+    private long rotations;
+    // records written to the current segment, counted if its writer does not count bytes
+    private long segmentRecordBytes;
+    // size of the current segment, the background thread counts it against the quota
+    private volatile long segmentBytes;
+    // quota left for the current segment, set by the background thread
+    private volatile long quotaLeft = Long.MAX_VALUE;
+    // records of the closed segments
+    private long writtenRecords;
+    private long droppedRecords;
+    private volatile long evictedSegments;
+    private volatile long failedCompressions;
+
+    /**
+     * Opens the file of a new segment.
+     */
+    public interface SegmentFactory {
+        RecordWriter open(File file) throws IOException;
+    }
+
+    /**
+     * @param dir             log directory, created if it does not exist
+     * @param extension       file extension of the segments e.g. ".txt"
+     * @param factory         opens the writer of a segment
+     * @param maxSegmentBytes a new segment is started when the segment reaches this size,
+     *                        bytes still buffered by its writer included
+     * @param maxSegmentAgeMs a new segment is started when the segment is open this long
+     * @param maxTotalBytes   quota for all segments, the oldest closed segments are deleted
+     *                        when it is exceeded
+     * @param compress        gzip closed segments, false for formats compressed already
+     * @throws IOException if the directory or the index can't be read
+     */
+    public RotatingLogWriter(File dir, String extension, SegmentFactory factory, long maxSegmentBytes,
+                             long maxSegmentAgeMs, long maxTotalBytes, boolean compress) throws IOException {
+        this(dir, extension, factory, maxSegmentBytes, maxSegmentAgeMs, maxTotalBytes, compress,
+                Executors.newSingleThreadExecutor(), System::currentTimeMillis);
+    }
+
+    RotatingLogWriter(File dir, String extension, SegmentFactory factory, long maxSegmentBytes,
+                      long maxSegmentAgeMs, long maxTotalBytes, boolean compress, Executor executor,
+                      LongSupplier clock) throws IOException {
+        if (maxSegmentBytes <= 0 || maxSegmentAgeMs <= 0 || maxTotalBytes <= 0) {
+            throw new IllegalArgumentException("limits must be positive");
+        }
+        this.dir = dir;
+        this.extension = extension;
+        this.factory = factory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeMs = maxSegmentAgeMs;
+        this.maxTotalBytes = maxTotalBytes;
+        this.compress = compress;
+        this.executor = executor;
+        this.clock = clock;
+        this.index = new LogSegmentIndex(dir);
+        recover();
+    }
+
+    /**
+     * Write a record to the current segment, a new segment is started first if the current one
+     * is full or too old.
+     *
+     * @param record line protocol record without trailing line break
+     * @throws IOException if a segment can't be written or opened
+     */
+    @Override
+    public void write(CharSequence record) throws IOException {
+        long now = clock.getAsLong();
+        if (writer == null || now - openedMs >= maxSegmentAgeMs || segmentBytes >= maxSegmentBytes) {
+            rotate(now);
+        }
+        writer.write(record);
+        // no stat of the file per record, the writer counts what it wrote and buffered
+        long bytes = writer.getBytes();
+        if (bytes < 0) {
+            segmentRecordBytes += record.length() + 1;
+            bytes = segmentRecordBytes;
+        }
+        segmentBytes = bytes;
+        if (bytes > quotaLeft) {
+            // evict before the segment is closed, once per background run
+            quotaLeft = Long.MAX_VALUE;
+            executor.execute(this::enforceQuota);
+        }
+        long time = timestamp(record, now);
+        firstMs = Math.min(firstMs, time);
+        lastMs = Math.max(lastMs, time);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    @Override
+    public void flushIfDue() throws IOException {
+        if (writer != null) writer.flushIfDue();
+    }
+
+    @Override
+    public long getBufferedRecords() {
+        return writer == null ? 0 : writer.getBufferedRecords();
+    }
+
+    @Override
+    public long getWrittenRecords() {
+        return writtenRecords + (writer == null ? 0 : writer.getWrittenRecords());
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        return droppedRecords + (writer == null ? 0 : writer.getDroppedRecords());
+    }
+
+    /**
+     * @return the index of the segments, shared with the background thread
+     */
+    public LogSegmentIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return number of segments started by this writer
+     */
+    public long getRotations() {
+        return rotations;
+    }
+
+    /**
+     * @return number of segments deleted to stay within the quota
+     */
+    public long getEvictedSegments() {
+        return evictedSegments;
+    }
+
+    /**
+     * @return number of segments which could not be compressed, they are kept uncompressed
+     */
+    public long getFailedCompressions() {
+        return failedCompressions;
+    }
+
+    /**
+     * Close the current segment, its compression still runs in the background.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeSegment();
+        } finally {
+            if (executor instanceof ExecutorService) {
+                ((ExecutorService) executor).shutdown();
+            }
+        }
+    }
+
+    private void rotate(long now) throws IOException {
+        closeSegment();
+        String name = formatter.format(new Date(now));
+        File file = new File(dir, name + extension);
+        // the compressed name must be free too, a segment of the same second may be gzipped already
+        for (int i = 1; file.exists() || new File(file.getPath() + LogSegmentIndex.COMPRESSED_EXTENSION).exists(); i++) {
+            file = new File(dir, name + "_" + i + extension);
+        }
+        writer = factory.open(file);
+        segment = new LogSegmentIndex.Segment(file, now, now, 0, false);
+        index.add(segment);
+        openedMs = now;
+        segmentRecordBytes = 0;
+        segmentBytes = 0;
+        firstMs = Long.MAX_VALUE;
+        lastMs = Long.MIN_VALUE;
+        rotations++;
+    }
+
+    private void closeSegment() throws IOException {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } finally {
+            writtenRecords += writer.getWrittenRecords();
+            droppedRecords += writer.getDroppedRecords() + writer.getBufferedRecords();
+            writer = null;
+            // the closed segment is counted by the index from now on
+            segmentBytes = 0;
+            boolean empty = firstMs == Long.MAX_VALUE;
+            File file = segment.getFile();
+            LogSegmentIndex.Segment closed = new LogSegmentIndex.Segment(file, empty ? openedMs : firstMs,
+                    empty ? openedMs : lastMs, file.length(), true);
+            index.replace(segment, closed);
+            segment = null;
+            schedule(closed);
+        }
+    }
+
+    // segments left open by a crash are closed with the time of their last change
+    private void recover() throws IOException {
+        // only compressions of this writer, other files e.g. of the upload worker are left alone
+        String compressing = extension + LogSegmentIndex.COMPRESSED_EXTENSION + TMP_EXTENSION;
+        File[] leftovers = dir.listFiles((d, name) -> name.endsWith(compressing));
+        if (leftovers != null) {
+            for (File file : leftovers) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        for (LogSegmentIndex.Segment open : index.getSegments()) {
+            LogSegmentIndex.Segment closed = open;
+            if (!open.isClosed()) {
+                long end = Math.max(open.getStartMs(), open.getFile().lastModified());
+                closed = new LogSegmentIndex.Segment(open.getFile(), open.getStartMs(), end,
+                        open.getFile().length(), true);
+                index.replace(open, closed);
+            }
+            if (compress && !closed.isCompressed()) schedule(closed);
+        }
+        executor.execute(this::enforceQuota);
+    }
+
+    private void schedule(LogSegmentIndex.Segment closed) {
+        executor.execute(() -> {
+            if (compress && !closed.isCompressed()) compress(closed);
+            enforceQuota();
+        });
+    }
+
+    private void compress(LogSegmentIndex.Segment closed) {
+        File source = closed.getFile();
+        File target = new File(source.getPath() + LogSegmentIndex.COMPRESSED_EXTENSION);
+        File tmp = new File(target.getPath() + TMP_EXTENSION);
+        try {
+            try (InputStream in = new FileInputStream(source);
+                 FileOutputStream fos = new FileOutputStream(tmp);
+                 GZIPOutputStream out = new GZIPOutputStream(fos, 64 * 1024)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+                out.finish();
+                fos.getFD().sync();
+            }
+            if (!tmp.renameTo(target)) throw new IOException("can't rename " + tmp);
+            LogSegmentIndex.Segment compressed = new LogSegmentIndex.Segment(target,
+                    closed.getStartMs(), closed.getEndMs(), target.length(), true);
+            if (index.replace(closed, compressed)) {
+                //noinspection ResultOfMethodCallIgnored
+                source.delete();
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                target.delete();
+            }
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            failedCompressions++;
+        }
+    }
+
+    // the open segment is not in the index with its size, it counts against the quota anyway
+    private void enforceQuota() {
+        while (index.getTotalBytes() + segmentBytes > maxTotalBytes) {
+            LogSegmentIndex.Segment oldest = index.oldestClosed();
+            // nothing to evict until the next segment is closed
+            if (oldest == null) return;
+            try {
+                index.remove(oldest);
+            } catch (IOException e) {
+                return;
+            }
+            //noinspection ResultOfMethodCallIgnored
+            oldest.getFile().delete();
+            evictedSegments++;
+        }
+        quotaLeft = maxTotalBytes - index.getTotalBytes();
+    }
+
+    /**
+     * @return the timestamp at the end of a record, records are written with ms precision
+     */
+    static long timestamp(CharSequence record, long fallback) {
+        int end = record.length();
+        int start = end;
+        while (start > 0 && Character.isDigit(record.charAt(start - 1))) start--;
+        if (start == end || start == 0 || record.charAt(start - 1) != ' ' || end - start > 18) {
+            return fallback;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) value = value * 10 + (record.charAt(i) - '0');
+        return value;
+    }
+}
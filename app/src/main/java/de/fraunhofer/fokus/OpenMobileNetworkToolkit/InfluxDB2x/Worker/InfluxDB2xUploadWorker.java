@@ -18,20 +18,24 @@ import androidx.work.WorkerParameters;
 
 import com.google.gson.Gson;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
 
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.ColumnarLogReader;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnections;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolUploader;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LogSegmentIndex;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Inputs;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 
 public class InfluxDB2xUploadWorker extends Worker {
     public static final String TAG = "InfDB2xUploadWorker";
+    private static final int MAX_RUN_ATTEMPTS = 5;
     InfluxdbConnection influx;
     private Inputs input;
     public static final String UPLOAD = "influxdb2x_upload";
@@ -54,35 +58,89 @@ public class InfluxDB2xUploadWorker extends Worker {
         if(influx == null){
             return Result.failure(output);
         }
-        if(influx.getWriteApi() == null){
-            influx.open_write_api();
-            if(influx.getWriteApi() == null)
-                return Result.failure(output);
-        }
-
         if(!influx.ping()){
             return Result.failure(output);
         }
-        BufferedReader br;
+        File file;
         try {
-            br = new BufferedReader(new FileReader(input.getParameter().getLineProtocolFilePath()));
-        } catch (FileNotFoundException | NullPointerException e) {
+            file = new File(input.getParameter().getLineProtocolFilePath());
+        } catch (NullPointerException e) {
             Log.d(TAG,e.toString());
             return Result.failure(output);
         }
-        List<String> points = br.lines().collect(Collectors.toList());
+        if(!file.exists()){
+            Log.d(TAG, String.format("doWork: %s does not exist", file));
+            return Result.failure(output);
+        }
+        File converted = null;
+        boolean gzipped = file.getName().endsWith(LogSegmentIndex.COMPRESSED_EXTENSION);
+        if(gzipped || ColumnarLogReader.isColumnarLog(file)){
+            try {
+                converted = toLineProtocol(file, gzipped);
+            } catch (IOException e) {
+                Log.d(TAG, String.format("doWork: conversion of %s failed: %s", file, e.getMessage()));
+                return Result.failure(output);
+            }
+            file = converted;
+        }
+        LineProtocolUploader uploader = new LineProtocolUploader(influx::writeRecordsBlocking);
         try {
-            Log.d(TAG, String.format("doWork: uploading %s", input.getParameter().getLineProtocolFilePath()));
-            influx.writeRecords(points);
+            Log.d(TAG, String.format("doWork: uploading %s", file));
+            if(!uploader.upload(file, this::reportProgress, this::isStopped)){
+                return Result.failure(output);
+            }
+        } catch (LineProtocolUploader.RejectedBatchException e) {
+            Log.d(TAG, String.format("doWork: upload of %s rejected: %s", file, e.getMessage()));
+            return Result.failure(output);
         } catch (IOException e) {
-            Log.d(TAG, String.format("doWork: upload of %s failed!", input.getParameter().getLineProtocolFilePath()));
+            Log.d(TAG, String.format("doWork: upload of %s failed: %s", file, e.getMessage()));
+            // the next attempt resumes at the last confirmed batch
+            if(getRunAttemptCount() < MAX_RUN_ATTEMPTS) return Result.retry();
             return Result.failure(output);
         }
 
-
-        influx.flush();
-
+        if(converted != null){
+            if(!converted.delete()) Log.d(TAG, String.format("doWork: can't delete %s", converted));
+            // normally removed by the uploader, don't leave it behind for a later copy
+            LineProtocolUploader.getOffsetFile(converted).delete();
+        }
         output = new Data.Builder().putBoolean(UPLOAD, true).build();
         return Result.success(output);
     }
+
+    /**
+     * The uploader reads line protocol, convert a compressed or columnar log once and keep the
+     * copy for retries. A copy older than the log is converted again, together with the offset
+     * of its upload as it does not match the new copy.
+     *
+     * @param file    compressed or columnar log
+     * @param gzipped true if the file is a gzip compressed line protocol log
+     * @return line protocol copy of the file
+     * @throws IOException if the file can't be converted
+     */
+    static File toLineProtocol(File file, boolean gzipped) throws IOException {
+        File converted = new File(file.getPath() + ".lp");
+        if(converted.exists() && converted.lastModified() >= file.lastModified()) return converted;
+        File tmp = new File(converted.getPath() + ".tmp");
+        tmp.delete();
+        if(gzipped){
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+                Files.copy(in, tmp.toPath());
+            }
+        } else {
+            long records = ColumnarLogReader.toLineProtocol(file, tmp);
+            Log.d(TAG, String.format("doWork: converted %d records of %s", records, file));
+        }
+        Files.deleteIfExists(LineProtocolUploader.getOffsetFile(converted).toPath());
+        if(!tmp.renameTo(converted)) throw new IOException("can't rename " + tmp);
+        return converted;
+    }
+
+    private void reportProgress(long uploadedBytes, long totalBytes, long bytesPerSecond) {
+        setProgressAsync(new Data.Builder()
+                .putLong(LineProtocolUploader.PROGRESS_UPLOADED_BYTES, uploadedBytes)
+                .putLong(LineProtocolUploader.PROGRESS_TOTAL_BYTES, totalBytes)
+                .putLong(LineProtocolUploader.PROGRESS_BYTES_PER_SECOND, bytesPerSecond)
+                .build());
+    }
 }
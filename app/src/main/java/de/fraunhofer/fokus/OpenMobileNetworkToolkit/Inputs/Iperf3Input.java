@@ -23,17 +23,10 @@ import androidx.work.OneTimeWorkRequest;
 import com.google.gson.GsonBuilder;
 
 
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerFour;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerOne;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerThree;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerTwo;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3WorkerSlots;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3MonitorWorker;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.Iperf3Parameter;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerFour;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerThree;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerTwo;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3ExecutorWorker;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerOne;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3ToLineProtocolWorker;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3UploadWorker;
 
@@ -115,23 +108,7 @@ public class Iperf3Input extends Inputs {
 
     @Override
     public OneTimeWorkRequest getWorkRequestExecutor(int i, String packageName) {
-
-        String serviceName = "";
-        switch (i){
-            case 0:
-                serviceName = Iperf3ServiceWorkerOne.class.getName();
-                break;
-            case 1:
-                serviceName = Iperf3ServiceWorkerTwo.class.getName();
-                break;
-            case 2:
-                serviceName = Iperf3ServiceWorkerThree.class.getName();
-                break;
-            case 3:
-                serviceName = Iperf3ServiceWorkerFour.class.getName();
-                break;
-        }
-
+        String serviceName = Iperf3WorkerSlots.getExecutorService(i);
         return new OneTimeWorkRequest.Builder(Iperf3ExecutorWorker.class)
                 .addTag(super.getTestUUID())
                 .addTag(super.getMeasurementUUID())
@@ -145,21 +122,7 @@ public class Iperf3Input extends Inputs {
 
     @Override
     public OneTimeWorkRequest getWorkRequestMonitor(int i, String packageName) {
-        String serviceName = "";
-        switch (i){
-            case 0:
-                serviceName = Iperf3MonitorServiceWorkerOne.class.getName();
-                break;
-            case 1:
-                serviceName = Iperf3MonitorServiceWorkerTwo.class.getName();
-                break;
-            case 2:
-                serviceName = Iperf3MonitorServiceWorkerThree.class.getName();
-                break;
-            case 3:
-                serviceName = Iperf3MonitorServiceWorkerFour.class.getName();
-                break;
-        }
+        String serviceName = Iperf3WorkerSlots.getMonitorService(i);
         return new OneTimeWorkRequest.Builder(Iperf3MonitorWorker.class)
                 .addTag(super.getTestUUID())
                 .addTag(super.getMeasurementUUID())
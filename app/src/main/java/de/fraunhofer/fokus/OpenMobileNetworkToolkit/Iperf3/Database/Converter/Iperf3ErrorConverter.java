@@ -11,8 +11,6 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
 import androidx.room.ProvidedTypeConverter;
 import androidx.room.TypeConverter;
 
-import com.google.gson.Gson;
-
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
 
 
@@ -20,11 +18,11 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
 public class Iperf3ErrorConverter {
     @TypeConverter
     public Error fromJSONString(String string) {
-        return new Gson().fromJson(string, Error.class);
+        return JsonAdapterRegistry.getGson().fromJson(string, Error.class);
     }
 
     @TypeConverter
     public String toJSONString(Error example) {
-        return new Gson().toJson(example);
+        return JsonAdapterRegistry.getGson().toJson(example);
     }
 }
@@ -11,8 +11,6 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
 import androidx.room.ProvidedTypeConverter;
 import androidx.room.TypeConverter;
 
-import com.google.gson.Gson;
-
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 
 
@@ -20,11 +18,11 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 public class Iperf3InputConverter {
     @TypeConverter
     public Iperf3Input StringToIperf3Input(String string) {
-        return new Gson().fromJson(string, Iperf3Input.class);
+        return JsonAdapterRegistry.getGson().fromJson(string, Iperf3Input.class);
     }
 
     @TypeConverter
     public String Iperf3InputToString(Iperf3Input example) {
-        return new Gson().toJson(example);
+        return JsonAdapterRegistry.getGson().toJson(example);
     }
 }
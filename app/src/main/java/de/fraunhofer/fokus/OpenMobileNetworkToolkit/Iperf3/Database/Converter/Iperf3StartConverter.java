@@ -13,10 +13,8 @@ import android.util.Log;
 import androidx.room.ProvidedTypeConverter;
 import androidx.room.TypeConverter;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.start.Start;
 
 
@@ -27,7 +25,7 @@ public class Iperf3StartConverter {
     public Start StringToIperf3Start(String string) {
         Start start = new Start();
         try {
-            start = new Gson().fromJson(string, Start.class);
+            start = JsonAdapterRegistry.getGson().fromJson(string, Start.class);
         } catch (JsonSyntaxException e){
             Log.d(TAG, "StringToIperf3Start: "+e);
         }
@@ -36,6 +34,6 @@ public class Iperf3StartConverter {
 
     @TypeConverter
     public String Iperf3StartToString(Start example) {
-        return new Gson().toJson(example);
+        return JsonAdapterRegistry.getGson().toJson(example);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
+
+import android.util.Log;
+
+import androidx.room.ProvidedTypeConverter;
+import androidx.room.TypeConverter;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+
+import java.io.IOException;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+
+@ProvidedTypeConverter
+public class Iperf3StreamConverter {
+    private static final String TAG = "Iperf3StreamConverter";
+    private final JsonAdapter<Stream> jsonAdapter = JsonAdapterRegistry.getStreamAdapter();
+
+    @TypeConverter
+    public Stream stringToStream(String string) {
+        if (string == null) return null;
+        try {
+            return jsonAdapter.fromJson(string);
+        } catch (IOException | JsonDataException e) {
+            Log.d(TAG, "stringToStream: " + e);
+            return null;
+        }
+    }
+
+    @TypeConverter
+    public String streamToString(Stream stream) {
+        if (stream == null) return null;
+        return jsonAdapter.toJson(stream);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
+
+import android.util.Log;
+
+import androidx.room.ProvidedTypeConverter;
+import androidx.room.TypeConverter;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+
+import java.io.IOException;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.Sum;
+
+@ProvidedTypeConverter
+public class Iperf3SumConverter {
+    private static final String TAG = "Iperf3SumConverter";
+    private final JsonAdapter<Sum> jsonAdapter = JsonAdapterRegistry.getSumAdapter();
+
+    @TypeConverter
+    public Sum stringToSum(String string) {
+        if (string == null) return null;
+        try {
+            return jsonAdapter.fromJson(string);
+        } catch (IOException | JsonDataException e) {
+            Log.d(TAG, "stringToSum: " + e);
+            return null;
+        }
+    }
+
+    @TypeConverter
+    public String sumToString(Sum sum) {
+        if (sum == null) return null;
+        return jsonAdapter.toJson(sum);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
+
+import com.google.gson.Gson;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.PolymorphicJsonAdapterFactory;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.MoshiAdapter.ArrayListIntervalsAdapter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.MoshiAdapter.ArrayListStreamsAdapter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.STREAM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.SUM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.Sum;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_UL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_UL_SUM;
+
+/**
+ * Shared Moshi and Gson instances for the iperf3 Room type converters.
+ * Building a Moshi with the polymorphic factories and resolving the reflective adapters is
+ * expensive, so it is done once per process instead of once per converted row.
+ * Moshi, its adapters and Gson are thread safe after construction, Room may call the
+ * converters from any of its query threads.
+ */
+public final class JsonAdapterRegistry {
+    private static final Gson GSON = new Gson();
+    private static final Moshi MOSHI = new Moshi.Builder()
+            .add(new ArrayListIntervalsAdapter())
+            .add(new ArrayListStreamsAdapter())
+            .add(PolymorphicJsonAdapterFactory.of(Stream.class, "streamType")
+                    .withSubtype(TCP_DL_STREAM.class, STREAM_TYPE.TCP_DL.toString())
+                    .withSubtype(TCP_UL_STREAM.class, STREAM_TYPE.TCP_UL.toString())
+                    .withSubtype(UDP_DL_STREAM.class, STREAM_TYPE.UDP_DL.toString())
+                    .withSubtype(UDP_UL_STREAM.class, STREAM_TYPE.UDP_UL.toString()))
+            .add(PolymorphicJsonAdapterFactory.of(Sum.class, "sumType")
+                    .withSubtype(TCP_DL_SUM.class, SUM_TYPE.TCP_DL.toString())
+                    .withSubtype(TCP_UL_SUM.class, SUM_TYPE.TCP_UL.toString())
+                    .withSubtype(UDP_DL_SUM.class, SUM_TYPE.UDP_DL.toString())
+                    .withSubtype(UDP_UL_SUM.class, SUM_TYPE.UDP_UL.toString()))
+            .build();
+
+    private static final JsonAdapter<Intervals> INTERVALS_ADAPTER = MOSHI.adapter(Intervals.class);
+    private static final JsonAdapter<Sum> SUM_ADAPTER = MOSHI.adapter(Sum.class);
+    private static final JsonAdapter<Stream> STREAM_ADAPTER = MOSHI.adapter(Stream.class);
+
+    private JsonAdapterRegistry() {
+    }
+
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    public static Moshi getMoshi() {
+        return MOSHI;
+    }
+
+    public static JsonAdapter<Intervals> getIntervalsAdapter() {
+        return INTERVALS_ADAPTER;
+    }
+
+    public static JsonAdapter<Sum> getSumAdapter() {
+        return SUM_ADAPTER;
+    }
+
+    public static JsonAdapter<Stream> getStreamAdapter() {
+        return STREAM_ADAPTER;
+    }
+}
@@ -11,9 +11,6 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
 import androidx.room.ProvidedTypeConverter;
 import androidx.room.TypeConverter;
 
-import com.google.gson.Gson;
-
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
 
 
@@ -26,11 +23,11 @@ public class MetricConverter {
     private double last;
     @TypeConverter
     public MetricCalculator fromJSONString(String string) {
-        return new Gson().fromJson(string, MetricCalculator.class);
+        return JsonAdapterRegistry.getGson().fromJson(string, MetricCalculator.class);
     }
 
     @TypeConverter
     public String toJSONString(MetricCalculator example) {
-        return new Gson().toJson(example);
+        return JsonAdapterRegistry.getGson().toJson(example);
     }
 }
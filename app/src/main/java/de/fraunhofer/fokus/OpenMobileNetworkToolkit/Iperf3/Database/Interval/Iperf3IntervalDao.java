@@ -0,0 +1,105 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+
+@Dao
+public interface Iperf3IntervalDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertInterval(Iperf3IntervalEntity interval);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertStreams(List<Iperf3IntervalStreamEntity> streams);
+
+    /**
+     * Append one interval and its streams to a run
+     *
+     * @param testUUID uuid of the run
+     * @param idx      index of the interval within the run
+     * @param interval parsed interval
+     */
+    @Transaction
+    default void insert(String testUUID, int idx, Interval interval) {
+        insertInterval(new Iperf3IntervalEntity(testUUID, idx, interval.getSum(), interval.getSumBidirReverse()));
+        ArrayList<Stream> streams = interval.getStreams().getStreamArrayList();
+        List<Iperf3IntervalStreamEntity> streamEntities = new ArrayList<>(streams.size());
+        for (int i = 0; i < streams.size(); i++) {
+            streamEntities.add(new Iperf3IntervalStreamEntity(testUUID, idx, i, streams.get(i)));
+        }
+        insertStreams(streamEntities);
+    }
+
+    /**
+     * Append intervals and their streams to a run in one transaction, observers of the tables
+     * are invalidated once for all of them
+     *
+     * @param testUUID  uuid of the run
+     * @param firstIdx  index of the first interval within the run
+     * @param intervals parsed intervals
+     */
+    @Transaction
+    default void insert(String testUUID, int firstIdx, List<Interval> intervals) {
+        for (int i = 0; i < intervals.size(); i++) {
+            insert(testUUID, firstIdx + i, intervals.get(i));
+        }
+    }
+
+    @Query("SELECT COUNT(*) FROM iperf3_interval WHERE testUUID = :testUUID")
+    int countIntervals(String testUUID);
+
+    @Query("SELECT * FROM iperf3_interval WHERE testUUID = :testUUID ORDER BY idx")
+    List<Iperf3IntervalEntity> getIntervalEntities(String testUUID);
+
+    @Query("SELECT * FROM iperf3_interval_stream WHERE testUUID = :testUUID ORDER BY intervalIdx, streamIdx")
+    List<Iperf3IntervalStreamEntity> getStreamEntities(String testUUID);
+
+    /**
+     * Get all intervals of a run including their streams, ordered by their index
+     *
+     * @param testUUID uuid of the run
+     * @return intervals of the run
+     */
+    @Transaction
+    default Intervals getIntervals(String testUUID) {
+        List<Iperf3IntervalEntity> intervalEntities = getIntervalEntities(testUUID);
+        List<Iperf3IntervalStreamEntity> streamEntities = getStreamEntities(testUUID);
+        Intervals intervals = new Intervals();
+        int s = 0;
+        for (Iperf3IntervalEntity intervalEntity : intervalEntities) {
+            Interval interval = new Interval();
+            interval.setSum(intervalEntity.sum);
+            interval.setSumBidirReverse(intervalEntity.sumBidirReverse);
+            // both lists are sorted by interval index, so the streams can be picked up in one pass
+            while (s < streamEntities.size() && streamEntities.get(s).intervalIdx < intervalEntity.idx) {
+                s++;
+            }
+            while (s < streamEntities.size() && streamEntities.get(s).intervalIdx == intervalEntity.idx) {
+                Stream stream = streamEntities.get(s).stream;
+                if (stream != null) {
+                    interval.getStreams().addStream(stream);
+                }
+                s++;
+            }
+            intervals.addInterval(interval);
+        }
+        return intervals;
+    }
+}
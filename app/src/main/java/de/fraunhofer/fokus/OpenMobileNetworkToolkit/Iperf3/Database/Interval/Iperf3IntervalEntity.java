@@ -0,0 +1,50 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.TypeConverters;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3SumConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.Sum;
+
+/**
+ * One iPerf3 interval of a run, the streams of the interval are stored as
+ * {@link Iperf3IntervalStreamEntity} rows with the same testUUID and idx.
+ */
+@Entity(tableName = "iperf3_interval", primaryKeys = {"testUUID", "idx"})
+@TypeConverters({Iperf3SumConverter.class})
+public class Iperf3IntervalEntity {
+    @NonNull
+    @ColumnInfo(name = "testUUID")
+    public String testUUID = "";
+
+    @ColumnInfo(name = "idx")
+    public int idx;
+
+    @ColumnInfo(name = "sum")
+    public Sum sum;
+
+    @ColumnInfo(name = "sumBidirReverse")
+    public Sum sumBidirReverse;
+
+    @Ignore
+    public Iperf3IntervalEntity(@NonNull String testUUID, int idx, Sum sum, Sum sumBidirReverse) {
+        this.testUUID = testUUID;
+        this.idx = idx;
+        this.sum = sum;
+        this.sumBidirReverse = sumBidirReverse;
+    }
+
+    public Iperf3IntervalEntity() {
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.TypeConverters;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3StreamConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+
+/**
+ * One stream of an {@link Iperf3IntervalEntity}
+ */
+@Entity(tableName = "iperf3_interval_stream", primaryKeys = {"testUUID", "intervalIdx", "streamIdx"})
+@TypeConverters({Iperf3StreamConverter.class})
+public class Iperf3IntervalStreamEntity {
+    @NonNull
+    @ColumnInfo(name = "testUUID")
+    public String testUUID = "";
+
+    @ColumnInfo(name = "intervalIdx")
+    public int intervalIdx;
+
+    @ColumnInfo(name = "streamIdx")
+    public int streamIdx;
+
+    @ColumnInfo(name = "stream")
+    public Stream stream;
+
+    @Ignore
+    public Iperf3IntervalStreamEntity(@NonNull String testUUID, int intervalIdx, int streamIdx, Stream stream) {
+        this.testUUID = testUUID;
+        this.intervalIdx = intervalIdx;
+        this.streamIdx = streamIdx;
+        this.stream = stream;
+    }
+
+    public Iperf3IntervalStreamEntity() {
+    }
+}
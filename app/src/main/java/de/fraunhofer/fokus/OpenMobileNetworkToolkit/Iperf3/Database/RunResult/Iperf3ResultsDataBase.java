@@ -8,27 +8,116 @@
 
 package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3ErrorConverter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3InputConverter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3IntervalsConverter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3StartConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3StreamConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3SumConverter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.MetricConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval.Iperf3IntervalDao;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval.Iperf3IntervalEntity;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval.Iperf3IntervalStreamEntity;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
 
 @Database(
-    entities = {Iperf3RunResult.class},
-    version = 4
+    entities = {Iperf3RunResult.class, Iperf3IntervalEntity.class, Iperf3IntervalStreamEntity.class},
+    version = 5
 )
 
 public abstract class Iperf3ResultsDataBase extends RoomDatabase {
+    private static final String TAG = "Iperf3ResultsDataBase";
+    // legacy interval blobs can exceed the cursor window, so they are read in chunks
+    private static final int LEGACY_READ_CHUNK = 512 * 1024;
 
     private static volatile Iperf3ResultsDataBase INSTANCE;
 
+    /**
+     * Moves the _intervals blob of every run into the append only iperf3_interval and
+     * iperf3_interval_stream tables and clears the blob afterwards.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `iperf3_interval` (`testUUID` TEXT NOT NULL, `idx` INTEGER NOT NULL, `sum` TEXT, `sumBidirReverse` TEXT, PRIMARY KEY(`testUUID`, `idx`))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `iperf3_interval_stream` (`testUUID` TEXT NOT NULL, `intervalIdx` INTEGER NOT NULL, `streamIdx` INTEGER NOT NULL, `stream` TEXT, PRIMARY KEY(`testUUID`, `intervalIdx`, `streamIdx`))");
+
+            ArrayList<String> uids = new ArrayList<>();
+            try (Cursor cursor = database.query("SELECT uid FROM iperf3_result_database WHERE _intervals IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    uids.add(cursor.getString(0));
+                }
+            }
+            Iperf3IntervalsConverter intervalsConverter = new Iperf3IntervalsConverter();
+            Iperf3SumConverter sumConverter = new Iperf3SumConverter();
+            Iperf3StreamConverter streamConverter = new Iperf3StreamConverter();
+            for (String uid : uids) {
+                Intervals intervals;
+                try {
+                    intervals = intervalsConverter.stringToIperf3Intervals(readLegacyIntervals(database, uid));
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "migrate: can't parse intervals of " + uid + ": " + e);
+                    continue;
+                }
+                if (intervals == null) continue;
+                ArrayList<Interval> intervalList = intervals.getIntervalArrayList();
+                for (int idx = 0; idx < intervalList.size(); idx++) {
+                    Interval interval = intervalList.get(idx);
+                    ContentValues intervalValues = new ContentValues();
+                    intervalValues.put("testUUID", uid);
+                    intervalValues.put("idx", idx);
+                    intervalValues.put("sum", sumConverter.sumToString(interval.getSum()));
+                    intervalValues.put("sumBidirReverse", sumConverter.sumToString(interval.getSumBidirReverse()));
+                    database.insert("iperf3_interval", SQLiteDatabase.CONFLICT_REPLACE, intervalValues);
+                    ArrayList<Stream> streams = interval.getStreams().getStreamArrayList();
+                    for (int streamIdx = 0; streamIdx < streams.size(); streamIdx++) {
+                        ContentValues streamValues = new ContentValues();
+                        streamValues.put("testUUID", uid);
+                        streamValues.put("intervalIdx", idx);
+                        streamValues.put("streamIdx", streamIdx);
+                        streamValues.put("stream", streamConverter.streamToString(streams.get(streamIdx)));
+                        database.insert("iperf3_interval_stream", SQLiteDatabase.CONFLICT_REPLACE, streamValues);
+                    }
+                }
+            }
+            database.execSQL("UPDATE iperf3_result_database SET _intervals = NULL");
+        }
+    };
+
+    private static String readLegacyIntervals(SupportSQLiteDatabase database, String uid) {
+        StringBuilder sb = new StringBuilder();
+        int offset = 1;
+        while (true) {
+            try (Cursor cursor = database.query("SELECT substr(_intervals, ?, ?) FROM iperf3_result_database WHERE uid = ?",
+                    new Object[]{offset, LEGACY_READ_CHUNK, uid})) {
+                if (!cursor.moveToFirst()) break;
+                String chunk = cursor.getString(0);
+                if (chunk == null || chunk.isEmpty()) break;
+                sb.append(chunk);
+                if (chunk.length() < LEGACY_READ_CHUNK) break;
+                offset += chunk.length();
+            }
+        }
+        return sb.toString();
+    }
+
     public static Iperf3ResultsDataBase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (Iperf3ResultsDataBase.class) {
@@ -41,6 +130,9 @@ public abstract class Iperf3ResultsDataBase extends RoomDatabase {
                         .addTypeConverter(new Iperf3StartConverter())
                         .addTypeConverter(new MetricConverter())
                         .addTypeConverter(new Iperf3ErrorConverter())
+                        .addTypeConverter(new Iperf3SumConverter())
+                        .addTypeConverter(new Iperf3StreamConverter())
+                        .addMigrations(MIGRATION_4_5)
                         .allowMainThreadQueries()
                         .enableMultiInstanceInvalidation()
                         .fallbackToDestructiveMigration(true)
@@ -52,4 +144,6 @@ public abstract class Iperf3ResultsDataBase extends RoomDatabase {
     }
 
     public abstract Iperf3RunResultDao iperf3RunResultDao();
+
+    public abstract Iperf3IntervalDao iperf3IntervalDao();
 }
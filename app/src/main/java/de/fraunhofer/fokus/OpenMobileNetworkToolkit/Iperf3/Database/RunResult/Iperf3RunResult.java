@@ -53,6 +53,7 @@ public class Iperf3RunResult {
 
     @ColumnInfo(name = "_end")
     public String end;
+    // legacy blob of all intervals, since version 5 intervals are stored in iperf3_interval
     @ColumnInfo(name = "_intervals")
     public Intervals intervals;
     @ColumnInfo(name = "metricUL")
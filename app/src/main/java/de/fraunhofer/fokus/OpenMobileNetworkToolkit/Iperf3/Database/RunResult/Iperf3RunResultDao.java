@@ -9,6 +9,7 @@
 package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
@@ -18,9 +19,7 @@ import androidx.room.TypeConverters;
 import java.util.List;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3ErrorConverter;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3IntervalsConverter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.MetricConverter;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
 
@@ -32,19 +31,17 @@ public interface Iperf3RunResultDao {
     @Query("SELECT uid FROM iperf3_result_database ORDER BY timestamp DESC")
     List<String> getIDs();
 
+    @Query("SELECT uid, result, uploaded, timestamp, input, metricUL, metricDL, error, "
+            + "(SELECT COUNT(*) FROM iperf3_interval WHERE iperf3_interval.testUUID = iperf3_result_database.uid) AS intervalCount "
+            + "FROM iperf3_result_database ORDER BY timestamp DESC")
+    PagingSource<Integer, Iperf3RunResultSummary> getSummaries();
+
     @Query("SELECT * FROM iperf3_result_database WHERE uid = :comp_uid")
     Iperf3RunResult getRunResult(String comp_uid);
 
     @Query("SELECT timestamp FROM iperf3_result_database WHERE uid = :comp_uid")
     long getTimestampFromUid(String comp_uid);
 
-    @Query("SELECT _intervals FROM iperf3_result_database WHERE uid = :comp_uid")
-    @TypeConverters({Iperf3IntervalsConverter.class})
-    Intervals getIntervals(String comp_uid);
-
-    @Query("UPDATE iperf3_result_database SET _intervals = :intervals WHERE uid = :uid")
-    @TypeConverters({Iperf3IntervalsConverter.class})
-    void updateIntervals(String uid, Intervals intervals);
     @Query("UPDATE iperf3_result_database SET metricUL = :metricUL WHERE uid = :uid")
     @TypeConverters({MetricConverter.class})
     void updateMetricUL(String uid, MetricCalculator metricUL);
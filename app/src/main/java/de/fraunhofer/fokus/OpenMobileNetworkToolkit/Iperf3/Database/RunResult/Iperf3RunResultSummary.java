@@ -0,0 +1,78 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.TypeConverters;
+
+import java.util.Objects;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3ErrorConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.Iperf3InputConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.MetricConverter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
+
+/**
+ * Projection of {@link Iperf3RunResult} for the results list.
+ * Leaves out the start and legacy intervals blobs, the number of stored intervals is
+ * counted in the query instead.
+ */
+@TypeConverters({Iperf3InputConverter.class, MetricConverter.class, Iperf3ErrorConverter.class})
+public class Iperf3RunResultSummary {
+    @NonNull
+    @ColumnInfo(name = "uid")
+    public String uid = "";
+
+    @ColumnInfo(name = "result")
+    public int result;
+
+    @ColumnInfo(name = "uploaded")
+    public boolean uploaded;
+
+    @ColumnInfo(name = "timestamp")
+    public long timestamp;
+
+    @ColumnInfo(name = "input")
+    public Iperf3Input input;
+
+    @ColumnInfo(name = "metricUL")
+    public MetricCalculator metricUL;
+
+    @ColumnInfo(name = "metricDL")
+    public MetricCalculator metricDL;
+
+    @ColumnInfo(name = "error")
+    public Error error;
+
+    @ColumnInfo(name = "intervalCount")
+    public int intervalCount;
+
+    /**
+     * @param other summary of the same run
+     * @return true if a row bound to this summary would look the same for other
+     */
+    public boolean sameContent(Iperf3RunResultSummary other) {
+        return result == other.result
+                && uploaded == other.uploaded
+                && timestamp == other.timestamp
+                && intervalCount == other.intervalCount
+                && sameMetric(metricUL, other.metricUL)
+                && sameMetric(metricDL, other.metricDL)
+                && Objects.equals(error == null ? null : error.getError(),
+                        other.error == null ? null : other.error.getError());
+    }
+
+    private static boolean sameMetric(MetricCalculator a, MetricCalculator b) {
+        if (a == null || b == null) return a == b;
+        return a.getCount() == b.getCount() && a.getLast() == b.getLast() && a.getMedian() == b.getMedian();
+    }
+}
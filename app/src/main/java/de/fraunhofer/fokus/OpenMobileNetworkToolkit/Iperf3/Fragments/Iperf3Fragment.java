@@ -24,8 +24,12 @@ import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.work.WorkInfo;
@@ -52,6 +56,7 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3ResultsDataBase;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResult;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultDao;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultSummary;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3Executor;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3RecyclerViewAdapter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3ExecutorWorker;
@@ -64,6 +69,7 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 public class Iperf3Fragment extends Fragment {
 
     private static final String ARG_POSITION = "position";
+    private static final int RESULTS_PAGE_SIZE = 20;
     private Iperf3Input iperf3Input;
     private Context ct;
     private MaterialButton sendBtn;
@@ -187,10 +193,9 @@ public class Iperf3Fragment extends Fragment {
 
                                 if (workInfo.getTags().contains(Iperf3MonitorWorker.class.getCanonicalName())) {
                                     Log.d(TAG, "onSuccess: "+Iperf3MonitorWorker.class.getName()+" in state"+workInfo.getState());
+                                    // the paged list follows the database, Room invalidates it
+                                    // for writes of the worker processes as well
                                     switch (workInfo.getState()) {
-                                        case SUCCEEDED:
-                                            adapter.notifyDataSetChanged();
-                                            break;
                                         case CANCELLED:
                                         case FAILED:
                                             try {
@@ -201,39 +206,30 @@ public class Iperf3Fragment extends Fragment {
                                             } catch (InterruptedException e) {
 
                                             }
-                                            adapter.notifyDataSetChanged();
                                             break;
                                         case BLOCKED:
                                         case ENQUEUED:
                                         case RUNNING:
-                                            adapter.notifyDataSetChanged();
                                             handler.postDelayed(runnable, 500);
                                             break;
                                     }
                                 } else if(workInfo.getTags().contains(Iperf3ExecutorWorker.class.getCanonicalName())){
                                     Log.d(TAG, "onSuccess: "+Iperf3ExecutorWorker.class.getName()+" in state"+workInfo.getState());
                                     switch (workInfo.getState()) {
-                                        case SUCCEEDED:
-                                            adapter.notifyDataSetChanged();
-                                            break;
                                         case CANCELLED:
                                         case FAILED:
                                             iperf3RunResultDao.updateResult(uuid, -1);
                                             remoteWorkManager.cancelAllWorkByTag(iperf3Input.getTestUUID());
-                                            adapter.notifyDataSetChanged();
                                             break;
                                         case BLOCKED:
                                         case ENQUEUED:
                                         case RUNNING:
                                             String line = workInfo.getProgress().getString("interval");
                                             Log.d(TAG, "onSuccess: "+line);
-                                            adapter.notifyDataSetChanged();
-
                                             break;
                                     }
                                 }
                             }
-                            adapter.notifyDataSetChanged();
                         }
 
                         public void onFailure(@NonNull Throwable thrown) {
@@ -289,6 +285,19 @@ public class Iperf3Fragment extends Fragment {
         recyclerView.setLayoutManager(linearLayoutManager);
     }
 
+    /**
+     * Page the run summaries into the adapter, Room queries them off the main thread and
+     * invalidates the paging source when results or intervals change
+     */
+    private void observeRunResults(){
+        Lifecycle lifecycle = getViewLifecycleOwner().getLifecycle();
+        Pager<Integer, Iperf3RunResultSummary> pager = new Pager<>(
+                new PagingConfig(RESULTS_PAGE_SIZE, RESULTS_PAGE_SIZE, false),
+                () -> iperf3RunResultDao.getSummaries());
+        PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), lifecycle)
+                .observe(getViewLifecycleOwner(), pagingData -> adapter.submitData(lifecycle, pagingData));
+    }
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
@@ -336,7 +345,6 @@ public class Iperf3Fragment extends Fragment {
 
                 handler.post(runnable); // start the first execution
                 bottomSheetBehavior.setState(BottomSheetBehavior.STATE_EXPANDED);
-                adapter.notifyDataSetChanged();
 
             }
         });
@@ -479,6 +487,12 @@ public class Iperf3Fragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        observeRunResults();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -12,18 +12,17 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 
 import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkContinuation;
 import androidx.work.WorkManager;
 import androidx.work.multiprocess.RemoteWorkContinuation;
 import androidx.work.multiprocess.RemoteWorkManager;
 
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.Worker.InfluxDB2xUploadWorker;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerOne;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerOne;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3ExecutorWorker;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3MonitorWorker;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker.Iperf3ToLineProtocolWorker;
@@ -36,9 +35,8 @@ public class Iperf3Executor {
     private WorkManager workManager;
     private Context context;
     private SharedPreferencesGrouper spg;
-    private RemoteWorkContinuation remoteWorkContinuation;
-    private WorkContinuation localWorkContinuation;
-    @SuppressLint("EnqueueWork")
+    private final Iperf3Input iperf3Input;
+
     public Iperf3Executor(Iperf3Input iperf3Input, Context context){
 
         if(iperf3Input == null){
@@ -47,37 +45,48 @@ public class Iperf3Executor {
         if(context == null){
             throw new IllegalArgumentException("Context cannot be null");
         }
+        this.iperf3Input = iperf3Input;
         this.context = context;
         this.spg = SharedPreferencesGrouper.getInstance(this.context);
         this.remoteWorkManager = RemoteWorkManager.getInstance(this.context);
         this.workManager = WorkManager.getInstance(this.context);
+    }
+
+    /**
+     * Run the test on the first free worker slot, runs started from the GUI are preferred over
+     * waiting remote runs.
+     */
+    public void execute(){
+        Iperf3WorkerSlots.getInstance(context).submit(iperf3Input.getTestUUID(),
+                Iperf3WorkerPool.PRIORITY_INTERACTIVE, this::createContinuation);
+    }
+
+    @SuppressLint("EnqueueWork")
+    private RemoteWorkContinuation createContinuation(int slot, List<UUID> slotWork) {
         OneTimeWorkRequest iperf3ExecutorWorker = new OneTimeWorkRequest.Builder(Iperf3ExecutorWorker.class)
-                .setInputData(iperf3Input.getInputAsDataBuilder(0, context.getPackageName(), Iperf3ServiceWorkerOne.class.getName()).build())
+                .setInputData(iperf3Input.getInputAsDataBuilder(slot, context.getPackageName(), Iperf3WorkerSlots.getExecutorService(slot)).build())
                 .addTag(iperf3Input.getTestUUID())
                 .build();
         OneTimeWorkRequest iperf3MonitorWorker = new OneTimeWorkRequest.Builder(Iperf3MonitorWorker.class)
-                .setInputData(iperf3Input.getInputAsDataBuilder(0, context.getPackageName(), Iperf3MonitorServiceWorkerOne.class.getName()).build())
+                .setInputData(iperf3Input.getInputAsDataBuilder(slot, context.getPackageName(), Iperf3WorkerSlots.getMonitorService(slot)).build())
                 .addTag(iperf3Input.getTestUUID())
                 .build();
         OneTimeWorkRequest iPerf3ToLineProtocolWorker = new OneTimeWorkRequest.Builder(Iperf3ToLineProtocolWorker.class)
-                .setInputData(iperf3Input.getInputAsDataBuilder(0).build())
+                .setInputData(iperf3Input.getInputAsDataBuilder(slot).build())
                 .addTag(iperf3Input.getTestUUID())
                 .build();
         OneTimeWorkRequest influxDB2xUploadWorker = new OneTimeWorkRequest.Builder(InfluxDB2xUploadWorker.class)
-                .setInputData(iperf3Input.getInputAsDataBuilder(0).build())
+                .setInputData(iperf3Input.getInputAsDataBuilder(slot).build())
                 .addTag(iperf3Input.getTestUUID())
                 .build();
+        slotWork.add(iperf3ExecutorWorker.getId());
+        slotWork.add(iperf3MonitorWorker.getId());
 
-
-        this.remoteWorkContinuation = this.remoteWorkManager.beginWith(Arrays.asList(iperf3ExecutorWorker, iperf3MonitorWorker)).then(iPerf3ToLineProtocolWorker);
+        RemoteWorkContinuation remoteWorkContinuation = this.remoteWorkManager.beginWith(Arrays.asList(iperf3ExecutorWorker, iperf3MonitorWorker)).then(iPerf3ToLineProtocolWorker);
         if(spg.getSharedPreference(SPType.LOGGING).getBoolean("enable_influx", false)){
-            this.remoteWorkContinuation = remoteWorkContinuation.then(influxDB2xUploadWorker);
+            remoteWorkContinuation = remoteWorkContinuation.then(influxDB2xUploadWorker);
         }
-    }
-
-    public void execute(){
-        this.remoteWorkContinuation.enqueue();
-
+        return remoteWorkContinuation;
     }
 
 }
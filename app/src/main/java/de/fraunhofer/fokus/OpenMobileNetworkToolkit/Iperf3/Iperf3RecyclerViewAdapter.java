@@ -25,6 +25,8 @@ import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.Observer;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.flexbox.FlexboxLayout;
@@ -35,21 +37,35 @@ import com.google.android.material.progressindicator.LinearProgressIndicator;
 
 import org.w3c.dom.Text;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Objects;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3ResultsDataBase;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResult;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultDao;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultSummary;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.METRIC_TYPE;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricView;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 
+/**
+ * Shows the paged {@link Iperf3RunResultSummary} rows, the data is submitted by the fragment
+ * from {@link Iperf3RunResultDao#getSummaries()} and loaded off the main thread by Room.
+ */
 public class Iperf3RecyclerViewAdapter
-    extends RecyclerView.Adapter<Iperf3RecyclerViewAdapter.ViewHolder> {
+    extends PagingDataAdapter<Iperf3RunResultSummary, Iperf3RecyclerViewAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<Iperf3RunResultSummary> DIFF_CALLBACK =
+        new DiffUtil.ItemCallback<Iperf3RunResultSummary>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Iperf3RunResultSummary oldItem, @NonNull Iperf3RunResultSummary newItem) {
+                return oldItem.uid.equals(newItem.uid);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Iperf3RunResultSummary oldItem, @NonNull Iperf3RunResultSummary newItem) {
+                return oldItem.sameContent(newItem);
+            }
+        };
     private final String TAG = "Iperf3RecyclerViewAdapter";
     private final Iperf3ResultsDataBase db;
     private Context context;
@@ -60,7 +76,7 @@ public class Iperf3RecyclerViewAdapter
     private Observer observer;
     private String selectedUUID;
     public Iperf3RecyclerViewAdapter(FloatingActionButton uploadBtn) {
-
+        super(DIFF_CALLBACK);
         this.db = Iperf3ResultsDataBase.getDatabase(context);
         this.iperf3RunResultDao = db.iperf3RunResultDao();
 
@@ -144,14 +160,15 @@ public class Iperf3RecyclerViewAdapter
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Iperf3RunResult test = getItemByPosition(position);
+        Iperf3RunResultSummary test = getItem(position);
+        if (test == null) return;
         holder.metricViewDL.setVisibility(GONE);
         holder.metricViewUL.setVisibility(GONE);
 
         holder.metricViewUL.setMetricCalculator(test.metricUL == null ? new MetricCalculator(METRIC_TYPE.THROUGHPUT) : test.metricUL);
         holder.metricViewDL.setMetricCalculator(test.metricDL == null ? new MetricCalculator(METRIC_TYPE.THROUGHPUT) : test.metricDL);
 
-        holder.itemView.setTag(iperf3RunResultDao.getIDs().get(position));
+        holder.itemView.setTag(test.uid);
 
 
         holder.itemView.setOnClickListener(new View.OnClickListener() {
@@ -203,11 +220,7 @@ public class Iperf3RecyclerViewAdapter
                 break;
             case -100:
                 holder.linearProgressIndicator.setMax(test.input.getParameter().getTime()-1);
-                ArrayList<Interval> intervals = new ArrayList<Interval>();
-                if(test.intervals != null)
-                    intervals = test.intervals.getIntervalArrayList();
-                int progress = intervals.size();
-                holder.linearProgressIndicator.setProgress(progress);
+                holder.linearProgressIndicator.setProgress(test.intervalCount);
                 break;
 
         }
@@ -282,7 +295,6 @@ public class Iperf3RecyclerViewAdapter
             holder.metricViewUL.setVisibility(GONE);
             holder.metricViewDL.setVisibility(GONE);
             String errorText = "Error!";
-            test = iperf3RunResultDao.getRunResult(test.uid);
             if(test.error != null){
                 errorText = test.error.getError();
             }
@@ -291,15 +303,6 @@ public class Iperf3RecyclerViewAdapter
         }
 
     }
-    private Iperf3RunResult getItemByPosition(int position) {
-        return iperf3RunResultDao.getRunResult(iperf3RunResultDao.getIDs().get(position));
-    }
-
-    @Override
-    public int getItemCount() {
-        return iperf3RunResultDao.getIDs().size();
-    }
-
     private void setSelectedUUID(String selectedUUID) {
         this.selectedUUID = selectedUUID;
 
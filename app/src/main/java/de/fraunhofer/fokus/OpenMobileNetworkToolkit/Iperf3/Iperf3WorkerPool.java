@@ -0,0 +1,189 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Leases the worker process slots to iPerf3 runs. A run is started as soon as one of the first
+ * {@link #getSize()} slots is free, otherwise it waits in a queue ordered by priority, higher
+ * first, and submission order. The slot stays leased until {@link #release(int)} is called for
+ * it, which starts the next waiting run.
+ * Thread safe, the runs are started outside of the lock on the thread which submitted the run or
+ * released the slot.
+ */
+public class Iperf3WorkerPool {
+    public static final int PRIORITY_DEFAULT = 0;
+    // runs started from the GUI wait less than queued remote runs
+    public static final int PRIORITY_INTERACTIVE = 10;
+
+    /**
+     * Starts a run on a leased slot.
+     */
+    public interface Run {
+        void start(int slot);
+    }
+
+    private static final class Pending {
+        private final String id;
+        private final int priority;
+        private final long sequence;
+        private final Run run;
+
+        private Pending(String id, int priority, long sequence, Run run) {
+            this.id = id;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.run = run;
+        }
+    }
+
+    private static final class Start {
+        private final int slot;
+        private final Run run;
+
+        private Start(int slot, Run run) {
+            this.slot = slot;
+            this.run = run;
+        }
+    }
+
+    private final boolean[] leased;
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> a.priority != b.priority
+            ? Integer.compare(b.priority, a.priority) : Long.compare(a.sequence, b.sequence));
+    private int size;
+    private long sequence;
+    private long started;
+
+    /**
+     * @param maxSlots number of slots with a worker process
+     * @param size     number of slots used for runs, at most maxSlots
+     */
+    public Iperf3WorkerPool(int maxSlots, int size) {
+        if (maxSlots <= 0) throw new IllegalArgumentException("at least one slot required");
+        this.leased = new boolean[maxSlots];
+        this.size = clamp(size);
+    }
+
+    /**
+     * Change the number of slots used for runs. Runs on slots beyond a smaller size keep running,
+     * their slots are not leased again.
+     *
+     * @param size number of slots, limited to 1..maxSlots
+     */
+    public void setSize(int size) {
+        synchronized (this) {
+            this.size = clamp(size);
+        }
+        startPending();
+    }
+
+    /**
+     * Start the run on a free slot or queue it until a slot is released.
+     *
+     * @param id       id of the run e.g. the test UUID, used to cancel it while it waits
+     * @param priority higher priorities leave the queue first
+     */
+    public void submit(String id, int priority, Run run) {
+        synchronized (this) {
+            queue.add(new Pending(id, priority, sequence++, run));
+        }
+        startPending();
+    }
+
+    /**
+     * Return the slot to the pool and start the next waiting run on a free slot.
+     */
+    public void release(int slot) {
+        synchronized (this) {
+            if (!leased[slot]) throw new IllegalStateException("slot " + slot + " is not leased");
+            leased[slot] = false;
+        }
+        startPending();
+    }
+
+    /**
+     * Remove the waiting runs with the id, runs holding a slot are not affected.
+     *
+     * @return number of removed runs
+     */
+    public synchronized int cancel(String id) {
+        int removed = 0;
+        for (Iterator<Pending> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().id.equals(id)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    public int getMaxSlots() {
+        return leased.length;
+    }
+
+    /**
+     * @return number of leased slots
+     */
+    public synchronized int getBusySlots() {
+        int busy = 0;
+        for (boolean slot : leased) {
+            if (slot) busy++;
+        }
+        return busy;
+    }
+
+    /**
+     * @return number of runs waiting for a slot
+     */
+    public synchronized int getQueuedRuns() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of runs started so far
+     */
+    public synchronized long getStartedRuns() {
+        return started;
+    }
+
+    private int clamp(int size) {
+        return Math.max(1, Math.min(size, leased.length));
+    }
+
+    private void startPending() {
+        List<Start> starts = new ArrayList<>();
+        synchronized (this) {
+            for (int slot = 0; slot < size && !queue.isEmpty(); slot++) {
+                if (leased[slot]) continue;
+                leased[slot] = true;
+                starts.add(new Start(slot, queue.poll().run));
+                started++;
+            }
+        }
+        RuntimeException failure = null;
+        for (Start start : starts) {
+            try {
+                start.run.start(start.slot);
+            } catch (RuntimeException e) {
+                // a run which failed to start does not hold the slot
+                release(start.slot);
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
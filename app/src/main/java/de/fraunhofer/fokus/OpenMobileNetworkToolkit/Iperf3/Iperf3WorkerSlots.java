@@ -0,0 +1,217 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.multiprocess.RemoteWorkContinuation;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerEight;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerFive;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerFour;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerOne;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerSeven;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerSix;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerThree;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Executor.Iperf3ServiceWorkerTwo;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerEight;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerFive;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerFour;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerOne;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerSeven;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerSix;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerThree;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Service.Monitor.Iperf3MonitorServiceWorkerTwo;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SPType;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SharedPreferencesGrouper;
+
+/**
+ * Worker process slots of the iPerf3 runs. Every slot is a pair of remote worker services, one
+ * for the executor and one for the monitor, each running in its own process declared in the
+ * manifest. The services can't be created at runtime, so the pool size is limited to the
+ * declared slots, more slots need another pair of services in the manifest and in the tables
+ * below. Runs are leased a slot by a {@link Iperf3WorkerPool}, the slot is released once the
+ * work requests using it are finished.
+ */
+public class Iperf3WorkerSlots {
+    private static final String TAG = "Iperf3WorkerSlots";
+    public static final String PREFERENCE_KEY = "iperf3_worker_slots";
+    public static final int DEFAULT_SLOTS = 4;
+
+    private static final Class<?>[] EXECUTOR_SERVICES = {
+            Iperf3ServiceWorkerOne.class,
+            Iperf3ServiceWorkerTwo.class,
+            Iperf3ServiceWorkerThree.class,
+            Iperf3ServiceWorkerFour.class,
+            Iperf3ServiceWorkerFive.class,
+            Iperf3ServiceWorkerSix.class,
+            Iperf3ServiceWorkerSeven.class,
+            Iperf3ServiceWorkerEight.class
+    };
+    private static final Class<?>[] MONITOR_SERVICES = {
+            Iperf3MonitorServiceWorkerOne.class,
+            Iperf3MonitorServiceWorkerTwo.class,
+            Iperf3MonitorServiceWorkerThree.class,
+            Iperf3MonitorServiceWorkerFour.class,
+            Iperf3MonitorServiceWorkerFive.class,
+            Iperf3MonitorServiceWorkerSix.class,
+            Iperf3MonitorServiceWorkerSeven.class,
+            Iperf3MonitorServiceWorkerEight.class
+    };
+    public static final int MAX_SLOTS = EXECUTOR_SERVICES.length;
+
+    private static Iperf3WorkerSlots instance;
+
+    private final Iperf3WorkerPool pool;
+    private final WorkManager workManager;
+    private final Executor mainExecutor;
+
+    /**
+     * Builds the work of a run on a leased slot.
+     */
+    public interface RunFactory {
+        /**
+         * @param slot     the leased slot
+         * @param slotWork receives the ids of the work requests running on the slot
+         * @return the continuation to enqueue
+         */
+        RemoteWorkContinuation create(int slot, List<UUID> slotWork);
+    }
+
+    private Iperf3WorkerSlots(Context context) {
+        int size = parseSize(SharedPreferencesGrouper.getInstance(context)
+                .getSharedPreference(SPType.IPERF3).getString(PREFERENCE_KEY, null));
+        this.pool = new Iperf3WorkerPool(MAX_SLOTS, size);
+        this.workManager = WorkManager.getInstance(context);
+        this.mainExecutor = context.getMainExecutor();
+    }
+
+    public static synchronized Iperf3WorkerSlots getInstance(Context context) {
+        if (instance == null) {
+            instance = new Iperf3WorkerSlots(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return class name of the executor service of the slot
+     */
+    public static String getExecutorService(int slot) {
+        checkSlot(slot);
+        return EXECUTOR_SERVICES[slot].getName();
+    }
+
+    /**
+     * @return class name of the monitor service of the slot
+     */
+    public static String getMonitorService(int slot) {
+        checkSlot(slot);
+        return MONITOR_SERVICES[slot].getName();
+    }
+
+    /**
+     * @param value pool size setting
+     * @return the size, the default size if the value is invalid
+     */
+    public static int parseSize(String value) {
+        try {
+            int size = Integer.parseInt(value.trim());
+            return size <= 0 ? DEFAULT_SLOTS : Math.min(size, MAX_SLOTS);
+        } catch (NumberFormatException | NullPointerException e) {
+            return DEFAULT_SLOTS;
+        }
+    }
+
+    private static void checkSlot(int slot) {
+        if (slot < 0 || slot >= MAX_SLOTS) {
+            throw new IllegalArgumentException("no iperf3 worker slot " + slot + ", "
+                    + MAX_SLOTS + " slots are declared");
+        }
+    }
+
+    public void setSize(int size) {
+        pool.setSize(size);
+    }
+
+    public Iperf3WorkerPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Enqueue the run once a slot is free.
+     *
+     * @param testUUID test UUID of the run, used to cancel it while it waits
+     * @param priority higher priorities get a slot first, see {@link Iperf3WorkerPool}
+     */
+    public void submit(String testUUID, int priority, RunFactory factory) {
+        pool.submit(testUUID, priority, slot -> {
+            List<UUID> slotWork = new ArrayList<>();
+            RemoteWorkContinuation continuation = factory.create(slot, slotWork);
+            Log.d(TAG, "submit: " + testUUID + " on slot " + slot);
+            Futures.addCallback(continuation.enqueue(), new FutureCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    releaseWhenFinished(slot, slotWork);
+                }
+
+                @Override
+                public void onFailure(@NonNull Throwable t) {
+                    Log.e(TAG, "submit: could not enqueue " + testUUID + ": " + t.getMessage());
+                    pool.release(slot);
+                }
+            }, mainExecutor);
+        });
+    }
+
+    /**
+     * Drop the waiting runs of the test, the work of started runs has to be cancelled by tag.
+     */
+    public void cancel(String testUUID) {
+        int removed = pool.cancel(testUUID);
+        if (removed > 0) Log.d(TAG, "cancel: removed " + removed + " waiting runs of " + testUUID);
+    }
+
+    // called on the main thread, observeForever requires it
+    private void releaseWhenFinished(int slot, List<UUID> slotWork) {
+        if (slotWork.isEmpty()) {
+            pool.release(slot);
+            return;
+        }
+        AtomicInteger running = new AtomicInteger(slotWork.size());
+        for (UUID id : slotWork) {
+            LiveData<WorkInfo> liveData = workManager.getWorkInfoByIdLiveData(id);
+            liveData.observeForever(new Observer<WorkInfo>() {
+                @Override
+                public void onChanged(WorkInfo workInfo) {
+                    if (workInfo == null || !workInfo.getState().isFinished()) return;
+                    liveData.removeObserver(this);
+                    if (running.decrementAndGet() == 0) {
+                        Log.d(TAG, "releaseWhenFinished: slot " + slot + " is free");
+                        pool.release(slot);
+                    }
+                }
+            });
+        }
+    }
+}
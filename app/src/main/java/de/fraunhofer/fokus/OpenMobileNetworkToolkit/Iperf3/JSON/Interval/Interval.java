@@ -107,6 +107,12 @@ public class Interval {
     public Sum getSumBidirReverse() {
         return sumBidirReverse;
     }
+    public void setSum(Sum sum) {
+        this.sum = sum;
+    }
+    public void setSumBidirReverse(Sum sumBidirReverse) {
+        this.sumBidirReverse = sumBidirReverse;
+    }
 
     public String toString(){
         return new Gson().toJson(this);
@@ -13,7 +13,7 @@ import org.json.JSONObject;
 
 public class Stream {
     private int socket;
-    private int start;
+    private double start;
     private double end;
     private double seconds;
     private long bytes;
@@ -27,7 +27,7 @@ public class Stream {
     }
     public void parse(JSONObject data) throws JSONException {
         this.socket = data.getInt("socket");
-        this.start = data.getInt("start");
+        this.start = data.getDouble("start");
         this.end = data.getDouble("end");
         this.seconds = data.getDouble("seconds");
         this.bytes = data.getLong("bytes");
@@ -39,7 +39,7 @@ public class Stream {
     public int getSocket() {
         return socket;
     }
-    public int getStart() {
+    public double getStart() {
         return start;
     }
     public double getEnd() {
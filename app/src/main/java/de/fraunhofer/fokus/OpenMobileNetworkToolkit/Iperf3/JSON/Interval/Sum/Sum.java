@@ -12,7 +12,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 public class Sum {
-    private int start;
+    private double start;
     private float end;
     private float seconds;
     private long bytes;
@@ -23,7 +23,7 @@ public class Sum {
     public Sum(){
     }
     public void parse(JSONObject data) throws JSONException {
-        this.start = data.getInt("start");
+        this.start = data.getDouble("start");
         this.end = (float) data.getDouble("end");
         this.seconds = (float) data.getDouble("seconds");
         this.bytes = data.getLong("bytes");
@@ -31,7 +31,7 @@ public class Sum {
         this.omitted = data.getBoolean("omitted");
         this.sender = data.getBoolean("sender");
     }
-    public int getStart() {
+    public double getStart() {
         return start;
     }
     public float getEnd() {
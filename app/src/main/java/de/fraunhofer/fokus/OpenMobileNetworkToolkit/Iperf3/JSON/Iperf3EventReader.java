@@ -0,0 +1,252 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter.JsonAdapterRegistry;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.STREAM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.Sum;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_UL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_UL_SUM;
+import okio.Buffer;
+
+/**
+ * Streaming parser for the lines of iperf3 --json-stream output.
+ * Interval events are read token by token with a Moshi {@link JsonReader} straight into
+ * {@link Interval}, {@link Sum} and {@link Stream} objects without building a JSON tree.
+ * The concrete sum and stream class is chosen by peeking at the keys of the object,
+ * with the same rules as {@link Interval#identifySum} and {@code Streams.identifyStream}.
+ */
+public class Iperf3EventReader {
+    public static final String START = "start";
+    public static final String INTERVAL = "interval";
+    public static final String END = "end";
+    public static final String ERROR = "error";
+
+    private static final JsonReader.Options EVENT_KEYS = JsonReader.Options.of("event", "data");
+    private static final JsonReader.Options INTERVAL_KEYS = JsonReader.Options.of("streams", "sum", "sum_bidir_reverse");
+    private static final JsonReader.Options TYPE_KEYS = JsonReader.Options.of("sender", "retransmits", "packets", "jitter_ms");
+
+    private static final int SENDER = 1;
+    private static final int RETRANSMITS = 1 << 1;
+    private static final int PACKETS = 1 << 2;
+    private static final int JITTER = 1 << 3;
+
+    private final JsonAdapter<TCP_UL_SUM> tcpUlSumAdapter;
+    private final JsonAdapter<TCP_DL_SUM> tcpDlSumAdapter;
+    private final JsonAdapter<UDP_UL_SUM> udpUlSumAdapter;
+    private final JsonAdapter<UDP_DL_SUM> udpDlSumAdapter;
+    private final JsonAdapter<TCP_UL_STREAM> tcpUlStreamAdapter;
+    private final JsonAdapter<TCP_DL_STREAM> tcpDlStreamAdapter;
+    private final JsonAdapter<UDP_UL_STREAM> udpUlStreamAdapter;
+    private final JsonAdapter<UDP_DL_STREAM> udpDlStreamAdapter;
+
+    public Iperf3EventReader() {
+        Moshi moshi = JsonAdapterRegistry.getMoshi();
+        tcpUlSumAdapter = moshi.adapter(TCP_UL_SUM.class);
+        tcpDlSumAdapter = moshi.adapter(TCP_DL_SUM.class);
+        udpUlSumAdapter = moshi.adapter(UDP_UL_SUM.class);
+        udpDlSumAdapter = moshi.adapter(UDP_DL_SUM.class);
+        tcpUlStreamAdapter = moshi.adapter(TCP_UL_STREAM.class);
+        tcpDlStreamAdapter = moshi.adapter(TCP_DL_STREAM.class);
+        udpUlStreamAdapter = moshi.adapter(UDP_UL_STREAM.class);
+        udpDlStreamAdapter = moshi.adapter(UDP_DL_STREAM.class);
+    }
+
+    /**
+     * A single iperf3 event. Only interval events are parsed into objects,
+     * start events are rare and keep the raw line for {@link de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.start.Start#parseStart}.
+     */
+    public static class Event {
+        private final String type;
+        private final Interval interval;
+        private final String error;
+
+        private Event(String type, Interval interval, String error) {
+            this.type = type;
+            this.interval = interval;
+            this.error = error;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public Interval getInterval() {
+            return interval;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * @param line one line of iperf3 --json-stream output
+     * @return the parsed event, the type is null if the line has no event
+     * @throws IOException if the line is not valid JSON or does not match the iperf3 format
+     */
+    public Event read(String line) throws IOException {
+        try (JsonReader reader = JsonReader.of(new Buffer().writeUtf8(line))) {
+            String type = null;
+            Interval interval = null;
+            String error = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(EVENT_KEYS)) {
+                    case 0:
+                        type = reader.nextString();
+                        break;
+                    case 1:
+                        // iperf3 writes the event before the data, peek if that is not the case
+                        if (type == null) {
+                            type = peekEvent(reader);
+                        }
+                        if (INTERVAL.equals(type)) {
+                            interval = readInterval(reader);
+                        } else if (ERROR.equals(type) && reader.peek() == JsonReader.Token.STRING) {
+                            error = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new Event(type, interval, error);
+        }
+    }
+
+    private static String peekEvent(JsonReader reader) throws IOException {
+        // the data value is the next token, its parent object is still open in the peeked reader
+        try (JsonReader peek = reader.peekJson()) {
+            peek.skipValue();
+            while (peek.hasNext()) {
+                int key = peek.selectName(EVENT_KEYS);
+                if (key == 0) {
+                    return peek.nextString();
+                }
+                if (key == -1) {
+                    peek.skipName();
+                }
+                peek.skipValue();
+            }
+        }
+        return null;
+    }
+
+    private Interval readInterval(JsonReader reader) throws IOException {
+        Interval interval = new Interval();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(INTERVAL_KEYS)) {
+                case 0:
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        interval.getStreams().addStream(readStream(reader));
+                    }
+                    reader.endArray();
+                    break;
+                case 1:
+                    interval.setSum(readSum(reader));
+                    break;
+                case 2:
+                    interval.setSumBidirReverse(readSum(reader));
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return interval;
+    }
+
+    private Sum readSum(JsonReader reader) throws IOException {
+        int keys = peekTypeKeys(reader);
+        if ((keys & SENDER) != 0) {
+            if ((keys & RETRANSMITS) != 0) return tcpUlSumAdapter.fromJson(reader);
+            if ((keys & PACKETS) != 0) return udpUlSumAdapter.fromJson(reader);
+        }
+        if ((keys & JITTER) != 0) return udpDlSumAdapter.fromJson(reader);
+        return tcpDlSumAdapter.fromJson(reader);
+    }
+
+    private Stream readStream(JsonReader reader) throws IOException {
+        int keys = peekTypeKeys(reader);
+        Stream stream;
+        STREAM_TYPE type;
+        if ((keys & SENDER) != 0 && (keys & RETRANSMITS) != 0) {
+            stream = tcpUlStreamAdapter.fromJson(reader);
+            type = STREAM_TYPE.TCP_UL;
+        } else if ((keys & SENDER) != 0 && (keys & PACKETS) != 0) {
+            stream = udpUlStreamAdapter.fromJson(reader);
+            type = STREAM_TYPE.UDP_UL;
+        } else if ((keys & JITTER) != 0) {
+            stream = udpDlStreamAdapter.fromJson(reader);
+            type = STREAM_TYPE.UDP_DL;
+        } else {
+            stream = tcpDlStreamAdapter.fromJson(reader);
+            type = STREAM_TYPE.TCP_DL;
+        }
+        // set by parse() for the org.json path, not part of the iperf3 output
+        stream.setStreamType(type);
+        return stream;
+    }
+
+    private static int peekTypeKeys(JsonReader reader) throws IOException {
+        int keys = 0;
+        try (JsonReader peek = reader.peekJson()) {
+            peek.beginObject();
+            while (peek.hasNext()) {
+                switch (peek.selectName(TYPE_KEYS)) {
+                    case 0:
+                        if (peek.peek() == JsonReader.Token.BOOLEAN && peek.nextBoolean()) {
+                            keys |= SENDER;
+                        } else {
+                            peek.skipValue();
+                        }
+                        break;
+                    case 1:
+                        keys |= RETRANSMITS;
+                        peek.skipValue();
+                        break;
+                    case 2:
+                        keys |= PACKETS;
+                        peek.skipValue();
+                        break;
+                    case 3:
+                        keys |= JITTER;
+                        peek.skipValue();
+                        break;
+                    default:
+                        peek.skipName();
+                        peek.skipValue();
+                }
+            }
+        }
+        return keys;
+    }
+}
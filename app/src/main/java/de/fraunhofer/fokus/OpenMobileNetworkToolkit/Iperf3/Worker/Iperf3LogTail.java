@@ -0,0 +1,96 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Follows a file that is appended to by another process, like tail -f.
+ * Every {@link #drain} reads all bytes written since the last call and hands out the complete
+ * lines, an incomplete last line is kept until its line break arrives.
+ * Not thread safe, drain from a single thread.
+ */
+public class Iperf3LogTail implements Closeable {
+    public interface LineHandler {
+        void onLine(String line);
+    }
+
+    private final File file;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+    private byte[] line = new byte[8 * 1024];
+    private int lineLength;
+
+    public Iperf3LogTail(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read everything appended since the last call.
+     *
+     * @param handler called for every complete, non empty line, may {@link #close} the tail,
+     *                the drain stops after that line
+     * @return number of lines handed to the handler
+     * @throws IOException if the file can't be read
+     */
+    public int drain(LineHandler handler) throws IOException {
+        if (channel == null) {
+            if (!file.exists()) return 0;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        int lines = 0;
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    if (emit(handler)) lines++;
+                    if (channel == null) return lines;
+                } else {
+                    append(b);
+                }
+            }
+            buffer.clear();
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        buffer.clear();
+        lineLength = 0;
+    }
+
+    private boolean emit(LineHandler handler) {
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == '\r') length--;
+        lineLength = 0;
+        if (length == 0) return false;
+        handler.onLine(new String(line, 0, length, StandardCharsets.UTF_8));
+        return true;
+    }
+
+    private void append(byte b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = b;
+    }
+}
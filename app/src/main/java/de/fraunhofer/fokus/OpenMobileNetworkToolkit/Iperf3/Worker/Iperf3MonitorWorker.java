@@ -17,10 +17,13 @@ import android.app.Notification;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.FileObserver;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.util.Log;
 import android.widget.RemoteViews;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.concurrent.futures.CallbackToFutureAdapter;
 import androidx.core.app.NotificationCompat;
 import androidx.work.Data;
@@ -32,26 +35,27 @@ import androidx.work.multiprocess.RemoteWorkManager;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.gson.Gson;
+import com.squareup.moshi.JsonDataException;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval.Iperf3IntervalDao;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3ResultsDataBase;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResult;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultDao;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Iperf3EventReader;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.start.Start;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.METRIC_TYPE;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
@@ -59,6 +63,11 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 
 public class Iperf3MonitorWorker extends RemoteListenableWorker {
     public static final String TAG = "Iperf3MonitorWorker";
+    // time after the configured test duration to wait for the end event
+    private static final long END_GRACE_MS = 10000;
+    // min time between two writes of intervals and metrics, every write invalidates the
+    // paged results list
+    private static final long INTERVAL_FLUSH_MS = 5000;
 
     private final String channelId = "OMNT_notification_channel";
     private final int FOREGROUND_SERVICE_TYPE = FOREGROUND_SERVICE_TYPE_SPECIAL_USE;
@@ -68,18 +77,30 @@ public class Iperf3MonitorWorker extends RemoteListenableWorker {
     private Notification notification;
     private Iperf3ResultsDataBase db;
     private Iperf3RunResultDao iperf3RunResultDao;
+    private Iperf3IntervalDao iperf3IntervalDao;
+    private int intervalIdx;
+    // intervals not yet stored, only touched on the reader thread
+    private final List<Interval> pendingIntervals = new ArrayList<>();
+    private long lastIntervalFlush;
     private Iperf3RunResult iperf3RunResult;
     private Context context;
     private RemoteWorkManager remoteWorkManager;
     private WorkQuery workQuery;
     private ScheduledExecutorService executorService;
-    private BufferedReader br = null;
     private String pathToFile;
     private File file;
     private boolean isStopped;
 
     private RemoteViews notificationLayout;
     private FileObserver fileObserver;
+    private HandlerThread readerThread;
+    private volatile Handler readerHandler;
+    private Iperf3LogTail logTail;
+    private final Iperf3EventReader eventReader = new Iperf3EventReader();
+    private final Runnable drainRunnable = this::drain;
+    private CallbackToFutureAdapter.Completer<Result> completer;
+    // only touched on the reader thread
+    private boolean finished;
 
     MetricCalculator metricCalculatorUL;
     MetricCalculator metricCalculatorDL;
@@ -96,6 +117,9 @@ public class Iperf3MonitorWorker extends RemoteListenableWorker {
         notificationID += notificationNumber;
         db = Iperf3ResultsDataBase.getDatabase(this.context);
         iperf3RunResultDao = db.iperf3RunResultDao();
+        iperf3IntervalDao = db.iperf3IntervalDao();
+        // continue after already stored intervals if the worker was restarted
+        intervalIdx = iperf3IntervalDao.countIntervals(iperf3Input.getTestUUID());
         notificationBuilder = new NotificationCompat.Builder(this.context, channelId);
         iperf3RunResultDao.getRunResult(iperf3Input.getTestUUID());
         remoteWorkManager = RemoteWorkManager.getInstance(this.context);
@@ -121,177 +145,196 @@ public class Iperf3MonitorWorker extends RemoteListenableWorker {
     @Override
     public ListenableFuture<Result> startRemoteWork() {
         return CallbackToFutureAdapter.getFuture(completer -> {
-
-
+            this.completer = completer;
             setForegroundAsync(createForegroundInfo(notificationLayout));
-            try {
-                br = new BufferedReader(new FileReader(file));
-                br.ready();
-            } catch (IOException ex) {
-                Log.d(TAG, "Iperf3MonitorWorker: file not found!" + ex);
-            }
             Log.d(TAG, "doWork: starting "+this.getClass().getCanonicalName());
-            Timestamp starTtime = new Timestamp(iperf3RunResultDao.getTimestampFromUid(iperf3Input.getTestUUID()));
-            while(true){
-                Timestamp newTimestamp = new java.sql.Timestamp(System.currentTimeMillis());
-                long deltaInMillis = Math.abs(newTimestamp.getTime() - starTtime.getTime());
-                if(deltaInMillis > iperf3Input.getParameter().getTime()*1000){
-                    break;
-                }
-                String line = null;
-                try {
-                    while ((line = br.readLine()) != null) {
-                        JSONObject obj = null;
-                        try {
-                            obj = new JSONObject(line);
-                        } catch (JSONException e) {
-                            Log.d(TAG, "run: parsing line as JSONObject failed");
-                            break;
-                        }
-                        String event = null;
-                        try {
-                            event = obj.getString("event");
-                            Log.d(TAG, "run: got event: " + event);
-                        } catch (JSONException e) {
-                            Log.d(TAG, "run: parsing event failed");
-                            break;
-                        }
-                        switch (event) {
-                            case "start":
-                                Log.d(TAG, "parse: Start");
-                                Start start = new Start();
-                                JSONObject startData = null;
-                                try {
-                                    startData = obj.getJSONObject("data");
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "parse: getting start failed");
-                                    Log.d(TAG, "parse: " + e);
-
-                                }
-                                try {
-                                    start.parseStart(startData);
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "parse: parsing start failed");
-                                    Log.d(TAG, "parse: " + e);
-
-                                }
-                                setProgressAsync(new Data.Builder().putString("start", start.toString()).build());
-                                iperf3RunResultDao.updateStart(iperf3Input.getTestUUID(), start.toString());
-
-
-                                break;
-                            case "interval":
-                                Log.d(TAG, "parse: Interval");
-                                Interval interval = new Interval();
-                                JSONObject intervalData = null;
-                                try {
-                                    intervalData = obj.getJSONObject("data");
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "run: getting interval failed");
-                                    Log.d(TAG, "parse: " + e);
-
-                                }
-                                try {
-                                    interval.parse(intervalData);
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "run: parsing interval failed");
-                                    Log.d(TAG, "parse: " + e);
-
-                                }
-
-
-                                Log.d(TAG, "Read Thread: interval: " + interval.toString());
-                                if (interval.getSum().getSender()) {
-                                    metricCalculatorUL.update(interval.getSum().getBits_per_second());
-                                } else {
-                                    metricCalculatorDL.update(interval.getSum().getBits_per_second());
-                                }
-
-                                String megabitPerSecond = String.valueOf( Math.round(interval.getSum().getBits_per_second() / 1e6));
-                                metricCalculatorUL.update(interval.getSum().getBits_per_second());
-                                notificationLayout.setTextViewText(R.id.notification_title, String.format("iPerf3 %s:%s", iperf3Input.getParameter().getHost(), iperf3Input.getParameter().getPort()));
-                                notificationLayout.setTextViewText(R.id.notification_throughput, String.format("Throughput: %s Mbit/s", megabitPerSecond));
-                                notificationLayout.setTextViewText(R.id.notification_direction, String.format("Direction: %s", interval.getSum().getSumType()));
-                                notificationLayout.setViewVisibility(R.id.notification_throughput, VISIBLE);
-                                notificationLayout.setViewVisibility(R.id.notification_direction, VISIBLE);
-
-
-                                if (interval.getSumBidirReverse() != null) {
-                                    notificationLayout.setViewVisibility(R.id.notification_bidir_throughput, VISIBLE);
-                                    notificationLayout.setViewVisibility(R.id.notification_bidir_direction, VISIBLE);
-                                    notificationLayout.setTextViewText(R.id.notification_bidir_throughput, String.format("Throughput: %d Mbit/s", Math.round(interval.getSumBidirReverse().getBits_per_second() / 1e6)));
-                                    notificationLayout.setTextViewText(R.id.notification_bidir_direction, String.format("Direction: %s", interval.getSumBidirReverse().getSumType()));
-                                    metricCalculatorDL.update(interval.getSumBidirReverse().getBits_per_second());
-                                }
-                                metricCalculatorDL.calcAll();
-                                metricCalculatorUL.calcAll();
-                                iperf3RunResultDao.updateMetricDL(iperf3Input.getTestUUID(), metricCalculatorDL);
-                                iperf3RunResultDao.updateMetricUL(iperf3Input.getTestUUID(), metricCalculatorUL);
-
-                                setProgressAsync(new Data.Builder().putString("interval", interval.toString()).build());
-                                setForegroundAsync(createForegroundInfo(notificationLayout));
-
-                                Intervals _intervals = iperf3RunResultDao.getIntervals(iperf3Input.getTestUUID());
-                                if (_intervals == null) {
-                                    _intervals = new Intervals();
-                                }
-                                _intervals.addInterval(interval);
-                                iperf3RunResultDao.updateIntervals(iperf3Input.getTestUUID(), _intervals);
-                                break;
-                            case "end":
-                                Log.d(TAG, "parse: End");
-                                //todo
-                                //End end = new End();
-                                //JSONObject endData = obj.getJSONObject("data");
-                                //end.parseEnd(endData);
-                                //support.firePropertyChange("interval", null, end);
-
-                                break;
-                            case "error":
-                                Log.d(TAG, "parse: Error");
-                                de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error error = new Error();
-                                String errorString = null;
-                                iperf3RunResultDao.updateResult(iperf3Input.getTestUUID(), -1);
-                                try {
-                                    errorString = obj.getString("data");
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "run: getting error failed!");
-                                    Log.d(TAG, "parse: " + e);
-                                    break;
-                                }
-                                try {
-                                    error.parse(errorString);
-                                    Log.d(TAG, "startRemoteWork: got error!"+error);
-                                    setProgressAsync(new Data.Builder().putString("error", error.toString()).build());
-                                    iperf3RunResultDao.updateError(iperf3Input.getTestUUID(), error);
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "run: parsing error failed!");
-                                    Log.d(TAG, "parse: " + e);
-                                    break;
-                                }
-
-                                return completer.set(Result.success());
-                            default:
-                                Log.d(TAG, "parse: Unknown event");
-                                break;
-                        }
-                        Thread.sleep((long) (iperf3Input.getParameter().getInterval() * 1001));
 
+            readerThread = new HandlerThread("Iperf3Monitor");
+            readerThread.start();
+            readerHandler = new Handler(readerThread.getLooper());
+            logTail = new Iperf3LogTail(file);
+
+            // watch the directory, the executor worker may not have created the file yet
+            fileObserver = new FileObserver(file.getParentFile(),
+                    FileObserver.CREATE | FileObserver.MODIFY | FileObserver.CLOSE_WRITE) {
+                @Override
+                public void onEvent(int event, @Nullable String path) {
+                    if (file.getName().equals(path)) {
+                        scheduleDrain();
                     }
-                } catch (Exception e){
-                    Log.d(TAG, "run: error reading file: "+e);
-
                 }
-            }
+            };
+            fileObserver.startWatching();
+            scheduleDrain();
+
+            // safety net if iperf3 dies without writing an end or error event
+            long startTime = iperf3RunResultDao.getTimestampFromUid(iperf3Input.getTestUUID());
+            long timeout = startTime + iperf3Input.getParameter().getTime() * 1000L + END_GRACE_MS
+                    - System.currentTimeMillis();
+            readerHandler.postDelayed(() -> {
+                drain();
+                finish();
+            }, Math.max(0, timeout));
+            return TAG;
+        });
+    }
 
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        Handler handler = readerHandler;
+        if (handler != null) {
+            handler.post(this::finish);
+        }
+    }
 
+    private void scheduleDrain() {
+        Handler handler = readerHandler;
+        // coalesce bursts of inotify events into one drain
+        if (handler != null && !handler.hasCallbacks(drainRunnable)) {
+            handler.post(drainRunnable);
+        }
+    }
 
+    private void drain() {
+        if (finished) return;
+        try {
+            logTail.drain(this::handleLine);
+        } catch (IOException e) {
+            Log.d(TAG, "drain: error reading file: " + e);
+        }
+    }
 
+    private void finish() {
+        if (finished) return;
+        flushIntervals();
+        finished = true;
+        fileObserver.stopWatching();
+        readerHandler.removeCallbacksAndMessages(null);
+        try {
+            logTail.close();
+        } catch (IOException e) {
+            Log.d(TAG, "finish: closing file failed: " + e);
+        }
+        readerThread.quitSafely();
+        completer.set(Result.success());
+    }
+
+    private void handleLine(String line) {
+        if (finished) return;
+        Iperf3EventReader.Event event;
+        try {
+            event = eventReader.read(line);
+        } catch (IOException | JsonDataException e) {
+            Log.d(TAG, "handleLine: parsing line failed: " + e);
+            return;
+        }
+        if (event.getType() == null) {
+            Log.d(TAG, "handleLine: line without event");
+            return;
+        }
+        Log.d(TAG, "handleLine: got event: " + event.getType());
+        switch (event.getType()) {
+            case Iperf3EventReader.START:
+                handleStart(line);
+                break;
+            case Iperf3EventReader.INTERVAL:
+                if (event.getInterval() == null || event.getInterval().getSum() == null) {
+                    Log.e(TAG, "handleLine: interval without sum");
+                    break;
+                }
+                handleInterval(event.getInterval());
+                break;
+            case Iperf3EventReader.END:
+                Log.d(TAG, "parse: End");
+                //todo parse end
+                finish();
+                break;
+            case Iperf3EventReader.ERROR:
+                Log.d(TAG, "parse: Error");
+                iperf3RunResultDao.updateResult(iperf3Input.getTestUUID(), -1);
+                if (event.getError() == null) {
+                    Log.e(TAG, "handleLine: getting error failed!");
+                } else {
+                    Error error = new Error();
+                    error.setError(event.getError());
+                    Log.d(TAG, "startRemoteWork: got error!"+error);
+                    setProgressAsync(new Data.Builder().putString("error", error.toString()).build());
+                    iperf3RunResultDao.updateError(iperf3Input.getTestUUID(), error);
+                }
+                finish();
+                break;
+            default:
+                Log.d(TAG, "parse: Unknown event");
+                break;
+        }
+    }
 
+    // the start event comes once per run, it still goes through Start.parseStart
+    private void handleStart(String line) {
+        Log.d(TAG, "parse: Start");
+        Start start = new Start();
+        try {
+            start.parseStart(new JSONObject(line).getJSONObject("data"));
+        } catch (JSONException e) {
+            Log.e(TAG, "parse: parsing start failed");
+            Log.d(TAG, "parse: " + e);
+        }
+        setProgressAsync(new Data.Builder().putString("start", start.toString()).build());
+        iperf3RunResultDao.updateStart(iperf3Input.getTestUUID(), start.toString());
+    }
 
+    private void handleInterval(Interval interval) {
+        Log.d(TAG, "Read Thread: interval: " + interval.toString());
+        if (interval.getSum().getSender()) {
+            metricCalculatorUL.update(interval.getSum().getBits_per_second());
+        } else {
+            metricCalculatorDL.update(interval.getSum().getBits_per_second());
+        }
+
+        String megabitPerSecond = String.valueOf( Math.round(interval.getSum().getBits_per_second() / 1e6));
+        metricCalculatorUL.update(interval.getSum().getBits_per_second());
+        notificationLayout.setTextViewText(R.id.notification_title, String.format("iPerf3 %s:%s", iperf3Input.getParameter().getHost(), iperf3Input.getParameter().getPort()));
+        notificationLayout.setTextViewText(R.id.notification_throughput, String.format("Throughput: %s Mbit/s", megabitPerSecond));
+        notificationLayout.setTextViewText(R.id.notification_direction, String.format("Direction: %s", interval.getSum().getSumType()));
+        notificationLayout.setViewVisibility(R.id.notification_throughput, VISIBLE);
+        notificationLayout.setViewVisibility(R.id.notification_direction, VISIBLE);
+
+
+        if (interval.getSumBidirReverse() != null) {
+            notificationLayout.setViewVisibility(R.id.notification_bidir_throughput, VISIBLE);
+            notificationLayout.setViewVisibility(R.id.notification_bidir_direction, VISIBLE);
+            notificationLayout.setTextViewText(R.id.notification_bidir_throughput, String.format("Throughput: %d Mbit/s", Math.round(interval.getSumBidirReverse().getBits_per_second() / 1e6)));
+            notificationLayout.setTextViewText(R.id.notification_bidir_direction, String.format("Direction: %s", interval.getSumBidirReverse().getSumType()));
+            metricCalculatorDL.update(interval.getSumBidirReverse().getBits_per_second());
+        }
+        metricCalculatorDL.calcAll();
+        metricCalculatorUL.calcAll();
+
+        setProgressAsync(new Data.Builder().putString("interval", interval.toString()).build());
+        setForegroundAsync(createForegroundInfo(notificationLayout));
+
+        pendingIntervals.add(interval);
+        if (System.currentTimeMillis() - lastIntervalFlush >= INTERVAL_FLUSH_MS) {
+            flushIntervals();
+        }
+    }
 
-           return completer.set(Result.success());
+    /**
+     * Store the pending intervals and the current metrics in one transaction, so the paged
+     * results list reloads once per flush instead of once per interval
+     */
+    private void flushIntervals() {
+        if (pendingIntervals.isEmpty()) return;
+        String testUUID = iperf3Input.getTestUUID();
+        db.runInTransaction(() -> {
+            iperf3IntervalDao.insert(testUUID, intervalIdx, pendingIntervals);
+            iperf3RunResultDao.updateMetricDL(testUUID, metricCalculatorDL);
+            iperf3RunResultDao.updateMetricUL(testUUID, metricCalculatorUL);
         });
+        intervalIdx += pendingIntervals.size();
+        pendingIntervals.clear();
+        lastIntervalFlush = System.currentTimeMillis();
     }
 
     private ForegroundInfo createForegroundInfo(RemoteViews notificationLayout) {
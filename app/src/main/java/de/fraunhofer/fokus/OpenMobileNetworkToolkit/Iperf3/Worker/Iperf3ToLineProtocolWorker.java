@@ -15,7 +15,6 @@ import android.content.Context;
 import android.graphics.Color;
 import android.os.Build;
 import android.util.Log;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
@@ -29,16 +28,18 @@ import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Map;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.DeviceInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.GlobalVars;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolWriter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Interval.Iperf3IntervalDao;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3ResultsDataBase;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResult;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultDao;
@@ -52,12 +53,14 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 
 public class Iperf3ToLineProtocolWorker extends Worker {
     public static final String TAG = "Iperf3ToLineProtocolWorker";
+    private static final long NOTIFICATION_INTERVAL_MS = 1000;
     InfluxdbConnection influx;
     private final int FOREGROUND_SERVICE_TYPE = FOREGROUND_SERVICE_TYPE_SPECIAL_USE;
     private SharedPreferencesGrouper spg;
     private Notification notification;
     private NotificationCompat.Builder notificationBuilder;
     private Iperf3RunResultDao iperf3RunResultDao;
+    private Iperf3IntervalDao iperf3IntervalDao;
     private final DeviceInformation di = GlobalVars.getInstance().get_dp().getDeviceInformation();
     private int notificationID;
     private Iperf3Input iperf3Input;
@@ -71,6 +74,7 @@ public class Iperf3ToLineProtocolWorker extends Worker {
         spg = SharedPreferencesGrouper.getInstance(getApplicationContext());
         setForegroundAsync(createForegroundInfo("Processing iPerf3 data"));
         iperf3RunResultDao = Iperf3ResultsDataBase.getDatabase(getApplicationContext()).iperf3RunResultDao();
+        iperf3IntervalDao = Iperf3ResultsDataBase.getDatabase(getApplicationContext()).iperf3IntervalDao();
     }
     private ForegroundInfo createForegroundInfo(String progress) {
         notification = notificationBuilder
@@ -101,123 +105,68 @@ public class Iperf3ToLineProtocolWorker extends Worker {
             role = "client";
         }
 
-        LinkedList<Point> points = new LinkedList<Point>();
-        ArrayList<Interval> intervals = iperf3RunResult.intervals.getIntervalArrayList();
-        for (Interval interval: intervals) {
-            long tmpTimestamp = timestamp + (long) (interval.getSum().getEnd() * 1000);
-            int intervalIdx = intervals.indexOf(interval);
-            for (Stream stream: interval.getStreams().getStreamArrayList()){
-                Point point = new Point("Iperf3");
-
-                point.addTag(Iperf3Input.TESTUUID, iperf3Input.getTestUUID());
-                point.addTag(Iperf3Input.SEQUENCEUUID, iperf3Input.getSequenceUUID());
-                point.addTag(Iperf3Input.MEASUREMENTUUID, iperf3Input.getMeasurementUUID());
-                point.addTag(Iperf3Input.CAMPAIGNUUID, iperf3Input.getCampaignUUID());
-                point.addTag(Iperf3Input.IPERF3UUID, iperf3Input.getParameter().getiPerf3UUID());
-
-
-
-
-                point.addTag("bidir", String.valueOf(iperf3Input.getParameter().getBidir()));
-                point.addTag("sender", String.valueOf(stream.getSender()));
-                point.addTag("role", role);
-                point.addTag("socket", String.valueOf(stream.getSocket()));
-                point.addTag("protocol", iperf3RunResult.start.getTest_start().protocol);
-                point.addTag("interval", String.valueOf(iperf3Input.getParameter().getInterval()));
-                point.addTag("version", iperf3RunResult.start.getVersion());
-                point.addTag("reversed", String.valueOf(iperf3Input.getParameter().getReverse()));
-                point.addTag("oneOff", String.valueOf(iperf3Input.getParameter().getOneOff()));
-                point.addTag("connectingToHost", iperf3RunResult
-                    .start
-                    .getConnecting_to()
-                    .getHost());
-                point.addTag("connectingToPort", String.valueOf(iperf3RunResult
-                    .start
-                    .getConnecting_to()
-                    .getPort()));
-                point.addTag("bandwidth", iperf3Input.getParameter().getBitrate());
-                point.addTag("duration", String.valueOf(iperf3Input.getParameter().getTime()));
-                point.addTag("bytesToTransmit", String.valueOf(iperf3Input.getParameter().getBytes()));
-                point.addTag("streams", String.valueOf(interval.getStreams().size()));
-                point.addTag("streamIdx", String.valueOf(interval.getStreams().getStreamArrayList().indexOf(stream)));
-                point.addTag("intervalIdx", String.valueOf(intervalIdx));
-
-                point.addField("bits_per_second", stream.getBits_per_second());
-                point.addField("seconds", stream.getSeconds());
-                point.addField("bytes", stream.getBytes());
-
-
-                switch (stream.getStreamType()){
-                    case TCP_DL:
-                        break;
-                    case TCP_UL:
-                        TCP_UL_STREAM tcp_ul_stream = (TCP_UL_STREAM) stream;
-                        point.addField("snd_cwnd", tcp_ul_stream.getSnd_cwnd());
-                        point.addField("retransmits", tcp_ul_stream.getRetransmits());
-                        point.addField("snd_wnd", tcp_ul_stream.getSnd_wnd());
-                        point.addField("rtt", tcp_ul_stream.getRtt());
-                        point.addField("rttvar", tcp_ul_stream.getRttvar());
-                        point.addField("pmtu", tcp_ul_stream.getPmtu());
-                        break;
-                    case UDP_DL:
-                        UDP_DL_STREAM udp_dl_stream = (UDP_DL_STREAM) stream;
-                        point.addField("jitter_ms", udp_dl_stream.getJitter_ms());
-                        point.addField("lost_packets", udp_dl_stream.getLost_packets());
-                        point.addField("packets", udp_dl_stream.getPackets());
-                        point.addField("lost_percent", udp_dl_stream.getLost_percent());
-                        break;
-                    case UDP_UL:
-                        break;
-                    case UNKNOWN:
-                        break;
-                }
-
-                point.time(tmpTimestamp, WritePrecision.MS);
-
-                points.add(point);
-                setForegroundAsync(createForegroundInfo("Processing iPerf3 data: "+intervalIdx+"/"+intervals.size()));
-            }
-        }
-
-        // is needed when only --udp is, otherwise no lostpackets/lostpercent parsed
+        // tags that are the same for every point of the run, resolved once
+        Map<String, String> runTags = new HashMap<>();
+        runTags.put(Iperf3Input.TESTUUID, iperf3Input.getTestUUID());
+        runTags.put(Iperf3Input.SEQUENCEUUID, iperf3Input.getSequenceUUID());
+        runTags.put(Iperf3Input.MEASUREMENTUUID, iperf3Input.getMeasurementUUID());
+        runTags.put(Iperf3Input.CAMPAIGNUUID, iperf3Input.getCampaignUUID());
+        runTags.put(Iperf3Input.IPERF3UUID, iperf3Input.getParameter().getiPerf3UUID());
+        runTags.put("bidir", String.valueOf(iperf3Input.getParameter().getBidir()));
+        runTags.put("role", role);
+        runTags.put("protocol", iperf3RunResult.start.getTest_start().protocol);
+        runTags.put("interval", String.valueOf(iperf3Input.getParameter().getInterval()));
+        runTags.put("version", iperf3RunResult.start.getVersion());
+        runTags.put("reversed", String.valueOf(iperf3Input.getParameter().getReverse()));
+        runTags.put("oneOff", String.valueOf(iperf3Input.getParameter().getOneOff()));
+        runTags.put("connectingToHost", iperf3RunResult
+            .start
+            .getConnecting_to()
+            .getHost());
+        runTags.put("connectingToPort", String.valueOf(iperf3RunResult
+            .start
+            .getConnecting_to()
+            .getPort()));
+        runTags.put("bandwidth", iperf3Input.getParameter().getBitrate());
+        runTags.put("duration", String.valueOf(iperf3Input.getParameter().getTime()));
+        runTags.put("bytesToTransmit", String.valueOf(iperf3Input.getParameter().getBytes()));
+        // device tags are added last so they win on equal keys, like before. The tags are
+        // encoded once and spliced into every record
+        TagSet tags = new TagSet(runTags);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            for (Point point:points) {
-                point.addTags(GlobalVars.getInstance().get_dp().getTagsMap());
-            }
-
+            tags = tags.with(GlobalVars.getInstance().get_dp().getTagSet().getMap());
         }
+
         File path = new File(iperf3Input.getParameter().getRawDirPath());
         if(!path.exists()){
             path.mkdirs();
         }
-        File iperf3File = new File(iperf3Input.getParameter().getLineProtocolDirPath());
-        if (!iperf3File.exists()) {
-            try {
-                iperf3File.createNewFile();
-            } catch (IOException e) {
-                Log.e(TAG, "doWork: ", e);
-            }
-        }
 
-        FileOutputStream iperf3Stream = null;
-        try {
-            iperf3Stream = new FileOutputStream(iperf3Input.getParameter().getLineProtocolDirPath(), true);
-        } catch (FileNotFoundException e) {
-            Toast.makeText(getApplicationContext(), "logfile not created", Toast.LENGTH_SHORT).show();
-            Log.d(TAG,e.toString());
-        }
-
-        if(iperf3Stream == null){
-            Toast.makeText(getApplicationContext(),"FileOutputStream is not created for LP file", Toast.LENGTH_SHORT).show();
-            return Result.failure();
-        }
+        ArrayList<Interval> intervals = iperf3IntervalDao.getIntervals(iperf3Input.getTestUUID()).getIntervalArrayList();
+        int intervalCount = intervals.size();
+        long lastNotification = 0;
+        try (LineProtocolWriter writer = new LineProtocolWriter(new File(iperf3Input.getParameter().getLineProtocolDirPath()),
+                LineProtocolWriter.DEFAULT_BUFFER_SIZE, Long.MAX_VALUE)) {
+            for (int intervalIdx = 0; intervalIdx < intervalCount; intervalIdx++) {
+                Interval interval = intervals.get(intervalIdx);
+                long tmpTimestamp = timestamp + (long) (interval.getSum().getEnd() * 1000);
+                ArrayList<Stream> streams = interval.getStreams().getStreamArrayList();
+                String streamCount = String.valueOf(streams.size());
+                String intervalIdxTag = String.valueOf(intervalIdx);
+                for (int streamIdx = 0; streamIdx < streams.size(); streamIdx++) {
+                    writer.write(tags.encode(createPoint(streams.get(streamIdx), streamIdx, streamCount,
+                            intervalIdxTag, tmpTimestamp)));
+                }
 
-        try {
-            for (Point point: points){
-                iperf3Stream.write((point.toLineProtocol() + "\n").getBytes());
+                long now = System.currentTimeMillis();
+                if (now - lastNotification >= NOTIFICATION_INTERVAL_MS) {
+                    lastNotification = now;
+                    setForegroundAsync(createForegroundInfo("Processing iPerf3 data: "+intervalIdx+"/"+intervalCount));
+                }
             }
         } catch (IOException e) {
-            Log.e(TAG, "doWork: ", e);
+            Log.e(TAG, "doWork: writing line protocol file failed", e);
+            return Result.failure();
         }
 
 
@@ -225,4 +174,48 @@ public class Iperf3ToLineProtocolWorker extends Worker {
         return Result.success(output);
     }
 
+
+    private static Point createPoint(Stream stream, int streamIdx, String streamCount, String intervalIdx,
+                                     long time) {
+        Point point = new Point("Iperf3");
+        point.addTag("sender", String.valueOf(stream.getSender()));
+        point.addTag("socket", String.valueOf(stream.getSocket()));
+        point.addTag("streams", streamCount);
+        point.addTag("streamIdx", String.valueOf(streamIdx));
+        point.addTag("intervalIdx", intervalIdx);
+
+        point.addField("bits_per_second", stream.getBits_per_second());
+        point.addField("seconds", stream.getSeconds());
+        point.addField("bytes", stream.getBytes());
+
+
+        switch (stream.getStreamType()){
+            case TCP_DL:
+                break;
+            case TCP_UL:
+                TCP_UL_STREAM tcp_ul_stream = (TCP_UL_STREAM) stream;
+                point.addField("snd_cwnd", tcp_ul_stream.getSnd_cwnd());
+                point.addField("retransmits", tcp_ul_stream.getRetransmits());
+                point.addField("snd_wnd", tcp_ul_stream.getSnd_wnd());
+                point.addField("rtt", tcp_ul_stream.getRtt());
+                point.addField("rttvar", tcp_ul_stream.getRttvar());
+                point.addField("pmtu", tcp_ul_stream.getPmtu());
+                break;
+            case UDP_DL:
+                UDP_DL_STREAM udp_dl_stream = (UDP_DL_STREAM) stream;
+                point.addField("jitter_ms", udp_dl_stream.getJitter_ms());
+                point.addField("lost_packets", udp_dl_stream.getLost_packets());
+                point.addField("packets", udp_dl_stream.getPackets());
+                point.addField("lost_percent", udp_dl_stream.getLost_percent());
+                break;
+            case UDP_UL:
+                break;
+            case UNKNOWN:
+                break;
+        }
+
+        point.time(time, WritePrecision.MS);
+        return point;
+    }
+
 }
@@ -18,19 +18,17 @@ import androidx.work.WorkerParameters;
 
 import com.google.gson.Gson;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnections;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolUploader;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 
 public class Iperf3UploadWorker extends Worker {
     public static final String TAG = "Iperf3UploadWorker";
+    private static final int MAX_RUN_ATTEMPTS = 5;
     InfluxdbConnection influx;
     private Iperf3Input iperf3Input;
 
@@ -54,35 +52,45 @@ public class Iperf3UploadWorker extends Worker {
         if(influx == null){
             return Result.failure(output);
         }
-        if(influx.getWriteApi() == null){
-            influx.open_write_api();
-            if(influx.getWriteApi() == null)
-                return Result.failure(output);
-        }
-
         if(!influx.ping()){
             return Result.failure(output);
         }
-        BufferedReader br;
+        File file;
         try {
-            br = new BufferedReader(new FileReader(iperf3Input.getParameter().getLineProtocolFilePath()));
-        } catch (FileNotFoundException | NullPointerException e) {
+            file = new File(iperf3Input.getParameter().getLineProtocolFilePath());
+        } catch (NullPointerException e) {
             Log.d(TAG,e.toString());
             return Result.failure(output);
         }
-        List<String> points = br.lines().collect(Collectors.toList());
+        if(!file.exists()){
+            Log.d(TAG, String.format("doWork: %s does not exist", file));
+            return Result.failure(output);
+        }
+        LineProtocolUploader uploader = new LineProtocolUploader(influx::writeRecordsBlocking);
         try {
-            Log.d(TAG, String.format("doWork: uploading %s", iperf3Input.getParameter().getLineProtocolFilePath()));
-            influx.writeRecords(points);
+            Log.d(TAG, String.format("doWork: uploading %s", file));
+            if(!uploader.upload(file, this::reportProgress, this::isStopped)){
+                return Result.failure(output);
+            }
+        } catch (LineProtocolUploader.RejectedBatchException e) {
+            Log.d(TAG, String.format("doWork: upload of %s rejected: %s", file, e.getMessage()));
+            return Result.failure(output);
         } catch (IOException e) {
-            Log.d(TAG, String.format("doWork: upload of %s failed!", iperf3Input.getParameter().getLineProtocolFilePath()));
+            Log.d(TAG, String.format("doWork: upload of %s failed: %s", file, e.getMessage()));
+            // the next attempt resumes at the last confirmed batch
+            if(getRunAttemptCount() < MAX_RUN_ATTEMPTS) return Result.retry();
             return Result.failure(output);
         }
 
-
-        influx.flush();
-
         output = new Data.Builder().putBoolean("iperf3_upload", true).build();
         return Result.success(output);
     }
+
+    private void reportProgress(long uploadedBytes, long totalBytes, long bytesPerSecond) {
+        setProgressAsync(new Data.Builder()
+                .putLong(LineProtocolUploader.PROGRESS_UPLOADED_BYTES, uploadedBytes)
+                .putLong(LineProtocolUploader.PROGRESS_TOTAL_BYTES, totalBytes)
+                .putLong(LineProtocolUploader.PROGRESS_BYTES_PER_SECOND, bytesPerSecond)
+                .build());
+    }
 }
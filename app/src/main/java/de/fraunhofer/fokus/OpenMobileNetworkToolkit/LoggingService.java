@@ -14,8 +14,8 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.graphics.Color;
-import android.icu.text.SimpleDateFormat;
 import android.os.Build;
 import android.os.Environment;
 import android.os.Handler;
@@ -37,28 +37,41 @@ import com.influxdb.client.write.events.WriteRetriableErrorEvent;
 import com.influxdb.client.write.events.WriteSuccessEvent;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.DataProvider;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.EventRing;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.RadioEvent;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.WifiInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.DeltaFilter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbWriteApiStatus;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnections;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolUploader;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.ColumnarLogWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RecordWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RotatingLogWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.PointSpool;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SPType;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SharedPreferencesGrouper;
 
 public class LoggingService extends Service {
     private static final String TAG = "Logging_Service";
+    private static final String REMOTE_SPOOL_DIR = "influx_spool";
+    // max rate the spool is drained with after the server is reachable again
+    private static final long SPOOL_DRAIN_INTERVAL_MS = 1000;
+    private static final int SPOOL_DRAIN_BATCH = 1000;
+    // min time between notification updates caused by the suppressed points counter
+    private static final long DELTA_NOTIFICATION_INTERVAL_MS = 10000;
+    // min time between notification updates caused by the log file counters
+    private static final long FILE_NOTIFICATION_INTERVAL_MS = 1000;
+    private static final int DEFAULT_RADIO_EVENT_CAPACITY = 256;
+    private static final int DEFAULT_FLUSH_RECORDS = 100;
     public NotificationManager nm;
     NotificationCompat.Builder builder;
     InfluxdbConnection ic; // remote influxDB
@@ -71,34 +84,60 @@ public class LoggingService extends Service {
     private HandlerThread localInfluxHandlerThread;
     private Handler localFileHandler;
     private HandlerThread localFileHandlerThread;
-    private List<Point> logFilePoints;
-    private FileOutputStream stream;
+    private RecordWriter logFileWriter;
+    // counters of the log file writer, copied by the local file thread as the writer is not thread safe
+    private volatile long fileBufferedRecords = 0;
+    private volatile long fileWrittenRecords = 0;
+    private volatile long fileDroppedRecords = 0;
+    // the file counters changed since the notification was last refreshed, local file thread only
+    private boolean fileNotificationPending = false;
+    private long lastFileNotification = 0;
+    private volatile PointSpool remoteSpool;
+    private Handler spoolDrainHandler;
+    private HandlerThread spoolDrainHandlerThread;
+    private long remoteSpoolDepth = 0;
+    private long remoteSpoolAgeS = 0;
+    // change only filters, one per target as every target builds its own points. null if disabled
+    private volatile DeltaFilter remoteDeltaFilter;
+    private volatile DeltaFilter fileDeltaFilter;
+    private volatile long lastDeltaNotification = 0;
+    // wall clock aligned sampling, one clock per target as both run on their own thread
+    private volatile SamplingClock fileClock;
+    private volatile SamplingClock remoteClock;
+    // per source sampling periods, one scheduler per target as each builds its own points
+    private volatile SourceScheduler fileSources;
+    private volatile SourceScheduler remoteSources;
+    // cell and signal updates between two ticks, one ring per target as each drains its own
+    private volatile EventRing<RadioEvent> fileRadioEvents;
+    private volatile EventRing<RadioEvent> remoteRadioEvents;
     private int interval;
     private InfluxdbWriteApiStatus currentInfluxdbWriteApiStatus = InfluxdbWriteApiStatus.Unknown;
     private boolean influxConnectionStatus = true;
+    private long influxDroppedWrites = 0;
     private String currentInfluxDbWriteApiStatusMessage = "";
     GlobalVars gv;
     // Handle local on-device logging to logfile
     private final Runnable localFileUpdate = new Runnable() {
         @Override
         public void run() {
-            logFilePoints.addAll(getPoints());
-            if (logFilePoints.size() >= 100) {
-                for (Point point : logFilePoints) {
-                    try {
-                        stream.write((point.toLineProtocol() + "\n").getBytes());
-                    } catch (IOException e) {
-                        Log.d(TAG,e.toString());
-                    }
-                }
-                logFilePoints.clear();
+            // keep the clock of this round, the interval setting may replace it in between
+            SamplingClock clock = fileClock;
+            long tick = clock.startRound(System.currentTimeMillis());
+            if (logFileWriter != null) {
                 try {
-                    stream.flush();
+                    for (String record : getRecords(fileSources, fileDeltaFilter, fileRadioEvents, tick)) {
+                        logFileWriter.write(record);
+                    }
+                    // bounds the latency when only few points are written
+                    logFileWriter.flushIfDue();
                 } catch (IOException e) {
                     Log.d(TAG,e.toString());
                 }
+                if (updateFileCounters()) fileNotificationPending = true;
+                updateFileNotification();
             }
-            localFileHandler.postDelayed(this, interval);
+            updateDeltaNotification();
+            localFileHandler.postDelayed(this, clock.finishRound(System.currentTimeMillis()));
         }
     };
 
@@ -136,16 +175,62 @@ public class LoggingService extends Service {
     private final Runnable RemoteInfluxUpdate = new Runnable() {
         @Override
         public void run() {
-            try {
-                ic.writePoints(getPoints());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            SamplingClock clock = remoteClock;
+            long tick = clock.startRound(System.currentTimeMillis());
+            List<String> records = getRecords(remoteSources, remoteDeltaFilter, remoteRadioEvents, tick);
+            if (!ic.isReachable() && remoteSpool != null) {
+                // keep the records on disk until the server is back
+                spoolRecords(records);
+            } else {
+                try {
+                    // records the write thread can't deliver end up in the spool as well, the
+                    // reachable flag is only refreshed every few seconds
+                    ic.writeRecords(records, remoteSpool == null ? null : LoggingService.this::spoolRecords);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                ic.flush();
             }
-            ic.flush();
-            remoteInfluxHandler.postDelayed(this, interval);
+            updateDeltaNotification();
+            remoteInfluxHandler.postDelayed(this, clock.finishRound(System.currentTimeMillis()));
+        }
+    };
+
+    // Send spooled points to the remote influxDB once it is reachable again
+    private final Runnable remoteSpoolDrain = new Runnable() {
+        @Override
+        public void run() {
+            if (ic != null && remoteSpool != null && ic.isReachable() && remoteSpool.getDepth() > 0) {
+                try {
+                    remoteSpool.drain(SPOOL_DRAIN_BATCH, records -> {
+                        try {
+                            ic.writeRecordsBlocking(records);
+                        } catch (LineProtocolUploader.RejectedBatchException e) {
+                            // the server won't ever accept this batch, don't block the spool with it
+                            Log.w(TAG, "remoteSpoolDrain: batch rejected, dropping it. " + e.getMessage());
+                        }
+                    });
+                } catch (IOException e) {
+                    Log.d(TAG, "remoteSpoolDrain: " + e.getMessage());
+                }
+            }
+            spoolDrainHandler.postDelayed(this, SPOOL_DRAIN_INTERVAL_MS);
         }
     };
 
+    private void spoolRecords(List<String> records) {
+        PointSpool spool = remoteSpool;
+        if (spool == null) {
+            Log.d(TAG, "spoolRecords: spool closed, dropping " + records.size() + " records");
+            return;
+        }
+        try {
+            spool.append(records, System.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e(TAG, "spoolRecords: can't spool records " + e);
+        }
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -159,8 +244,23 @@ public class LoggingService extends Service {
         s.append(getText(R.string.loggin_notifaction)).append("\n");
         s.append("Logging to...\n");
 
-        if(spg.getSharedPreference(SPType.LOGGING).getBoolean("enable_local_file_log", false))
-            s.append("File\n");
+        if(spg.getSharedPreference(SPType.LOGGING).getBoolean("enable_local_file_log", false)) {
+            s.append("File: ").append(fileWrittenRecords).append(" written, ")
+                    .append(fileBufferedRecords).append(" buffered");
+            if (fileDroppedRecords > 0) {
+                s.append(", ").append(fileDroppedRecords).append(" dropped");
+            }
+            s.append("\n");
+        }
+
+        if (remoteDeltaFilter != null) {
+            s.append("Change only: ").append(getDeltaSuppressed()).append(" unchanged points suppressed\n");
+        }
+
+        long missedTicks = getMissedTicks();
+        if (missedTicks > 0) {
+            s.append("Missed ticks: ").append(missedTicks).append("\n");
+        }
 
         if(ic == null) {
             // influx not initialized
@@ -175,11 +275,17 @@ public class LoggingService extends Service {
             //influx not reachable
                 s.append(ic.getUrl())
                     .append(" not reachable\n");
+            appendSpoolStatus(s);
             return s;
         } else {
             //influx reachable, so showing the writeApi Status
             s.append(currentInfluxdbWriteApiStatus).append("\n");
         }
+        appendSpoolStatus(s);
+        if (ic.getDroppedWrites() > 0) {
+            s.append("\tWrite queue: ").append(ic.getQueueDepth())
+                    .append(", dropped: ").append(ic.getDroppedWrites()).append("\n");
+        }
 
         switch (currentInfluxdbWriteApiStatus) {
             case Backpressure:
@@ -196,6 +302,83 @@ public class LoggingService extends Service {
         return s;
     }
 
+    private void appendSpoolStatus(StringBuilder s) {
+        if (remoteSpoolDepth == 0) return;
+        s.append("\tSpooled: ").append(remoteSpoolDepth).append(" points, oldest ");
+        if (remoteSpoolAgeS >= 3600) {
+            s.append(remoteSpoolAgeS / 3600).append("h ").append(remoteSpoolAgeS % 3600 / 60).append("m\n");
+        } else if (remoteSpoolAgeS >= 60) {
+            s.append(remoteSpoolAgeS / 60).append("m ").append(remoteSpoolAgeS % 60).append("s\n");
+        } else {
+            s.append(remoteSpoolAgeS).append("s\n");
+        }
+    }
+
+    /**
+     * @return points suppressed by the change only filters of all targets
+     */
+    private long getDeltaSuppressed() {
+        DeltaFilter remote = remoteDeltaFilter;
+        DeltaFilter file = fileDeltaFilter;
+        return (remote == null ? 0 : remote.getSuppressed()) + (file == null ? 0 : file.getSuppressed());
+    }
+
+    /**
+     * @return ticks skipped by the sampling clocks of all targets
+     */
+    private long getMissedTicks() {
+        SamplingClock remote = remoteClock;
+        SamplingClock file = fileClock;
+        return (remote == null ? 0 : remote.getMissedTicks()) + (file == null ? 0 : file.getMissedTicks());
+    }
+
+    /**
+     * Refresh the notification for changed suppressed points or missed ticks counters, rate
+     * limited as the counters change on every logging tick
+     */
+    private void updateDeltaNotification() {
+        if ((remoteDeltaFilter == null && getMissedTicks() == 0) || builder == null) return;
+        long now = System.currentTimeMillis();
+        if (now - lastDeltaNotification < DELTA_NOTIFICATION_INTERVAL_MS) return;
+        lastDeltaNotification = now;
+        updateNotification();
+    }
+
+    /**
+     * Refresh the notification for changed log file counters, rate limited as the counters change
+     * on every logging tick. Runs on the local file thread only
+     */
+    private void updateFileNotification() {
+        if (!fileNotificationPending || builder == null) return;
+        long now = System.currentTimeMillis();
+        if (now - lastFileNotification < FILE_NOTIFICATION_INTERVAL_MS) return;
+        lastFileNotification = now;
+        fileNotificationPending = false;
+        updateNotification();
+    }
+
+    /**
+     * (Re)create the change only filters from the logging settings
+     */
+    private void setupDeltaFilters() {
+        SharedPreferences prefs = spg.getSharedPreference(SPType.LOGGING);
+        if (!prefs.getBoolean("delta_logging", false)) {
+            remoteDeltaFilter = null;
+            fileDeltaFilter = null;
+            return;
+        }
+        double tolerance = DeltaFilter.DEFAULT_TOLERANCE;
+        long keyframeIntervalMs = DeltaFilter.DEFAULT_KEYFRAME_INTERVAL_MS;
+        try {
+            tolerance = Double.parseDouble(prefs.getString("delta_tolerance", String.valueOf(tolerance)));
+            keyframeIntervalMs = Long.parseLong(prefs.getString("delta_keyframe_interval", "60")) * 1000;
+        } catch (NumberFormatException e) {
+            Log.d(TAG, "setupDeltaFilters: invalid setting, using defaults " + e);
+        }
+        remoteDeltaFilter = new DeltaFilter(tolerance, keyframeIntervalMs);
+        fileDeltaFilter = new DeltaFilter(tolerance, keyframeIntervalMs);
+    }
+
     private void setupNotification() {
         // create intent for notifications
         Intent notificationIntent = new Intent(this, MainActivity.class);
@@ -289,8 +472,7 @@ public class LoggingService extends Service {
         nm = getSystemService(NotificationManager.class);
         spg = SharedPreferencesGrouper.getInstance(this);
         interval = Integer.parseInt(spg.getSharedPreference(SPType.LOGGING).getString("logging_interval", "1000"));
-
-
+        setupDeltaFilters();
 
 
         // create preferences listener
@@ -358,6 +540,27 @@ public class LoggingService extends Service {
                 }
             } else if (Objects.equals(key, "logging_interval")) {
                 interval = Integer.parseInt(spg.getSharedPreference(SPType.LOGGING).getString("logging_interval", "1000"));
+                // the running rounds pick up the new clocks and resync to the new boundaries
+                if (fileClock != null) fileClock = new SamplingClock(interval);
+                if (remoteClock != null) remoteClock = new SamplingClock(interval);
+            } else if (key != null && key.startsWith("sampling_period_")) {
+                // the new periods start with a full round
+                if (fileSources != null) fileSources = createSourceScheduler();
+                if (remoteSources != null) remoteSources = createSourceScheduler();
+            } else if (Objects.equals(key, "radio_event_capacity")) {
+                // events waiting in the old rings are not logged
+                if (fileRadioEvents != null) {
+                    closeRadioEventRing("local file", fileRadioEvents);
+                    fileRadioEvents = openRadioEventRing();
+                }
+                if (remoteRadioEvents != null) {
+                    closeRadioEventRing("remote influx", remoteRadioEvents);
+                    remoteRadioEvents = openRadioEventRing();
+                }
+            } else if (Objects.equals(key, "delta_logging") || Objects.equals(key, "delta_tolerance")
+                    || Objects.equals(key, "delta_keyframe_interval")) {
+                setupDeltaFilters();
+                updateNotification();
             }
         }, SPType.LOGGING);
 
@@ -381,6 +584,27 @@ public class LoggingService extends Service {
         return START_STICKY;
     }
 
+    /**
+     * Write the buffered records of the log file when the system runs low on memory, the process
+     * may be killed next
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        Handler handler = localFileHandler;
+        if (handler == null) return;
+        // the writer is not thread safe, flush on its thread
+        handler.post(() -> {
+            if (logFileWriter == null) return;
+            try {
+                logFileWriter.flush();
+            } catch (IOException e) {
+                Log.d(TAG, "onTrimMemory: flush failed " + e);
+            }
+            updateFileCounters();
+        });
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -404,53 +628,74 @@ public class LoggingService extends Service {
         stopSelf();
     }
 
-    private ArrayList<Point> getPoints() {
-        long time = System.currentTimeMillis();
-        ArrayList<Point> logPoints = new ArrayList<>();
+    /**
+     * @param sources     sampling periods of the logging target, only due sources are sampled
+     * @param delta       change only filter of the logging target, null to get all points
+     * @param radioEvents cell and signal updates of the logging target since the last round,
+     *                    null to only log the current state
+     * @param time        timestamp of the sampling round, used for all points but radio events
+     * @return line protocol records of the enabled data sources, ms precision
+     */
+    private List<String> getRecords(SourceScheduler sources, DeltaFilter delta, EventRing<RadioEvent> radioEvents, long time) {
+        List<String> records = new ArrayList<>();
         if (dp != null) {
-            Map<String, String> tags_map = dp.getTagsMap();
+            // the device tags are spliced in pre encoded, they are not escaped for every point
+            TagSet tags = dp.getTagSet();
+            // drain even if the sources are disabled, stale events must not pile up
+            List<RadioEvent> signalEvents = new ArrayList<>();
+            List<RadioEvent> cellEvents = new ArrayList<>();
+            if (radioEvents != null) {
+                radioEvents.drain(e -> (e.getType() == RadioEvent.Type.SIGNAL_STRENGTH ? signalEvents : cellEvents).add(e));
+            }
 
-            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_network_data", false)) {
+            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_network_data", false)
+                    && sources.isDue(SourceScheduler.Source.NETWORK, time)) {
                 Point p = dp.getNetworkInformationPoint();
                 if (p.hasFields()) {
                     p.time(time, WritePrecision.MS);
-                    p.addTags(tags_map);
-                    logPoints.add(p);
+                    records.add(tags.encode(p));
                 } else {
                     Log.w(TAG, "Point without fields from getNetworkInformationPoint");
                 }
             }
 
-            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_throughput_data", false)) {
+            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_throughput_data", false)
+                    && sources.isDue(SourceScheduler.Source.CAPABILITIES, time)) {
                 Point p = dp.getNetworkCapabilitiesPoint();
                 if (p.hasFields()) {
                     p.time(time, WritePrecision.MS);
-                    p.addTags(tags_map);
-                    logPoints.add(p);
+                    records.add(tags.encode(p));
                 } else {
                     Log.w(TAG, "Point without fields from getNetworkCapabilitiesPoint");
                 }
             }
 
             if (spg.getSharedPreference(SPType.LOGGING).getBoolean("log_signal_data", false)) {
-                Point p = dp.getSignalStrengthPoint();
-                if (p.hasFields()) {
-                    p.time(time, WritePrecision.MS);
-                    p.addTags(tags_map);
-                    logPoints.add(p);
-                } else {
-                    Log.w(TAG, "Point without fields from getSignalStrengthPoint");
+                // every update since the last round with its own time, the last one is the current state
+                for (RadioEvent e : signalEvents) {
+                    Point p = dp.getSignalStrengthPoint(e.getSignalStrength(), e.getTimeStamp());
+                    if (!p.hasFields()) continue;
+                    addChanged(records, tags.encode(p), delta, e.getTimeStamp());
+                }
+                if (signalEvents.isEmpty() && sources.isDue(SourceScheduler.Source.SIGNAL, time)) {
+                    Point p = dp.getSignalStrengthPoint();
+                    if (p.hasFields()) {
+                        p.time(time, WritePrecision.MS);
+                        addChanged(records, tags.encode(p), delta, time);
+                    } else {
+                        Log.w(TAG, "Point without fields from getSignalStrengthPoint");
+                    }
                 }
             }
 
-            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("log_wifi_data", false)) {
+            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("log_wifi_data", false)
+                    && sources.isDue(SourceScheduler.Source.WIFI, time)) {
                 WifiInformation wifiInformation = dp.getWifiInformation();
                 if (wifiInformation != null) {
                     Point p = wifiInformation.getWifiInformationPoint();
                     if (p.hasFields()) {
                         p.time(time, WritePrecision.MS);
-                        p.addTags(tags_map);
-                        logPoints.add(p);
+                        addChanged(records, tags.encode(p), delta, time);
                     } else {
                         Log.w(TAG, "Point without fields from getWifiInformationPoint");
                     }
@@ -458,88 +703,108 @@ public class LoggingService extends Service {
             }
 
             if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_cell_data", false)) {
-                List<Point> ps = dp.getCellInformationPoint();
+                for (RadioEvent e : cellEvents) {
+                    for (Point p : dp.getCellInformationPoints(e.getCellInformation(), e.getTimeStamp())) {
+                        if (!p.hasFields()) continue;
+                        addChanged(records, tags.encode(p), delta, e.getTimeStamp());
+                    }
+                }
+                List<Point> ps = cellEvents.isEmpty() && sources.isDue(SourceScheduler.Source.CELL, time)
+                        ? dp.getCellInformationPoint() : new ArrayList<>();
                 for (Point p : ps) {
                     if (p.hasFields()) {
                         p.time(time, WritePrecision.MS);
-                        p.addTags(tags_map);
+                        addChanged(records, tags.encode(p), delta, time);
                     } else {
                         Log.w(TAG, "Point without fields from getCellInformationPoint");
                     }
                 }
-                logPoints.addAll(ps);
             }
 
-            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_ip_address_data", false)) {
+            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_ip_address_data", false)
+                    && sources.isDue(SourceScheduler.Source.IP, time)) {
                 List<Point> ps = dp.getNetworkInterfaceInformationPoints();
                 for (Point p : ps) {
                     if (p.hasFields()) {
                         p.time(time, WritePrecision.MS);
-                        p.addTags(tags_map);
+                        records.add(tags.encode(p));
                     } else {
                         Log.w(TAG, "Point without fields from getNetworkInterfaceInformationPoints");
                     }
                 }
-                logPoints.addAll(ps);
             }
 
-            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_battery_data", false)) {
+            if (spg.getSharedPreference(SPType.LOGGING).getBoolean("influx_battery_data", false)
+                    && sources.isDue(SourceScheduler.Source.BATTERY, time)) {
                 Point bp = dp.getBatteryInformationPoint();
                 bp.time(time, WritePrecision.MS);
-                bp.addTags(tags_map);
-                logPoints.add(bp);
+                if (bp.hasFields()) records.add(tags.encode(bp));
             }
 
-            Point bi = dp.getBuildInformationPoint();
-            bi.time(time, WritePrecision.MS);
-            bi.addTags(tags_map);
-            logPoints.add(bi);
+            if (sources.isDue(SourceScheduler.Source.BUILD, time)) {
+                Point bi = dp.getBuildInformationPoint();
+                bi.time(time, WritePrecision.MS);
+                if (bi.hasFields()) records.add(tags.encode(bi));
+            }
 
-            Point p = dp.getLocationPoint();
-            p.time(time, WritePrecision.MS);
-            p.addTags(tags_map);
-            logPoints.add(p);
+            if (sources.isDue(SourceScheduler.Source.LOCATION, time)) {
+                Point p = dp.getLocationPoint();
+                p.time(time, WritePrecision.MS);
+                if (p.hasFields()) records.add(tags.encode(p));
+            }
         } else {
             Log.w(TAG,"data provider not initialized, generating empty point");
         }
-        return logPoints;
+        return records;
+    }
+
+    private static void addChanged(List<String> records, String record, DeltaFilter delta, long time) {
+        if (delta == null || delta.accept(record, time)) records.add(record);
     }
 
     private void setupLocalFile() {
         Log.d(TAG, "setupLocalFile");
-        logFilePoints = new ArrayList<>();
+        fileBufferedRecords = 0;
+        fileWrittenRecords = 0;
+        fileDroppedRecords = 0;
 
         // build log file path
-        String path = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS).getAbsolutePath() + "/omnt/log/";
+        File dir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS), "omnt/log");
+
+        // the format is chosen when a segment is created, columnar segments are compressed already
+        SharedPreferences loggingPrefs = spg.getSharedPreference(SPType.LOGGING);
+        boolean columnar = Objects.equals(loggingPrefs.getString("local_log_format", "line_protocol"), "columnar");
+        long maxSegmentBytes = RotatingLogWriter.DEFAULT_MAX_SEGMENT_BYTES;
+        long maxSegmentAgeMs = RotatingLogWriter.DEFAULT_MAX_SEGMENT_AGE_MS;
+        long maxTotalBytes = RotatingLogWriter.DEFAULT_MAX_TOTAL_BYTES;
+        int flushRecords = DEFAULT_FLUSH_RECORDS;
+        int flushBytes = LineProtocolWriter.DEFAULT_BUFFER_SIZE;
+        long flushLatencyMs = LineProtocolWriter.DEFAULT_FLUSH_INTERVAL_MS;
         try {
-            Files.createDirectories(Paths.get(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            maxSegmentBytes = Long.parseLong(loggingPrefs.getString("log_segment_size", "16")) * 1024 * 1024;
+            maxSegmentAgeMs = Long.parseLong(loggingPrefs.getString("log_segment_age", "60")) * 60 * 1000;
+            maxTotalBytes = Long.parseLong(loggingPrefs.getString("log_quota", "1024")) * 1024 * 1024;
+            flushRecords = Integer.parseInt(loggingPrefs.getString("log_flush_records", String.valueOf(DEFAULT_FLUSH_RECORDS)));
+            flushBytes = Integer.parseInt(loggingPrefs.getString("log_flush_size", "64")) * 1024;
+            flushLatencyMs = Long.parseLong(loggingPrefs.getString("log_flush_latency", "5")) * 1000;
+        } catch (NumberFormatException e) {
+            Log.d(TAG, "setupLocalFile: invalid log file setting, using defaults " + e);
         }
+        boolean sync = loggingPrefs.getBoolean("log_fsync", false);
 
-        // create the log file
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy_MM_dd_HH_mm_ss", Locale.US);
-        Date now = new Date();
-        String filename = path + formatter.format(now) + ".txt";
-        Log.d(TAG, "logfile: " + filename);
-        File logfile = new File(filename);
-        try {
-            boolean file_not_exists = logfile.createNewFile();
-            if (!file_not_exists) {
-                logfile = new File(filename + "_1");
-                file_not_exists = logfile.createNewFile();
-            }
-            if (!file_not_exists) {
-                Log.d(TAG, "can't create logfile " + logfile + " event after file rename");
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        // count and size triggers bound the line protocol buffer, columnar blocks are bounded by their rows
+        int records = Math.max(1, flushRecords);
+        int bufferSize = Math.max(4, Math.min(flushBytes, 16 * 1024 * 1024));
+        long latencyMs = Math.max(0, flushLatencyMs);
+        RotatingLogWriter.SegmentFactory factory = columnar
+                ? file -> new ColumnarLogWriter(file, ColumnarLogWriter.DEFAULT_BLOCK_ROWS, latencyMs, true, sync)
+                : file -> new LineProtocolWriter(file, bufferSize, latencyMs, records, sync);
 
-        // get an output stream
+        // get a rotating writer, each segment is a buffered writer of the chosen format
         try {
-            stream = new FileOutputStream(logfile);
-        } catch (FileNotFoundException e) {
+            logFileWriter = new RotatingLogWriter(dir, columnar ? ColumnarLogWriter.FILE_EXTENSION : ".txt", factory,
+                    Math.max(1, maxSegmentBytes), Math.max(1, maxSegmentAgeMs), Math.max(1, maxTotalBytes), !columnar);
+        } catch (IOException | IllegalArgumentException e) {
             Toast.makeText(getApplicationContext(), "logfile not created", Toast.LENGTH_SHORT).show();
             Log.d(TAG,e.toString());
         }
@@ -551,12 +816,9 @@ public class LoggingService extends Service {
         Log.d(TAG, "stopLocalFile");
         if (localFileHandler != null) {
             try {
-                stream.close();
                 localFileHandler.removeCallbacks(localFileUpdate);
             } catch (java.lang.NullPointerException e) {
                 Log.d(TAG, "trying to stop local file service while it was not running");
-            } catch (IOException e) {
-                Log.d(TAG,e.toString());
             }
         }
 
@@ -568,6 +830,31 @@ public class LoggingService extends Service {
                 Log.e(TAG, "Exception happened!! "+e, e);
             }
         }
+        logClockStats("local file", fileClock);
+        fileClock = null;
+        logSourceStats("local file", fileSources);
+        fileSources = null;
+        closeRadioEventRing("local file", fileRadioEvents);
+        fileRadioEvents = null;
+
+        // close the writer after the handler thread is gone, this flushes what is left in the buffer
+        if (logFileWriter != null) {
+            try {
+                logFileWriter.close();
+            } catch (IOException e) {
+                Log.d(TAG,e.toString());
+            }
+            updateFileCounters();
+            fileBufferedRecords = 0;
+            Log.d(TAG, "local file records: " + fileWrittenRecords + " written, " + fileDroppedRecords + " dropped");
+            if (logFileWriter instanceof RotatingLogWriter) {
+                RotatingLogWriter rotating = (RotatingLogWriter) logFileWriter;
+                Log.d(TAG, "local file segments: " + rotating.getRotations() + " started, "
+                        + rotating.getEvictedSegments() + " evicted, "
+                        + rotating.getFailedCompressions() + " not compressed");
+            }
+            logFileWriter = null;
+        }
     }
 
 
@@ -608,12 +895,19 @@ public class LoggingService extends Service {
         @Override
         public void run() {
             if (ic == null) return;
-            boolean newInfluxConnectionStatus = ic.ping();
+            boolean newInfluxConnectionStatus = ic.isReachable();
             if(!newInfluxConnectionStatus) {
                 Log.d(TAG, "InfluxDB not reachable");
             }
-            if(newInfluxConnectionStatus != influxConnectionStatus) {
+            long newInfluxDroppedWrites = ic.getDroppedWrites();
+            long newRemoteSpoolDepth = remoteSpool == null ? 0 : remoteSpool.getDepth();
+            long newRemoteSpoolAgeS = remoteSpool == null ? 0 : remoteSpool.getOldestAgeMs(System.currentTimeMillis()) / 1000;
+            if(newInfluxConnectionStatus != influxConnectionStatus || newInfluxDroppedWrites != influxDroppedWrites
+                    || newRemoteSpoolDepth != remoteSpoolDepth || newRemoteSpoolAgeS != remoteSpoolAgeS) {
                 influxConnectionStatus = newInfluxConnectionStatus;
+                influxDroppedWrites = newInfluxDroppedWrites;
+                remoteSpoolDepth = newRemoteSpoolDepth;
+                remoteSpoolAgeS = newRemoteSpoolAgeS;
                 updateNotification();
             };
             remoteInfluxHandler.postDelayed(this, interval);
@@ -628,10 +922,23 @@ public class LoggingService extends Service {
         ic = InfluxdbConnections.getRicInstance(getApplicationContext());
         Objects.requireNonNull(ic).open_write_api();
         getInfluxDBConnectionStatus();
+        try {
+            remoteSpool = new PointSpool(new File(getFilesDir(), REMOTE_SPOOL_DIR));
+        } catch (IOException e) {
+            Log.e(TAG, "setupRemoteInfluxDB: can't open spool, points are dropped while InfluxDB is not reachable " + e);
+            remoteSpool = null;
+        }
+        spoolDrainHandlerThread = new HandlerThread("RemoteInfluxSpoolThread");
+        spoolDrainHandlerThread.start();
+        spoolDrainHandler = new Handler(Objects.requireNonNull(spoolDrainHandlerThread.getLooper()));
+        spoolDrainHandler.post(remoteSpoolDrain);
         remoteInfluxHandlerThread = new HandlerThread("RemoteInfluxHandlerThread");
         remoteInfluxHandlerThread.start();
         remoteInfluxHandler = new Handler(Objects.requireNonNull(remoteInfluxHandlerThread.getLooper()));
-        remoteInfluxHandler.post(RemoteInfluxUpdate);
+        remoteRadioEvents = openRadioEventRing();
+        remoteClock = new SamplingClock(interval);
+        remoteSources = createSourceScheduler();
+        remoteInfluxHandler.postDelayed(RemoteInfluxUpdate, remoteClock.getInitialDelay(System.currentTimeMillis()));
         remoteInfluxHandler.post(monitorInfluxDBConnectionStatus);
         ImageView log_status = gv.getLog_status();
         if (log_status != null) {
@@ -662,13 +969,44 @@ public class LoggingService extends Service {
             }
             remoteInfluxHandlerThread = null;
         }
+        logClockStats("remote influx", remoteClock);
+        remoteClock = null;
+        logSourceStats("remote influx", remoteSources);
+        remoteSources = null;
+        closeRadioEventRing("remote influx", remoteRadioEvents);
+        remoteRadioEvents = null;
+
+        if (spoolDrainHandler != null) {
+            spoolDrainHandler.removeCallbacks(remoteSpoolDrain);
+        }
+        if (spoolDrainHandlerThread != null) {
+            spoolDrainHandlerThread.quitSafely();
+            try {
+                spoolDrainHandlerThread.join();
+            } catch (InterruptedException e) {
+                Log.e(TAG, "Exception happened!! "+e, e);
+            }
+            spoolDrainHandlerThread = null;
+        }
 
-        // close disconnect influx connection if existing
+        // close disconnect influx connection if existing, before the spool is closed as queued
+        // writes which can't be delivered are handed back to the spool
         if (ic != null) {
             ic.disconnect();
             ic = null;
         }
 
+        // points left in the spool are sent on the next start
+        if (remoteSpool != null) {
+            try {
+                remoteSpool.close();
+            } catch (IOException e) {
+                Log.d(TAG, "stopRemoteInfluxDB: " + e);
+            }
+            remoteSpool = null;
+            remoteSpoolDepth = 0;
+        }
+
         // remove reference in connection manager
         InfluxdbConnections.removeRicInstance();
         gv.getLog_status().setColorFilter(Color.argb(255, 192, 192, 192));
@@ -680,10 +1018,83 @@ public class LoggingService extends Service {
         return null;
     }
 
+    /**
+     * @return true if any of the log file counters changed since the last call
+     */
+    private boolean updateFileCounters() {
+        RecordWriter writer = logFileWriter;
+        if (writer == null) return false;
+        long buffered = writer.getBufferedRecords();
+        long written = writer.getWrittenRecords();
+        long dropped = writer.getDroppedRecords();
+        boolean changed = buffered != fileBufferedRecords || written != fileWrittenRecords
+                || dropped != fileDroppedRecords;
+        fileBufferedRecords = buffered;
+        fileWrittenRecords = written;
+        fileDroppedRecords = dropped;
+        return changed;
+    }
+
+    private void logClockStats(String target, SamplingClock clock) {
+        if (clock == null) return;
+        Log.d(TAG, target + " sampling: " + clock.getTicks() + " ticks, " + clock.getMissedTicks() + " missed");
+        Log.d(TAG, target + " tick jitter: " + clock.getJitterHistogram());
+        Log.d(TAG, target + " tick overrun: " + clock.getOverrunHistogram());
+    }
+
+    /**
+     * @return scheduler with the sampling periods of the logging settings
+     */
+    private SourceScheduler createSourceScheduler() {
+        SharedPreferences prefs = spg.getSharedPreference(SPType.LOGGING);
+        SourceScheduler.Source[] sources = SourceScheduler.Source.values();
+        long[] periods = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            periods[i] = SourceScheduler.parsePeriod(sources[i], prefs.getString(sources[i].getPreferenceKey(),
+                    String.valueOf(sources[i].getDefaultPeriodMs())));
+        }
+        return new SourceScheduler(periods);
+    }
+
+    private void logSourceStats(String target, SourceScheduler scheduler) {
+        if (scheduler == null) return;
+        StringBuilder s = new StringBuilder(target).append(" rounds without sampling:");
+        for (SourceScheduler.Source source : SourceScheduler.Source.values()) {
+            s.append(' ').append(source.getKey()).append('=').append(scheduler.getSkipped(source));
+        }
+        Log.d(TAG, s.toString());
+    }
+
+    /**
+     * @return new ring for the radio events of the data provider, null if there is none
+     */
+    private EventRing<RadioEvent> openRadioEventRing() {
+        if (dp == null) return null;
+        int capacity = DEFAULT_RADIO_EVENT_CAPACITY;
+        try {
+            capacity = Integer.parseInt(spg.getSharedPreference(SPType.LOGGING)
+                    .getString("radio_event_capacity", String.valueOf(DEFAULT_RADIO_EVENT_CAPACITY)));
+        } catch (NumberFormatException e) {
+            Log.d(TAG, "openRadioEventRing: invalid capacity, using default " + e);
+        }
+        return dp.openRadioEventRing(Math.max(1, Math.min(capacity, 1 << 16)));
+    }
+
+    private void closeRadioEventRing(String target, EventRing<RadioEvent> ring) {
+        if (ring == null || dp == null) return;
+        dp.closeRadioEventRing(ring);
+        if (ring.getDropped() > 0) {
+            Log.d(TAG, target + " radio events dropped: " + ring.getDropped());
+        }
+    }
+
     private void initLocalFileHandlerAndItsThread() {
         localFileHandlerThread = new HandlerThread("LocalFileHandlerThread");
         localFileHandlerThread.start();
         localFileHandler = new Handler(Objects.requireNonNull(localFileHandlerThread.getLooper()));
-        localFileHandler.post(localFileUpdate);
+        fileRadioEvents = openRadioEventRing();
+        fileClock = new SamplingClock(interval);
+        fileSources = createSourceScheduler();
+        localFileHandler.postDelayed(localFileUpdate, fileClock.getInitialDelay(System.currentTimeMillis()));
     }
 }
@@ -15,7 +15,6 @@ import androidx.work.OneTimeWorkRequest;
 import androidx.work.WorkInfo;
 import androidx.work.WorkManager;
 import androidx.work.WorkRequest;
-import androidx.work.multiprocess.RemoteWorkContinuation;
 import androidx.work.multiprocess.RemoteWorkManager;
 
 import org.json.JSONArray;
@@ -26,23 +25,29 @@ import org.json.JSONObject;
 import java.io.File;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Iperf3Input;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3ResultsDataBase;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResult;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.RunResult.Iperf3RunResultDao;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3WorkerPool;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3WorkerSlots;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.Iperf3Parameter;
 
 public class Iperf3Handler extends Handler {
     private final String TAG = "Iperf3Handler";
     private ArrayList<Iperf3Input> iperf3Inputs;
     private boolean isEnable = false;
-    private ArrayList<RemoteWorkContinuation> continuations;
+    private HashMap<String, Integer> priorities;
+    private Context context;
     private Iperf3RunResultDao iperf3RunResultDao;
     @Override
     public void parsePayload(String payload) throws JSONException {
         iperf3Inputs = new ArrayList<>();
+        priorities = new HashMap<>();
         JSONArray tests = new JSONArray(payload);
         for (int i = 0; i < tests.length(); i++) {
             JSONObject test = tests.getJSONObject(i);
@@ -60,6 +65,7 @@ public class Iperf3Handler extends Handler {
             Iperf3Input iperf3Input = new Iperf3Input(iperf3Parameter, testUUID, sequenceUUID, measurementUUUID,campaignUUID);
             iperf3Input.setTimestamp(new Timestamp(System.currentTimeMillis()));
             iperf3Inputs.add(iperf3Input);
+            priorities.put(testUUID, test.optInt("priority", Iperf3WorkerPool.PRIORITY_DEFAULT));
 
             Iperf3RunResult iperf3RunResult = new Iperf3RunResult(iperf3Input.getTestUUID(), -100, false, iperf3Input, new java.sql.Timestamp(System.currentTimeMillis()));
             iperf3RunResultDao.insert(iperf3RunResult);
@@ -121,48 +127,52 @@ public class Iperf3Handler extends Handler {
 
     @Override
     public void preperareSequence(Context context){
-        continuations = new ArrayList<>();
-        Log.d(TAG, "enableSequence: called!");
+        this.context = context.getApplicationContext();
+        Log.d(TAG, "preperareSequence: called!");
         if(iperf3Inputs.isEmpty()) {
             Log.e(TAG, "No iperf3 tests to run");
             return;
-        };
-
-        ArrayList<ArrayList<OneTimeWorkRequest>> workRequestss = new ArrayList<>();
+        }
         RemoteWorkManager remoteWorkManager = RemoteWorkManager.getInstance(context);
         for(Iperf3Input iperf3Input: iperf3Inputs){
             remoteWorkManager.cancelAllWorkByTag(iperf3Input.getTestUUID());
-            ArrayList<OneTimeWorkRequest> workRequests = new ArrayList<>();
-            int i = iperf3Inputs.indexOf(iperf3Input);
-            workRequests.add(iperf3Input.getWorkRequestExecutor(i, context.getPackageName()));
-            workRequests.add(iperf3Input.getWorkRequestMonitor(i, context.getPackageName()));
-            workRequests.add(iperf3Input.getWorkRequestLineProtocol(i, context.getPackageName()));
-            workRequests.add(iperf3Input.getWorkRequestUpload(i, context.getPackageName()));
-            workRequestss.add(workRequests);
-            Log.d(TAG, "enableSequence: workRequests size: "+workRequests.size());
-        }
-
-
-        Log.d(TAG, "enableSequence: workRequestss size: "+workRequestss.size());
-        for(ArrayList<OneTimeWorkRequest> workRequests: workRequestss){
-            RemoteWorkContinuation remoteWorkContinuation = remoteWorkManager.beginWith(workRequests.subList(0, 2)).then(workRequests.get(2)).then(workRequests.get(3));
-            continuations.add(remoteWorkContinuation);
         }
-        Log.d(TAG, "enableSequence: continuations size: "+continuations.size());
     }
 
+    /**
+     * Submit the tests to the worker slot pool. Tests start as soon as a slot is free, the
+     * others wait ordered by their priority.
+     */
     @Override
     public void enableSequence(){
-
-        for(RemoteWorkContinuation continuation: continuations){
-            continuation.enqueue();
+        if(context == null) {
+            Log.e(TAG, "enableSequence: sequence not prepared");
+            return;
+        }
+        RemoteWorkManager remoteWorkManager = RemoteWorkManager.getInstance(context);
+        Iperf3WorkerSlots slots = Iperf3WorkerSlots.getInstance(context);
+        String packageName = context.getPackageName();
+        for(Iperf3Input iperf3Input: iperf3Inputs){
+            int priority = priorities.getOrDefault(iperf3Input.getTestUUID(), Iperf3WorkerPool.PRIORITY_DEFAULT);
+            slots.submit(iperf3Input.getTestUUID(), priority, (slot, slotWork) -> {
+                OneTimeWorkRequest executor = iperf3Input.getWorkRequestExecutor(slot, packageName);
+                OneTimeWorkRequest monitor = iperf3Input.getWorkRequestMonitor(slot, packageName);
+                slotWork.add(executor.getId());
+                slotWork.add(monitor.getId());
+                return remoteWorkManager.beginWith(Arrays.asList(executor, monitor))
+                        .then(iperf3Input.getWorkRequestLineProtocol(slot, packageName))
+                        .then(iperf3Input.getWorkRequestUpload(slot, packageName));
+            });
         }
+        Log.d(TAG, "enableSequence: submitted " + iperf3Inputs.size() + " tests");
     }
 
     @Override
     public void disableSequence(Context context){
         RemoteWorkManager workManager = RemoteWorkManager.getInstance(context);
+        Iperf3WorkerSlots slots = Iperf3WorkerSlots.getInstance(context);
         for(Iperf3Input iperf3Input: iperf3Inputs){
+            slots.cancel(iperf3Input.getTestUUID());
             workManager.cancelAllWorkByTag(iperf3Input.getTestUUID());
         }
     }
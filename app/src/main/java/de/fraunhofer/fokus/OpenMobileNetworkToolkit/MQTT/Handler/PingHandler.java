@@ -9,7 +9,9 @@
 package de.fraunhofer.fokus.OpenMobileNetworkToolkit.MQTT.Handler;
 
 import android.content.Context;
+import android.util.Log;
 
+import androidx.work.Data;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.multiprocess.RemoteWorkContinuation;
 import androidx.work.multiprocess.RemoteWorkManager;
@@ -18,11 +20,22 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.google.gson.Gson;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.UUID;
 
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.Worker.InfluxDB2xUploadWorker;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Inputs;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.Parameter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.ParameterType;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.PingParameter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Worker.MultiPingWorker;
 
 public class PingHandler extends Handler {
 
@@ -30,6 +43,8 @@ public class PingHandler extends Handler {
     private ArrayList<PingInput> pingInputs = new ArrayList<>();
     private boolean isEnable = false;
     private RemoteWorkContinuation workContinuation;
+    // tag of the work of the running campaign, null if the tests run one worker each
+    private String campaignTag;
     @Override
     public void parsePayload(String payload) throws JSONException {
         pingInputs.clear();
@@ -84,6 +99,8 @@ public class PingHandler extends Handler {
     public ArrayList<OneTimeWorkRequest> getToLineProtocolWorkRequests(Context context) {
         ArrayList<OneTimeWorkRequest> toLineProtocolWorkRequests = new ArrayList<>();
         for(PingInput pingInput : pingInputs) {
+            // a streaming PingWorker writes the line protocol itself
+            if(pingInput.getPingParameter().isStreamLineProtocol()) continue;
             toLineProtocolWorkRequests.add(pingInput.getWorkRequestLineProtocol(pingInputs.indexOf(pingInput), context.getPackageName()));
         }
         return toLineProtocolWorkRequests;
@@ -98,7 +115,59 @@ public class PingHandler extends Handler {
     }
     @Override
     public void preperareSequence(Context context) {
-        workContinuation = RemoteWorkManager.getInstance(context).beginWith(getExecutorWorkRequests(context)).then(getToLineProtocolWorkRequests(context)).then(getUploadWorkRequests(context));
+        campaignTag = null;
+        if(pingInputs.size() > 1){
+            workContinuation = prepareCampaign(context);
+            if(workContinuation != null) return;
+        }
+        RemoteWorkContinuation continuation = RemoteWorkManager.getInstance(context).beginWith(getExecutorWorkRequests(context));
+        ArrayList<OneTimeWorkRequest> toLineProtocolWorkRequests = getToLineProtocolWorkRequests(context);
+        if(!toLineProtocolWorkRequests.isEmpty()){
+            continuation = continuation.then(toLineProtocolWorkRequests);
+        }
+        workContinuation = continuation.then(getUploadWorkRequests(context));
+    }
+
+    /**
+     * Probe all tests with one {@link MultiPingWorker} and upload the line protocol file of the
+     * campaign, instead of a worker chain per test.
+     *
+     * @return the work of the campaign, null if the tests can't be written for the worker
+     */
+    private RemoteWorkContinuation prepareCampaign(Context context) {
+        String tag = "ping-campaign-" + UUID.randomUUID();
+        PingInput first = pingInputs.get(0);
+        Inputs campaignInput = new Inputs(first.getCampaignUUID(), first.getSequenceUUID(),
+                first.getMeasurementUUID(), tag, new Parameter(ParameterType.PING, tag));
+        Gson gson = new Gson();
+        // the tests don't fit into the input data of a work request, pass them as file
+        File targets = new File(campaignInput.getParameter().getRawDirPath(), tag + ".json");
+        try {
+            Files.createDirectories(targets.toPath().getParent());
+            Files.write(targets.toPath(), gson.toJson(pingInputs).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "prepareCampaign: can't write " + targets + ", running one worker per test: " + e.getMessage());
+            return null;
+        }
+        Data input = new Data.Builder()
+                .putString(Inputs.INPUT, gson.toJson(campaignInput))
+                .putString(MultiPingWorker.TARGETS, targets.getAbsolutePath())
+                .build();
+        OneTimeWorkRequest.Builder executor = new OneTimeWorkRequest.Builder(MultiPingWorker.class)
+                .addTag(tag)
+                .addTag(MultiPingWorker.TAG)
+                .setInputData(input);
+        for(PingInput pingInput : pingInputs) {
+            executor.addTag(pingInput.getTestUUID());
+        }
+        OneTimeWorkRequest upload = new OneTimeWorkRequest.Builder(InfluxDB2xUploadWorker.class)
+                .addTag(tag)
+                .addTag(InfluxDB2xUploadWorker.TAG)
+                .setInputData(input)
+                .build();
+        campaignTag = tag;
+        Log.d(TAG, "prepareCampaign: " + pingInputs.size() + " tests in campaign " + tag);
+        return RemoteWorkManager.getInstance(context).beginWith(executor.build()).then(upload);
     }
     @Override
     public void enableSequence() {
@@ -110,8 +179,13 @@ public class PingHandler extends Handler {
 
     @Override
     public void disableSequence(Context context) {
-
-
+        RemoteWorkManager workManager = RemoteWorkManager.getInstance(context);
+        if(campaignTag != null) {
+            workManager.cancelAllWorkByTag(campaignTag);
+        }
+        for(PingInput pingInput : pingInputs) {
+            workManager.cancelAllWorkByTag(pingInput.getTestUUID());
+        }
     }
 
     public boolean isEnable() {
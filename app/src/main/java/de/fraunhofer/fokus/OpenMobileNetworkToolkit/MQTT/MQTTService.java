@@ -54,6 +54,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.CustomEventListener;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Iperf3WorkerSlots;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.MQTT.Handler.Iperf3Handler;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.MQTT.Handler.PingHandler;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.MainActivity;
@@ -61,6 +62,7 @@ import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SPType;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SharedPreferencesGrouper;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.RemoteWorkInfoChecker;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.SourceScheduler;
 
 public class MQTTService extends Service {
     private static final String TAG = "MQTTService";
@@ -372,6 +374,19 @@ public class MQTTService extends Service {
             spg.getSharedPreference(SPType.LOGGING).edit().putBoolean("enable_notification_update", parseBoolean(payload)).apply();
             return;
         }
+        if(topic.contains("/logging/sampling_period/")){
+            // e.g. device/<name>/logging/sampling_period/battery with the period in ms
+            String source = topic.substring(topic.lastIndexOf('/') + 1);
+            SourceScheduler.Source s = SourceScheduler.Source.fromKey(source);
+            if(s == null){
+                Log.e(TAG, "handleConfigMessage: Unknown sampling source: " + source);
+                return;
+            }
+            Log.d(TAG, "handleConfigMessage: Sampling Period " + source + ": " + payload);
+            spg.getSharedPreference(SPType.LOGGING).edit()
+                    .putString(s.getPreferenceKey(), String.valueOf(SourceScheduler.parsePeriod(s, payload))).apply();
+            return;
+        }
         if(topic.contains("/logging/interval_ms")){
             Log.d(TAG, "handleConfigMessage: Logging Interval: " + payload);
             spg.getSharedPreference(SPType.LOGGING).edit().putString("logging_interval", payload).apply();
@@ -490,6 +505,15 @@ public class MQTTService extends Service {
             return;
         }
 
+        if(topic.contains("/iperf3/worker_slots")){
+            Log.d(TAG, "handleConfigMessage: Iperf3 Worker Slots: " + payload);
+            int size = Iperf3WorkerSlots.parseSize(payload);
+            spg.getSharedPreference(SPType.IPERF3).edit()
+                    .putString(Iperf3WorkerSlots.PREFERENCE_KEY, String.valueOf(size)).apply();
+            Iperf3WorkerSlots.getInstance(context).setSize(size);
+            return;
+        }
+
         if(topic.contains("/ping/command")){
             Log.d(TAG, "handleConfigMessage: Ping Command: " + payload);
             pingHandler = new PingHandler();
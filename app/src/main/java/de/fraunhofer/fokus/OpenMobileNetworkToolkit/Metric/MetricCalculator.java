@@ -8,14 +8,30 @@
 
 package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Locale;
 
+/**
+ * Running statistics of a metric. Min, max, mean and last are updated in O(1) per value.
+ * The median is exact as long as the number of values does not exceed the exact median limit,
+ * afterwards it is estimated with {@link P2MedianEstimator}.
+ * Only the summary state is serialized, the values kept for the exact median are transient,
+ * so the Room representation has a constant size.
+ */
 public class MetricCalculator {
-    private ArrayList<Double> meanList = new ArrayList<>();
+    public static final int DEFAULT_EXACT_MEDIAN_SAMPLES = 256;
+
     private double maxValueSum = Double.MIN_VALUE;
     private double minValueSum = Double.MAX_VALUE;
     private final METRIC_TYPE metricType;
+    private final int exactMedianSamples;
+
+    private long count;
+    private double sum;
+    private double runningMin;
+    private double runningMax;
+    private P2MedianEstimator medianEstimator = new P2MedianEstimator();
+    private long calculatedCount;
 
     private double median;
     private double mean;
@@ -23,8 +39,23 @@ public class MetricCalculator {
     private double min;
     private double last;
 
+    // only used for the exact median of short runs, not serialized
+    private transient double[] values;
+    private transient double[] sorted;
+    private transient int valueCount;
+
     public MetricCalculator(METRIC_TYPE metricType) {
+        this(metricType, DEFAULT_EXACT_MEDIAN_SAMPLES);
+    }
+
+    /**
+     * @param metricType         type of the metric, used for formatting
+     * @param exactMedianSamples number of values up to which the median is calculated exactly,
+     *                           0 always uses the estimator
+     */
+    public MetricCalculator(METRIC_TYPE metricType, int exactMedianSamples) {
         this.metricType = metricType;
+        this.exactMedianSamples = exactMedianSamples;
     }
 
     public METRIC_TYPE getMetricType() {
@@ -51,37 +82,65 @@ public class MetricCalculator {
         return last;
     }
 
+    public long getCount() {
+        return count;
+    }
+
     public void calcAll(){
-        if(meanList.isEmpty()){
+        // count is 0 for rows stored before the summary state was serialized, keep their values.
+        // Nothing changed since the last call either for deserialized calculators,
+        // their transient values are gone and the stored median may be the exact one.
+        if(count == 0 || count == calculatedCount){
             return;
         }
-        calcMin();
-        calcMax();
+        calculatedCount = count;
+        min = runningMin;
+        max = runningMax;
+        mean = sum / count;
         calcMedian();
-        calcMean();
-    }
-
-    private void calcMean() {
-        mean = meanList.stream().mapToDouble(a -> a).sum() / meanList.size();
     }
 
     private void calcMedian() {
-        this.meanList.sort(Double::compareTo);
-        median = meanList.get(Math.round(meanList.size() / 2));
-    }
-
-    private void calcMax() {
-        max = meanList.stream().mapToDouble(a -> a).max().getAsDouble();
+        if (valueCount == count && valueCount <= exactMedianSamples) {
+            if (sorted == null || sorted.length < values.length) {
+                sorted = new double[values.length];
+            }
+            System.arraycopy(values, 0, sorted, 0, valueCount);
+            Arrays.sort(sorted, 0, valueCount);
+            median = sorted[valueCount / 2];
+        } else if (medianEstimator != null && medianEstimator.getCount() == count) {
+            median = medianEstimator.getMedian();
+        }
     }
 
-    private void calcMin() {
-        min = meanList.stream().mapToDouble(a -> a).min().getAsDouble();
-
+    public void update(Double value) {
+        double v = value;
+        if (count == 0 || v < runningMin) runningMin = v;
+        if (count == 0 || v > runningMax) runningMax = v;
+        sum += v;
+        count++;
+        last = v;
+        if (medianEstimator == null) {
+            medianEstimator = new P2MedianEstimator();
+        }
+        medianEstimator.add(v);
+        addValue(v);
     }
 
-    public void update(Double value) {
-        this.meanList.add(value);
-        this.last = value;
+    private void addValue(double v) {
+        if (valueCount != count - 1 || valueCount >= exactMedianSamples) {
+            // values are incomplete or the run is too long for the exact median, drop them
+            values = null;
+            sorted = null;
+            valueCount = 0;
+            return;
+        }
+        if (values == null) {
+            values = new double[Math.min(16, exactMedianSamples)];
+        } else if (valueCount == values.length) {
+            values = Arrays.copyOf(values, Math.min(values.length * 2, exactMedianSamples));
+        }
+        values[valueCount++] = v;
     }
 
     public String getFormattedString(double value) {
@@ -98,12 +157,14 @@ public class MetricCalculator {
         return Double.toString(value);
     }
 
-    public ArrayList<Double> getMeanList() {
-        return meanList;
-    }
-
     public void resetMetric() {
-        meanList.clear();
+        count = 0;
+        calculatedCount = 0;
+        sum = 0;
+        medianEstimator = new P2MedianEstimator();
+        values = null;
+        sorted = null;
+        valueCount = 0;
         this.maxValueSum = Double.MIN_VALUE;
         this.minValueSum = Double.MAX_VALUE;
     }
@@ -31,6 +31,7 @@ public class PingParameter extends Parameter {
     public static final String TIMEOUT = "timeout";   // in seconds
     public static final String PACKET_SIZE = "packetSize";
     public static final String INTERVAL = "interval"; // in seconds
+    public static final String STREAM_LINE_PROTOCOL = "streamLineProtocol";
 
     public String getDestination() {
         return destination;
@@ -53,10 +54,22 @@ public class PingParameter extends Parameter {
     }
 
 
+    public int getDeadline() {
+        return deadline;
+    }
+
     public Network getNetwork() {
         return network;
     }
 
+    /**
+     * @return true if the PingWorker writes the line protocol while pinging, false if the
+     * raw log is converted by the PingToLineProtocolWorker after the run
+     */
+    public boolean isStreamLineProtocol() {
+        return streamLineProtocol;
+    }
+
     private String destination;
     private int count;
     private double timeoutMillis;
@@ -64,6 +77,7 @@ public class PingParameter extends Parameter {
     private double intervalMillis;
     private Network network;
     private int deadline;
+    private boolean streamLineProtocol = true;
     private String testUUID;
 
 
@@ -174,6 +188,7 @@ public class PingParameter extends Parameter {
             Log.d(TAG, e.toString());
             Log.i(TAG, "no deadline set.");
         }
+        streamLineProtocol = parameter.optBoolean(STREAM_LINE_PROTOCOL, true);
         setupDirs();
     }
 
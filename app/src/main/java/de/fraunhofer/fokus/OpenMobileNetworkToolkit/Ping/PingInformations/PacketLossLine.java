@@ -10,6 +10,7 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations;
 
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,6 +24,25 @@ public class PacketLossLine extends PingInformation{
         super(line);
         this.setLineType(LINEType.PACKET_LOSS);
     }
+
+    /**
+     * Summary of a probe run, the line is written in the format of ping so it can be parsed
+     * again from the raw log, the fields are set without parsing.
+     */
+    public PacketLossLine(long packetsTransmitted, long packetsReceived, long timeMs) {
+        super(String.format(Locale.US, "%d packets transmitted, %d received, %d%% packet loss, time %dms",
+                packetsTransmitted, packetsReceived,
+                Math.round(lossPercent(packetsTransmitted, packetsReceived)), timeMs));
+        this.setLineType(LINEType.PACKET_LOSS);
+        this.packetsTransmitted = packetsTransmitted;
+        this.packetsReceived = packetsReceived;
+        this.packetLoss = lossPercent(packetsTransmitted, packetsReceived);
+    }
+
+    private static double lossPercent(long transmitted, long received) {
+        return transmitted == 0 ? 0 : 100.0 * (transmitted - received) / transmitted;
+    }
+
     public void parse(){
         super.parse();
         matcher = pattern.matcher(this.getLine());
@@ -52,6 +52,10 @@ public class PingInformation {
         return unixTimestamp;
     }
 
+    protected void setUnixTimestamp(double unixTimestamp) {
+        this.unixTimestamp = unixTimestamp;
+    }
+
     public Point getPoint(){
         Point point = new Point("Ping");
         point.time(this.getUnixTimestamp(), WritePrecision.MS);
@@ -10,6 +10,8 @@ package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations;
 
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,6 +29,25 @@ public class RTTLine extends PingInformation{
         super.setLineType(LINEType.RTT);
     }
 
+    /**
+     * RTT line of a probe, the line is written in the format of ping -D so it can be parsed
+     * again from the raw log, the fields are set without parsing.
+     *
+     * @param unixTimestamp receive time in ms
+     * @param bytes         size of the echo reply
+     * @param ttl           0 if it is unknown
+     */
+    public RTTLine(double unixTimestamp, int bytes, String host, int icmpSeq, int ttl, double rtt) {
+        super(String.format(Locale.US, "[%.6f] %d bytes from %s: icmp_seq=%d ttl=%d time=%.3f ms",
+                unixTimestamp / 1000, bytes, host, icmpSeq, ttl, rtt));
+        super.setLineType(LINEType.RTT);
+        setUnixTimestamp(unixTimestamp);
+        this.host = host;
+        this.icmpSeq = icmpSeq;
+        this.ttl = ttl;
+        this.rtt = rtt;
+    }
+
     public void parse(){
         super.parse();
         Matcher matcher = pattern.matcher(this.getLine());
@@ -59,10 +80,11 @@ public class RTTLine extends PingInformation{
     }
 
     public Point getPoint(){
-        return super.getPoint()
+        Point point = super.getPoint()
             .addTag("toHost", this.getHost())
-            .addField("icmp_seq", this.getIcmpSeq())
-            .addField("ttl", this.getTtl())
-            .addField("rtt", this.getRtt());
+            .addField("icmp_seq", this.getIcmpSeq());
+        // the TTL of replies is not available to probes without the IP header
+        if (this.getTtl() > 0) point.addField("ttl", this.getTtl());
+        return point.addField("rtt", this.getRtt());
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping;
+
+import com.influxdb.client.write.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RecordWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
+
+/**
+ * Line protocol of a running ping. Every RTT and packet loss line is encoded as it is parsed,
+ * appended to the line protocol file of the test and optionally passed on to a live InfluxDB
+ * connection, so no second pass over the raw log is needed after the run.
+ * The tags are encoded once per run and spliced into every record, the live connection gets
+ * them as map.
+ * Not thread safe, used by the ping worker thread only.
+ */
+public class PingLineProtocolStream implements Closeable {
+    private final RecordWriter writer;
+    private final TagSet tags;
+    private final Predicate<Point> live;
+    private long records;
+    private long liveDropped;
+
+    /**
+     * @param writer writer of the line protocol file of the test
+     * @param tags   tags added to every point
+     * @param live   live InfluxDB connection, returns false if the point was not accepted,
+     *               null to only write the file
+     */
+    public PingLineProtocolStream(RecordWriter writer, TagSet tags, Predicate<Point> live) {
+        this.writer = writer;
+        this.tags = tags;
+        this.live = live;
+    }
+
+    /**
+     * @param deviceTags tags of the device, e.g. of the DataProvider
+     * @return the device tags and the non empty UUIDs of the test
+     */
+    public static TagSet getTags(PingInput pingInput, TagSet deviceTags) {
+        Map<String, String> tags = new HashMap<>();
+        putTag(tags, "sequenceUUID", pingInput.getSequenceUUID());
+        putTag(tags, "testUUID", pingInput.getTestUUID());
+        putTag(tags, "measurementUUID", pingInput.getMeasurementUUID());
+        putTag(tags, "campaignUUID", pingInput.getCampaignUUID());
+        return deviceTags.with(tags);
+    }
+
+    private static void putTag(Map<String, String> tags, String key, String value) {
+        if (value != null && !value.isEmpty()) tags.put(key, value);
+    }
+
+    /**
+     * Write a parsed line, lines without a point, e.g. timeouts, are skipped.
+     *
+     * @return true if the line was written
+     * @throws IOException if the line protocol file can't be written
+     */
+    public boolean write(PingInformation pingInformation) throws IOException {
+        if (pingInformation == null || pingInformation.getLineType() == null) return false;
+        switch (pingInformation.getLineType()) {
+            case RTT:
+            case PACKET_LOSS:
+                break;
+            default:
+                return false;
+        }
+        Point point = pingInformation.getPoint();
+        writer.write(tags.encode(point));
+        writer.flushIfDue();
+        records++;
+        if (live != null && !live.test(point.addTags(tags.getMap()))) liveDropped++;
+        return true;
+    }
+
+    /**
+     * @return number of points written to the file
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return number of points the live connection did not accept, they are only in the file
+     */
+    public long getLiveDropped() {
+        return liveDropped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
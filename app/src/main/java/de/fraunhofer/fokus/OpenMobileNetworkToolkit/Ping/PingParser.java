@@ -1,79 +1,418 @@
 /*
- * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
- * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
- * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *  SPDX-FileCopyrightText: 2023 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2023 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2023 Fraunhofer FOKUS
  *
  *  SPDX-License-Identifier: BSD-3-Clause-Clear
  */
 
 package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping;
 
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.LINEType;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
 
+/**
+ * Parser of the output of ping -D. The output is parsed as bytes in a single pass per line, the
+ * numbers are decoded in place, so parsing a line allocates nothing. Only the host name is
+ * turned into a String, and only when it differs from the host of the previous line.
+ * The parsed lines are kept in a ring of {@link PingRecord}s of fixed size, older lines are
+ * overwritten, so long runs with short intervals don't accumulate memory.
+ * Not thread safe.
+ */
 public class PingParser {
+    public static final int DEFAULT_HISTORY_SIZE = 64;
+    // longer lines are no ping results and are skipped
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private static final byte[] BYTES_FROM = ascii(" bytes from ");
+    private static final byte[] PACKETS_TRANSMITTED = ascii(" packets transmitted, ");
+    private static final byte[] RECEIVED = ascii(" received");
+    private static final byte[] TIME = ascii("time");
+    private static final byte[] TTL = ascii("ttl");
+    private static final byte[] ICMP_SEQ = ascii("icmp_seq");
+    private static final byte[] UNREACHABLE = ascii("Unreachable");
+    private static final byte[] REQUEST_TIMEOUT = ascii("Request timeout");
+
+    /**
+     * Receives the records of the parsed lines, the record is overwritten once the history
+     * ring wraps.
+     */
+    public interface Listener {
+        void onRecord(PingRecord record);
+    }
+
+    private final PingRecord[] history;
+    private PingRecord scratch = new PingRecord();
+    private int next;
+    private int size;
+    private long parsedLines;
+    private long skippedLines;
 
-    private final ArrayList<PingInformation> lines;
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+    private final byte[] textLine = new byte[MAX_LINE_LENGTH];
+    private int lineLength;
+    private boolean lineTooLong;
+
+    // cursor of the line being parsed
+    private int pos;
+
+    private byte[] hostBytes = new byte[64];
+    private int hostLength = -1;
+    private String host;
 
     public PingParser() {
-        this.lines = new ArrayList<>();
+        this(DEFAULT_HISTORY_SIZE);
     }
 
+    /**
+     * @param historySize number of parsed lines kept
+     */
+    public PingParser(int historySize) {
+        if (historySize <= 0) throw new IllegalArgumentException("historySize must be positive");
+        history = new PingRecord[historySize];
+        for (int i = 0; i < historySize; i++) {
+            history[i] = new PingRecord();
+        }
+    }
 
-    private LINEType getLineType(String line){
-        if (line.contains("bytes from")) {
-            return LINEType.RTT;
-        } else if (line.contains("Unreachable")) {
-            return LINEType.UNREACHABLE;
-        } else if (line.contains("Request timeout")) {
-            return LINEType.TIMEOUT;
-        } else if (line.contains("packets transmitted")){
-            return LINEType.PACKET_LOSS;
+    /**
+     * Parse a chunk of the output, e.g. as read from the stdout of ping. Lines may span
+     * chunks, the rest of an incomplete line is kept until the next chunk.
+     *
+     * @param listener receives the records of the complete lines, null to only fill the history
+     */
+    public void feed(byte[] buffer, int offset, int length, Listener listener) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                completeLine(listener);
+            } else if (lineLength < MAX_LINE_LENGTH) {
+                line[lineLength++] = b;
+            } else {
+                lineTooLong = true;
+            }
+        }
+    }
+
+    /**
+     * Parse the rest of the output which has no trailing line break, e.g. at the end of the
+     * output.
+     */
+    public void finish(Listener listener) {
+        if (lineLength > 0 || lineTooLong) completeLine(listener);
+    }
+
+    private void completeLine(Listener listener) {
+        PingRecord record = null;
+        if (lineTooLong) {
+            skippedLines++;
         } else {
-            return LINEType.UNKNOWN;
+            record = parse(line, 0, lineLength);
         }
+        lineLength = 0;
+        lineTooLong = false;
+        if (record != null && listener != null) listener.onRecord(record);
     }
 
-    public void addLine(String line) {
-        PingInformation pi = null;
-        LINEType lineType = getLineType(line);
-        switch (lineType){
-            case RTT:
-                pi = new RTTLine(line);
-                break;
-            case UNREACHABLE:
-                //TODO
-                break;
-            case TIMEOUT:
-                //TODO
-                break;
-            case PACKET_LOSS:
-                pi = new PacketLossLine(line);
-                break;
-            case UNKNOWN:
+    /**
+     * Parse a single line, kept for callers which already read lines as Strings. Characters
+     * beyond ASCII are not part of the parsed fields and are replaced.
+     *
+     * @return the record of the line in the history, null if the line is no ping result
+     */
+    public PingRecord addLine(String text) {
+        int length = Math.min(text.length(), MAX_LINE_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            textLine[i] = c < 0x80 ? (byte) c : (byte) '?';
+        }
+        return parse(textLine, 0, length);
+    }
+
+    /**
+     * Parse a single line without line break.
+     *
+     * @return the record of the line in the history, null if the line is no ping result
+     */
+    public PingRecord parse(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && (buffer[end - 1] == '\r' || buffer[end - 1] == ' ')) end--;
+        PingRecord record = scratch;
+        record.reset(LINEType.UNKNOWN);
+        pos = offset;
+        parseTimestamp(record, buffer, end);
+        int start = pos;
+        if (pos < end && isDigit(buffer[pos])) {
+            long number = readLong(buffer, end);
+            if (match(buffer, end, BYTES_FROM)) {
+                parseRtt(record, (int) number, buffer, end);
+            } else if (match(buffer, end, PACKETS_TRANSMITTED)) {
+                parsePacketLoss(record, number, buffer, end);
+            }
+        }
+        if (record.lineType == LINEType.UNKNOWN) {
+            // rare lines, found by a plain search like ping prints them in different places
+            if (indexOf(buffer, start, end, UNREACHABLE) >= 0) {
+                record.lineType = LINEType.UNREACHABLE;
+            } else if (indexOf(buffer, start, end, REQUEST_TIMEOUT) >= 0) {
+                record.lineType = LINEType.TIMEOUT;
+            } else {
+                return null;
+            }
+            int seq = indexOf(buffer, start, end, ICMP_SEQ);
+            if (seq >= 0) {
+                pos = seq + ICMP_SEQ.length;
+                if (pos < end && (buffer[pos] == '=' || buffer[pos] == ' ')) pos++;
+                record.icmpSeq = (int) Math.max(0, readLong(buffer, end));
+            }
+        }
+        // keep the record, the oldest one becomes the next scratch record
+        scratch = history[next];
+        history[next] = record;
+        next = (next + 1) % history.length;
+        if (size < history.length) size++;
+        parsedLines++;
+        return record;
+    }
+
+    // [1700000000.123456], the time is truncated to ms
+    private void parseTimestamp(PingRecord record, byte[] b, int end) {
+        if (pos >= end || b[pos] != '[') return;
+        int start = pos;
+        pos++;
+        long seconds = readLong(b, end);
+        long micros = 0;
+        if (seconds >= 0 && pos < end && b[pos] == '.') {
+            pos++;
+            int digits = 0;
+            while (pos < end && isDigit(b[pos])) {
+                if (digits < 6) {
+                    micros = micros * 10 + (b[pos] - '0');
+                    digits++;
+                }
+                pos++;
+            }
+            for (; digits < 6; digits++) micros *= 10;
+        }
+        if (seconds < 0 || pos >= end || b[pos] != ']') {
+            pos = start;
+            return;
+        }
+        pos++;
+        while (pos < end && b[pos] == ' ') pos++;
+        record.unixTimestamp = seconds * 1000 + micros / 1000;
+    }
+
+    // 64 bytes from host (192.0.2.1): icmp_seq=1 ttl=57 time=12.5 ms
+    private void parseRtt(PingRecord record, int bytes, byte[] b, int end) {
+        int hostStart = pos;
+        // IPv6 addresses contain colons, the host ends at the first ": "
+        int colon = hostStart;
+        while (colon < end && (b[colon] != ':' || (colon + 1 < end && b[colon + 1] != ' '))) colon++;
+        int hostEnd = colon;
+        // the address in parentheses is preferred to the name
+        int open = -1;
+        for (int i = hostStart; i < hostEnd; i++) {
+            if (b[i] == '(') {
+                open = i;
                 break;
+            }
+        }
+        if (open >= 0) {
+            int close = open + 1;
+            while (close < hostEnd && b[close] != ')') close++;
+            if (close < hostEnd) {
+                hostStart = open + 1;
+                hostEnd = close;
+            } else {
+                hostEnd = open;
+            }
+        }
+        while (hostEnd > hostStart && b[hostEnd - 1] == ' ') hostEnd--;
+        pos = colon + 1;
+        boolean hasSeq = false;
+        boolean hasTime = false;
+        while (pos < end) {
+            while (pos < end && b[pos] == ' ') pos++;
+            int keyStart = pos;
+            while (pos < end && b[pos] != '=' && b[pos] != ' ') pos++;
+            if (pos >= end || b[pos] != '=') continue;
+            int keyEnd = pos++;
+            if (equals(b, keyStart, keyEnd, ICMP_SEQ)) {
+                long seq = readLong(b, end);
+                if (seq >= 0) {
+                    record.icmpSeq = (int) seq;
+                    hasSeq = true;
+                }
+            } else if (equals(b, keyStart, keyEnd, TTL)) {
+                record.ttl = (int) Math.max(0, readLong(b, end));
+            } else if (equals(b, keyStart, keyEnd, TIME)) {
+                double rtt = readDouble(b, end);
+                if (rtt >= 0) {
+                    record.rtt = rtt;
+                    hasTime = true;
+                }
+            }
+        }
+        if (!hasSeq || !hasTime) return;
+        record.lineType = LINEType.RTT;
+        record.bytes = bytes;
+        record.host = host(b, hostStart, hostEnd);
+    }
+
+    // 3 packets transmitted, 2 received, +1 errors, 33.3333% packet loss, time 2003ms
+    private void parsePacketLoss(PingRecord record, long transmitted, byte[] b, int end) {
+        long received = readLong(b, end);
+        if (received < 0 || !match(b, end, RECEIVED)) return;
+        int percent = pos;
+        while (percent < end && b[percent] != '%') percent++;
+        if (percent == end) return;
+        int numberStart = percent;
+        while (numberStart > pos && (isDigit(b[numberStart - 1]) || b[numberStart - 1] == '.')) numberStart--;
+        pos = numberStart;
+        double packetLoss = readDouble(b, percent);
+        if (packetLoss < 0) return;
+        pos = percent + 1;
+        int time = indexOf(b, pos, end, TIME);
+        if (time >= 0) {
+            pos = time + TIME.length;
+            while (pos < end && b[pos] == ' ') pos++;
+            record.timeMs = Math.max(0, readLong(b, end));
         }
-        if(pi != null){
-            pi.parse();
-            pi.setLineType(lineType);
-            lines.add(pi);
+        record.lineType = LINEType.PACKET_LOSS;
+        record.packetsTransmitted = transmitted;
+        record.packetsReceived = received;
+        record.packetLoss = packetLoss;
+    }
+
+    // the String of the previous host is reused, the host rarely changes within a run
+    private String host(byte[] b, int start, int end) {
+        int length = end - start;
+        if (length == hostLength && equals(b, start, end, hostBytes, length)) return host;
+        if (hostBytes.length < length) hostBytes = new byte[length];
+        System.arraycopy(b, start, hostBytes, 0, length);
+        hostLength = length;
+        host = new String(b, start, length, StandardCharsets.ISO_8859_1);
+        return host;
+    }
+
+    /**
+     * @return the digits at the cursor, -1 if there are none
+     */
+    private long readLong(byte[] b, int end) {
+        if (pos >= end || !isDigit(b[pos])) return -1;
+        long value = 0;
+        while (pos < end && isDigit(b[pos])) {
+            value = value * 10 + (b[pos++] - '0');
         }
+        return value;
     }
 
+    /**
+     * @return the decimal number at the cursor, -1 if there is none
+     */
+    private double readDouble(byte[] b, int end) {
+        long integer = readLong(b, end);
+        if (integer < 0) return -1;
+        if (pos >= end || b[pos] != '.') return integer;
+        pos++;
+        long fraction = 0;
+        long scale = 1;
+        while (pos < end && isDigit(b[pos])) {
+            if (scale < 1_000_000_000_000L) {
+                fraction = fraction * 10 + (b[pos] - '0');
+                scale *= 10;
+            }
+            pos++;
+        }
+        return integer + (double) fraction / scale;
+    }
+
+    // advances the cursor past the literal if it follows
+    private boolean match(byte[] b, int end, byte[] literal) {
+        if (end - pos < literal.length) return false;
+        for (int i = 0; i < literal.length; i++) {
+            if (b[pos + i] != literal[i]) return false;
+        }
+        pos += literal.length;
+        return true;
+    }
+
+    private static int indexOf(byte[] b, int start, int end, byte[] literal) {
+        int last = end - literal.length;
+        for (int i = start; i <= last; i++) {
+            if (b[i] == literal[0] && equals(b, i, i + literal.length, literal, literal.length)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean equals(byte[] b, int start, int end, byte[] literal) {
+        return end - start == literal.length && equals(b, start, end, literal, literal.length);
+    }
+
+    private static boolean equals(byte[] b, int start, int end, byte[] other, int otherLength) {
+        if (end - start != otherLength) return false;
+        for (int i = 0; i < otherLength; i++) {
+            if (b[start + i] != other[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the newest RTT or packet loss information in the history, null if there is none
+     */
     public PingInformation getLastPingInformation() {
-        if (lines.isEmpty()) {
-            return null;
+        for (int age = 0; age < size; age++) {
+            PingInformation pingInformation = getRecord(age).toPingInformation();
+            if (pingInformation != null) return pingInformation;
         }
-        return lines.get(lines.size() - 1);
+        return null;
     }
 
-}
+    /**
+     * @return the newest record, null if no line was parsed
+     */
+    public PingRecord getLastRecord() {
+        return size == 0 ? null : getRecord(0);
+    }
 
+    /**
+     * @param age 0 for the newest record, up to {@link #getSize()} - 1 for the oldest one kept
+     */
+    public PingRecord getRecord(int age) {
+        if (age < 0 || age >= size) throw new IndexOutOfBoundsException("no record of age " + age);
+        return history[(next - 1 - age + history.length) % history.length];
+    }
+
+    /**
+     * @return number of records in the history
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of lines parsed as ping results
+     */
+    public long getParsedLines() {
+        return parsedLines;
+    }
+
+    /**
+     * @return number of lines skipped because they exceeded {@link #MAX_LINE_LENGTH}
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+}
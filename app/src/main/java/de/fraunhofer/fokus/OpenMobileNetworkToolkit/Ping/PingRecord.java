@@ -0,0 +1,125 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.LINEType;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+/**
+ * Fields of one parsed ping output line. Records are slots of the history ring of a
+ * {@link PingParser} and are overwritten once the ring wraps, copy the fields or call
+ * {@link #toPingInformation()} to keep them.
+ */
+public class PingRecord {
+    LINEType lineType = LINEType.UNKNOWN;
+    // NaN if the line has no -D timestamp
+    double unixTimestamp = Double.NaN;
+    int bytes;
+    String host;
+    int icmpSeq;
+    int ttl;
+    double rtt;
+    long packetsTransmitted;
+    long packetsReceived;
+    double packetLoss;
+    long timeMs;
+    private PingInformation pingInformation;
+
+    void reset(LINEType lineType) {
+        this.lineType = lineType;
+        unixTimestamp = Double.NaN;
+        bytes = 0;
+        host = null;
+        icmpSeq = 0;
+        ttl = 0;
+        rtt = 0;
+        packetsTransmitted = 0;
+        packetsReceived = 0;
+        packetLoss = 0;
+        timeMs = 0;
+        pingInformation = null;
+    }
+
+    public LINEType getLineType() {
+        return lineType;
+    }
+
+    /**
+     * @return time of the line in ms, NaN if ping was not started with -D
+     */
+    public double getUnixTimestamp() {
+        return unixTimestamp;
+    }
+
+    public int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return address of the replying host, its name if ping did not print the address
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public int getIcmpSeq() {
+        return icmpSeq;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public double getRtt() {
+        return rtt;
+    }
+
+    public long getPacketsTransmitted() {
+        return packetsTransmitted;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    /**
+     * @return packet loss in percent as printed by ping
+     */
+    public double getPacketLoss() {
+        return packetLoss;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /**
+     * The information of RTT and packet loss records, created on the first call. Lines without
+     * timestamp get the current time.
+     *
+     * @return null for other line types
+     */
+    public PingInformation toPingInformation() {
+        if (pingInformation != null) return pingInformation;
+        switch (lineType) {
+            case RTT:
+                double timestamp = Double.isNaN(unixTimestamp) ? System.currentTimeMillis() : unixTimestamp;
+                pingInformation = new RTTLine(timestamp, bytes, host, icmpSeq, ttl, rtt);
+                break;
+            case PACKET_LOSS:
+                pingInformation = new PacketLossLine(packetsTransmitted, packetsReceived, timeMs);
+                break;
+            default:
+                return null;
+        }
+        return pingInformation;
+    }
+}
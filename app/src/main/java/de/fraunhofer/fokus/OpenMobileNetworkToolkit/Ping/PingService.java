@@ -76,7 +76,11 @@ public class PingService extends Service {
 
         spg.getSharedPreference(SPType.PING).edit().putString(PING_LAST_UUID, pingWR.getId().toString()).apply();
         registerObserver(command);
-        WorkContinuation workContinuation = workManager.beginWith(pingWR).then(pingToLineProtocolWR);
+        WorkContinuation workContinuation = workManager.beginWith(pingWR);
+        // a streaming PingWorker writes the line protocol itself
+        if(!pingParameter.isStreamLineProtocol()){
+            workContinuation = workContinuation.then(pingToLineProtocolWR);
+        }
         if(spg.getSharedPreference(SPType.LOGGING).getBoolean("enable_influx", false)){
             OneTimeWorkRequest influxDB2xUploadWorker = new OneTimeWorkRequest.Builder(InfluxDB2xUploadWorker.class)
                     .setInputData(data)
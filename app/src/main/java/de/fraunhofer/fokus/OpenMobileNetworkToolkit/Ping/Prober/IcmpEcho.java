@@ -0,0 +1,65 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+/**
+ * Echo request and reply codec for unprivileged ICMP datagram sockets. The kernel sets the
+ * identifier and the checksum of the requests and strips the IP header from the replies, so only
+ * type, code, sequence number and payload are handled here.
+ */
+public final class IcmpEcho {
+    public static final int HEADER_SIZE = 8;
+    public static final int DEFAULT_PAYLOAD_SIZE = 56;
+    public static final int MAX_PAYLOAD_SIZE = 65507 - HEADER_SIZE;
+
+    static final int ECHO_REPLY_V4 = 0;
+    static final int ECHO_REQUEST_V4 = 8;
+    static final int ECHO_REQUEST_V6 = 128;
+    static final int ECHO_REPLY_V6 = 129;
+
+    private IcmpEcho() {
+    }
+
+    /**
+     * Write an echo request to the start of the buffer.
+     *
+     * @param payloadSize bytes after the header, like the -s option of ping
+     * @return length of the request
+     */
+    public static int writeRequest(byte[] buffer, boolean v6, int sequence, int payloadSize) {
+        int length = HEADER_SIZE + payloadSize;
+        if (payloadSize < 0 || buffer.length < length) {
+            throw new IllegalArgumentException("invalid payload size " + payloadSize);
+        }
+        buffer[0] = (byte) (v6 ? ECHO_REQUEST_V6 : ECHO_REQUEST_V4);
+        buffer[1] = 0;
+        // checksum and identifier, set by the kernel
+        buffer[2] = 0;
+        buffer[3] = 0;
+        buffer[4] = 0;
+        buffer[5] = 0;
+        buffer[6] = (byte) (sequence >>> 8);
+        buffer[7] = (byte) sequence;
+        for (int i = HEADER_SIZE; i < length; i++) {
+            buffer[i] = (byte) i;
+        }
+        return length;
+    }
+
+    /**
+     * @param length number of bytes received
+     * @return sequence number of the echo reply, -1 if the datagram is no echo reply
+     */
+    public static int readReplySequence(byte[] buffer, int length, boolean v6) {
+        if (length < HEADER_SIZE) return -1;
+        int type = buffer[0] & 0xff;
+        if (type != (v6 ? ECHO_REPLY_V6 : ECHO_REPLY_V4) || buffer[1] != 0) return -1;
+        return ((buffer[6] & 0xff) << 8) | (buffer[7] & 0xff);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import android.net.Network;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructPollfd;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+/**
+ * In process ICMP echo prober on unprivileged datagram sockets, the sockets Android allows every
+ * app to open with IPPROTO_ICMP. Every target gets its own connected socket and its own
+ * schedule, one thread sends the requests of all targets and polls all sockets for the replies,
+ * so many targets are probed concurrently without a thread or a ping process per target. The
+ * first requests of the targets are staggered over their interval, so the requests of a large
+ * target list don't leave in bursts.
+ * Send and receive times are taken from the monotonic clock next to the system calls, the wall
+ * clock is only used to timestamp the RTT lines. The results are passed to the listener on a
+ * separate dispatch thread, so writing them doesn't delay the sends or the receive times.
+ * The receive time is taken in user space after poll and recvfrom return, not by the kernel,
+ * android.system.Os has no recvmsg with SO_TIMESTAMPNS before API 33. Scheduling latency of the
+ * probing thread is still part of the RTT, like for the ping binary without -U.
+ */
+public class IcmpProber implements Closeable {
+    private static final String TAG = "IcmpProber";
+    // longest poll, so a stop request is noticed in time
+    private static final int MAX_POLL_MS = 100;
+
+    private final List<IcmpTarget> targets;
+    private final FileDescriptor[] sockets;
+    private final StructPollfd[] pollFds;
+    private final byte[] sendBuffer;
+    private final byte[] receiveBuffer = new byte[IcmpEcho.HEADER_SIZE + IcmpEcho.MAX_PAYLOAD_SIZE];
+    private ExecutorService dispatcher;
+    private volatile RuntimeException listenerError;
+
+    /**
+     * Results of the probes, called in order on the dispatch thread of the prober. A target may be
+     * stopped from the listener, other target state must not be changed.
+     */
+    public interface Listener {
+        void onReply(IcmpTarget target, RTTLine line);
+
+        void onTimeout(IcmpTarget target, int icmpSeq);
+
+        /**
+         * The target keeps sending, stop it to give up on the destination.
+         *
+         * @param errno error reported for the socket, e.g. EHOSTUNREACH
+         */
+        void onUnreachable(IcmpTarget target, int errno);
+    }
+
+    /**
+     * Open a socket per target.
+     *
+     * @param network network to bind the sockets of targets without their own network to, null
+     *                for the default network
+     * @throws ErrnoException if a socket can't be opened, e.g. ICMP sockets are not permitted
+     * @throws IOException    if a socket can't be bound or connected
+     */
+    public IcmpProber(List<IcmpTarget> targets, Network network) throws ErrnoException, IOException {
+        if (targets.isEmpty()) throw new IllegalArgumentException("no target");
+        this.targets = new ArrayList<>(targets);
+        this.sockets = new FileDescriptor[targets.size()];
+        this.pollFds = new StructPollfd[targets.size()];
+        int maxPayloadSize = 0;
+        try {
+            for (int i = 0; i < targets.size(); i++) {
+                IcmpTarget target = targets.get(i);
+                maxPayloadSize = Math.max(maxPayloadSize, target.getPayloadSize());
+                sockets[i] = target.isV6()
+                        ? Os.socket(OsConstants.AF_INET6, OsConstants.SOCK_DGRAM, OsConstants.IPPROTO_ICMPV6)
+                        : Os.socket(OsConstants.AF_INET, OsConstants.SOCK_DGRAM, OsConstants.IPPROTO_ICMP);
+                Network targetNetwork = target.getNetwork() != null ? target.getNetwork() : network;
+                if (targetNetwork != null) targetNetwork.bindSocket(sockets[i]);
+                Os.connect(sockets[i], target.getAddress(), 0);
+                pollFds[i] = new StructPollfd();
+                pollFds[i].fd = sockets[i];
+                pollFds[i].events = (short) OsConstants.POLLIN;
+            }
+        } catch (ErrnoException | IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        this.sendBuffer = new byte[IcmpEcho.HEADER_SIZE + maxPayloadSize];
+    }
+
+    public List<IcmpTarget> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Probe all targets until each one sent its requests and got their replies or timeouts, or
+     * the probing is stopped. Returns after the listener handled all results.
+     *
+     * @param stopped checked between the requests and at least every 100 ms, called on the
+     *                probing thread
+     * @throws ErrnoException         if sending or polling fails
+     * @throws InterruptedIOException if the thread is interrupted
+     * @throws RuntimeException       the first exception thrown by the listener, the probing
+     *                                stops then
+     */
+    public void run(Listener listener, BooleanSupplier stopped) throws ErrnoException, InterruptedIOException {
+        dispatcher = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG + "-dispatch"));
+        try {
+            probe(listener, stopped);
+        } finally {
+            dispatcher.shutdown();
+            try {
+                while (!dispatcher.awaitTermination(MAX_POLL_MS, TimeUnit.MILLISECONDS)) {
+                    Log.d(TAG, "run: waiting for the listener");
+                }
+            } catch (InterruptedException e) {
+                dispatcher.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the listener");
+            }
+        }
+        if (listenerError != null) throw listenerError;
+    }
+
+    private void probe(Listener listener, BooleanSupplier stopped) throws ErrnoException, InterruptedIOException {
+        long startNanos = System.nanoTime();
+        long startWallMs = System.currentTimeMillis();
+        for (int i = 0; i < targets.size(); i++) {
+            IcmpTarget target = targets.get(i);
+            target.start(startNanos, target.getIntervalNanos() / targets.size() * i);
+        }
+        while (listenerError == null && !stopped.getAsBoolean()) {
+            long now = System.nanoTime();
+            boolean done = true;
+            long wakeNanos = Long.MAX_VALUE;
+            for (int i = 0; i < targets.size(); i++) {
+                IcmpTarget target = targets.get(i);
+                if (target.isDue(now)) {
+                    send(i, listener);
+                    now = System.nanoTime();
+                }
+                target.expire(now, seq -> dispatch(() -> listener.onTimeout(target, seq)));
+                done &= target.isDone(now);
+                wakeNanos = Math.min(wakeNanos, target.nextWake(now));
+            }
+            if (done) break;
+            long waitMs = wakeNanos == Long.MAX_VALUE ? MAX_POLL_MS
+                    : Math.max(0, (wakeNanos - now + 999_999) / 1_000_000);
+            poll((int) Math.min(waitMs, MAX_POLL_MS), startNanos, startWallMs, listener);
+        }
+    }
+
+    private void send(int i, Listener listener) throws ErrnoException, InterruptedIOException {
+        IcmpTarget target = targets.get(i);
+        int sequence = target.send(System.nanoTime(), seq -> dispatch(() -> listener.onTimeout(target, seq)));
+        int length = IcmpEcho.writeRequest(sendBuffer, target.isV6(), sequence, target.getPayloadSize());
+        try {
+            Os.write(sockets[i], sendBuffer, 0, length);
+        } catch (ErrnoException e) {
+            if (!isUnreachable(e.errno)) throw e;
+            dispatch(() -> listener.onUnreachable(target, e.errno));
+        }
+    }
+
+    private void poll(int timeoutMs, long startNanos, long startWallMs, Listener listener)
+            throws ErrnoException {
+        try {
+            if (Os.poll(pollFds, timeoutMs) <= 0) return;
+        } catch (ErrnoException e) {
+            if (e.errno == OsConstants.EINTR) return;
+            throw e;
+        }
+        for (int i = 0; i < pollFds.length; i++) {
+            if (pollFds[i].revents == 0) continue;
+            pollFds[i].revents = 0;
+            receive(i, startNanos, startWallMs, listener);
+        }
+    }
+
+    // reads all pending datagrams of the socket
+    private void receive(int i, long startNanos, long startWallMs, Listener listener) throws ErrnoException {
+        IcmpTarget target = targets.get(i);
+        while (true) {
+            int length;
+            try {
+                length = Os.recvfrom(sockets[i], receiveBuffer, 0, receiveBuffer.length,
+                        OsConstants.MSG_DONTWAIT, null);
+            } catch (ErrnoException e) {
+                if (e.errno == OsConstants.EAGAIN) return;
+                if (!isUnreachable(e.errno)) throw e;
+                int errno = e.errno;
+                dispatch(() -> listener.onUnreachable(target, errno));
+                continue;
+            } catch (SocketException e) {
+                Log.w(TAG, "receive: " + e.getMessage());
+                return;
+            }
+            long now = System.nanoTime();
+            int sequence = IcmpEcho.readReplySequence(receiveBuffer, length, target.isV6());
+            if (sequence < 0) continue;
+            long rttNanos = target.reply(sequence, now);
+            if (rttNanos < 0) continue;
+            double timestampMs = startWallMs + (now - startNanos) / 1e6;
+            int bytes = length;
+            // the line is formatted on the dispatch thread too
+            dispatch(() -> listener.onReply(target, new RTTLine(timestampMs, bytes, target.getHost(),
+                    sequence, 0, rttNanos / 1e6)));
+        }
+    }
+
+    private void dispatch(Runnable result) {
+        try {
+            dispatcher.execute(() -> {
+                if (listenerError != null) return;
+                try {
+                    result.run();
+                } catch (RuntimeException e) {
+                    listenerError = e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "dispatch: prober is not running");
+        }
+    }
+
+    private static boolean isUnreachable(int errno) {
+        return errno == OsConstants.EHOSTUNREACH || errno == OsConstants.ENETUNREACH
+                || errno == OsConstants.ECONNREFUSED;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < sockets.length; i++) {
+            if (sockets[i] == null) continue;
+            try {
+                Os.close(sockets[i]);
+            } catch (ErrnoException e) {
+                Log.w(TAG, "close: " + e.getMessage());
+            }
+            sockets[i] = null;
+        }
+    }
+}
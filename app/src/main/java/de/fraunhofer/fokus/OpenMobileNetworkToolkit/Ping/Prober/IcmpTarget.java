@@ -0,0 +1,271 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import android.net.Network;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.function.IntConsumer;
+
+/**
+ * Probe state of one destination: its send schedule, the send times of the outstanding echo
+ * requests, matched by sequence number, and the counters of the run. Requests are sent in
+ * sequence order, so they time out in that order too. Times are monotonic timestamps in ns,
+ * e.g. System.nanoTime().
+ * Not thread safe, used by the probing thread only, but {@link #stop} may be called from the
+ * listener.
+ */
+public class IcmpTarget {
+    // outstanding requests per target, a power of two so the 16 bit sequence wraps cleanly
+    static final int WINDOW = 4096;
+    private static final int MASK = WINDOW - 1;
+    public static final long DEFAULT_INTERVAL_NS = 1_000_000_000L;
+    public static final long DEFAULT_TIMEOUT_NS = 10_000_000_000L;
+
+    private final InetAddress address;
+    private final String host;
+    private final int count;
+    private final long intervalNanos;
+    private final long timeoutNanos;
+    private final int payloadSize;
+    private final long deadlineNanos;
+    private final long[] sentNanos = new long[WINDOW];
+    private final int[] sentSequences = new int[WINDOW];
+    private final boolean[] pending = new boolean[WINDOW];
+    private int nextSequence = 1;
+    private int oldestSequence = 1;
+    private int outstanding;
+    private long transmitted;
+    private long received;
+    private long lost;
+    private long unexpected;
+    private long nextSendNanos;
+    private long endNanos = Long.MAX_VALUE;
+    private Network network;
+    // set by the listener of the prober on its dispatch thread
+    private volatile boolean stopped;
+
+    /**
+     * Target probed once per second with the default payload until it is stopped.
+     */
+    public IcmpTarget(InetAddress address) {
+        this(address, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param count         number of requests, 0 for no limit
+     * @param intervalNanos time between two requests, {@link #DEFAULT_INTERVAL_NS} if not positive
+     * @param timeoutNanos  a request without reply after this time is lost,
+     *                      {@link #DEFAULT_TIMEOUT_NS} if not positive
+     * @param payloadSize   bytes after the ICMP header, {@link IcmpEcho#DEFAULT_PAYLOAD_SIZE} if not positive
+     * @param deadlineNanos no requests are sent after this time from the start, 0 for no limit
+     */
+    public IcmpTarget(InetAddress address, int count, long intervalNanos, long timeoutNanos, int payloadSize,
+                      long deadlineNanos) {
+        this.address = address;
+        this.host = address.getHostAddress();
+        this.count = Math.max(0, count);
+        this.intervalNanos = intervalNanos > 0 ? intervalNanos : DEFAULT_INTERVAL_NS;
+        this.timeoutNanos = timeoutNanos > 0 ? timeoutNanos : DEFAULT_TIMEOUT_NS;
+        this.payloadSize = payloadSize > 0 ? Math.min(payloadSize, IcmpEcho.MAX_PAYLOAD_SIZE)
+                : IcmpEcho.DEFAULT_PAYLOAD_SIZE;
+        this.deadlineNanos = Math.max(0, deadlineNanos);
+    }
+
+    /**
+     * @param network network the socket of the target is bound to, null for the network of the
+     *                prober
+     */
+    public void setNetwork(Network network) {
+        this.network = network;
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Start the schedule, the first request is due after the offset. Offsets spread the requests
+     * of many targets over the interval instead of sending them in a burst.
+     */
+    public void start(long startNanos, long offsetNanos) {
+        nextSendNanos = startNanos + offsetNanos;
+        endNanos = deadlineNanos > 0 ? startNanos + deadlineNanos : Long.MAX_VALUE;
+    }
+
+    /**
+     * Send no more requests, e.g. because the destination is unreachable. Safe to call from any
+     * thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return true if the target still has requests to send
+     */
+    public boolean isSending(long nowNanos) {
+        return !stopped && nowNanos < endNanos && (count == 0 || transmitted < count);
+    }
+
+    /**
+     * @return true if the next request has to be sent now
+     */
+    public boolean isDue(long nowNanos) {
+        return isSending(nowNanos) && nowNanos >= nextSendNanos;
+    }
+
+    /**
+     * @return true if all requests are sent and answered or lost
+     */
+    public boolean isDone(long nowNanos) {
+        return !isSending(nowNanos) && outstanding == 0;
+    }
+
+    /**
+     * @return time the target needs attention next: its next request, its deadline or the
+     * timeout of its oldest outstanding request, Long.MAX_VALUE if there is none
+     */
+    public long nextWake(long nowNanos) {
+        long wake = nextExpiry();
+        if (isSending(nowNanos)) {
+            wake = Math.min(wake, Math.min(nextSendNanos, endNanos));
+        }
+        return wake;
+    }
+
+    public int getPayloadSize() {
+        return payloadSize;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return the address as text, the host of the RTT lines
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public boolean isV6() {
+        return address instanceof Inet6Address;
+    }
+
+    /**
+     * Record an echo request sent now, the oldest outstanding request is counted as lost if the
+     * window is full.
+     *
+     * @return sequence number of the request
+     */
+    public int send(long nowNanos, IntConsumer timedOut) {
+        if (outstanding == WINDOW) expireOldest(timedOut);
+        int sequence = nextSequence;
+        int slot = sequence & MASK;
+        sentNanos[slot] = nowNanos;
+        sentSequences[slot] = sequence;
+        pending[slot] = true;
+        outstanding++;
+        transmitted++;
+        nextSequence = (nextSequence + 1) & 0xffff;
+        // keep the schedule, but don't send a burst to catch up after a stall
+        nextSendNanos = Math.max(nextSendNanos + intervalNanos, nowNanos);
+        return sequence;
+    }
+
+    /**
+     * Match an echo reply with its request.
+     *
+     * @return round trip time in ns, -1 for duplicate, late or unknown replies
+     */
+    public long reply(int sequence, long nowNanos) {
+        int slot = sequence & MASK;
+        if (!pending[slot] || sentSequences[slot] != sequence) {
+            unexpected++;
+            return -1;
+        }
+        pending[slot] = false;
+        outstanding--;
+        received++;
+        return nowNanos - sentNanos[slot];
+    }
+
+    /**
+     * Count the requests without reply after the timeout as lost.
+     *
+     * @param timedOut receives the sequence numbers of the lost requests
+     */
+    public void expire(long nowNanos, IntConsumer timedOut) {
+        while (oldestSequence != nextSequence) {
+            int slot = oldestSequence & MASK;
+            if (pending[slot]) {
+                if (nowNanos - sentNanos[slot] < timeoutNanos) return;
+                pending[slot] = false;
+                outstanding--;
+                lost++;
+                timedOut.accept(oldestSequence);
+            }
+            oldestSequence = (oldestSequence + 1) & 0xffff;
+        }
+    }
+
+    /**
+     * @return time the oldest outstanding request times out, Long.MAX_VALUE if there is none
+     */
+    public long nextExpiry() {
+        for (int sequence = oldestSequence; sequence != nextSequence; sequence = (sequence + 1) & 0xffff) {
+            int slot = sequence & MASK;
+            if (pending[slot]) return sentNanos[slot] + timeoutNanos;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void expireOldest(IntConsumer timedOut) {
+        while (!pending[oldestSequence & MASK]) {
+            oldestSequence = (oldestSequence + 1) & 0xffff;
+        }
+        pending[oldestSequence & MASK] = false;
+        outstanding--;
+        lost++;
+        timedOut.accept(oldestSequence);
+        oldestSequence = (oldestSequence + 1) & 0xffff;
+    }
+
+    public int getOutstanding() {
+        return outstanding;
+    }
+
+    public long getTransmitted() {
+        return transmitted;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return requests without reply within the timeout
+     */
+    public long getLost() {
+        return lost;
+    }
+
+    /**
+     * @return duplicate, late or unknown replies
+     */
+    public long getUnexpected() {
+        return unexpected;
+    }
+}
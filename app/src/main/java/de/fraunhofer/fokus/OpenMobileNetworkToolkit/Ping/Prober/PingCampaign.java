@@ -0,0 +1,211 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RecordWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.METRIC_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+/**
+ * Results of a ping campaign, many targets probed by one {@link IcmpProber}. Every reply is
+ * written as it arrives to the shared writer, tagged with the tags of its target, and added to
+ * the RTT statistics of its target and of the campaign. The packet loss and the RTT statistics
+ * of every target are written once the campaign is finished.
+ * Not thread safe, the prober calls the listener on its dispatch thread. {@link #hasFailed} may
+ * be called from the probing thread.
+ */
+public class PingCampaign implements IcmpProber.Listener {
+    // per target statistics of the campaign, tagged like its RTT records
+    public static final String SUMMARY_MEASUREMENT = "PingSummary";
+    private final RecordWriter writer;
+    private final List<IcmpTarget> targets = new ArrayList<>();
+    private final Map<IcmpTarget, TargetStats> stats = new IdentityHashMap<>();
+    private final MetricCalculator rtt = new MetricCalculator(METRIC_TYPE.PING_RTT);
+    private final MetricCalculator packetLoss = new MetricCalculator(METRIC_TYPE.PING_PACKET_LOSS);
+    private long replies;
+    private long timeouts;
+    private int unreachableTargets;
+    private volatile IOException error;
+
+    private static class TargetStats {
+        final TagSet tags;
+        final MetricCalculator rtt = new MetricCalculator(METRIC_TYPE.PING_RTT);
+        boolean unreachable;
+
+        TargetStats(TagSet tags) {
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * @param writer writer of the campaign, shared by all targets
+     */
+    public PingCampaign(RecordWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * @param tags tags of the records of the target, e.g. its test UUID
+     */
+    public void add(IcmpTarget target, TagSet tags) {
+        if (stats.containsKey(target)) throw new IllegalArgumentException("target added twice");
+        targets.add(target);
+        stats.put(target, new TargetStats(tags));
+    }
+
+    public List<IcmpTarget> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    @Override
+    public void onReply(IcmpTarget target, RTTLine line) {
+        TargetStats targetStats = get(target);
+        targetStats.rtt.update(line.getRtt());
+        rtt.update(line.getRtt());
+        replies++;
+        write(line.getPoint(), targetStats);
+    }
+
+    @Override
+    public void onTimeout(IcmpTarget target, int icmpSeq) {
+        get(target);
+        timeouts++;
+    }
+
+    @Override
+    public void onUnreachable(IcmpTarget target, int errno) {
+        TargetStats targetStats = get(target);
+        // give up on the destination, the other targets keep going
+        target.stop();
+        if (!targetStats.unreachable) {
+            targetStats.unreachable = true;
+            unreachableTargets++;
+        }
+    }
+
+    /**
+     * Write the packet loss and a {@link #SUMMARY_MEASUREMENT} point with the RTT statistics of
+     * every target and flush the writer.
+     *
+     * @param elapsedMs duration of the campaign, the time of the packet loss lines
+     * @throws IOException the first error writing the records of the campaign
+     */
+    public void finish(long elapsedMs) throws IOException {
+        long now = System.currentTimeMillis();
+        for (IcmpTarget target : targets) {
+            TargetStats targetStats = stats.get(target);
+            PacketLossLine line = new PacketLossLine(target.getTransmitted(), target.getReceived(), elapsedMs);
+            if (target.getTransmitted() > 0) packetLoss.update(line.getPacketLoss());
+            write(line.getPoint(), targetStats);
+            targetStats.rtt.calcAll();
+            write(getSummaryPoint(target, targetStats, line.getPacketLoss()).time(now, WritePrecision.MS),
+                    targetStats);
+        }
+        if (error == null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        rtt.calcAll();
+        packetLoss.calcAll();
+        if (error != null) throw error;
+    }
+
+    private static Point getSummaryPoint(IcmpTarget target, TargetStats targetStats, double packetLoss) {
+        MetricCalculator targetRtt = targetStats.rtt;
+        Point point = new Point(SUMMARY_MEASUREMENT)
+                .addTag("toHost", target.getHost())
+                .addField("replies", targetRtt.getCount())
+                .addField("packet_loss", packetLoss)
+                .addField("unreachable", targetStats.unreachable);
+        if (targetRtt.getCount() > 0) {
+            point.addField("rtt_min", targetRtt.getMin())
+                    .addField("rtt_median", targetRtt.getMedian())
+                    .addField("rtt_mean", targetRtt.getMean())
+                    .addField("rtt_max", targetRtt.getMax());
+        }
+        return point;
+    }
+
+    /**
+     * @return true if a record could not be written, the campaign should be stopped
+     */
+    public boolean hasFailed() {
+        return error != null;
+    }
+
+    private void write(Point point, TargetStats targetStats) {
+        if (error != null) return;
+        try {
+            writer.write(targetStats.tags.encode(point));
+            writer.flushIfDue();
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private TargetStats get(IcmpTarget target) {
+        TargetStats targetStats = stats.get(target);
+        if (targetStats == null) throw new IllegalArgumentException("unknown target " + target.getHost());
+        return targetStats;
+    }
+
+    /**
+     * @return RTT statistics of the target, calculated by {@link #finish(long)}
+     */
+    public MetricCalculator getRtt(IcmpTarget target) {
+        return get(target).rtt;
+    }
+
+    public boolean isUnreachable(IcmpTarget target) {
+        return get(target).unreachable;
+    }
+
+    /**
+     * @return RTT statistics of all replies, calculated by {@link #finish(long)}
+     */
+    public MetricCalculator getRtt() {
+        return rtt;
+    }
+
+    /**
+     * @return statistics of the packet loss in percent of the targets which sent requests,
+     * calculated by {@link #finish(long)}
+     */
+    public MetricCalculator getPacketLoss() {
+        return packetLoss;
+    }
+
+    public long getReplies() {
+        return replies;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public int getUnreachableTargets() {
+        return unreachableTargets;
+    }
+}
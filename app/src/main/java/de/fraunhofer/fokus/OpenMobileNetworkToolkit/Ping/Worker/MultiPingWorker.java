@@ -0,0 +1,233 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Worker;
+
+import static android.content.pm.ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.system.ErrnoException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Data;
+import androidx.work.ForegroundInfo;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.GlobalVars;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.Inputs;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.MainActivity;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.PingParameter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingLineProtocolStream;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober.IcmpProber;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober.IcmpTarget;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober.PingCampaign;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
+
+/**
+ * Probes all ping tests of a campaign concurrently from one worker with a single
+ * {@link IcmpProber}, instead of one {@link PingWorker} per destination. The line protocol
+ * records of all tests are written as they arrive to the line protocol file of the campaign,
+ * tagged with the UUIDs of their test, so no {@link PingToLineProtocolWorker} is needed.
+ * The tests are read from a JSON file, a campaign with dozens of targets does not fit into the
+ * input data of a work request.
+ */
+public class MultiPingWorker extends Worker {
+    public static final String TAG = "MultiPingWorker";
+    public static final String TARGETS = "targets";
+    public static final String REPLIES = "replies";
+    public static final String TIMEOUTS = "timeouts";
+    public static final String UNREACHABLE_TARGETS = "unreachableTargets";
+    public static final String RTT_MEAN = "rttMean";
+    public static final String PACKET_LOSS_MEAN = "packetLossMean";
+
+    private static final int NOTIFICATION_ID = 1102;
+    private final Context ct;
+    private final String channelId = "OMNT_notification_channel";
+    private final NotificationCompat.Builder notificationBuilder;
+    private final Inputs campaignInput;
+    private final String targetsPath;
+
+    public MultiPingWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+        ct = context;
+        campaignInput = new Gson().fromJson(getInputData().getString(Inputs.INPUT), Inputs.class);
+        targetsPath = getInputData().getString(TARGETS);
+        notificationBuilder = new NotificationCompat.Builder(ct, channelId);
+        setForegroundAsync(createForegroundInfo(""));
+    }
+
+    private ForegroundInfo createForegroundInfo(String progress) {
+        Intent intent = new Intent(this.ct, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        intent.putExtra("navigateToFragment", "PingFragment");
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+                this.ct,
+                0,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        Notification notification = notificationBuilder
+                .setContentTitle("Ping campaign")
+                .setContentText(progress)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setColor(Color.WHITE)
+                .setSmallIcon(R.mipmap.ic_launcher_foreground)
+                .setForegroundServiceBehavior(Notification.FOREGROUND_SERVICE_DEFAULT)
+                .setContentIntent(pendingIntent)
+                .build();
+
+        return new ForegroundInfo(NOTIFICATION_ID, notification, FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data.Builder output = new Data.Builder().putBoolean(PingWorker.PING, false);
+        if (campaignInput == null || campaignInput.getParameter() == null || targetsPath == null) {
+            Log.e(TAG, "doWork: campaign input is missing");
+            return Result.failure(output.putString(PingWorker.REASON, "Campaign input is missing").build());
+        }
+        PingInput[] pingInputs;
+        try {
+            String json = new String(Files.readAllBytes(Paths.get(targetsPath)), StandardCharsets.UTF_8);
+            pingInputs = new Gson().fromJson(json, PingInput[].class);
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "doWork: can't read targets " + targetsPath + ": " + e.getMessage());
+            return Result.failure(output.putString(PingWorker.REASON, "Can't read targets").build());
+        }
+
+        File lineProtocolFile = new File(campaignInput.getParameter().getLineProtocolFilePath());
+        File lineProtocolDir = lineProtocolFile.getParentFile();
+        if (lineProtocolDir != null && !lineProtocolDir.exists() && !lineProtocolDir.mkdirs()) {
+            Log.e(TAG, "doWork: Error creating lineProtocolDirPath directory: " + lineProtocolDir);
+        }
+        TagSet deviceTags = GlobalVars.getInstance().get_dp().getTagSet();
+        try (LineProtocolWriter writer = new LineProtocolWriter(lineProtocolFile)) {
+            PingCampaign campaign = new PingCampaign(writer);
+            List<IcmpTarget> targets = new ArrayList<>();
+            for (PingInput pingInput : pingInputs) {
+                IcmpTarget target = createTarget(pingInput.getPingParameter());
+                if (target == null) continue;
+                campaign.add(target, PingLineProtocolStream.getTags(pingInput, deviceTags));
+                targets.add(target);
+            }
+            if (targets.isEmpty()) {
+                return Result.failure(output.putString(PingWorker.REASON, "No target to probe").build());
+            }
+            long start = System.nanoTime();
+            // every socket is bound to the network of its test
+            try (IcmpProber prober = new IcmpProber(targets, null)) {
+                Log.d(TAG, "doWork: probing " + targets.size() + " targets");
+                prober.run(new ProgressListener(campaign, targets.size()),
+                        () -> isStopped() || campaign.hasFailed());
+            }
+            campaign.finish((System.nanoTime() - start) / 1_000_000);
+            Log.d(TAG, String.format(Locale.US, "doWork: %d replies, %d timeouts, %d unreachable targets",
+                    campaign.getReplies(), campaign.getTimeouts(), campaign.getUnreachableTargets()));
+            output.putLong(REPLIES, campaign.getReplies())
+                    .putLong(TIMEOUTS, campaign.getTimeouts())
+                    .putInt(UNREACHABLE_TARGETS, campaign.getUnreachableTargets())
+                    .putDouble(RTT_MEAN, campaign.getRtt().getMean())
+                    .putDouble(PACKET_LOSS_MEAN, campaign.getPacketLoss().getMean());
+        } catch (ErrnoException e) {
+            // the campaign needs ICMP sockets, there is no ping process fallback for many targets
+            Log.e(TAG, "doWork: ICMP socket error: " + e.getMessage());
+            return Result.failure(output.putString(PingWorker.REASON, "ICMP socket error: " + e.getMessage()).build());
+        } catch (IOException e) {
+            Log.e(TAG, "doWork: Error while probing: " + e);
+            return Result.failure(output.putString(PingWorker.REASON, "Error while probing: " + e.getMessage()).build());
+        }
+        return Result.success(output.putBoolean(PingWorker.PING, true).build());
+    }
+
+    private static IcmpTarget createTarget(PingParameter pingParameter) {
+        if (pingParameter == null) return null;
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(pingParameter.getDestination());
+        } catch (UnknownHostException e) {
+            Log.e(TAG, "createTarget: unknown host " + pingParameter.getDestination() + ", skipped");
+            return null;
+        }
+        // interval, timeout and deadline are given in seconds like the ping options
+        IcmpTarget target = new IcmpTarget(address, pingParameter.getCount(),
+                (long) (pingParameter.getIntervalMillis() * 1e9),
+                (long) (pingParameter.getTimeoutMillis() * 1e9), pingParameter.getPacketSize(),
+                pingParameter.getDeadline() * 1_000_000_000L);
+        target.setNetwork(pingParameter.getNetwork());
+        return target;
+    }
+
+    /**
+     * Passes the results to the campaign and reports the progress at most once per second,
+     * a campaign gets far more replies than the notification needs.
+     */
+    private class ProgressListener implements IcmpProber.Listener {
+        private final PingCampaign campaign;
+        private final int targetCount;
+        private long lastProgressMs;
+
+        ProgressListener(PingCampaign campaign, int targetCount) {
+            this.campaign = campaign;
+            this.targetCount = targetCount;
+        }
+
+        @Override
+        public void onReply(IcmpTarget target, RTTLine line) {
+            campaign.onReply(target, line);
+            long now = System.currentTimeMillis();
+            if (now - lastProgressMs < 1000) return;
+            lastProgressMs = now;
+            setProgressAsync(new Data.Builder()
+                    .putLong(REPLIES, campaign.getReplies())
+                    .putLong(TIMEOUTS, campaign.getTimeouts())
+                    .build());
+            setForegroundAsync(createForegroundInfo(String.format(Locale.US, "%d targets, %d replies, %d timeouts",
+                    targetCount, campaign.getReplies(), campaign.getTimeouts())));
+        }
+
+        @Override
+        public void onTimeout(IcmpTarget target, int icmpSeq) {
+            campaign.onTimeout(target, icmpSeq);
+        }
+
+        @Override
+        public void onUnreachable(IcmpTarget target, int errno) {
+            Log.w(TAG, "onUnreachable: " + target.getHost());
+            campaign.onUnreachable(target, errno);
+        }
+    }
+}
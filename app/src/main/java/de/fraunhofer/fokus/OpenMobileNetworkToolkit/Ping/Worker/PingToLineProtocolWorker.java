@@ -18,7 +18,6 @@ import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
 import com.google.gson.Gson;
-import com.influxdb.client.write.Point;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -30,14 +29,15 @@ import java.util.ArrayList;
 import java.util.Scanner;
 
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.DeviceInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.GlobalVars;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.PingParameter;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.LINEType;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
-import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingLineProtocolStream;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingParser;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingRecord;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SharedPreferencesGrouper;
 
 public class PingToLineProtocolWorker extends Worker {
@@ -63,20 +63,6 @@ public class PingToLineProtocolWorker extends Worker {
     }
 
 
-    private LINEType getLineType(String line){
-        if (line.contains("bytes from")) {
-            return LINEType.RTT;
-        } else if (line.contains("Unreachable")) {
-            return LINEType.UNREACHABLE;
-        } else if (line.contains("Request timeout")) {
-            return LINEType.TIMEOUT;
-        } else if (line.contains("packets transmitted")){
-            return LINEType.PACKET_LOSS;
-        } else {
-            return LINEType.UNKNOWN;
-        }
-    }
-
     @NonNull
     @Override
     public Result doWork() {
@@ -89,26 +75,11 @@ public class PingToLineProtocolWorker extends Worker {
             return Result.failure(output.putString("error", "File not found").build());
         }
         ArrayList<PingInformation> pingInformations = new ArrayList<>();
+        PingParser pingParser = new PingParser();
         while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            PingInformation pi = null;
-            switch (getLineType(line)) {
-                case RTT:
-                    pi = new RTTLine(line);
-                case UNREACHABLE:
-                    //TDODO
-                    break;
-                case TIMEOUT:
-                    //TODO
-                    break;
-                case PACKET_LOSS:
-                    pi = new PacketLossLine(line);
-                    break;
-                case UNKNOWN:
-                    break;
-            }
+            PingRecord record = pingParser.addLine(scanner.nextLine());
+            PingInformation pi = record == null ? null : record.toPingInformation();
             if (pi == null) continue;
-            pi.parse();
             pingInformations.add(pi);
         }
         scanner.close();
@@ -130,18 +101,12 @@ public class PingToLineProtocolWorker extends Worker {
             Log.e(TAG, "doWork: Could not create FileOutputStream");
         }
 
+        // encoded once and spliced into every record
+        TagSet tags = PingLineProtocolStream.getTags(pingInput, Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? GlobalVars.getInstance().get_dp().getTagSet() : TagSet.EMPTY);
         for (PingInformation pi : pingInformations) {
             try {
-                Point point = pi.getPoint();
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                    point.addTags(GlobalVars.getInstance().get_dp().getTagsMap());
-                }
-                if(!pingInput.getSequenceUUID().isEmpty()) point.addTag("sequenceUUID", pingInput.getSequenceUUID());
-                if(!pingInput.getTestUUID().isEmpty()) point.addTag("testUUID", pingInput.getTestUUID());
-                if(!pingInput.getMeasurementUUID().isEmpty())point.addTag("measurementUUID", pingInput.getMeasurementUUID());
-                if(!pingInput.getCampaignUUID().isEmpty()) point.addTag("campaignUUID", pingInput.getCampaignUUID());
-
-                pingStream.write((point.toLineProtocol() + "\n").getBytes());
+                pingStream.write((tags.encode(pi.getPoint()) + "\n").getBytes());
 
             } catch (IOException e) {
                 Log.d(TAG, "doWork: "+e.toString());
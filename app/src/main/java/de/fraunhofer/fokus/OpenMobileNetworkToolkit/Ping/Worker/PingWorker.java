@@ -16,6 +16,8 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Color;
+import android.system.ErrnoException;
+import android.system.OsConstants;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -26,29 +28,51 @@ import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
 import com.google.gson.Gson;
+import com.influxdb.client.write.Point;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.DataProvider;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.GlobalVars;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnection;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.InfluxdbConnections;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolWriter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Inputs.PingInput;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.MainActivity;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Parameter.PingParameter;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingLineProtocolStream;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingParser;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingRecord;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober.IcmpProber;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober.IcmpTarget;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SPType;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Preferences.SharedPreferencesGrouper;
 import de.fraunhofer.fokus.OpenMobileNetworkToolkit.R;
 
 public class PingWorker extends Worker {
@@ -139,6 +163,56 @@ public class PingWorker extends Worker {
             Log.e(TAG, "PingParameter is null");
             return Result.failure(output.putString(REASON, "PingParameter is null").build());
         }
+        PingLineProtocolStream lineProtocol = pingParameter.isStreamLineProtocol() ? openLineProtocolStream() : null;
+        try {
+            return ping(pingParameter, output, lineProtocol);
+        } finally {
+            if (lineProtocol != null) {
+                try {
+                    lineProtocol.close();
+                    Log.d(TAG, "doWork: streamed " + lineProtocol.getRecords() + " records, "
+                            + lineProtocol.getLiveDropped() + " not accepted by InfluxDB");
+                } catch (IOException e) {
+                    Log.e(TAG, "doWork: could not close LP File: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Open the line protocol file of the test for the records written while pinging. The records
+     * are passed on to InfluxDB too, if the logging service has an open connection.
+     *
+     * @return null if the file can't be opened, the line protocol is missing then
+     */
+    private PingLineProtocolStream openLineProtocolStream() {
+        File file = new File(pingInput.getParameter().getLineProtocolFilePath());
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Error creating lineProtocolDirPath directory: " + dir);
+        }
+        DataProvider dp = GlobalVars.getInstance().get_dp();
+        TagSet deviceTags = dp == null ? TagSet.EMPTY : dp.getTagSet();
+        Predicate<Point> live = null;
+        if (SharedPreferencesGrouper.getInstance(ct).getSharedPreference(SPType.LOGGING).getBoolean("enable_influx", false)) {
+            InfluxdbConnection influx = InfluxdbConnections.getRicInstance(ct);
+            // only use a connection opened by the logging service, the upload worker covers the rest
+            if (influx != null && influx.getWriteApi() != null) live = influx::writePoint;
+        }
+        try {
+            return new PingLineProtocolStream(new LineProtocolWriter(file),
+                    PingLineProtocolStream.getTags(pingInput, deviceTags), live);
+        } catch (IOException e) {
+            Log.e(TAG, "openLineProtocolStream: could not open LP File: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Result ping(PingParameter pingParameter, Data.Builder output, PingLineProtocolStream lineProtocol) {
+        Result probed = probe(pingParameter, output, lineProtocol);
+        if (probed != null) {
+            return probed;
+        }
         String[] command = pingParameter.getInputAsCommand();
         if (command == null) {
             Log.e(TAG, "Command is null");
@@ -153,54 +227,31 @@ public class PingWorker extends Worker {
 
             ProcessBuilder processBuilder = new ProcessBuilder(command);
             Process process = processBuilder.start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            InputStream stdout = process.getInputStream();
             FileOutputStream pingStream = new FileOutputStream(pingInput.getPingParameter().getRawLogFilePath(), true);
             PingParser pingParser = new PingParser();
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                Log.d(TAG, "doWork: "+line);
-                pingStream.write((line + "\n").getBytes());
-                pingParser.addLine(line);
-                PingInformation pingInformation = pingParser.getLastPingInformation();
-                Data.Builder progressOutput = new Data.Builder();
-                if(line == null || pingInformation == null){
-                    Log.w(TAG, "doWork: Line or PingInformation is null, skipping line");
-                    continue;
-                }
-
-                switch (pingInformation.getLineType()){
-                    case RTT:
-                        rtt = ((RTTLine)pingInformation).getRtt();
-                        progressOutput.putString(RTT, new Gson().toJson((RTTLine)pingInformation));
-//                        setProgressAsync(progressOutput.build());
-                        setForegroundAsync(createForegroundInfo(((RTTLine) pingInformation).getHost()+": " + rtt + " ms"));
-                        Log.d(TAG, "doWork: RTT: " + rtt);
-                        break;
-                    case UNREACHABLE:
-                        Log.e(TAG, "doWork: Unreachable destination");
-                        return Result.failure(progressOutput.putString(REASON, "Unreachable destination").build());
-                    case TIMEOUT:
-                        Log.w(TAG, "doWork: Request timeout");
-                        progressOutput.putString(REASON, "Request timeout");
-                        break;
-                    case PACKET_LOSS:
-                        PacketLossLine packetLoss = ((PacketLossLine)pingInformation);
-                        progressOutput.putString(PACKET_LOSS, new Gson().toJson(packetLoss));
-//                        setProgressAsync(progressOutput.build());
-                        Log.d(TAG, "doWork: Packet Loss: " + packetLoss.toString());
-                        break;
-                    case UNKNOWN:
-                        Log.w(TAG, "doWork: Unknown line type");
-                        break;
-                }
-                setProgressAsync(progressOutput.build());
-
-                if(this.isStopped()){
+            ParserListener listener = new ParserListener(lineProtocol);
+            // the raw log gets the output as read, the parser splits it into lines itself
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stdout.read(buffer)) != -1) {
+                pingStream.write(buffer, 0, read);
+                pingParser.feed(buffer, 0, read, listener);
+                if (listener.error != null) throw listener.error;
+                if (listener.unreachable || this.isStopped()) {
                     break;
                 }
-
-
+            }
+            if (read == -1) {
+                pingParser.finish(listener);
+                if (listener.error != null) throw listener.error;
+            }
+            if (listener.unreachable) {
+                // ping keeps running, stop it before its stderr is read
+                process.destroy();
+                pingStream.close();
+                stdout.close();
+                return Result.failure(output.putString(REASON, "Unreachable destination").build());
             }
             error = new BufferedReader(
                     new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))
@@ -208,7 +259,7 @@ public class PingWorker extends Worker {
                     .collect(Collectors.joining("\n"));
             process.destroy();
             pingStream.close();
-            reader.close();
+            stdout.close();
 
             result = process.waitFor();
 
@@ -231,4 +282,154 @@ public class PingWorker extends Worker {
 
         return Result.success(output.putBoolean(PING, true).build());
     }
+
+    /**
+     * Reports the records of the ping binary like the probes, records are copied to a
+     * {@link PingInformation} only where they leave the worker.
+     */
+    private class ParserListener implements PingParser.Listener {
+        private final PingLineProtocolStream lineProtocol;
+        private final Gson gson = new Gson();
+        private long lastNotificationMs;
+        boolean unreachable;
+        IOException error;
+
+        ParserListener(PingLineProtocolStream lineProtocol) {
+            this.lineProtocol = lineProtocol;
+        }
+
+        @Override
+        public void onRecord(PingRecord record) {
+            Data.Builder progressOutput = new Data.Builder();
+            switch (record.getLineType()) {
+                case RTT:
+                    rtt = record.getRtt();
+                    progressOutput.putString(RTT, gson.toJson(record.toPingInformation()));
+                    // low intervals produce far more lines than the notification needs
+                    long now = System.currentTimeMillis();
+                    if (now - lastNotificationMs >= 1000) {
+                        lastNotificationMs = now;
+                        setForegroundAsync(createForegroundInfo(record.getHost() + ": " + rtt + " ms"));
+                    }
+                    break;
+                case UNREACHABLE:
+                    Log.e(TAG, "doWork: Unreachable destination");
+                    unreachable = true;
+                    return;
+                case TIMEOUT:
+                    Log.w(TAG, "doWork: Request timeout for icmp_seq " + record.getIcmpSeq());
+                    progressOutput.putString(REASON, "Request timeout");
+                    break;
+                case PACKET_LOSS:
+                    progressOutput.putString(PACKET_LOSS, gson.toJson(record.toPingInformation()));
+                    Log.d(TAG, "doWork: Packet Loss: " + record.getPacketLoss() + "%");
+                    break;
+                default:
+                    return;
+            }
+            setProgressAsync(progressOutput.build());
+            if (lineProtocol == null || error != null) return;
+            try {
+                lineProtocol.write(record.toPingInformation());
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Ping with the in process {@link IcmpProber} instead of forking /system/bin/ping. The raw
+     * log gets the same lines ping -D prints, the progress the same RTT and packet loss records.
+     *
+     * @return null if no ICMP socket can be opened, the ping binary is used then
+     */
+    private Result probe(PingParameter pingParameter, Data.Builder output, PingLineProtocolStream lineProtocol) {
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(pingParameter.getDestination());
+        } catch (UnknownHostException e) {
+            Log.e(TAG, "probe: unknown host " + pingParameter.getDestination());
+            return Result.failure(output.putString(REASON, "Unknown host: " + pingParameter.getDestination()).build());
+        }
+        // interval, timeout and deadline are given in seconds like the ping options
+        IcmpTarget icmpTarget = new IcmpTarget(address, pingParameter.getCount(),
+                (long) (pingParameter.getIntervalMillis() * 1e9),
+                (long) (pingParameter.getTimeoutMillis() * 1e9), pingParameter.getPacketSize(),
+                pingParameter.getDeadline() * 1_000_000_000L);
+        IcmpProber prober;
+        try {
+            prober = new IcmpProber(Collections.singletonList(icmpTarget), pingParameter.getNetwork());
+        } catch (ErrnoException | IOException e) {
+            Log.w(TAG, "probe: no ICMP socket, falling back to ping: " + e.getMessage());
+            return null;
+        }
+        Gson gson = new Gson();
+        long start = System.nanoTime();
+        // set on the dispatch thread of the prober
+        AtomicBoolean unreachable = new AtomicBoolean();
+        try (IcmpProber p = prober;
+             OutputStream pingStream = new BufferedOutputStream(
+                     new FileOutputStream(pingParameter.getRawLogFilePath(), true))) {
+            prober.run(new IcmpProber.Listener() {
+                private long lastNotificationMs;
+
+                @Override
+                public void onReply(IcmpTarget target, RTTLine line) {
+                    write(pingStream, line.getLine());
+                    write(lineProtocol, line);
+                    rtt = line.getRtt();
+                    setProgressAsync(new Data.Builder().putString(RTT, gson.toJson(line)).build());
+                    // probes can be much faster than the notification needs to be updated
+                    long now = System.currentTimeMillis();
+                    if (now - lastNotificationMs >= 1000) {
+                        lastNotificationMs = now;
+                        setForegroundAsync(createForegroundInfo(line.getHost() + ": " + rtt + " ms"));
+                    }
+                }
+
+                @Override
+                public void onTimeout(IcmpTarget target, int icmpSeq) {
+                    Log.w(TAG, "probe: Request timeout for icmp_seq " + icmpSeq);
+                    setProgressAsync(new Data.Builder().putString(REASON, "Request timeout").build());
+                }
+
+                @Override
+                public void onUnreachable(IcmpTarget target, int errno) {
+                    Log.e(TAG, "probe: Unreachable destination " + target.getHost() + ": " + OsConstants.errnoName(errno));
+                    unreachable.set(true);
+                    target.stop();
+                }
+            }, () -> isStopped() || unreachable.get());
+            if (unreachable.get()) {
+                return Result.failure(output.putString(REASON, "Unreachable destination").build());
+            }
+            PacketLossLine packetLoss = new PacketLossLine(icmpTarget.getTransmitted(), icmpTarget.getReceived(),
+                    (System.nanoTime() - start) / 1_000_000);
+            write(pingStream, packetLoss.getLine());
+            write(lineProtocol, packetLoss);
+            setProgressAsync(new Data.Builder().putString(PACKET_LOSS, gson.toJson(packetLoss)).build());
+            Log.d(TAG, "probe: Packet Loss: " + packetLoss);
+        } catch (ErrnoException | IOException | UncheckedIOException e) {
+            Log.e(TAG, "Error while probing: " + e);
+            return Result.failure(output.putString(REASON, "Error while probing: " + e.getMessage()).build());
+        }
+        return Result.success(output.putBoolean(PING, true).build());
+    }
+
+    private static void write(PingLineProtocolStream lineProtocol, PingInformation pingInformation) {
+        if (lineProtocol == null) return;
+        try {
+            lineProtocol.write(pingInformation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(OutputStream stream, String line) {
+        try {
+            stream.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
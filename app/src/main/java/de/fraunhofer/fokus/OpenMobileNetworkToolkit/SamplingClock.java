@@ -0,0 +1,170 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sampling clock with ticks on wall clock aligned boundaries, e.g. every 1000 ms on the second.
+ * A sampling round calls {@link #startRound(long)} to get the timestamp of its tick, which is
+ * used for all samples of the round, and {@link #finishRound(long)} to get the delay to the next
+ * tick. A round which starts after the following boundary skips the ticks in between and counts
+ * them as missed instead of drifting. Rounds are expected on a single thread, the metrics can be
+ * read from any thread.
+ */
+public class SamplingClock {
+    private final long periodMs;
+    private long scheduledTick = -1;
+    private long currentTick;
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong missedTicks = new AtomicLong();
+    private final Histogram jitter = new Histogram();
+    private final Histogram overrun = new Histogram();
+
+    /**
+     * Histogram of durations in ms with fixed, roughly logarithmic buckets.
+     */
+    public static class Histogram {
+        // upper bounds of the buckets in ms, the last bucket holds everything above
+        private static final long[] BOUNDS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long valueMs) {
+            int bucket = 0;
+            while (bucket < BOUNDS.length && valueMs > BOUNDS[bucket]) bucket++;
+            counts.incrementAndGet(bucket);
+            max.accumulateAndGet(valueMs, Math::max);
+        }
+
+        /**
+         * @return inclusive upper bounds in ms, one less than there are buckets
+         */
+        public long[] getBucketBounds() {
+            return BOUNDS.clone();
+        }
+
+        /**
+         * @return number of values per bucket
+         */
+        public long[] getCounts() {
+            long[] result = new long[counts.length()];
+            for (int i = 0; i < result.length; i++) result[i] = counts.get(i);
+            return result;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < counts.length(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(i < BOUNDS.length ? "<=" + BOUNDS[i] : ">" + BOUNDS[BOUNDS.length - 1])
+                        .append("ms: ").append(counts.get(i));
+            }
+            return sb.append(", max: ").append(max.get()).append("ms").toString();
+        }
+    }
+
+    /**
+     * @param periodMs time between two ticks in ms, boundaries are multiples of it since the epoch
+     */
+    public SamplingClock(long periodMs) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("periodMs must be positive");
+        }
+        this.periodMs = periodMs;
+    }
+
+    public long getPeriodMs() {
+        return periodMs;
+    }
+
+    /**
+     * @param now current wall clock time in ms
+     * @return delay in ms until the first tick
+     */
+    public long getInitialDelay(long now) {
+        scheduledTick = (Math.floorDiv(now, periodMs) + 1) * periodMs;
+        return scheduledTick - now;
+    }
+
+    /**
+     * Start a sampling round.
+     *
+     * @param now current wall clock time in ms
+     * @return timestamp of the tick this round samples for
+     */
+    public long startRound(long now) {
+        long tick = Math.floorDiv(now, periodMs) * periodMs;
+        if (scheduledTick < 0 || scheduledTick - now > periodMs) {
+            // not started through getInitialDelay or the wall clock was set back, resync
+            scheduledTick = tick;
+        }
+        if (tick < scheduledTick) {
+            // woke up early, the round belongs to the scheduled tick
+            jitter.record(scheduledTick - now);
+            tick = scheduledTick;
+        } else {
+            jitter.record(now - tick);
+            if (tick > scheduledTick) {
+                missedTicks.addAndGet((tick - scheduledTick) / periodMs);
+            }
+        }
+        currentTick = tick;
+        ticks.incrementAndGet();
+        return tick;
+    }
+
+    /**
+     * Finish the current sampling round.
+     *
+     * @param now current wall clock time in ms
+     * @return delay in ms until the next tick
+     */
+    public long finishRound(long now) {
+        long next = currentTick + periodMs;
+        overrun.record(Math.max(0, now - next));
+        scheduledTick = next;
+        // a round past the next tick starts right away, startRound skips the ticks in between
+        return Math.max(0, next - now);
+    }
+
+    /**
+     * @return number of sampling rounds
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    /**
+     * @return number of ticks skipped because a round started too late
+     */
+    public long getMissedTicks() {
+        return missedTicks.get();
+    }
+
+    /**
+     * @return distribution of the distance between the start of a round and its tick
+     */
+    public Histogram getJitterHistogram() {
+        return jitter;
+    }
+
+    /**
+     * @return distribution of the time rounds ran past the next tick, 0 if they finished in time
+     */
+    public Histogram getOverrunHistogram() {
+        return overrun;
+    }
+}
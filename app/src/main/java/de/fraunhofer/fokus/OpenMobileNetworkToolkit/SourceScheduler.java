@@ -0,0 +1,158 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides per data source whether a sampling round has to build its points. Every source has
+ * its own period: {@link #EVERY_TICK} samples it in every round of the {@link SamplingClock}, a
+ * positive period samples it in the first round of each wall clock aligned period, e.g. battery
+ * once per minute on the minute, and {@link #EVENT_DRIVEN} samples it in the first round only.
+ * Cell and signal updates between the rounds are logged independent of the period, for them
+ * the period only applies to sampling the current state.
+ * Rounds are expected on a single thread, the metrics can be read from any thread.
+ */
+public class SourceScheduler {
+    public static final long EVERY_TICK = 0;
+    public static final long EVENT_DRIVEN = -1;
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    /**
+     * Data sources of the logging service, the key names the setting and the MQTT topic.
+     */
+    public enum Source {
+        NETWORK("network", EVERY_TICK),
+        CAPABILITIES("capabilities", EVERY_TICK),
+        SIGNAL("signal", EVERY_TICK),
+        WIFI("wifi", EVERY_TICK),
+        CELL("cell", EVERY_TICK),
+        IP("ip", EVERY_TICK),
+        BATTERY("battery", 60 * 1000),
+        BUILD("build", 60 * 60 * 1000),
+        LOCATION("location", EVERY_TICK);
+
+        private final String key;
+        private final long defaultPeriodMs;
+
+        Source(String key, long defaultPeriodMs) {
+            this.key = key;
+            this.defaultPeriodMs = defaultPeriodMs;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return key of the setting holding the period in ms
+         */
+        public String getPreferenceKey() {
+            return "sampling_period_" + key;
+        }
+
+        public long getDefaultPeriodMs() {
+            return defaultPeriodMs;
+        }
+
+        /**
+         * @return the source with the key, null if there is none
+         */
+        public static Source fromKey(String key) {
+            for (Source source : values()) {
+                if (source.key.equals(key.toLowerCase(Locale.ROOT))) return source;
+            }
+            return null;
+        }
+    }
+
+    private final long[] periodsMs;
+    private final long[] lastTicks;
+    private final AtomicLongArray skipped;
+
+    /**
+     * @param periodsMs period per source in the order of {@link Source#values()}
+     */
+    public SourceScheduler(long[] periodsMs) {
+        if (periodsMs.length != Source.values().length) {
+            throw new IllegalArgumentException("one period per source required");
+        }
+        for (long period : periodsMs) {
+            if (period < EVENT_DRIVEN) throw new IllegalArgumentException("invalid period " + period);
+        }
+        this.periodsMs = periodsMs.clone();
+        this.lastTicks = new long[periodsMs.length];
+        Arrays.fill(lastTicks, NEVER);
+        this.skipped = new AtomicLongArray(periodsMs.length);
+    }
+
+    /**
+     * @return scheduler with the default period of every source
+     */
+    public static SourceScheduler withDefaults() {
+        Source[] sources = Source.values();
+        long[] periods = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) periods[i] = sources[i].defaultPeriodMs;
+        return new SourceScheduler(periods);
+    }
+
+    /**
+     * @param value period setting in ms
+     * @return the period, the default period of the source if the value is invalid
+     */
+    public static long parsePeriod(Source source, String value) {
+        try {
+            long period = Long.parseLong(value.trim());
+            return period < EVENT_DRIVEN ? source.defaultPeriodMs : period;
+        } catch (NumberFormatException | NullPointerException e) {
+            return source.defaultPeriodMs;
+        }
+    }
+
+    /**
+     * Check whether the source has to be sampled in the round of the tick, a due source counts
+     * as sampled.
+     *
+     * @param tick timestamp of the sampling round in ms
+     * @return true if the points of the source have to be built in this round
+     */
+    public boolean isDue(Source source, long tick) {
+        int i = source.ordinal();
+        long period = periodsMs[i];
+        long last = lastTicks[i];
+        boolean due;
+        if (last == NEVER || period == EVERY_TICK) {
+            due = true;
+        } else if (period == EVENT_DRIVEN) {
+            due = false;
+        } else {
+            due = Math.floorDiv(tick, period) != Math.floorDiv(last, period);
+        }
+        if (due) {
+            lastTicks[i] = tick;
+        } else {
+            skipped.incrementAndGet(i);
+        }
+        return due;
+    }
+
+    public long getPeriodMs(Source source) {
+        return periodsMs[source.ordinal()];
+    }
+
+    /**
+     * @return number of rounds which did not sample the source
+     */
+    public long getSkipped(Source source) {
+        return skipped.get(source.ordinal());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.CellInformations;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+public class CellRecordTableTest {
+    private static final int CELLS = 32;
+    private static final String MCC = "262";
+    private static final String MNC = "01";
+
+    /**
+     * Fill the records of one callback, cell i measures rsrp - i
+     */
+    private static void measure(CellRecordTable<String> table, int cells, int rsrp) {
+        table.begin();
+        for (int i = 0; i < cells; i++) {
+            table.next().reset(CellType.LTE, 1000 + i, i == 0, MCC, MNC)
+                    .add(i).add(4711).add(rsrp - i).add(-10);
+        }
+    }
+
+    private static List<String> publish(CellRecordTable<String> table, int rsrp) {
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getPublished(i) == null) table.setPublished(i, "cell" + i + "@" + (rsrp - i));
+        }
+        return table.publish();
+    }
+
+    @Test
+    public void unchangedMeasurementIsNotPublished() {
+        CellRecordTable<String> table = new CellRecordTable<>(new CellRecordPool());
+        measure(table, 3, -90);
+        assertTrue(table.commit());
+        publish(table, -90);
+        measure(table, 3, -90);
+        assertFalse(table.commit());
+    }
+
+    @Test
+    public void onlyChangedCellsGetNewObjects() {
+        CellRecordTable<String> table = new CellRecordTable<>(new CellRecordPool());
+        measure(table, 2, -90);
+        table.commit();
+        List<String> first = publish(table, -90);
+
+        table.begin();
+        table.next().reset(CellType.LTE, 1000, true, MCC, MNC).add(0).add(4711).add(-95).add(-10);
+        table.next().reset(CellType.LTE, 1001, false, MCC, MNC).add(1).add(4711).add(-91).add(-10);
+        assertTrue(table.commit());
+        assertNull(table.getPublished(0));
+        assertSame(first.get(1), table.getPublished(1));
+        table.setPublished(0, "changed");
+        List<String> second = table.publish();
+        assertEquals("changed", second.get(0));
+        assertSame(first.get(1), second.get(1));
+    }
+
+    @Test
+    public void reorderedCellsAreRepublishedWithTheirObjects() {
+        CellRecordTable<String> table = new CellRecordTable<>(new CellRecordPool());
+        measure(table, 2, -90);
+        table.commit();
+        List<String> first = publish(table, -90);
+
+        table.begin();
+        table.next().reset(CellType.LTE, 1001, false, MCC, MNC).add(1).add(4711).add(-91).add(-10);
+        table.next().reset(CellType.LTE, 1000, true, MCC, MNC).add(0).add(4711).add(-90).add(-10);
+        assertTrue(table.commit());
+        assertSame(first.get(1), table.getPublished(0));
+        assertSame(first.get(0), table.getPublished(1));
+    }
+
+    @Test
+    public void lostCellIsAChange() {
+        CellRecordTable<String> table = new CellRecordTable<>(new CellRecordPool());
+        measure(table, 3, -90);
+        table.commit();
+        publish(table, -90);
+        measure(table, 2, -90);
+        assertTrue(table.commit());
+        assertEquals(2, publish(table, -90).size());
+    }
+
+    @Test
+    public void recordsAreRecycled() {
+        CellRecordPool pool = new CellRecordPool();
+        CellRecordTable<String> table = new CellRecordTable<>(pool);
+        for (int round = 0; round < 3; round++) {
+            measure(table, CELLS, -90 - round);
+            table.commit();
+            publish(table, -90 - round);
+        }
+        long created = pool.getCreated();
+        for (int round = 0; round < 1000; round++) {
+            measure(table, CELLS, -90 - round % 7);
+            if (table.commit()) publish(table, -90 - round % 7);
+        }
+        assertEquals(created, pool.getCreated());
+        assertEquals(2L * CELLS, created);
+    }
+
+    @Test
+    public void unchangedCallbacksDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        CellRecordTable<String> table = new CellRecordTable<>(new CellRecordPool());
+        measure(table, CELLS, -90);
+        table.commit();
+        publish(table, -90);
+        // warm up, lets the JIT compile the loop
+        for (int i = 0; i < 20000; i++) {
+            measure(table, CELLS, -90);
+            table.commit();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        int changed = 0;
+        for (int i = 0; i < 10000; i++) {
+            measure(table, CELLS, -90);
+            if (table.commit()) changed++;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertEquals(0, changed);
+        // 10000 callbacks with 32 cells each, allow for a few bytes of measuring overhead
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventRingTest {
+    @Test
+    public void drainsInOrder() {
+        EventRing<Integer> ring = new EventRing<>(4);
+        for (int i = 0; i < 3; i++) assertTrue(ring.offer(i));
+        assertEquals(3, ring.size());
+        List<Integer> events = new ArrayList<>();
+        assertEquals(3, ring.drain(events::add));
+        assertEquals(List.of(0, 1, 2), events);
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.drain(events::add));
+    }
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new EventRing<Integer>(5).getCapacity());
+        assertEquals(1, new EventRing<Integer>(1).getCapacity());
+    }
+
+    @Test
+    public void dropsNewEventsWhenFull() {
+        EventRing<Integer> ring = new EventRing<>(2);
+        assertTrue(ring.offer(1));
+        assertTrue(ring.offer(2));
+        assertFalse(ring.offer(3));
+        assertEquals(1, ring.getDropped());
+        List<Integer> events = new ArrayList<>();
+        ring.drain(events::add);
+        assertEquals(List.of(1, 2), events);
+        // the drained slots are free again
+        assertTrue(ring.offer(4));
+        events.clear();
+        ring.drain(events::add);
+        assertEquals(List.of(4), events);
+    }
+
+    @Test
+    public void wrapsAround() {
+        EventRing<Integer> ring = new EventRing<>(4);
+        List<Integer> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ring.offer(i);
+            if (i % 3 == 2) ring.drain(events::add);
+        }
+        ring.drain(events::add);
+        assertEquals(100, events.size());
+        for (int i = 0; i < 100; i++) assertEquals(i, (int) events.get(i));
+        assertEquals(0, ring.getDropped());
+    }
+
+    @Test
+    public void concurrentProducerAndConsumer() throws InterruptedException {
+        final int n = 1_000_000;
+        EventRing<Long> ring = new EventRing<>(256);
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < n; i++) {
+                while (!ring.offer(i)) Thread.yield();
+            }
+        });
+        AtomicLong expected = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+        producer.start();
+        while (expected.get() < n) {
+            ring.drain(e -> {
+                if (e != expected.getAndIncrement()) outOfOrder.incrementAndGet();
+            });
+        }
+        producer.join();
+        assertEquals(0, outOfOrder.get());
+        assertEquals(n, expected.get());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider;
+
+import static org.junit.Assert.*;
+
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TagSetTest {
+    @Test
+    public void encodesSortedAndEscaped() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("model", "Pixel 8 Pro");
+        tags.put("device", "car=1,front");
+        tags.put("measurement_name", "OMNT");
+        tags.put("new line", "a\nb");
+        TagSet tagSet = new TagSet(tags);
+        assertEquals(",device=car\\=1\\,front,measurement_name=OMNT,model=Pixel\\ 8\\ Pro,new\\ line=a\\nb",
+                tagSet.getLineProtocol());
+    }
+
+    @Test
+    public void splicesTagsAfterPointTags() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("model", "Pixel 8");
+        tags.put("device", "omnt");
+        TagSet tagSet = new TagSet(tags);
+        Point point = new Point("Cell Information").addTag("CI", "1 2").addField("RSRP", -80)
+                .time(1000L, WritePrecision.MS);
+        assertEquals("Cell\\ Information,CI=1\\ 2,device=omnt,model=Pixel\\ 8 RSRP=-80i 1000",
+                tagSet.encode(point));
+        assertEquals("m x=1i", TagSet.EMPTY.encode(new Point("m").addField("x", 1)));
+    }
+
+    @Test
+    public void replacesPointTagsWithTheSameKey() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("device", "omnt");
+        tags.put("interval", "1.0");
+        tags.put("new line", "set");
+        TagSet tagSet = new TagSet(tags);
+        Point point = new Point("Iperf3").addTag("dev", "a,b").addTag("device", "point")
+                .addTag("interval", "0.5").addTag("new line", "point").addTag("z", "x=y")
+                .addField("bits", 10).time(1000L, WritePrecision.MS);
+        assertEquals("Iperf3,dev=a\\,b,z=x\\=y,device=omnt,interval=1.0,new\\ line=set bits=10i 1000",
+                tagSet.encode(point));
+        // the only tag of the point
+        assertEquals("m,device=omnt,interval=1.0,new\\ line=set x=1i",
+                tagSet.encode(new Point("m").addTag("device", "point").addField("x", 1)));
+    }
+
+    @Test
+    public void addsTags() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("device", "omnt");
+        tags.put("model", "Pixel");
+        TagSet tagSet = new TagSet(tags).with(Collections.singletonMap("device", "car"));
+        assertEquals(",device=car,model=Pixel", tagSet.getLineProtocol());
+        assertEquals("omnt", tags.get("device"));
+    }
+
+    @Test
+    public void skipsEmptyAndNullTags() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("soc_model", "");
+        tags.put("imei", null);
+        tags.put("device", "omnt");
+        TagSet tagSet = new TagSet(tags);
+        assertEquals(",device=omnt", tagSet.getLineProtocol());
+        assertFalse(tagSet.getMap().containsKey("imei"));
+        assertEquals("", new TagSet(new HashMap<>()).getLineProtocol());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mapIsImmutable() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("device", "omnt");
+        new TagSet(tags).getMap().put("device", "other");
+    }
+}
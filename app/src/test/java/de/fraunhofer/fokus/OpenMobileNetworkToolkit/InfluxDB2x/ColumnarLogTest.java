@@ -0,0 +1,194 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ColumnarLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Records as the logging service writes them, one round per second
+     */
+    private static List<String> records(int rounds) {
+        List<String> records = new ArrayList<>();
+        String tags = ",device=Pixel\\ 8\\ Pro,measurement_name=OMNT,operator=Telekom.de\\ Ü€";
+        for (int i = 0; i < rounds; i++) {
+            long time = 1700000000000L + i * 1000L;
+            records.add("CellInformation" + tags + " Band=\"n78\",PCI=" + (i / 60 % 504) + "i,RSRP="
+                    + (-80.5 - (i % 7)) + ",RSRQ=-11i,Registered=true " + time);
+            records.add("SignalStrength" + tags + " Level=" + (i % 5) + "i,SSRSRP=" + (-95 - i % 3)
+                    + "i,SSSINR=" + (12 + i % 4) + "i " + time);
+            records.add("Location" + tags + " accuracy=3.9,altitude=" + (52.25 + i % 3)
+                    + ",latitude=" + (52.525 + i / 1e6) + ",longitude=" + (13.314 + i / 1e6) + ",speed=0 " + time);
+        }
+        return records;
+    }
+
+    private static List<String> read(File file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (ColumnarLogReader reader = new ColumnarLogReader(new FileInputStream(file))) {
+            while (reader.readBlock(record -> records.add(record.toString())) >= 0) {
+                // read all blocks
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return records sorted by measurement in the order they were written, as blocks are per measurement
+     */
+    private static List<String> byMeasurement(List<String> records) {
+        List<String> sorted = new ArrayList<>();
+        for (String measurement : new String[]{"CellInformation", "SignalStrength", "Location"}) {
+            for (String record : records) {
+                if (record.startsWith(measurement + ",")) sorted.add(record);
+            }
+        }
+        return sorted;
+    }
+
+    @Test
+    public void roundTripsRecords() throws IOException {
+        File file = new File(folder.getRoot(), "log" + ColumnarLogWriter.FILE_EXTENSION);
+        List<String> records = records(100);
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file, 1000, Long.MAX_VALUE, true)) {
+            for (String record : records) writer.write(record);
+        }
+        assertTrue(ColumnarLogReader.isColumnarLog(file));
+        assertEquals(byMeasurement(records), read(file));
+    }
+
+    @Test
+    public void keepsSparseColumnsAndTypes() throws IOException {
+        File file = new File(folder.getRoot(), "sparse.omnt");
+        List<String> records = List.of(
+                "m,a=1 x=1i,s=\"with \\\"quote\\\" and space\" 10",
+                "m,b=2 y=18446744073709551615u,x=false 20",
+                "m,a=1,b=2 x=-9223372036854775808i 30",
+                "m x=0.1,z=1.5E-7",
+                "m\\ n,t\\=k=v\\,w f\\ k=2.5 40");
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file, 1000, Long.MAX_VALUE, false)) {
+            for (String record : records) writer.write(record);
+        }
+        assertEquals(List.of(
+                "m,a=1 x=1i,s=\"with \\\"quote\\\" and space\" 10",
+                "m,b=2 y=18446744073709551615u,x=false 20",
+                "m,a=1,b=2 x=-9223372036854775808i 30",
+                "m x=0.1,z=1.5E-7",
+                "m\\ n,t\\=k=v\\,w f\\ k=2.5 40"), read(file));
+    }
+
+    @Test
+    public void appendsToExistingLog() throws IOException {
+        File file = new File(folder.getRoot(), "append.omnt");
+        List<String> records = records(10);
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            for (String record : records.subList(0, 15)) writer.write(record);
+        }
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            for (String record : records.subList(15, 30)) writer.write(record);
+        }
+        List<String> read = read(file);
+        assertEquals(30, read.size());
+        assertTrue(read.containsAll(records));
+    }
+
+    @Test
+    public void stopsAtTornBlock() throws IOException {
+        File file = new File(folder.getRoot(), "torn.omnt");
+        List<String> records = records(20);
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file, 10, Long.MAX_VALUE, true)) {
+            for (String record : records) writer.write(record);
+        }
+        long complete = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(complete - 5);
+        }
+        List<String> read = new ArrayList<>();
+        try (ColumnarLogReader reader = new ColumnarLogReader(new FileInputStream(file))) {
+            while (reader.readBlock(record -> read.add(record.toString())) >= 0) {
+                // read all blocks
+            }
+            assertTrue(reader.isTruncated());
+        }
+        assertTrue(read.size() < records.size());
+        assertTrue(records.containsAll(read));
+    }
+
+    @Test
+    public void rejectsCorruptBlock() throws IOException {
+        File file = new File(folder.getRoot(), "corrupt.omnt");
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            for (String record : records(10)) writer.write(record);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(file.length() - 1);
+            int b = raf.read();
+            raf.seek(file.length() - 1);
+            raf.write(b ^ 0xFF);
+        }
+        try {
+            read(file);
+            fail("corrupt block not detected");
+        } catch (IOException e) {
+            assertEquals("corrupt block", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRecord() throws IOException {
+        File file = new File(folder.getRoot(), "invalid.omnt");
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            writer.write("m,a=1");
+            fail("record without fields accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("invalid line protocol record"));
+        }
+    }
+
+    @Test
+    public void convertsToLineProtocolFile() throws IOException {
+        File file = new File(folder.getRoot(), "convert.omnt");
+        File out = new File(folder.getRoot(), "convert.txt");
+        List<String> records = records(50);
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            for (String record : records) writer.write(record);
+        }
+        assertEquals(records.size(), ColumnarLogReader.toLineProtocol(file, out));
+        assertEquals(byMeasurement(records), Files.readAllLines(out.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void isMuchSmallerThanLineProtocol() throws IOException {
+        File file = new File(folder.getRoot(), "size.omnt");
+        List<String> records = records(3600);
+        long lineProtocolBytes = 0;
+        for (String record : records) lineProtocolBytes += record.getBytes(StandardCharsets.UTF_8).length + 1;
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            for (String record : records) writer.write(record);
+        }
+        double ratio = (double) lineProtocolBytes / file.length();
+        assertTrue("compression ratio " + ratio, ratio >= 5);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class DeltaFilterTest {
+    private static final String SERIES = "CellInformation,device=Pixel\\ 8,operator=Telekom.de";
+
+    private static String cell(double rsrp, int pci, String band, long time) {
+        return SERIES + " RSRP=" + rsrp + ",PCI=" + pci + "i,Band=\"" + band + "\",Registered=true " + time;
+    }
+
+    @Test
+    public void suppressesUnchangedRecords() {
+        DeltaFilter filter = new DeltaFilter(0, 60000);
+        assertTrue(filter.accept(cell(-80.5, 1, "n78", 1000), 1000));
+        assertFalse(filter.accept(cell(-80.5, 1, "n78", 2000), 2000));
+        assertFalse(filter.accept(cell(-80.5, 1, "n78", 3000), 3000));
+        assertEquals(2, filter.getSuppressed());
+    }
+
+    @Test
+    public void appliesToleranceToNumericFields() {
+        DeltaFilter filter = new DeltaFilter(1.0, 60000);
+        assertTrue(filter.accept(cell(-80.5, 1, "n78", 1000), 1000));
+        assertFalse(filter.accept(cell(-81.0, 1, "n78", 2000), 2000));
+        assertFalse(filter.accept(cell(-81.5, 1, "n78", 3000), 3000));
+        // compared against the last emitted value, drift adds up
+        assertTrue(filter.accept(cell(-82.0, 1, "n78", 4000), 4000));
+        assertTrue(filter.accept(cell(-82.0, 3, "n78", 5000), 5000));
+    }
+
+    @Test
+    public void stringFieldsNeedExactMatch() {
+        DeltaFilter filter = new DeltaFilter(100, 60000);
+        assertTrue(filter.accept(cell(-80, 1, "n78", 1000), 1000));
+        assertTrue(filter.accept(cell(-80, 1, "n1", 2000), 2000));
+        assertTrue(filter.accept(cell(-80, 1, "n1 \\\"x\\\",y", 3000), 3000));
+        assertFalse(filter.accept(cell(-80, 1, "n1 \\\"x\\\",y", 4000), 4000));
+    }
+
+    @Test
+    public void emitsKeyframes() {
+        DeltaFilter filter = new DeltaFilter(0, 10000);
+        assertTrue(filter.accept(cell(-80, 1, "n78", 0), 0));
+        assertFalse(filter.accept(cell(-80, 1, "n78", 9999), 9999));
+        assertTrue(filter.accept(cell(-80, 1, "n78", 10000), 10000));
+        assertFalse(filter.accept(cell(-80, 1, "n78", 15000), 15000));
+    }
+
+    @Test
+    public void keepsSeriesApart() {
+        DeltaFilter filter = new DeltaFilter(0, 60000);
+        assertTrue(filter.accept(cell(-80, 1, "n78", 0), 0));
+        assertTrue(filter.accept("SignalStrength,device=Pixel\\ 8 RSRP=-80 0", 0));
+        assertTrue(filter.accept("CellInformation,device=Pixel\\ 8,operator=Vodafone RSRP=-80 0", 0));
+        assertFalse(filter.accept("SignalStrength,device=Pixel\\ 8 RSRP=-80 1000", 1000));
+    }
+
+    @Test
+    public void identifiersNeedExactMatch() {
+        DeltaFilter filter = new DeltaFilter(5, 60000);
+        assertTrue(filter.accept(SERIES + ",CI=1 RSRP=-80,TAC=100i,MNC=\"01\" 0", 0));
+        assertTrue(filter.accept(SERIES + ",CI=1 RSRP=-80,TAC=101i,MNC=\"01\" 1000", 1000));
+        assertFalse(filter.accept(SERIES + ",CI=1 RSRP=-82,TAC=101i,MNC=\"01\" 2000", 2000));
+    }
+
+    @Test
+    public void keepsNeighbourCellsApart() {
+        DeltaFilter filter = new DeltaFilter(5, 60000);
+        // neighbour cells have no CI tag, PCI and ARFCN tell them apart
+        assertTrue(filter.accept(SERIES + " RSRP=-90,PCI=1i,ARFCN=6300i 0", 0));
+        assertTrue(filter.accept(SERIES + " RSRP=-91,PCI=2i,ARFCN=6300i 0", 0));
+        assertTrue(filter.accept(SERIES + " RSRP=-92,PCI=1i,ARFCN=1300i 0", 0));
+        assertFalse(filter.accept(SERIES + " RSRP=-92,PCI=1i,ARFCN=6300i 1000", 1000));
+        assertFalse(filter.accept(SERIES + " RSRP=-90,PCI=2i,ARFCN=6300i 1000", 1000));
+        assertEquals(2, filter.getSuppressed());
+    }
+
+    @Test
+    public void appliesToleranceToConfiguredFields() {
+        DeltaFilter filter = new DeltaFilter(5, 60000, Collections.singleton("Quality"), new String[0]);
+        assertTrue(filter.accept("Custom,device=a Quality=10,RSRP=-80 0", 0));
+        assertFalse(filter.accept("Custom,device=a Quality=12,RSRP=-80 1000", 1000));
+        assertTrue(filter.accept("Custom,device=a Quality=12,RSRP=-81 2000", 2000));
+    }
+
+    @Test
+    public void changedFieldSetIsAChange() {
+        DeltaFilter filter = new DeltaFilter(0, 60000);
+        assertTrue(filter.accept("SignalStrength,device=a RSRP=-80,RSRQ=-10 0", 0));
+        assertTrue(filter.accept("SignalStrength,device=a RSRP=-80 1000", 1000));
+        assertTrue(filter.accept("SignalStrength,device=a RSRP=-80,SINR=3 2000", 2000));
+    }
+}
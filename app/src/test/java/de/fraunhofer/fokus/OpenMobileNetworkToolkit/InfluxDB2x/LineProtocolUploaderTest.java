@@ -0,0 +1,134 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LineProtocolUploaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private String content;
+
+    @Before
+    public void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Ping,device=Pixel\\ 8,operator=Ü€ rtt=").append(i * 0.5)
+                    .append(' ').append(1700000000000L + i).append('\n');
+        }
+        content = sb.toString();
+        file = folder.newFile("upload.txt");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void uploadsWholeLinesInBatches() throws IOException {
+        List<String> batches = new ArrayList<>();
+        LineProtocolUploader uploader = new LineProtocolUploader(batches::add, 1024, 1, 0);
+        assertTrue(uploader.upload(file, null, () -> false));
+        assertTrue(batches.size() > 1);
+        StringBuilder sent = new StringBuilder();
+        for (String batch : batches) {
+            assertTrue(batch.length() > 0);
+            assertTrue(batch.endsWith("\n"));
+            sent.append(batch);
+        }
+        assertEquals(content, sent.toString());
+        assertFalse(LineProtocolUploader.getOffsetFile(file).exists());
+    }
+
+    @Test
+    public void sendsLinesLongerThanTheBatch() throws IOException {
+        StringBuilder sent = new StringBuilder();
+        LineProtocolUploader uploader = new LineProtocolUploader(sent::append, 16, 1, 0);
+        assertTrue(uploader.upload(file, null, () -> false));
+        assertEquals(content, sent.toString());
+    }
+
+    @Test
+    public void retriesFailedBatches() throws IOException {
+        StringBuilder sent = new StringBuilder();
+        int[] calls = {0};
+        LineProtocolUploader uploader = new LineProtocolUploader(records -> {
+            if (calls[0]++ % 2 == 0) throw new IOException("timeout");
+            sent.append(records);
+        }, 4096, 2, 0);
+        assertTrue(uploader.upload(file, null, () -> false));
+        assertEquals(content, sent.toString());
+    }
+
+    @Test
+    public void resumesAfterFailure() throws IOException {
+        StringBuilder sent = new StringBuilder();
+        int[] calls = {0};
+        LineProtocolUploader failing = new LineProtocolUploader(records -> {
+            if (calls[0]++ == 3) throw new IOException("connection reset");
+            sent.append(records);
+        }, 2048, 1, 0);
+        try {
+            failing.upload(file, null, () -> false);
+            fail("expected the upload to fail");
+        } catch (IOException expected) {
+            // offset of the three confirmed batches is stored
+        }
+        assertTrue(LineProtocolUploader.getOffsetFile(file).exists());
+        int confirmed = sent.length();
+
+        LineProtocolUploader uploader = new LineProtocolUploader(sent::append, 2048, 1, 0);
+        assertTrue(uploader.upload(file, null, () -> false));
+        assertTrue(confirmed > 0);
+        assertEquals(content, sent.toString());
+        assertFalse(LineProtocolUploader.getOffsetFile(file).exists());
+    }
+
+    @Test
+    public void doesNotRetryRejectedBatches() {
+        int[] calls = {0};
+        LineProtocolUploader uploader = new LineProtocolUploader(records -> {
+            calls[0]++;
+            throw new LineProtocolUploader.RejectedBatchException("bad request", null);
+        }, 2048, 5, 0);
+        try {
+            uploader.upload(file, null, () -> false);
+            fail("expected the upload to fail");
+        } catch (IOException expected) {
+            assertTrue(expected instanceof LineProtocolUploader.RejectedBatchException);
+        }
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void reportsProgressAndStops() throws IOException {
+        long[] last = {0, 0};
+        int[] batches = {0};
+        LineProtocolUploader uploader = new LineProtocolUploader(records -> batches[0]++, 1024, 1, 0);
+        assertFalse(uploader.upload(file, (uploaded, total, rate) -> {
+            assertTrue(uploaded > last[0]);
+            last[0] = uploaded;
+            last[1] = total;
+        }, () -> batches[0] >= 2));
+        assertEquals(2, batches[0]);
+        assertEquals(file.length(), last[1]);
+        assertTrue(last[0] < file.length());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LineProtocolWriterTest {
+    private static final int BENCHMARK_POINTS = 200000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<Point> points;
+
+    @Before
+    public void setUp() {
+        points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Point point = new Point("CellInformation");
+            point.time(1700000000000L + i, WritePrecision.MS);
+            point.addTag("device", "Pixel 8 Pro");
+            point.addTag("measurement_name", "OMNT");
+            point.addTag("operator", "Telekom.de Ü€");
+            point.addField("PCI", i % 504);
+            point.addField("RSRP", -80.5 - (i % 40));
+            point.addField("Registered", i % 2 == 0);
+            point.addField("Band", "n78");
+            points.add(point);
+        }
+    }
+
+    @Test
+    public void writesSameBytesAsToLineProtocol() throws IOException {
+        File expected = folder.newFile("expected.txt");
+        File actual = folder.newFile("actual.txt");
+        writeWithStream(expected, points);
+        // small buffer to exercise draining in the middle of a record
+        try (LineProtocolWriter writer = new LineProtocolWriter(actual, 16, Long.MAX_VALUE)) {
+            for (Point point : points) {
+                writer.write(point);
+            }
+        }
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+
+    @Test
+    public void skipsPointsWithoutFields() throws IOException {
+        File file = folder.newFile("empty.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(file)) {
+            writer.write(new Point("Empty"));
+        }
+        assertEquals(0, file.length());
+    }
+
+    @Test
+    public void flushesOnTimeThreshold() throws IOException {
+        File file = folder.newFile("time.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(file, LineProtocolWriter.DEFAULT_BUFFER_SIZE, 0)) {
+            writer.write(points.get(0));
+            assertEquals(0, writer.getBufferedBytes());
+            assertTrue(file.length() > 0);
+        }
+    }
+
+    @Test
+    public void flushesOnRecordCount() throws IOException {
+        File file = folder.newFile("count.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(file, LineProtocolWriter.DEFAULT_BUFFER_SIZE,
+                Long.MAX_VALUE, 10, false)) {
+            for (int i = 0; i < 9; i++) writer.write(points.get(i));
+            assertEquals(9, writer.getBufferedRecords());
+            assertEquals(0, writer.getWrittenRecords());
+            assertEquals(0, file.length());
+            writer.write(points.get(9));
+            assertEquals(0, writer.getBufferedRecords());
+            assertEquals(10, writer.getWrittenRecords());
+            assertTrue(file.length() > 0);
+        }
+    }
+
+    @Test
+    public void flushesWhenDue() throws IOException {
+        File file = folder.newFile("due.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(file, LineProtocolWriter.DEFAULT_BUFFER_SIZE,
+                Long.MAX_VALUE, Integer.MAX_VALUE, false)) {
+            writer.write(points.get(0));
+            writer.flushIfDue();
+            assertEquals(1, writer.getBufferedRecords());
+        }
+        File latency = folder.newFile("latency.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(latency, LineProtocolWriter.DEFAULT_BUFFER_SIZE,
+                0, Integer.MAX_VALUE, true)) {
+            writer.flushIfDue();
+            assertEquals(0, writer.getSyncs());
+            writer.write(points.get(0));
+            assertEquals(1, writer.getWrittenRecords());
+            assertEquals(1, writer.getSyncs());
+        }
+    }
+
+    @Test
+    public void countsRecordsDrainedBySize() throws IOException {
+        File file = folder.newFile("size.txt");
+        try (LineProtocolWriter writer = new LineProtocolWriter(file, 1024, Long.MAX_VALUE)) {
+            for (Point point : points) writer.write(point);
+            assertTrue(writer.getBufferedBytes() < 1024);
+            assertEquals(points.size(), writer.getWrittenRecords() + writer.getBufferedRecords());
+            writer.flush();
+            assertEquals(points.size(), writer.getWrittenRecords());
+            assertEquals(0, writer.getDroppedRecords());
+        }
+    }
+
+    /**
+     * Not a strict benchmark, compares the old per point FileOutputStream path with the
+     * buffered writer on the same set of points and prints the results. Opt-in, runs with
+     * -Pomnt.bench only.
+     */
+    @Test
+    public void benchmarkAgainstFileOutputStream() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("omnt.bench"));
+        List<Point> benchmarkPoints = new ArrayList<>(BENCHMARK_POINTS);
+        for (int i = 0; i < BENCHMARK_POINTS; i++) {
+            benchmarkPoints.add(points.get(i % points.size()));
+        }
+        // warm up both paths
+        writeWithStream(folder.newFile("warmup_stream.txt"), points);
+        writeWithWriter(folder.newFile("warmup_writer.txt"), points);
+
+        File streamFile = folder.newFile("stream.txt");
+        long start = System.nanoTime();
+        writeWithStream(streamFile, benchmarkPoints);
+        long streamNs = System.nanoTime() - start;
+
+        File writerFile = folder.newFile("writer.txt");
+        start = System.nanoTime();
+        writeWithWriter(writerFile, benchmarkPoints);
+        long writerNs = System.nanoTime() - start;
+
+        System.out.printf("FileOutputStream: %d points in %.1f ms%n", BENCHMARK_POINTS, streamNs / 1e6);
+        System.out.printf("LineProtocolWriter: %d points in %.1f ms%n", BENCHMARK_POINTS, writerNs / 1e6);
+        assertEquals(streamFile.length(), writerFile.length());
+    }
+
+    private static void writeWithStream(File file, List<Point> points) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            for (Point point : points) {
+                stream.write((point.toLineProtocol() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void writeWithWriter(File file, List<Point> points) throws IOException {
+        try (LineProtocolWriter writer = new LineProtocolWriter(file)) {
+            for (Point point : points) {
+                writer.write(point);
+            }
+        }
+    }
+}
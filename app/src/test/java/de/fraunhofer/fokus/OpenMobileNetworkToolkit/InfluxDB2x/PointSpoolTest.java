@@ -0,0 +1,115 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PointSpoolTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> records(int from, int to) {
+        List<String> records = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            records.add("Ping,operator=Ü€ rtt=" + i + " " + (1700000000000L + i));
+        }
+        return records;
+    }
+
+    private static List<String> drainAll(PointSpool spool) throws IOException {
+        List<String> sent = new ArrayList<>();
+        while (spool.drain(7, batch -> sent.addAll(Arrays.asList(batch.split("\n")))) > 0) {
+            // keep draining
+        }
+        return sent;
+    }
+
+    @Test
+    public void drainsInOrderAcrossSegments() throws IOException {
+        File dir = folder.newFolder("spool");
+        try (PointSpool spool = new PointSpool(dir, SEGMENT_SIZE, 1024 * 1024)) {
+            spool.append(records(0, 200), 1000);
+            assertEquals(200, spool.getDepth());
+            assertTrue(dir.listFiles().length > 1);
+            assertEquals(records(0, 200), drainAll(spool));
+            assertEquals(0, spool.getDepth());
+            assertEquals(0, spool.getOldestAgeMs(5000));
+            assertTrue(dir.listFiles().length <= 1);
+        }
+    }
+
+    @Test
+    public void keepsRecordsWhenSendFails() throws IOException {
+        try (PointSpool spool = new PointSpool(folder.newFolder("spool"), SEGMENT_SIZE, 1024 * 1024)) {
+            spool.append(records(0, 10), 1000);
+            try {
+                spool.drain(5, batch -> {
+                    throw new IOException("not reachable");
+                });
+                fail("expected the drain to fail");
+            } catch (IOException expected) {
+                // records stay in the spool
+            }
+            assertEquals(10, spool.getDepth());
+            assertEquals(records(0, 10), drainAll(spool));
+        }
+    }
+
+    @Test
+    public void recoversAfterReopen() throws IOException {
+        File dir = folder.newFolder("spool");
+        try (PointSpool spool = new PointSpool(dir, SEGMENT_SIZE, 1024 * 1024)) {
+            spool.append(records(0, 100), 1000);
+            spool.drain(10, batch -> { });
+        }
+        try (PointSpool spool = new PointSpool(dir, SEGMENT_SIZE, 1024 * 1024)) {
+            assertEquals(90, spool.getDepth());
+            assertEquals(4000, spool.getOldestAgeMs(5000));
+            spool.append(records(100, 120), 2000);
+            assertEquals(records(10, 120), drainAll(spool));
+        }
+    }
+
+    @Test
+    public void dropsOldestSegmentAtCap() throws IOException {
+        try (PointSpool spool = new PointSpool(folder.newFolder("spool"), SEGMENT_SIZE, 4 * SEGMENT_SIZE)) {
+            spool.append(records(0, 1000), 1000);
+            assertTrue(spool.getSizeBytes() <= 4 * SEGMENT_SIZE);
+            assertTrue(spool.getDroppedRecords() > 0);
+            assertEquals(1000, spool.getDepth() + spool.getDroppedRecords());
+            List<String> sent = drainAll(spool);
+            assertEquals(records(1000 - sent.size(), 1000), sent);
+        }
+    }
+
+    @Test
+    public void countsOnlyUnsentRecordsOfSegmentDroppedWhileSending() throws IOException {
+        try (PointSpool spool = new PointSpool(folder.newFolder("spool"), SEGMENT_SIZE, 2 * SEGMENT_SIZE)) {
+            spool.append(records(0, 40), 1000);
+            long depth = spool.getDepth();
+            // fill the spool while the first batch is sent, the cap drops the segment being drained
+            int sent = spool.drain(5, batch -> spool.append(records(40, 200), 2000));
+            assertEquals(5, sent);
+            assertEquals(200 - sent, spool.getDepth() + spool.getDroppedRecords());
+            assertTrue(spool.getDroppedRecords() >= depth - sent);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RotatingLogWriterTest {
+    private static final long START = 1700000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private long now;
+
+    @Before
+    public void setUp() {
+        dir = new File(folder.getRoot(), "log");
+        now = START;
+    }
+
+    private RotatingLogWriter open(long maxSegmentBytes, long maxSegmentAgeMs, long maxTotalBytes,
+                                   boolean compress) throws IOException {
+        // compression runs on the calling thread to keep the tests deterministic
+        return new RotatingLogWriter(dir, ".txt", file -> new LineProtocolWriter(file, 1024, 0),
+                maxSegmentBytes, maxSegmentAgeMs, maxTotalBytes, compress, Runnable::run, () -> now);
+    }
+
+    private static String record(long time) {
+        return "SignalStrength,device=test SSRSRP=-95i,SSSINR=12i " + time;
+    }
+
+    private static List<String> read(LogSegmentIndex.Segment segment) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(segment.open(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) lines.add(line);
+        }
+        return lines;
+    }
+
+    @Test
+    public void rotatesByAge() throws IOException {
+        try (RotatingLogWriter writer = open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, false)) {
+            for (int i = 0; i < 180; i++) {
+                writer.write(record(now));
+                now += 1000;
+            }
+            assertEquals(3, writer.getRotations());
+        }
+        List<LogSegmentIndex.Segment> segments = new LogSegmentIndex(dir).getSegments();
+        assertEquals(3, segments.size());
+        for (int i = 0; i < 3; i++) {
+            LogSegmentIndex.Segment segment = segments.get(i);
+            assertTrue(segment.isClosed());
+            assertEquals(START + i * 60000L, segment.getStartMs());
+            assertEquals(START + i * 60000L + 59000, segment.getEndMs());
+            assertEquals(60, read(segment).size());
+        }
+    }
+
+    @Test
+    public void rotatesBySize() throws IOException {
+        int size = record(START).length() + 1;
+        try (RotatingLogWriter writer = open(size * 10L, Long.MAX_VALUE, Long.MAX_VALUE, false)) {
+            for (int i = 0; i < 25; i++) {
+                writer.write(record(now));
+                now += 1000;
+            }
+        }
+        List<LogSegmentIndex.Segment> segments = new LogSegmentIndex(dir).getSegments();
+        assertEquals(3, segments.size());
+        assertEquals(10, read(segments.get(0)).size());
+        assertEquals(5, read(segments.get(2)).size());
+        assertEquals(size * 10L, segments.get(0).getBytes());
+    }
+
+    @Test
+    public void rotatesBySizeWithBufferedRecords() throws IOException {
+        int size = record(START).length() + 1;
+        // records stay in the buffer, the size of the segment counts them anyway
+        try (RotatingLogWriter writer = new RotatingLogWriter(dir, ".txt",
+                file -> new LineProtocolWriter(file, 64 * 1024, Long.MAX_VALUE),
+                size * 10L, Long.MAX_VALUE, Long.MAX_VALUE, false, Runnable::run, () -> now)) {
+            for (int i = 0; i < 25; i++) {
+                writer.write(record(now));
+                now += 1000;
+            }
+            assertEquals(3, writer.getRotations());
+        }
+        List<LogSegmentIndex.Segment> segments = new LogSegmentIndex(dir).getSegments();
+        assertEquals(3, segments.size());
+        assertEquals(10, read(segments.get(0)).size());
+        assertEquals(5, read(segments.get(2)).size());
+    }
+
+    @Test
+    public void compressesClosedSegments() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (RotatingLogWriter writer = open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, true)) {
+            for (int i = 0; i < 120; i++) {
+                writer.write(record(now));
+                written.add(record(now));
+                now += 1000;
+            }
+            LogSegmentIndex.Segment first = writer.getIndex().getSegments().get(0);
+            assertTrue(first.isCompressed());
+            assertFalse(writer.getIndex().getSegments().get(1).isCompressed());
+        }
+        List<String> read = new ArrayList<>();
+        for (LogSegmentIndex.Segment segment : new LogSegmentIndex(dir).getSegments()) {
+            assertTrue(segment.isCompressed());
+            assertTrue(segment.getBytes() < 60L * record(START).length());
+            read.addAll(read(segment));
+        }
+        assertEquals(written, read);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
+        assertNotNull(files);
+        assertEquals(0, files.length);
+    }
+
+    @Test
+    public void evictsOldestSegmentsOverQuota() throws IOException {
+        int size = record(START).length() + 1;
+        RotatingLogWriter writer = open(Long.MAX_VALUE, 10000, size * 25L, false);
+        for (int i = 0; i < 60; i++) {
+            writer.write(record(now));
+            now += 1000;
+        }
+        // the open segment counts too, the oldest segment is evicted while the next one fills
+        assertEquals(4, writer.getEvictedSegments());
+        writer.close();
+        assertEquals(4, writer.getEvictedSegments());
+        LogSegmentIndex index = new LogSegmentIndex(dir);
+        assertTrue(index.getTotalBytes() <= size * 25L);
+        assertEquals(START + 40000, index.getSegments().get(0).getStartMs());
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
+        assertNotNull(files);
+        assertEquals(2, files.length);
+    }
+
+    @Test
+    public void findsSegmentsByTimeWindow() throws IOException {
+        try (RotatingLogWriter writer = open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, true)) {
+            for (int i = 0; i < 300; i++) {
+                writer.write(record(now));
+                now += 1000;
+            }
+        }
+        LogSegmentIndex index = new LogSegmentIndex(dir);
+        List<LogSegmentIndex.Segment> found = index.find(START + 90000, START + 130000);
+        assertEquals(2, found.size());
+        assertEquals(START + 60000, found.get(0).getStartMs());
+        assertEquals(START + 120000, found.get(1).getStartMs());
+        assertEquals(0, index.find(0, START - 1).size());
+        assertEquals(5, index.find(0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void closesSegmentsLeftOpenByCrash() throws IOException {
+        RotatingLogWriter crashed = open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, true);
+        for (int i = 0; i < 10; i++) {
+            crashed.write(record(now));
+            now += 1000;
+        }
+        crashed.flush();
+        // no close, the next writer finds the open segment in the index
+        assertFalse(new LogSegmentIndex(dir).getSegments().get(0).isClosed());
+        try (RotatingLogWriter writer = open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, true)) {
+            LogSegmentIndex.Segment recovered = writer.getIndex().getSegments().get(0);
+            assertTrue(recovered.isClosed());
+            assertTrue(recovered.isCompressed());
+            assertEquals(10, read(recovered).size());
+        }
+    }
+
+    @Test
+    public void keepsTemporaryFilesOfOthers() throws IOException {
+        assertTrue(dir.mkdirs());
+        File compressing = new File(dir, "2023_11_14_22_13_20.txt.gz.tmp");
+        File upload = new File(dir, "2023_11_14_22_13_20.txt.lp.tmp");
+        assertTrue(compressing.createNewFile());
+        assertTrue(upload.createNewFile());
+        open(Long.MAX_VALUE, 60000, Long.MAX_VALUE, true).close();
+        assertFalse(compressing.exists());
+        assertTrue(upload.exists());
+    }
+
+    @Test
+    public void parsesRecordTimestamp() {
+        assertEquals(START, RotatingLogWriter.timestamp(record(START), 1));
+        assertEquals(1, RotatingLogWriter.timestamp("m x=5", 1));
+        assertEquals(1, RotatingLogWriter.timestamp("m x=5i", 1));
+        assertEquals(1, RotatingLogWriter.timestamp("m s=\"a 5\"", 1));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.Worker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.LineProtocolUploader;
+
+public class InfluxDB2xUploadWorkerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String records(String measurement, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(measurement).append(",device=Pixel\\ 8 rtt=").append(i * 0.5)
+                    .append(' ').append(1700000000000L + i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void writeGzip(File file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void reconvertedCopyIsUploadedFromTheStart() throws IOException {
+        File log = folder.newFile("log.txt.gz");
+        writeGzip(log, records("Ping", 1000));
+        File converted = InfluxDB2xUploadWorker.toLineProtocol(log, true);
+
+        // stop after the second batch, the offset of the old copy is left behind
+        int[] batches = {0};
+        LineProtocolUploader uploader = new LineProtocolUploader(records -> batches[0]++, 1024, 1, 0);
+        assertFalse(uploader.upload(converted, null, () -> batches[0] >= 2));
+        assertTrue(LineProtocolUploader.getOffsetFile(converted).exists());
+
+        // the log changed since the copy was made
+        String content = records("Cell", 100);
+        writeGzip(log, content);
+        assertTrue(log.setLastModified(converted.lastModified() + 2000));
+        assertEquals(converted, InfluxDB2xUploadWorker.toLineProtocol(log, true));
+        assertFalse(LineProtocolUploader.getOffsetFile(converted).exists());
+
+        StringBuilder sent = new StringBuilder();
+        assertTrue(new LineProtocolUploader(sent::append, 1024, 1, 0).upload(converted, null, () -> false));
+        assertEquals(content, sent.toString());
+    }
+
+    @Test
+    public void keepsUpToDateCopyAndItsOffset() throws IOException {
+        File log = folder.newFile("log.txt.gz");
+        writeGzip(log, records("Ping", 1000));
+        File converted = InfluxDB2xUploadWorker.toLineProtocol(log, true);
+        assertTrue(converted.setLastModified(log.lastModified() + 2000));
+
+        int[] batches = {0};
+        LineProtocolUploader uploader = new LineProtocolUploader(records -> batches[0]++, 1024, 1, 0);
+        assertFalse(uploader.upload(converted, null, () -> batches[0] >= 2));
+
+        // a retry resumes the upload of the same copy
+        assertEquals(converted, InfluxDB2xUploadWorker.toLineProtocol(log, true));
+        assertTrue(LineProtocolUploader.getOffsetFile(converted).exists());
+    }
+}
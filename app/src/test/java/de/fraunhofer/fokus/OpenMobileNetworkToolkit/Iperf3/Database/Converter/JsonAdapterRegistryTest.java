@@ -0,0 +1,170 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.Converter;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.PolymorphicJsonAdapterFactory;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.MoshiAdapter.ArrayListIntervalsAdapter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Database.MoshiAdapter.ArrayListStreamsAdapter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Intervals;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Error;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.STREAM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.Stream;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.SUM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.Sum;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_UL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_UL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.start.Start;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.METRIC_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric.MetricCalculator;
+
+public class JsonAdapterRegistryTest {
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int BENCHMARK_ITERATIONS = 2000;
+
+    private Intervals intervals;
+    private Start start;
+    private MetricCalculator metric;
+    private Error error;
+
+    @Before
+    public void setUp() {
+        intervals = new Intervals();
+        for (int i = 0; i < 10; i++) {
+            Interval interval = new Interval();
+            interval.setSum(new TCP_UL_SUM());
+            interval.getStreams().addStream(new TCP_UL_STREAM());
+            interval.getStreams().addStream(new TCP_UL_STREAM());
+            intervals.addInterval(interval);
+        }
+        start = new Start();
+        metric = new MetricCalculator(METRIC_TYPE.THROUGHPUT);
+        for (int i = 0; i < 100; i++) {
+            metric.update(i * 1.5);
+        }
+        metric.calcAll();
+        error = new Error();
+        error.setError("unable to connect to server");
+    }
+
+    @Test
+    public void sharedConvertersRoundTrip() {
+        Iperf3IntervalsConverter intervalsConverter = new Iperf3IntervalsConverter();
+        Intervals decoded = intervalsConverter.stringToIperf3Intervals(
+                intervalsConverter.iperf3IntervalsToString(intervals));
+        assertEquals(10, decoded.getIntervalArrayList().size());
+        assertTrue(decoded.getIntervalArrayList().get(0).getSum() instanceof TCP_UL_SUM);
+        assertEquals(2, decoded.getIntervalArrayList().get(0).getStreams().size());
+        assertTrue(decoded.getIntervalArrayList().get(0).getStreams().getStream(0) instanceof TCP_UL_STREAM);
+
+        MetricConverter metricConverter = new MetricConverter();
+        MetricCalculator decodedMetric = metricConverter.fromJSONString(metricConverter.toJSONString(metric));
+        assertEquals(metric.getMean(), decodedMetric.getMean(), 0);
+        assertEquals(metric.getMedian(), decodedMetric.getMedian(), 0);
+
+        Iperf3ErrorConverter errorConverter = new Iperf3ErrorConverter();
+        assertEquals(error.getError(), errorConverter.fromJSONString(errorConverter.toJSONString(error)).getError());
+
+        Iperf3StartConverter startConverter = new Iperf3StartConverter();
+        assertEquals(new Gson().toJson(start),
+                new Gson().toJson(startConverter.StringToIperf3Start(startConverter.Iperf3StartToString(start))));
+    }
+
+    @Test
+    public void sharedAdaptersMatchPerCallOutput() throws IOException {
+        assertEquals(newIntervalsMoshi().adapter(Intervals.class).toJson(intervals),
+                JsonAdapterRegistry.getIntervalsAdapter().toJson(intervals));
+        assertEquals(new Gson().toJson(start), JsonAdapterRegistry.getGson().toJson(start));
+    }
+
+    /**
+     * Not a strict benchmark, compares building Moshi/Gson for every conversion, as the converters
+     * used to do, with the shared registry and prints the round trips per second. Opt-in, runs
+     * with -Pomnt.bench only.
+     */
+    @Test
+    public void benchmarkRoundTrips() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("omnt.bench"));
+        Iperf3IntervalsConverter intervalsConverter = new Iperf3IntervalsConverter();
+        Iperf3StartConverter startConverter = new Iperf3StartConverter();
+        MetricConverter metricConverter = new MetricConverter();
+        Iperf3ErrorConverter errorConverter = new Iperf3ErrorConverter();
+
+        report("Intervals", () -> {
+            Moshi moshi = newIntervalsMoshi();
+            try {
+                return moshi.adapter(Intervals.class).fromJson(newIntervalsMoshi().adapter(Intervals.class).toJson(intervals));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, () -> intervalsConverter.stringToIperf3Intervals(intervalsConverter.iperf3IntervalsToString(intervals)));
+        report("Start",
+                () -> new Gson().fromJson(new Gson().toJson(start), Start.class),
+                () -> startConverter.StringToIperf3Start(startConverter.Iperf3StartToString(start)));
+        report("MetricCalculator",
+                () -> new Gson().fromJson(new Gson().toJson(metric), MetricCalculator.class),
+                () -> metricConverter.fromJSONString(metricConverter.toJSONString(metric)));
+        report("Error",
+                () -> new Gson().fromJson(new Gson().toJson(error), Error.class),
+                () -> errorConverter.fromJSONString(errorConverter.toJSONString(error)));
+    }
+
+    private static void report(String name, Supplier<Object> perCall, Supplier<Object> shared) {
+        run(perCall, WARMUP_ITERATIONS);
+        run(shared, WARMUP_ITERATIONS);
+        long perCallNs = run(perCall, BENCHMARK_ITERATIONS);
+        long sharedNs = run(shared, BENCHMARK_ITERATIONS);
+        System.out.printf("%s: per call %.0f ops/s, shared %.0f ops/s%n", name,
+                BENCHMARK_ITERATIONS / (perCallNs / 1e9), BENCHMARK_ITERATIONS / (sharedNs / 1e9));
+    }
+
+    private static long run(Supplier<Object> roundTrip, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(roundTrip.get());
+        }
+        return System.nanoTime() - start;
+    }
+
+    // the Moshi setup Iperf3IntervalsConverter used to build on every call
+    private static Moshi newIntervalsMoshi() {
+        return new Moshi.Builder()
+                .add(new ArrayListIntervalsAdapter())
+                .add(new ArrayListStreamsAdapter())
+                .add(PolymorphicJsonAdapterFactory.of(Stream.class, "streamType")
+                        .withSubtype(TCP_DL_STREAM.class, STREAM_TYPE.TCP_DL.toString())
+                        .withSubtype(TCP_UL_STREAM.class, STREAM_TYPE.TCP_UL.toString())
+                        .withSubtype(UDP_DL_STREAM.class, STREAM_TYPE.UDP_DL.toString())
+                        .withSubtype(UDP_UL_STREAM.class, STREAM_TYPE.UDP_UL.toString()))
+                .add(PolymorphicJsonAdapterFactory.of(Sum.class, "sumType")
+                        .withSubtype(TCP_DL_SUM.class, SUM_TYPE.TCP_DL.toString())
+                        .withSubtype(TCP_UL_SUM.class, SUM_TYPE.TCP_UL.toString())
+                        .withSubtype(UDP_DL_SUM.class, SUM_TYPE.UDP_DL.toString())
+                        .withSubtype(UDP_UL_SUM.class, SUM_TYPE.UDP_UL.toString()))
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Iperf3WorkerPoolTest {
+    private final List<String> started = new ArrayList<>();
+    private final List<Integer> slots = new ArrayList<>();
+
+    private Iperf3WorkerPool.Run run(String id) {
+        return slot -> {
+            started.add(id);
+            slots.add(slot);
+        };
+    }
+
+    @Test
+    public void queuesRunsWhenAllSlotsAreLeased() {
+        Iperf3WorkerPool pool = new Iperf3WorkerPool(8, 2);
+        pool.submit("a", 0, run("a"));
+        pool.submit("b", 0, run("b"));
+        pool.submit("c", 0, run("c"));
+        assertEquals(Arrays.asList("a", "b"), started);
+        assertEquals(Arrays.asList(0, 1), slots);
+        assertEquals(2, pool.getBusySlots());
+        assertEquals(1, pool.getQueuedRuns());
+
+        pool.release(0);
+        assertEquals(Arrays.asList("a", "b", "c"), started);
+        assertEquals(0, (int) slots.get(2));
+        assertEquals(0, pool.getQueuedRuns());
+        assertEquals(3, pool.getStartedRuns());
+    }
+
+    @Test
+    public void startsHigherPrioritiesFirst() {
+        Iperf3WorkerPool pool = new Iperf3WorkerPool(4, 1);
+        pool.submit("first", 0, run("first"));
+        pool.submit("low", 0, run("low"));
+        pool.submit("high", Iperf3WorkerPool.PRIORITY_INTERACTIVE, run("high"));
+        pool.submit("later", 0, run("later"));
+        for (int i = 0; i < 3; i++) pool.release(0);
+        assertEquals(Arrays.asList("first", "high", "low", "later"), started);
+    }
+
+    @Test
+    public void resizesPool() {
+        Iperf3WorkerPool pool = new Iperf3WorkerPool(4, 1);
+        for (String id : new String[]{"a", "b", "c", "d", "e"}) pool.submit(id, 0, run(id));
+        assertEquals(1, started.size());
+        pool.setSize(3);
+        assertEquals(3, started.size());
+        // slots beyond the smaller size finish their run but are not leased again
+        pool.setSize(1);
+        pool.release(2);
+        assertEquals(3, started.size());
+        pool.release(0);
+        assertEquals(4, started.size());
+        assertEquals(0, (int) slots.get(3));
+        pool.setSize(100);
+        assertEquals(4, pool.getSize());
+    }
+
+    @Test
+    public void cancelsWaitingRuns() {
+        Iperf3WorkerPool pool = new Iperf3WorkerPool(1, 1);
+        pool.submit("a", 0, run("a"));
+        pool.submit("b", 0, run("b"));
+        pool.submit("b", 0, run("b"));
+        assertEquals(2, pool.cancel("b"));
+        pool.release(0);
+        assertEquals(Arrays.asList("a"), started);
+        assertEquals(0, pool.getBusySlots());
+    }
+
+    @Test
+    public void releasesSlotOfRunWhichFailedToStart() {
+        Iperf3WorkerPool pool = new Iperf3WorkerPool(2, 2);
+        try {
+            pool.submit("fail", 0, slot -> {
+                throw new IllegalStateException("enqueue failed");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, pool.getBusySlots());
+        }
+        pool.submit("a", 0, run("a"));
+        assertEquals(Arrays.asList(0), slots);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsReleaseOfFreeSlot() {
+        new Iperf3WorkerPool(2, 2).release(1);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Interval;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.STREAM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.TCP.TCP_UL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Streams.UDP.UDP_DL_STREAM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.SUM_TYPE;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_DL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.TCP.TCP_UL_SUM;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.JSON.Interval.Sum.UDP.UDP_DL_SUM;
+
+public class Iperf3EventReaderTest {
+    private static final String TCP_UL_INTERVAL = "{\"event\":\"interval\",\"data\":{\"streams\":[{\"socket\":5,"
+            + "\"start\":0,\"end\":1.000123,\"seconds\":1.000123,\"bytes\":11796480,\"bits_per_second\":94360000.5,"
+            + "\"retransmits\":2,\"snd_cwnd\":1048576,\"snd_wnd\":3145728,\"rtt\":10500,\"rttvar\":800,\"pmtu\":1500,"
+            + "\"omitted\":false,\"sender\":true}],\"sum\":{\"start\":0,\"end\":1.000123,\"seconds\":1.000123,"
+            + "\"bytes\":11796480,\"bits_per_second\":94360000.5,\"retransmits\":2,\"omitted\":false,\"sender\":true}}}";
+    private static final String BIDIR_INTERVAL = "{\"event\":\"interval\",\"data\":{\"streams\":[],"
+            + "\"sum\":{\"start\":0,\"end\":1,\"seconds\":1,\"bytes\":1000,\"bits_per_second\":8000,\"retransmits\":0,"
+            + "\"omitted\":false,\"sender\":true},\"sum_bidir_reverse\":{\"start\":0,\"end\":1,\"seconds\":1,"
+            + "\"bytes\":2000,\"bits_per_second\":16000,\"omitted\":false,\"sender\":false}}}";
+    private static final String UDP_DL_INTERVAL = "{\"data\":{\"streams\":[{\"socket\":5,\"start\":0,\"end\":1,"
+            + "\"seconds\":1,\"bytes\":131072,\"bits_per_second\":1048576,\"jitter_ms\":0.25,\"lost_packets\":3,"
+            + "\"packets\":100,\"lost_percent\":3,\"omitted\":false,\"sender\":false}],\"sum\":{\"start\":0,\"end\":1,"
+            + "\"seconds\":1,\"bytes\":131072,\"bits_per_second\":1048576,\"jitter_ms\":0.25,\"lost_packets\":3,"
+            + "\"packets\":100,\"lost_percent\":3,\"omitted\":false,\"sender\":false}},\"event\":\"interval\"}";
+    // every interval after the first starts at a fraction of a second
+    private static final String TCP_DL_LATER_INTERVAL = "{\"event\":\"interval\",\"data\":{\"streams\":[{"
+            + "\"socket\":5,\"start\":1.000123,\"end\":2.000456,\"seconds\":1.000333,\"bytes\":1000,"
+            + "\"bits_per_second\":7997.3,\"omitted\":false,\"sender\":false}],\"sum\":{\"start\":1.000123,"
+            + "\"end\":2.000456,\"seconds\":1.000333,\"bytes\":1000,\"bits_per_second\":7997.3,"
+            + "\"omitted\":false,\"sender\":false}}}";
+
+    private final Iperf3EventReader reader = new Iperf3EventReader();
+
+    @Test
+    public void readsTcpUploadInterval() throws IOException {
+        Iperf3EventReader.Event event = reader.read(TCP_UL_INTERVAL);
+        assertEquals(Iperf3EventReader.INTERVAL, event.getType());
+        Interval interval = event.getInterval();
+        assertTrue(interval.getSum() instanceof TCP_UL_SUM);
+        assertEquals(SUM_TYPE.TCP_UL, interval.getSum().getSumType());
+        assertEquals(94360000.5, interval.getSum().getBits_per_second(), 0);
+        assertEquals(2, ((TCP_UL_SUM) interval.getSum()).retransmits);
+        assertNull(interval.getSumBidirReverse());
+
+        assertEquals(1, interval.getStreams().size());
+        TCP_UL_STREAM stream = (TCP_UL_STREAM) interval.getStreams().getStream(0);
+        assertEquals(STREAM_TYPE.TCP_UL, stream.getStreamType());
+        assertEquals(5, stream.getSocket());
+        assertEquals(10500, stream.getRtt());
+        assertEquals(11796480, stream.getBytes());
+    }
+
+    @Test
+    public void readsBidirReverseSum() throws IOException {
+        Interval interval = reader.read(BIDIR_INTERVAL).getInterval();
+        assertTrue(interval.getSum() instanceof TCP_UL_SUM);
+        assertTrue(interval.getSumBidirReverse() instanceof TCP_DL_SUM);
+        assertEquals(16000, interval.getSumBidirReverse().getBits_per_second(), 0);
+    }
+
+    @Test
+    public void readsDataBeforeEvent() throws IOException {
+        Iperf3EventReader.Event event = reader.read(UDP_DL_INTERVAL);
+        assertEquals(Iperf3EventReader.INTERVAL, event.getType());
+        UDP_DL_SUM sum = (UDP_DL_SUM) event.getInterval().getSum();
+        assertEquals(0.25, sum.getJitter_ms(), 0);
+        assertEquals(3, sum.getLost_packets());
+        UDP_DL_STREAM stream = (UDP_DL_STREAM) event.getInterval().getStreams().getStream(0);
+        assertEquals(STREAM_TYPE.UDP_DL, stream.getStreamType());
+        assertEquals(100, stream.getPackets());
+    }
+
+    @Test
+    public void readsFractionalStart() throws IOException {
+        Interval interval = reader.read(TCP_DL_LATER_INTERVAL).getInterval();
+        assertTrue(interval.getSum() instanceof TCP_DL_SUM);
+        assertEquals(1.000123, interval.getSum().getStart(), 0);
+        assertEquals(1.000123, interval.getStreams().getStream(0).getStart(), 0);
+        assertEquals(STREAM_TYPE.TCP_DL, interval.getStreams().getStream(0).getStreamType());
+    }
+
+    @Test
+    public void readsErrorAndEnd() throws IOException {
+        Iperf3EventReader.Event error = reader.read("{\"event\":\"error\",\"data\":\"unable to connect to server\"}");
+        assertEquals(Iperf3EventReader.ERROR, error.getType());
+        assertEquals("unable to connect to server", error.getError());
+        assertNull(error.getInterval());
+
+        Iperf3EventReader.Event end = reader.read("{\"event\":\"end\",\"data\":{\"streams\":[],\"sum_sent\":{}}}");
+        assertEquals(Iperf3EventReader.END, end.getType());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedLine() throws IOException {
+        reader.read(TCP_UL_INTERVAL.substring(0, 40));
+    }
+}
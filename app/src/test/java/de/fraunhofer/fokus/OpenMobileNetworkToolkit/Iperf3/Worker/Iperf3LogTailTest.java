@@ -0,0 +1,93 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Iperf3.Worker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Iperf3LogTailTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void missingFileHasNoLines() throws IOException {
+        File file = new File(folder.getRoot(), "missing.json");
+        try (Iperf3LogTail tail = new Iperf3LogTail(file)) {
+            assertEquals(0, tail.drain(line -> fail()));
+        }
+    }
+
+    @Test
+    public void keepsPartialLineUntilComplete() throws IOException {
+        File file = folder.newFile("iperf3.json");
+        List<String> lines = new ArrayList<>();
+        try (Iperf3LogTail tail = new Iperf3LogTail(file);
+             FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"event\":\"start\"}\n{\"event\":\"inter".getBytes(StandardCharsets.UTF_8));
+            assertEquals(1, tail.drain(lines::add));
+            out.write("val\"}\r\n\n{\"event\":\"end\"}\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(2, tail.drain(lines::add));
+            assertEquals(0, tail.drain(lines::add));
+        }
+        assertEquals(Arrays.asList("{\"event\":\"start\"}", "{\"event\":\"interval\"}", "{\"event\":\"end\"}"), lines);
+    }
+
+    @Test
+    public void handlesLinesLongerThanBuffers() throws IOException {
+        File file = folder.newFile("long.json");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        String longLine = builder.toString();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write((longLine + "\n" + longLine + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> lines = new ArrayList<>();
+        try (Iperf3LogTail tail = new Iperf3LogTail(file)) {
+            assertEquals(2, tail.drain(lines::add));
+        }
+        assertEquals(longLine, lines.get(0));
+        assertEquals(longLine, lines.get(1));
+    }
+
+    @Test
+    public void stopsWhenHandlerCloses() throws IOException {
+        File file = folder.newFile("end.json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("{\"event\":\"interval\"}\n{\"event\":\"end\"}\n{\"event\":\"interval\"}\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> lines = new ArrayList<>();
+        Iperf3LogTail tail = new Iperf3LogTail(file);
+        // like the monitor worker, which finishes on the end event
+        assertEquals(2, tail.drain(line -> {
+            lines.add(line);
+            if (line.contains("end")) {
+                try {
+                    tail.close();
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }));
+        assertEquals(Arrays.asList("{\"event\":\"interval\"}", "{\"event\":\"end\"}"), lines);
+    }
+}
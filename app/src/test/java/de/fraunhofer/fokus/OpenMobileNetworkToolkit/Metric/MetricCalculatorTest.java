@@ -0,0 +1,101 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Metric;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MetricCalculatorTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void shortRunUsesExactMedian() {
+        MetricCalculator calculator = new MetricCalculator(METRIC_TYPE.THROUGHPUT);
+        double[] values = {5, 1, 9, 3, 7, 2};
+        for (double value : values) {
+            calculator.update(value);
+        }
+        calculator.calcAll();
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[sorted.length / 2], calculator.getMedian(), 0);
+        assertEquals(1, calculator.getMin(), 0);
+        assertEquals(9, calculator.getMax(), 0);
+        assertEquals(27.0 / 6, calculator.getMean(), 1e-12);
+        assertEquals(2, calculator.getLast(), 0);
+    }
+
+    @Test
+    public void longRunEstimatesMedian() {
+        MetricCalculator calculator = new MetricCalculator(METRIC_TYPE.THROUGHPUT, 100);
+        Random random = new Random(42);
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 50e6 + random.nextGaussian() * 5e6;
+            calculator.update(values[i]);
+        }
+        calculator.calcAll();
+        Arrays.sort(values);
+        double exact = values[values.length / 2];
+        assertEquals(exact, calculator.getMedian(), exact * 0.01);
+        assertEquals(values[0], calculator.getMin(), 0);
+        assertEquals(values[values.length - 1], calculator.getMax(), 0);
+    }
+
+    @Test
+    public void serializedFormHasConstantSize() {
+        MetricCalculator calculator = new MetricCalculator(METRIC_TYPE.RTT);
+        for (int i = 0; i < 10; i++) {
+            calculator.update(10.25);
+        }
+        calculator.calcAll();
+        int shortRun = gson.toJson(calculator).length();
+        for (int i = 0; i < 100000; i++) {
+            calculator.update(10.25);
+        }
+        calculator.calcAll();
+        // only the digits of the counters grow, no per value state
+        assertEquals(shortRun, gson.toJson(calculator).length(), 64);
+    }
+
+    @Test
+    public void deserializedCalculatorKeepsSummary() {
+        MetricCalculator calculator = new MetricCalculator(METRIC_TYPE.THROUGHPUT);
+        for (int i = 1; i <= 9; i++) {
+            calculator.update((double) i * i);
+        }
+        calculator.calcAll();
+        MetricCalculator restored = gson.fromJson(gson.toJson(calculator), MetricCalculator.class);
+        restored.calcAll();
+        assertEquals(calculator.getMedian(), restored.getMedian(), 0);
+        assertEquals(calculator.getMean(), restored.getMean(), 0);
+
+        restored.update(100.0);
+        restored.calcAll();
+        assertEquals(100, restored.getMax(), 0);
+        assertEquals(10, restored.getCount());
+    }
+
+    @Test
+    public void legacyRowKeepsStoredValues() {
+        String legacy = "{\"meanList\":[1.0,2.0,3.0],\"maxValueSum\":0.0,\"minValueSum\":0.0,"
+                + "\"metricType\":\"THROUGHPUT\",\"median\":2.0,\"mean\":2.0,\"max\":3.0,\"min\":1.0,\"last\":3.0}";
+        MetricCalculator restored = gson.fromJson(legacy, MetricCalculator.class);
+        restored.calcAll();
+        assertEquals(2, restored.getMedian(), 0);
+        assertEquals(3, restored.getMax(), 0);
+        assertEquals(1, restored.getMin(), 0);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RecordWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PingInformation;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+public class PingLineProtocolStreamTest {
+    private final List<String> records = new ArrayList<>();
+    private boolean closed;
+
+    private final RecordWriter writer = new RecordWriter() {
+        @Override
+        public void write(CharSequence record) {
+            records.add(record.toString());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void flushIfDue() {
+        }
+
+        @Override
+        public long getBufferedRecords() {
+            return 0;
+        }
+
+        @Override
+        public long getWrittenRecords() {
+            return records.size();
+        }
+
+        @Override
+        public long getDroppedRecords() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    };
+
+    @Test
+    public void writesParsedLinesWithTags() throws IOException {
+        List<String> live = new ArrayList<>();
+        PingLineProtocolStream stream = new PingLineProtocolStream(writer,
+                new TagSet(Collections.singletonMap("testUUID", "t1")), point -> live.add(point.toLineProtocol()));
+        RTTLine rtt = new RTTLine("[1700000000.123456] 64 bytes from 192.0.2.1: icmp_seq=3 ttl=57 time=12.5 ms");
+        rtt.parse();
+        assertTrue(stream.write(rtt));
+        PacketLossLine packetLoss = new PacketLossLine("3 packets transmitted, 2 received, 33% packet loss, time 2003ms");
+        packetLoss.parse();
+        assertTrue(stream.write(packetLoss));
+        stream.close();
+
+        assertEquals(2, records.size());
+        // the file gets the tags spliced in after the tags of the point
+        assertEquals("Ping,toHost=192.0.2.1,testUUID=t1 icmp_seq=3i,rtt=12.5,ttl=57i 1700000000123",
+                records.get(0));
+        assertEquals("Ping,testUUID=t1,toHost=192.0.2.1 icmp_seq=3i,rtt=12.5,ttl=57i 1700000000123",
+                live.get(0));
+        assertTrue(records.get(1).contains("packet_loss=33.0"));
+        assertTrue(records.get(1).contains("testUUID=t1"));
+        assertEquals(2, stream.getRecords());
+        assertTrue(closed);
+    }
+
+    @Test
+    public void skipsLinesWithoutPoint() throws IOException {
+        PingLineProtocolStream stream = new PingLineProtocolStream(writer, TagSet.EMPTY, null);
+        assertFalse(stream.write(null));
+        assertFalse(stream.write(new PingInformation("PING 192.0.2.1 (192.0.2.1) 56(84) bytes of data.")));
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void countsPointsNotAcceptedLive() throws IOException {
+        PingLineProtocolStream stream = new PingLineProtocolStream(writer, TagSet.EMPTY, point -> false);
+        assertTrue(stream.write(new RTTLine(1000, 64, "192.0.2.1", 1, 0, 1.5)));
+        assertEquals(1, records.size());
+        assertEquals(1, stream.getLiveDropped());
+    }
+}
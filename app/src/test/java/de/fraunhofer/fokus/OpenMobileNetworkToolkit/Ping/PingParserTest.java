@@ -0,0 +1,318 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping;
+
+import static org.junit.Assert.*;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.LINEType;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.PacketLossLine;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+public class PingParserTest {
+    private static final int BENCHMARK_LINES = 1_000_000;
+    private static final int CAPTURE_LINES = 1000;
+
+    private static PingRecord parse(PingParser parser, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        return parser.parse(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void parsesRttLine() {
+        PingParser parser = new PingParser();
+        PingRecord record = parse(parser,
+                "[1700000000.123456] 64 bytes from 192.0.2.1: icmp_seq=3 ttl=57 time=12.5 ms");
+        assertEquals(LINEType.RTT, record.getLineType());
+        assertEquals(1700000000123.0, record.getUnixTimestamp(), 0);
+        assertEquals(64, record.getBytes());
+        assertEquals("192.0.2.1", record.getHost());
+        assertEquals(3, record.getIcmpSeq());
+        assertEquals(57, record.getTtl());
+        assertEquals(12.5, record.getRtt(), 1e-9);
+
+        RTTLine rttLine = (RTTLine) record.toPingInformation();
+        assertEquals(12.5, rttLine.getRtt(), 1e-9);
+        assertEquals(1700000000123.0, rttLine.getUnixTimestamp(), 0);
+        assertSame(rttLine, parser.getLastPingInformation());
+    }
+
+    @Test
+    public void prefersAddressOfNamedHost() {
+        PingParser parser = new PingParser();
+        PingRecord record = parse(parser,
+                "64 bytes from edge.example.org (198.51.100.7): icmp_seq=12 ttl=52 time=0.045 ms (DUP!)");
+        assertEquals("198.51.100.7", record.getHost());
+        assertTrue(Double.isNaN(record.getUnixTimestamp()));
+        assertEquals(0.045, record.getRtt(), 1e-12);
+        assertEquals(12, record.getIcmpSeq());
+        assertEquals("edge.example.org", parse(parser,
+                "64 bytes from edge.example.org: icmp_seq=13 ttl=52 time=1 ms").getHost());
+    }
+
+    @Test
+    public void parsesIpv6Hosts() {
+        PingParser parser = new PingParser();
+        PingRecord record = parse(parser,
+                "[1700000000.5] 64 bytes from 2001:db8::1: icmp_seq=2 ttl=60 time=3.25 ms");
+        assertEquals(LINEType.RTT, record.getLineType());
+        assertEquals("2001:db8::1", record.getHost());
+        assertEquals(2, record.getIcmpSeq());
+        assertEquals(3.25, record.getRtt(), 1e-9);
+        assertEquals("2001:db8::1", parse(parser,
+                "64 bytes from edge.example.org (2001:db8::1): icmp_seq=3 ttl=60 time=3.5 ms").getHost());
+
+        // the lines the in process prober writes for IPv6 targets
+        RTTLine probed = new RTTLine(1700000000500.0, 64, "2001:db8::2", 4, 60, 1.5);
+        record = parser.addLine(probed.getLine());
+        assertEquals("2001:db8::2", record.getHost());
+        assertEquals(4, record.getIcmpSeq());
+        assertEquals(1.5, record.getRtt(), 1e-9);
+    }
+
+    @Test
+    public void reusesHostOfPreviousLine() {
+        PingParser parser = new PingParser();
+        String first = parse(parser, "64 bytes from 192.0.2.1: icmp_seq=1 ttl=57 time=1.0 ms").getHost();
+        String second = parse(parser, "64 bytes from 192.0.2.1: icmp_seq=2 ttl=57 time=1.0 ms").getHost();
+        assertSame(first, second);
+    }
+
+    @Test
+    public void parsesPacketLossLines() {
+        PingParser parser = new PingParser();
+        PingRecord record = parse(parser, "3 packets transmitted, 2 received, 33% packet loss, time 2003ms");
+        assertEquals(LINEType.PACKET_LOSS, record.getLineType());
+        assertEquals(3, record.getPacketsTransmitted());
+        assertEquals(2, record.getPacketsReceived());
+        assertEquals(33, record.getPacketLoss(), 0);
+        assertEquals(2003, record.getTimeMs());
+        assertEquals(2, ((PacketLossLine) record.toPingInformation()).getPacketsReceived());
+
+        record = parse(parser,
+                "7 packets transmitted, 4 received, +2 errors, 42.8571% packet loss, time 6010ms");
+        assertEquals(42.8571, record.getPacketLoss(), 1e-9);
+        assertEquals(6010, record.getTimeMs());
+    }
+
+    @Test
+    public void parsesUnreachableAndTimeoutLines() {
+        PingParser parser = new PingParser();
+        PingRecord record = parse(parser, "[1700000000.5] From 10.0.0.1 icmp_seq=4 Destination Host Unreachable");
+        assertEquals(LINEType.UNREACHABLE, record.getLineType());
+        assertEquals(4, record.getIcmpSeq());
+        assertNull(record.toPingInformation());
+        record = parse(parser, "Request timeout for icmp_seq 9");
+        assertEquals(LINEType.TIMEOUT, record.getLineType());
+        assertEquals(9, record.getIcmpSeq());
+    }
+
+    @Test
+    public void skipsOtherLines() {
+        PingParser parser = new PingParser();
+        assertNull(parse(parser, "PING 192.0.2.1 (192.0.2.1) 56(84) bytes of data."));
+        assertNull(parse(parser, ""));
+        assertNull(parse(parser, "--- 192.0.2.1 ping statistics ---"));
+        assertNull(parse(parser, "rtt min/avg/max/mdev = 0.045/0.050/0.061/0.006 ms"));
+        // a reply line without time is no result
+        assertNull(parse(parser, "64 bytes from 192.0.2.1: icmp_seq=1 ttl=57"));
+        assertEquals(0, parser.getSize());
+        assertNull(parser.getLastPingInformation());
+    }
+
+    @Test
+    public void keepsBoundedHistory() {
+        PingParser parser = new PingParser(4);
+        for (int i = 1; i <= 10; i++) {
+            parse(parser, "64 bytes from 192.0.2.1: icmp_seq=" + i + " ttl=57 time=1.0 ms");
+            // other lines don't take a slot
+            parse(parser, "PING 192.0.2.1 (192.0.2.1) 56(84) bytes of data.");
+        }
+        assertEquals(4, parser.getSize());
+        assertEquals(10, parser.getParsedLines());
+        assertEquals(10, parser.getLastRecord().getIcmpSeq());
+        assertEquals(7, parser.getRecord(3).getIcmpSeq());
+        try {
+            parser.getRecord(4);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void feedsLinesAcrossChunks() {
+        PingParser parser = new PingParser();
+        List<Integer> sequences = new ArrayList<>();
+        byte[] output = ("PING 192.0.2.1 (192.0.2.1) 56(84) bytes of data.\r\n"
+                + "64 bytes from 192.0.2.1: icmp_seq=1 ttl=57 time=1.5 ms\r\n"
+                + "64 bytes from 192.0.2.1: icmp_seq=2 ttl=57 time=2.5 ms\n"
+                + "2 packets transmitted, 2 received, 0% packet loss, time 1001ms")
+                .getBytes(StandardCharsets.US_ASCII);
+        // one byte at a time is the worst split
+        for (int i = 0; i < output.length; i++) {
+            parser.feed(output, i, 1, record -> sequences.add(record.getIcmpSeq()));
+        }
+        assertEquals(2, sequences.size());
+        parser.finish(record -> sequences.add(-1));
+        assertEquals(3, sequences.size());
+        assertEquals(LINEType.PACKET_LOSS, parser.getLastRecord().getLineType());
+        assertEquals(2.5, parser.getRecord(1).getRtt(), 1e-9);
+    }
+
+    @Test
+    public void skipsTooLongLines() {
+        PingParser parser = new PingParser();
+        StringBuilder line = new StringBuilder("64 bytes from 192.0.2.1: icmp_seq=1 ttl=57 time=1.5 ms ");
+        while (line.length() <= PingParser.MAX_LINE_LENGTH) line.append('x');
+        byte[] output = (line + "\n64 bytes from 192.0.2.1: icmp_seq=2 ttl=57 time=1.5 ms\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        parser.feed(output, 0, output.length, null);
+        assertEquals(1, parser.getSkippedLines());
+        assertEquals(1, parser.getSize());
+        assertEquals(2, parser.getLastRecord().getIcmpSeq());
+    }
+
+    private static byte[] capture() {
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        for (int i = 0; i < CAPTURE_LINES - 1; i++) {
+            String line = String.format(Locale.US,
+                    "[%d.%06d] 64 bytes from 192.0.2.%d: icmp_seq=%d ttl=57 time=%.3f ms\n",
+                    1700000000 + i / 100, (i % 100) * 10000, i % 4, i + 1, 10 + (i % 97) / 10.0);
+            capture.write(line.getBytes(StandardCharsets.US_ASCII), 0, line.length());
+        }
+        byte[] summary = "999 packets transmitted, 999 received, 0% packet loss, time 99800ms\n"
+                .getBytes(StandardCharsets.US_ASCII);
+        capture.write(summary, 0, summary.length);
+        return capture.toByteArray();
+    }
+
+    // the parsing before the byte parser: line Strings, contains scans and the regex of RTTLine
+    private static List<String> parseWithRegex(byte[] capture) throws IOException {
+        List<String> parsed = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(capture), StandardCharsets.US_ASCII));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains("bytes from")) {
+                RTTLine rttLine = new RTTLine(line);
+                rttLine.parse();
+                parsed.add(rttLine.getHost() + " " + rttLine.getIcmpSeq() + " " + rttLine.getTtl() + " "
+                        + rttLine.getRtt());
+            } else if (line.contains("packets transmitted")) {
+                PacketLossLine packetLoss = new PacketLossLine(line);
+                packetLoss.parse();
+                parsed.add(packetLoss.getPacketsTransmitted() + " " + packetLoss.getPacketsReceived() + " "
+                        + packetLoss.getPacketLoss());
+            }
+        }
+        return parsed;
+    }
+
+    private static List<String> parseWithParser(byte[] capture) {
+        List<String> parsed = new ArrayList<>();
+        PingParser parser = new PingParser();
+        PingParser.Listener listener = record -> {
+            if (record.getLineType() == LINEType.RTT) {
+                parsed.add(record.getHost() + " " + record.getIcmpSeq() + " " + record.getTtl() + " "
+                        + record.getRtt());
+            } else if (record.getLineType() == LINEType.PACKET_LOSS) {
+                parsed.add(record.getPacketsTransmitted() + " " + record.getPacketsReceived() + " "
+                        + record.getPacketLoss());
+            }
+        };
+        // chunks of the size the worker reads from stdout
+        for (int offset = 0; offset < capture.length; offset += 8192) {
+            parser.feed(capture, offset, Math.min(8192, capture.length - offset), listener);
+        }
+        assertEquals(CAPTURE_LINES, parser.getParsedLines());
+        return parsed;
+    }
+
+    @Test
+    public void parsesCaptureLikeRegex() throws IOException {
+        byte[] capture = capture();
+        List<String> regex = parseWithRegex(capture);
+        assertEquals(CAPTURE_LINES, regex.size());
+        assertEquals(regex, parseWithParser(capture));
+    }
+
+    private static long countWithRegex(byte[] capture, int repeats) throws IOException {
+        long parsed = 0;
+        for (int r = 0; r < repeats; r++) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(capture), StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains("bytes from")) {
+                    RTTLine rttLine = new RTTLine(line);
+                    rttLine.parse();
+                    parsed++;
+                } else if (line.contains("Unreachable") || line.contains("Request timeout")) {
+                    parsed++;
+                } else if (line.contains("packets transmitted")) {
+                    PacketLossLine packetLoss = new PacketLossLine(line);
+                    packetLoss.parse();
+                    parsed++;
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static long countWithParser(byte[] capture, int repeats) {
+        PingParser parser = new PingParser();
+        // chunks of the size the worker reads from stdout
+        for (int r = 0; r < repeats; r++) {
+            for (int offset = 0; offset < capture.length; offset += 8192) {
+                parser.feed(capture, offset, Math.min(8192, capture.length - offset), null);
+            }
+        }
+        assertEquals(PingParser.DEFAULT_HISTORY_SIZE, parser.getSize());
+        return parser.getParsedLines();
+    }
+
+    /**
+     * Not a strict benchmark, parses a capture of 1M lines with the regex parsing and with the
+     * byte parser and prints the results. Opt-in, runs with -Pomnt.bench only.
+     */
+    @Test
+    public void benchmarkAgainstRegex() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("omnt.bench"));
+        byte[] capture = capture();
+        int repeats = BENCHMARK_LINES / CAPTURE_LINES;
+        // warm up both paths
+        countWithRegex(capture, 20);
+        countWithParser(capture, 20);
+
+        long start = System.nanoTime();
+        long regexLines = countWithRegex(capture, repeats);
+        long regexNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long parserLines = countWithParser(capture, repeats);
+        long parserNs = System.nanoTime() - start;
+
+        System.out.printf("Regex: %d lines in %.1f ms%n", regexLines, regexNs / 1e6);
+        System.out.printf("PingParser: %d lines in %.1f ms%n", parserLines, parserNs / 1e6);
+        assertEquals(BENCHMARK_LINES, regexLines);
+        assertEquals(BENCHMARK_LINES, parserLines);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class IcmpEchoTest {
+    @Test
+    public void writesRequest() {
+        byte[] buffer = new byte[IcmpEcho.HEADER_SIZE + IcmpEcho.DEFAULT_PAYLOAD_SIZE];
+        assertEquals(64, IcmpEcho.writeRequest(buffer, false, 0x1234, IcmpEcho.DEFAULT_PAYLOAD_SIZE));
+        assertEquals(IcmpEcho.ECHO_REQUEST_V4, buffer[0]);
+        assertEquals(0x12, buffer[6]);
+        assertEquals(0x34, buffer[7]);
+        IcmpEcho.writeRequest(buffer, true, 1, 0);
+        assertEquals(IcmpEcho.ECHO_REQUEST_V6, buffer[0] & 0xff);
+    }
+
+    @Test
+    public void readsReplySequence() {
+        byte[] buffer = new byte[64];
+        IcmpEcho.writeRequest(buffer, false, 0xfffe, 56);
+        // a request is no reply
+        assertEquals(-1, IcmpEcho.readReplySequence(buffer, 64, false));
+        buffer[0] = IcmpEcho.ECHO_REPLY_V4;
+        assertEquals(0xfffe, IcmpEcho.readReplySequence(buffer, 64, false));
+        assertEquals(-1, IcmpEcho.readReplySequence(buffer, 64, true));
+        assertEquals(-1, IcmpEcho.readReplySequence(buffer, 7, false));
+        buffer[0] = (byte) IcmpEcho.ECHO_REPLY_V6;
+        assertEquals(0xfffe, IcmpEcho.readReplySequence(buffer, 8, true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPayloadLargerThanBuffer() {
+        IcmpEcho.writeRequest(new byte[16], false, 1, 56);
+    }
+}
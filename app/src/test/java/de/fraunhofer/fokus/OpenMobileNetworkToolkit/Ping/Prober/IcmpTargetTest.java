@@ -0,0 +1,115 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IcmpTargetTest {
+    private static final long MS = 1_000_000;
+
+    private IcmpTarget target;
+    private List<Integer> timedOut;
+
+    @Before
+    public void setUp() throws UnknownHostException {
+        target = new IcmpTarget(InetAddress.getByName("192.0.2.1"), 0, 0, 1000 * MS, 0, 0);
+        timedOut = new ArrayList<>();
+    }
+
+    @Test
+    public void matchesRepliesOutOfOrder() {
+        assertEquals(1, target.send(0, timedOut::add));
+        assertEquals(2, target.send(5 * MS, timedOut::add));
+        assertEquals(7 * MS, target.reply(2, 12 * MS));
+        assertEquals(15 * MS, target.reply(1, 15 * MS));
+        // duplicate
+        assertEquals(-1, target.reply(1, 16 * MS));
+        assertEquals(2, target.getReceived());
+        assertEquals(1, target.getUnexpected());
+        assertEquals(0, target.getOutstanding());
+        assertEquals("192.0.2.1", target.getHost());
+        assertFalse(target.isV6());
+    }
+
+    @Test
+    public void expiresRequestsInOrder() {
+        for (int i = 0; i < 5; i++) target.send(i * 10 * MS, timedOut::add);
+        target.reply(2, 15 * MS);
+        assertEquals(1000 * MS, target.nextExpiry());
+        target.expire(1025 * MS, timedOut::add);
+        assertEquals(Arrays.asList(1, 3), timedOut);
+        assertEquals(1030 * MS, target.nextExpiry());
+        // a late reply is not counted as received
+        assertEquals(-1, target.reply(1, 1030 * MS));
+        assertEquals(2, target.getLost());
+        assertEquals(2, target.getOutstanding());
+    }
+
+    @Test
+    public void wrapsSequenceAndCountsFullWindowAsLost() {
+        target = new IcmpTarget(target.getAddress(), 0, 0, Long.MAX_VALUE, 0, 0);
+        int last = 0;
+        for (int i = 0; i < 70000; i++) {
+            last = target.send(i, timedOut::add);
+            if (i % 2 == 0) target.reply(last, i);
+            target.expire(i, timedOut::add);
+        }
+        assertEquals(70000 & 0xffff, last);
+        assertEquals(35000, target.getReceived());
+        // unanswered requests beyond the window are lost
+        assertEquals(IcmpTarget.WINDOW, target.getOutstanding());
+        assertEquals(35000 - IcmpTarget.WINDOW, target.getLost());
+        assertEquals(target.getLost(), timedOut.size());
+        assertEquals(Long.MAX_VALUE, new IcmpTarget(target.getAddress()).nextExpiry());
+    }
+
+    @Test
+    public void followsScheduleUntilCountIsSent() {
+        target = new IcmpTarget(target.getAddress(), 3, 100 * MS, 1000 * MS, 0, 0);
+        target.start(0, 25 * MS);
+        assertFalse(target.isDue(0));
+        assertEquals(25 * MS, target.nextWake(0));
+        assertTrue(target.isDue(25 * MS));
+        target.send(25 * MS, timedOut::add);
+        assertFalse(target.isDue(100 * MS));
+        assertEquals(125 * MS, target.nextWake(100 * MS));
+        // a late send doesn't cause a burst to catch up
+        target.send(400 * MS, timedOut::add);
+        assertEquals(400 * MS, target.nextWake(400 * MS));
+        target.send(400 * MS, timedOut::add);
+        assertFalse(target.isSending(400 * MS));
+        assertFalse(target.isDone(400 * MS));
+        assertEquals(1025 * MS, target.nextWake(400 * MS));
+        target.expire(1500 * MS, timedOut::add);
+        assertTrue(target.isDone(1500 * MS));
+        assertEquals(3, timedOut.size());
+    }
+
+    @Test
+    public void stopsAtDeadline() {
+        target = new IcmpTarget(target.getAddress(), 0, 100 * MS, 1000 * MS, 0, 250 * MS);
+        target.start(10 * MS, 0);
+        assertEquals(10 * MS, target.nextWake(10 * MS));
+        target.send(10 * MS, timedOut::add);
+        target.reply(1, 20 * MS);
+        assertTrue(target.isSending(250 * MS));
+        assertTrue(target.isDone(260 * MS));
+        target.stop();
+        assertFalse(target.isSending(20 * MS));
+    }
+}
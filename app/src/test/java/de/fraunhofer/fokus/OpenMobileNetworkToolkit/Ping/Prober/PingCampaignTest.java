@@ -0,0 +1,156 @@
+/*
+ * SPDX-FileCopyrightText:  2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ * SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.Prober;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.DataProvider.TagSet;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.InfluxDB2x.RecordWriter;
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.Ping.PingInformations.RTTLine;
+
+public class PingCampaignTest {
+    private final List<String> records = new ArrayList<>();
+    private boolean failing;
+    private int flushes;
+
+    private final RecordWriter writer = new RecordWriter() {
+        @Override
+        public void write(CharSequence record) throws IOException {
+            if (failing) throw new IOException("disk full");
+            records.add(record.toString());
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void flushIfDue() {
+        }
+
+        @Override
+        public long getBufferedRecords() {
+            return 0;
+        }
+
+        @Override
+        public long getWrittenRecords() {
+            return records.size();
+        }
+
+        @Override
+        public long getDroppedRecords() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private PingCampaign campaign;
+    private IcmpTarget first;
+    private IcmpTarget second;
+
+    @Before
+    public void setUp() throws UnknownHostException {
+        campaign = new PingCampaign(writer);
+        first = new IcmpTarget(InetAddress.getByName("192.0.2.1"));
+        second = new IcmpTarget(InetAddress.getByName("192.0.2.2"));
+        campaign.add(first, new TagSet(Collections.singletonMap("testUUID", "a")));
+        campaign.add(second, new TagSet(Collections.singletonMap("testUUID", "b")));
+    }
+
+    private void reply(IcmpTarget target, long sentNanos, double rttMs) {
+        int sequence = target.send(sentNanos, seq -> campaign.onTimeout(target, seq));
+        target.reply(sequence, sentNanos + (long) (rttMs * 1e6));
+        campaign.onReply(target, new RTTLine(1000, 64, target.getHost(), sequence, 0, rttMs));
+    }
+
+    @Test
+    public void aggregatesPerTargetAndCampaign() throws IOException {
+        reply(first, 0, 10);
+        reply(first, 1, 30);
+        reply(second, 2, 20);
+        second.send(3, seq -> campaign.onTimeout(second, seq));
+        second.expire(Long.MAX_VALUE, seq -> campaign.onTimeout(second, seq));
+        campaign.finish(1000);
+
+        assertEquals(3, campaign.getReplies());
+        assertEquals(1, campaign.getTimeouts());
+        assertEquals(20, campaign.getRtt(first).getMean(), 1e-9);
+        assertEquals(20, campaign.getRtt(second).getMean(), 1e-9);
+        assertEquals(3, campaign.getRtt().getCount());
+        assertEquals(30, campaign.getRtt().getMax(), 1e-9);
+        // 0 % loss of the first, 50 % of the second target
+        assertEquals(25, campaign.getPacketLoss().getMean(), 1e-9);
+        assertEquals(1, flushes);
+
+        // the replies, then packet loss and summary of every target
+        assertEquals(7, records.size());
+        assertTrue(records.get(0).contains("testUUID=a"));
+        assertTrue(records.get(2).contains("testUUID=b"));
+        assertTrue(records.get(2).contains("toHost=192.0.2.2"));
+        assertTrue(records.get(4).startsWith(PingCampaign.SUMMARY_MEASUREMENT + ","));
+        assertTrue(records.get(4).contains("testUUID=a"));
+        assertTrue(records.get(4).contains("rtt_mean=20.0"));
+        assertTrue(records.get(4).contains("rtt_max=30.0"));
+        assertTrue(records.get(5).contains("packets_transmitted=2i"));
+        assertTrue(records.get(5).contains("testUUID=b"));
+        assertTrue(records.get(6).contains("testUUID=b"));
+        assertTrue(records.get(6).contains("packet_loss=50.0"));
+        assertTrue(records.get(6).contains("replies=1i"));
+    }
+
+    @Test
+    public void stopsUnreachableTarget() throws IOException {
+        campaign.onUnreachable(second, 113);
+        campaign.onUnreachable(second, 113);
+        assertTrue(campaign.isUnreachable(second));
+        assertFalse(campaign.isUnreachable(first));
+        assertEquals(1, campaign.getUnreachableTargets());
+        assertFalse(second.isSending(0));
+        assertTrue(first.isSending(0));
+        campaign.finish(0);
+        // no requests, no packet loss statistics
+        assertEquals(0, campaign.getPacketLoss().getCount());
+        String summary = records.get(3);
+        assertTrue(summary.contains("unreachable=true"));
+        assertFalse(summary.contains("rtt_mean"));
+    }
+
+    @Test
+    public void keepsFirstWriteError() {
+        failing = true;
+        reply(first, 0, 10);
+        assertTrue(campaign.hasFailed());
+        failing = false;
+        reply(first, 1, 10);
+        assertTrue(records.isEmpty());
+        try {
+            campaign.finish(0);
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals(0, flushes);
+        assertEquals(2, campaign.getRtt(first).getCount());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SamplingClockTest {
+    private static final long T0 = 1700000000000L;
+
+    @Test
+    public void ticksOnAlignedBoundaries() {
+        SamplingClock clock = new SamplingClock(1000);
+        assertEquals(750, clock.getInitialDelay(T0 + 250));
+        long now = T0 + 1003;
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(T0 + i * 1000L, clock.startRound(now));
+            // work takes 40 ms, the next round is scheduled on the next boundary, not 1000 ms later
+            long delay = clock.finishRound(now + 40);
+            assertEquals(T0 + (i + 1) * 1000L, now + 40 + delay);
+            now = now + 40 + delay + 2;
+        }
+        assertEquals(10, clock.getTicks());
+        assertEquals(0, clock.getMissedTicks());
+        // every round started 2 or 3 ms late
+        long[] jitter = clock.getJitterHistogram().getCounts();
+        assertEquals(10, jitter[2] + jitter[3]);
+        assertEquals(10, clock.getOverrunHistogram().getCounts()[0]);
+    }
+
+    @Test
+    public void skipsMissedTicks() {
+        SamplingClock clock = new SamplingClock(1000);
+        clock.getInitialDelay(T0);
+        assertEquals(T0 + 1000, clock.startRound(T0 + 1000));
+        // round takes 2.5 periods
+        assertEquals(0, clock.finishRound(T0 + 3500));
+        assertEquals(1, clock.getOverrunHistogram().getCounts()[11]);
+        assertEquals(T0 + 3000, clock.startRound(T0 + 3501));
+        assertEquals(1, clock.getMissedTicks());
+        assertEquals(500, clock.finishRound(T0 + 3500));
+        assertEquals(T0 + 4000, clock.startRound(T0 + 4000));
+        assertEquals(1, clock.getMissedTicks());
+    }
+
+    @Test
+    public void earlyWakeUpBelongsToScheduledTick() {
+        SamplingClock clock = new SamplingClock(1000);
+        clock.getInitialDelay(T0 + 10);
+        assertEquals(T0 + 1000, clock.startRound(T0 + 998));
+        assertEquals(0, clock.getMissedTicks());
+        assertEquals(2, clock.getJitterHistogram().getMax());
+    }
+
+    @Test
+    public void resyncsAfterClockWasSetBack() {
+        SamplingClock clock = new SamplingClock(1000);
+        clock.getInitialDelay(T0);
+        clock.startRound(T0 + 1000);
+        clock.finishRound(T0 + 1010);
+        assertEquals(T0 - 60000, clock.startRound(T0 - 60000 + 5));
+        assertEquals(995, clock.finishRound(T0 - 60000 + 5));
+    }
+}
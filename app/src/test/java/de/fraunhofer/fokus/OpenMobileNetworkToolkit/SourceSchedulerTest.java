@@ -0,0 +1,78 @@
+/*
+ *  SPDX-FileCopyrightText: 2025 Peter Hasse <peter.hasse@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Johann Hackler <johann.hackler@fokus.fraunhofer.de>
+ *  SPDX-FileCopyrightText: 2025 Fraunhofer FOKUS
+ *
+ *  SPDX-License-Identifier: BSD-3-Clause-Clear
+ */
+
+package de.fraunhofer.fokus.OpenMobileNetworkToolkit;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.fraunhofer.fokus.OpenMobileNetworkToolkit.SourceScheduler.Source;
+
+public class SourceSchedulerTest {
+    // on a full hour, so the wall clock aligned periods start with the first tick
+    private static final long T0 = 1699999200000L;
+
+    private static int rounds(SourceScheduler scheduler, Source source, long start, int ticks) {
+        int due = 0;
+        for (int i = 0; i < ticks; i++) {
+            if (scheduler.isDue(source, start + i * 1000L)) due++;
+        }
+        return due;
+    }
+
+    @Test
+    public void samplesDefaultPeriods() {
+        SourceScheduler scheduler = SourceScheduler.withDefaults();
+        assertEquals(600, rounds(scheduler, Source.SIGNAL, T0, 600));
+        assertEquals(10, rounds(scheduler, Source.BATTERY, T0, 600));
+        assertEquals(1, rounds(scheduler, Source.BUILD, T0, 600));
+        assertEquals(590, scheduler.getSkipped(Source.BATTERY));
+        assertEquals(0, scheduler.getSkipped(Source.SIGNAL));
+    }
+
+    @Test
+    public void alignsPeriodsToWallClock() {
+        long[] periods = new long[Source.values().length];
+        periods[Source.BATTERY.ordinal()] = 60000;
+        SourceScheduler scheduler = new SourceScheduler(periods);
+        // the first round samples, the next one on the minute, not 60 s after the start
+        assertTrue(scheduler.isDue(Source.BATTERY, T0 + 45000));
+        assertFalse(scheduler.isDue(Source.BATTERY, T0 + 59000));
+        assertTrue(scheduler.isDue(Source.BATTERY, T0 + 60000));
+        assertFalse(scheduler.isDue(Source.BATTERY, T0 + 119000));
+        // a missed boundary is caught up in the next round
+        assertTrue(scheduler.isDue(Source.BATTERY, T0 + 181000));
+    }
+
+    @Test
+    public void samplesEventDrivenSourcesOnce() {
+        long[] periods = new long[Source.values().length];
+        periods[Source.CELL.ordinal()] = SourceScheduler.EVENT_DRIVEN;
+        SourceScheduler scheduler = new SourceScheduler(periods);
+        assertEquals(1, rounds(scheduler, Source.CELL, T0, 100));
+        assertEquals(99, scheduler.getSkipped(Source.CELL));
+        assertEquals(100, rounds(scheduler, Source.LOCATION, T0, 100));
+    }
+
+    @Test
+    public void parsesPeriods() {
+        assertEquals(5000, SourceScheduler.parsePeriod(Source.WIFI, " 5000"));
+        assertEquals(SourceScheduler.EVENT_DRIVEN, SourceScheduler.parsePeriod(Source.WIFI, "-1"));
+        assertEquals(60000, SourceScheduler.parsePeriod(Source.BATTERY, "-5"));
+        assertEquals(60000, SourceScheduler.parsePeriod(Source.BATTERY, "often"));
+        assertEquals(Source.BATTERY, Source.fromKey("Battery"));
+        assertNull(Source.fromKey("modem"));
+        assertEquals("sampling_period_ip", Source.IP.getPreferenceKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingPeriods() {
+        new SourceScheduler(new long[2]);
+    }
+}